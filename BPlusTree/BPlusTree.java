@@ -1,16 +1,219 @@
 package BPlusTree;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import PhysicalOperators.ScanOperator;
+import TableElement.DataType;
+import TableElement.Tuple;
+
 /**
  * This is the class that is the actual B+Tree. Note there are some
- * assumptions about the tree: The order of the tree should not be 
+ * assumptions about the tree: The order of the tree should not be
  * larger than the number of keys but should not be smaller than the
  * number of keys if you multiply it by 2. We use the alternative (3)
  * for the method to store the keys.
+ * The tree of an attribute is stored in the directory next to the file
+ * of the table, the directory is named by the file, the attribute and
+ * the extension ".tree". The root node is stored in that directory.
+ * The tree is built by bulk loading the table, and it will be dropped
+ * when the file of the table is written again.
  * @author messfish
  *
  */
 public class BPlusTree {
-
+	
 	protected static final int KEY_LIMITS = 100;
+	private static final String EXTENSION = ".tree";
+	// this is the extension of the directory of the tree.
+	private String location; // this is the location of the root node.
+	private Map<String, IndexNode> cache;
+	// this map uses the location as the key and stores the index nodes
+	// that have been read as the value.
+	
+	/**
+	 * Constructor: this constructor takes the location of the tree. The
+	 * nodes will be read when the tree is searched.
+	 * @param location the location of the root node, which ends with
+	 * the separator.
+	 */
+	public BPlusTree(String location) {
+		this.location = location;
+		cache = new HashMap<>();
+	}
+	
+	/**
+	 * This method is used to find the pointers of the tuples that have
+	 * the key. Notice the index nodes are kept after they are read, the
+	 * leaf node is read every time since it is fetched through the buffer
+	 * pool anyway.
+	 * @param key the key that will be searched.
+	 * @return the list of pointers, each of them is the order of the data
+	 * page and the order of the tuple in the page.
+	 */
+	public List<int[]> search(DataType key) {
+		String path = location;
+		Node node = cache.get(path);
+		if(node==null) node = Node.read(path);
+		while(!node.isLeafNode()) {
+			cache.put(path, (IndexNode)node);
+			path = path + ((IndexNode)node).getChild(key) + "/";
+			node = cache.get(path);
+			if(node==null) node = Node.read(path);
+		}
+		return ((LeafNode)node).search(key);
+	}
+	
+	/**
+	 * This method is used to get the directory of the tree.
+	 * @param file the file of the table.
+	 * @param attribute the attribute without the table name.
+	 * @return the directory of the tree.
+	 */
+	public static File getDirectory(File file, String attribute) {
+		return new File(file.getPath() + "." + attribute + EXTENSION);
+	}
+	
+	/**
+	 * This method is used to build the tree of the attribute by bulk
+	 * loading the table. The pointers of the tuples are sorted by the key
+	 * in the memory, then the leaves are filled with the keys in order and
+	 * the index nodes are built level by level above them, so every leaf
+	 * has the same depth. Notice the entries of a single key are always
+	 * in the same leaf. The table should be in the row form.
+	 * @param file the file of the table.
+	 * @param attribute the attribute without the table name.
+	 * @return the directory of the tree.
+	 * @throws IllegalArgumentException throw this when the attribute
+	 * is not in the table.
+	 */
+	public static File build(File file, String attribute)
+			throws IllegalArgumentException {
+		File directory = getDirectory(file, attribute);
+		delete(directory);
+		ScanOperator scan = new ScanOperator(file, false,
+				Collections.singleton(attribute));
+		if(scan.getSchema().size()!=1) {
+			scan.close();
+			throw new IllegalArgumentException
+					("The attribute is not in the table!");
+		}
+		int type = scan.getSchema().values().iterator().next().getDataType();
+		int datatype = type==1 ? 1 : type==2 ? 3 : 2;
+		List<DataType> keys = new ArrayList<>();
+		List<int[]> pointers = new ArrayList<>();
+		Tuple tuple = null;
+		while((tuple = scan.getNextTuple())!=null) {
+			keys.add(Node.toKey(tuple, 0));
+			pointers.add(scan.getPointer());
+		}
+		scan.close();
+		/* the sort is stable, so the pointers of a key are in order. */
+		Integer[] order = new Integer[keys.size()];
+		for(int i=0;i<order.length;i++)
+			order[i] = i;
+		Arrays.sort(order, (a, b) -> keys.get(a).compare(keys.get(b)));
+		List<DataType> distinct = new ArrayList<>();
+		List<List<int[]>> entrylist = new ArrayList<>();
+		for(int i : order) {
+			int last = distinct.size() - 1;
+			if(last<0||distinct.get(last).compare(keys.get(i))!=0) {
+				distinct.add(keys.get(i));
+				entrylist.add(new ArrayList<>());
+				last++;
+			}
+			entrylist.get(last).add(pointers.get(i));
+		}
+		int leaves = Math.max(1, (distinct.size() + 2 * KEY_LIMITS - 1)
+				/ (2 * KEY_LIMITS));
+		int height = 0;
+		long capacity = 1;
+		while(capacity < leaves) {
+			capacity *= 2 * KEY_LIMITS + 1;
+			height++;
+		}
+		try {
+			writeNode(directory.getPath() + "/", datatype, distinct,
+					entrylist, 0, leaves, height);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return directory;
+	}
+	
+	/**
+	 * This method is used to write the node that covers the leaves in the
+	 * range, and the children of it recursively.
+	 * @param path the location of the node.
+	 * @param datatype the type of the keys.
+	 * @param keys the list of distinct keys in order.
+	 * @param entrylist the list of pointers of each key.
+	 * @param from the order of the first leaf covered.
+	 * @param to the order after the last leaf covered.
+	 * @param height the number of levels below the node.
+	 * @throws IOException throw this when the file could not be written.
+	 */
+	private static void writeNode(String path, int datatype,
+			List<DataType> keys, List<List<int[]>> entrylist, int from,
+			int to, int height) throws IOException {
+		int size = 2 * KEY_LIMITS;
+		/* this indicates we reach the leaf. */
+		if(height==0) {
+			int start = from * size, end = Math.min(to * size, keys.size());
+			LeafNode.write(path, datatype, keys.subList(start, end),
+					entrylist.subList(start, end));
+			return;
+		}
+		long group = 1;
+		for(int i=1;i<height;i++)
+			group *= 2 * KEY_LIMITS + 1;
+		List<DataType> separators = new ArrayList<>();
+		int child = 0;
+		for(int start=from;start<to;start+=group) {
+			int end = (int)Math.min(to, start + group);
+			if(start > from)
+				separators.add(keys.get(start * size));
+			writeNode(path + child + "/", datatype, keys, entrylist,
+					start, end, height - 1);
+			child++;
+		}
+		IndexNode.write(path, datatype, separators);
+	}
+	
+	/**
+	 * This method is used to drop all the trees of the table. It is called
+	 * when the file of the table is written again, since the pointers in
+	 * the trees will be out of date.
+	 * @param file the file of the table.
+	 */
+	public static void drop(File file) {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if(parent==null) return;
+		String prefix = file.getName() + ".";
+		File[] trees = parent.listFiles((dir, name) ->
+				name.startsWith(prefix)&&name.endsWith(EXTENSION));
+		if(trees==null) return;
+		for(File tree : trees)
+			delete(tree);
+	}
+	
+	/**
+	 * This method is used to delete the directory and everything in it.
+	 * @param file the file or the directory that will be deleted.
+	 */
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if(children!=null) {
+			for(File child : children)
+				delete(child);
+		}
+		file.delete();
+	}
 	
 }
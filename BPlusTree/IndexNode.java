@@ -1,12 +1,17 @@
 package BPlusTree;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 import TableElement.DataType;
 
 /**
  * This is the index node that stores the list of keys and a list of 
- * child entries. 
+ * child entries. The child i is stored in the directory named i under
+ * the directory of the node, the keys smaller than the key i are in the
+ * child i, and the rest of the keys are in the children after it.
  * @author messfish
  *
  */
@@ -29,7 +34,7 @@ public class IndexNode extends Node {
 
 	/**
 	 * This is the method that extends from the Node class: fetch the
-	 * desired data out and 
+	 * desired data out and put them into the key list.
 	 */
 	@Override
 	protected void assignData(ByteBuffer buffer) {
@@ -41,27 +46,46 @@ public class IndexNode extends Node {
 		int numberofkeys = buffer.getInt(start);
 		start += 4;
 		for(int i=0;i<numberofkeys;i++) {
-			int accumulates = 8;
-			/* this indicates the data is a long integer. */
-			if(datatype==1)
-				keylist.add(new DataType(buffer.getLong(start)));
-			/* this indicates the data is a double integer. */
-			else if(datatype==2)
-				keylist.add(new DataType(buffer.getDouble(start)));
-			/* this indicates the data is a string. */
-			else if(datatype==3) {
-				int length = buffer.get(start);
-				start++;
-				StringBuilder sb = new StringBuilder();
-				for(int j=0;j<length;j++) {
-					sb.append((char)buffer.get(start));
-					start++;
-				}
-				keylist.add(new DataType(sb.toString()));
-				accumulates = 0;
-			}
-			start += accumulates;
+			DataType key = readKey(buffer, start);
+			keylist.add(key);
+			start += getKeyLength(key);
 		}
 	}
 	
+	/**
+	 * This method is used to find the child that may contain the key.
+	 * Since the keys are sorted, we use the binary search to find the
+	 * number of keys that are not larger than the key.
+	 * @param key the key that will be searched.
+	 * @return the order of the child.
+	 */
+	public int getChild(DataType key) {
+		int low = 0, high = keylist.size();
+		while(low < high) {
+			int middle = (low + high) / 2;
+			if(keylist.get(middle).compare(key) <= 0)
+				low = middle + 1;
+			else high = middle;
+		}
+		return low;
+	}
+	
+	/**
+	 * This method is used to write the index node into the location.
+	 * @param filelocation the location of the node.
+	 * @param datatype the type of the keys.
+	 * @param keys the list of keys that separate the children.
+	 * @throws IOException throw this when the file could not be written.
+	 */
+	public static void write(String filelocation, int datatype, 
+			List<DataType> keys) throws IOException {
+		List<ByteBuffer> records = new ArrayList<>();
+		for(DataType key : keys) {
+			ByteBuffer record = ByteBuffer.allocate(getKeyLength(key));
+			writeKey(record, 0, key);
+			records.add(record);
+		}
+		write(filelocation, false, datatype, records);
+	}
+	
 }
@@ -1,10 +1,15 @@
 package BPlusTree;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import TableElement.DataType;
 
 /**
  * This class mainly used to describe the leaf node. Note besides the
- * key list. There is another list that stores the pointer of actual values. 
+ * key list. There is another list that stores the pointer of actual values.
  * Since we allow duplicates here, it should be a list of lists.
  * The format of the pointer is an array with 2 elements, with the first one
  * being the pointer to the file channel and second one is the index of the
@@ -13,28 +18,113 @@ import java.nio.ByteBuffer;
  *
  */
 public class LeafNode extends Node {
-
 	
+	private List<List<int[]>> entrylist;
+	// this list has the same order as the key list, it stores the list
+	// of pointers of each key. Notice it is filled by the constructor of
+	// the super class, so it should not be initialized here.
 	
 	/**
 	 * Constructor: this constructor extends the constructor from the Node
 	 * class. The format of the leaf node should be as follows: the first
-	 * one is the length of the table entries for a single key, Note it is 
+	 * one is the length of the table entries for a single key, Note it is
 	 * an integer so it would use 4 bytes. The second
-	 * one is the actual key, followed by the list of table entries. 
+	 * one is the actual key, followed by the list of table entries.
+	 * When the entries of a key do not fit in a single page, they are
+	 * split into several records with the same key.
 	 * @param filelocation
 	 */
 	public LeafNode(String filelocation) {
 		super(filelocation);
+		if(entrylist==null) entrylist = new ArrayList<>();
 	}
-
+	
 	/**
-	 * This method is used to write the content from the byte buffer into 
-	 * the key list and the 
+	 * This method is used to write the content from the byte buffer into
+	 * the key list and the list of entries. The record that has the same
+	 * key as the last one continues the entries of that key.
 	 */
 	@Override
 	protected void assignData(ByteBuffer buffer) {
-		
+		if(entrylist==null) entrylist = new ArrayList<>();
+		int start = 0;
+		/* skip the flag and the type of the data in the first page. */
+		if(isFirst) start = 8;
+		int numberofkeys = buffer.getInt(start);
+		start += 4;
+		for(int i=0;i<numberofkeys;i++) {
+			int length = buffer.getInt(start);
+			start += 4;
+			DataType key = readKey(buffer, start);
+			start += getKeyLength(key);
+			int last = keylist.size() - 1;
+			List<int[]> entries = null;
+			if(last>=0&&keylist.get(last).compare(key)==0)
+				entries = entrylist.get(last);
+			else {
+				entries = new ArrayList<>();
+				keylist.add(key);
+				entrylist.add(entries);
+			}
+			for(int j=0;j<length;j++) {
+				entries.add(new int[]{buffer.getInt(start),
+						buffer.getInt(start + 4)});
+				start += 8;
+			}
+		}
 	}
-
+	
+	/**
+	 * This method is used to find the pointers of the tuples that have
+	 * the key by using the binary search.
+	 * @param key the key that will be searched.
+	 * @return the list of pointers, an empty list if the key is not found.
+	 */
+	public List<int[]> search(DataType key) {
+		int low = 0, high = keylist.size() - 1;
+		while(low <= high) {
+			int middle = (low + high) / 2;
+			int compare = keylist.get(middle).compare(key);
+			if(compare==0) return entrylist.get(middle);
+			if(compare < 0) low = middle + 1;
+			else high = middle - 1;
+		}
+		return new ArrayList<>();
+	}
+	
+	/**
+	 * This method is used to write the leaf node into the location.
+	 * @param filelocation the location of the node.
+	 * @param datatype the type of the keys.
+	 * @param keys the list of keys in the node.
+	 * @param entrylist the list of pointers of each key.
+	 * @throws IOException throw this when the file could not be written.
+	 */
+	public static void write(String filelocation, int datatype,
+			List<DataType> keys, List<List<int[]>> entrylist) throws IOException {
+		List<ByteBuffer> records = new ArrayList<>();
+		for(int i=0;i<keys.size();i++) {
+			DataType key = keys.get(i);
+			List<int[]> entries = entrylist.get(i);
+			int length = getKeyLength(key);
+			/* the record should fit in a page with both heads in it. */
+			int limit = (NUM_OF_BYTES - 16 - length) / 8;
+			int point = 0;
+			do {
+				int size = Math.min(limit, entries.size() - point);
+				ByteBuffer record = ByteBuffer.allocate(4 + length + size * 8);
+				record.putInt(0, size);
+				writeKey(record, 4, key);
+				for(int j=0;j<size;j++) {
+					int[] pointer = entries.get(point + j);
+					record.putInt(4 + length + j * 8, pointer[0]);
+					record.putInt(8 + length + j * 8, pointer[1]);
+				}
+				records.add(record);
+				point += size;
+			}while(point < entries.size());
+		}
+		write(filelocation, true, datatype, records);
+	}
+	
 }
@@ -1,13 +1,15 @@
 package BPlusTree;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
 
+import Storage.ChannelPageReader;
+import Storage.PageWriter;
 import TableElement.DataType;
+import TableElement.Tuple;
 
 /**
  * This class is the super class of both the index node and the leaf
@@ -17,7 +19,8 @@ import TableElement.DataType;
  * may have a file that contains the list of keys. In addition, it 
  * has a list of file directory that serves as the children of the 
  * node. For each page, it will be a binary file which has a storage
- * as 4KB. 
+ * as 4KB. The type of the data is 1 for the long integer, 2 for the
+ * double value and 3 for the string.
  * @author messfish
  *
  */
@@ -43,17 +46,14 @@ public abstract class Node {
 		File file = new File(filelocation + "keylist");
 		keylist = new ArrayList<>();
 		try {
-			FileInputStream in = new FileInputStream(file);
-			FileChannel fc = in.getChannel();
-			ByteBuffer buffer = ByteBuffer.allocate(NUM_OF_BYTES);
-			int bufferlength = fc.read(buffer);
+			ChannelPageReader in = new ChannelPageReader(file, NUM_OF_BYTES);
+			ByteBuffer buffer = in.readPage();
 			isLeafNode = buffer.getInt(0) == 0;
 			datatype = buffer.getInt(4);
-			while(bufferlength!=-1) {
+			while(buffer!=null) {
 				assignData(buffer);
-				buffer = ByteBuffer.allocate(NUM_OF_BYTES);
 				isFirst = false;
-				bufferlength = fc.read(buffer);
+				buffer = in.readPage();
 			}
 			in.close();
 		} catch (Exception e) {
@@ -69,6 +69,148 @@ public abstract class Node {
 	 */
 	protected abstract void assignData(ByteBuffer buffer);
 	
+	/**
+	 * This method is used to read the node in the given location. The
+	 * flag in the first page tells whether it is a leaf node or an 
+	 * index node.
+	 * @param filelocation the location of the node.
+	 * @return the node in the location.
+	 */
+	public static Node read(String filelocation) {
+		boolean leaf = true;
+		ChannelPageReader in = new ChannelPageReader
+				(new File(filelocation + "keylist"), NUM_OF_BYTES);
+		ByteBuffer buffer = in.readPage();
+		if(buffer!=null)
+			leaf = buffer.getInt(0) == 0;
+		in.close();
+		if(leaf) return new LeafNode(filelocation);
+		return new IndexNode(filelocation);
+	}
+	
+	/**
+	 * This method is used to read a key from the buffer.
+	 * @param buffer the byte buffer that stores the key.
+	 * @param start the position of the key in the buffer.
+	 * @return the key in the data type form.
+	 */
+	protected DataType readKey(ByteBuffer buffer, int start) {
+		/* this indicates the data is a long integer. */
+		if(datatype==1)
+			return new DataType(buffer.getLong(start));
+		/* this indicates the data is a double value. */
+		if(datatype==2)
+			return new DataType(buffer.getDouble(start));
+		/* this indicates the data is a string, with the length first. */
+		int length = buffer.get(start);
+		start++;
+		StringBuilder sb = new StringBuilder();
+		for(int j=0;j<length;j++) {
+			sb.append((char)buffer.get(start));
+			start++;
+		}
+		return new DataType(sb.toString());
+	}
+	
+	/**
+	 * This method is used to write a key into the buffer.
+	 * @param buffer the byte buffer that stores the key.
+	 * @param start the position of the key in the buffer.
+	 * @param key the key that will be written.
+	 */
+	protected static void writeKey(ByteBuffer buffer, int start, DataType key) {
+		if(key.getType()==1)
+			buffer.putLong(start, key.getLong());
+		else if(key.getType()==5)
+			buffer.putDouble(start, key.getDouble());
+		else {
+			String str = key.getString();
+			buffer.put(start, (byte)str.length());
+			for(int i=0;i<str.length();i++)
+				buffer.put(start + i + 1, (byte)str.charAt(i));
+		}
+	}
+	
+	/**
+	 * This method is used to get the number of bytes of the key.
+	 * @param key the key that will be written.
+	 * @return the number of bytes used by the key.
+	 */
+	protected static int getKeyLength(DataType key) {
+		if(key.getType()==2)
+			return key.getString().length() + 1;
+		return 8;
+	}
+	
+	/**
+	 * This method is used to fetch the data in the tuple as a key. Notice
+	 * the string encoded by the dictionary will be decoded.
+	 * @param tuple the tuple that stores the data.
+	 * @param index the index of the data in the tuple.
+	 * @return the key in the data type form.
+	 */
+	public static DataType toKey(Tuple tuple, int index) {
+		int type = tuple.getType(index);
+		if(type==1) return new DataType(tuple.getLong(index));
+		if(type==5) return new DataType(tuple.getDouble(index));
+		return new DataType(tuple.getString(index));
+	}
+	
+	/**
+	 * This method is used to write the node into the given location. 
+	 * The records are put into the pages one by one, and each page starts
+	 * with the number of records in it. Notice a single record should
+	 * always fit in an empty page.
+	 * @param filelocation the location of the node.
+	 * @param leaf true means the node is a leaf node.
+	 * @param datatype the type of the keys.
+	 * @param records the list of records in the node.
+	 * @throws IOException throw this when the file could not be written.
+	 */
+	protected static void write(String filelocation, boolean leaf, int datatype, 
+			List<ByteBuffer> records) throws IOException {
+		new File(filelocation).mkdirs();
+		PageWriter out = new PageWriter(new File(filelocation + "keylist"));
+		ByteBuffer page = ByteBuffer.allocate(NUM_OF_BYTES);
+		page.putInt(0, leaf ? 0 : 1);
+		page.putInt(4, datatype);
+		int head = 8, start = 12, count = 0;
+		for(ByteBuffer record : records) {
+			/* the page is full, write it out and start a new one. */
+			if(start + record.capacity() > NUM_OF_BYTES) {
+				page.putInt(head, count);
+				out.writePage(page);
+				page = ByteBuffer.allocate(NUM_OF_BYTES);
+				head = 0;
+				start = 4;
+				count = 0;
+			}
+			for(int i=0;i<record.capacity();i++)
+				page.put(start + i, record.get(i));
+			start += record.capacity();
+			count++;
+		}
+		page.putInt(head, count);
+		out.writePage(page);
+		out.close();
+	}
+	
+	/**
+	 * This method is used to tell whether the node is a leaf node.
+	 * @return true if the node is a leaf node.
+	 */
+	public boolean isLeafNode() {
+		return isLeafNode;
+	}
+	
+	/**
+	 * This is the getter method of the key list.
+	 * @return the list of keys in the node.
+	 */
+	public List<DataType> getKeyList() {
+		return keylist;
+	}
+	
 	/**
 	 * This method is used to check whether there is an overflow in
 	 * the B+ Tree. Basically it checks whether the order of the BPlusTree
@@ -0,0 +1,541 @@
+package Evaluator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import SQLExpression.AddOperator;
+import SQLExpression.AllOperator;
+import SQLExpression.AndOperator;
+import SQLExpression.AnyOperator;
+import SQLExpression.BinaryExpression;
+import SQLExpression.BoundColumnNode;
+import SQLExpression.ColumnNode;
+import SQLExpression.DateValue;
+import SQLExpression.DivideOperator;
+import SQLExpression.DoubleValue;
+import SQLExpression.Equals;
+import SQLExpression.ExistsOperator;
+import SQLExpression.Expression;
+import SQLExpression.ExpressionVisitor;
+import SQLExpression.GreaterThan;
+import SQLExpression.GreaterThanOrEquals;
+import SQLExpression.InOperator;
+import SQLExpression.LessThan;
+import SQLExpression.LessThanOrEquals;
+import SQLExpression.LikeOperator;
+import SQLExpression.LongValue;
+import SQLExpression.MinusOperator;
+import SQLExpression.MultiAndOperator;
+import SQLExpression.MultiOrOperator;
+import SQLExpression.MultiplyOperator;
+import SQLExpression.NegativeValue;
+import SQLExpression.NotEquals;
+import SQLExpression.NotOperator;
+import SQLExpression.OrOperator;
+import SQLExpression.Parenthesis;
+import SQLExpression.StringValue;
+import SQLExpression.Subselect;
+import SQLExpression.TimeValue;
+import Support.Mule;
+import Support.TimeConversion;
+import TableElement.TupleBatch;
+
+/**
+ * This class is used to filter a whole batch of tuples at once. The
+ * expression is bound to the schema and turned into a tree of kernels,
+ * each kernel sets a bitmap that has a bit for every row of the batch.
+ * The comparison of a column of numbers with a constant is a kernel that
+ * runs over the vector of that column in a tight loop, and the bitmaps
+ * of the children of the and, or and not operators (the multiple ones as
+ * well) are combined by the bitwise operations, 64 rows at a time.
+ * The part of the expression that could not be done on the vectors is
+ * checked by an evaluator for each row that is selected in the batch.
+ * @author messfish
+ *
+ */
+public class BatchFilter implements ExpressionVisitor {
+	
+	/**
+	 * This interface is a node of the tree of kernels: it sets the bit of
+	 * every row in the batch that passes the expression of the node.
+	 */
+	private interface Kernel {
+		
+		/**
+		 * This method sets the bitmap of the rows in the batch, every word
+		 * of the bitmap will be written.
+		 * @param batch the batch that will be checked.
+		 * @param bits the bitmap of the rows.
+		 */
+		public void apply(TupleBatch batch, long[] bits);
+		
+	}
+	
+	private static final int WORDS = (TupleBatch.BATCH_SIZE + 63) / 64;
+	// this is the number of words in the bitmap of a batch.
+	private static final int EQUALS = 0, NOT_EQUALS = 1, GREATER = 2,
+			GREATER_EQUALS = 3, LESS = 4, LESS_EQUALS = 5;
+	// these are the kinds of the comparison.
+	private static final int[] FLIPPED = {EQUALS, NOT_EQUALS, LESS,
+			LESS_EQUALS, GREATER, GREATER_EQUALS};
+	// the comparison when the two sides are swapped.
+	private static final int[] PATTERNS = {2, 5, 4, 6, 1, 3};
+	// the pattern of each comparison: the first bit is set when it passes
+	// the smaller values, the second one for the equal values and the
+	// third one for the larger values.
+	private Map<String, Mule> schema; // this is the schema of the batches.
+	private Kernel kernel; // this is the kernel of the last node visited.
+	private Kernel root; // this is the kernel of the whole expression.
+	private long[] bitmap; // this is the bitmap of the rows in the batch.
+	private boolean vectorized = true;
+	// this flag shows no row is checked by the evaluator.
+	private TimeConversion convert = new TimeConversion();
+	
+	/**
+	 * Constructor: this constructor binds the expression to the schema
+	 * and builds the tree of kernels.
+	 * @param express the expression that filters the batches.
+	 * @param schema the schema of the batches.
+	 */
+	public BatchFilter(Expression express, Map<String, Mule> schema) {
+		this.schema = schema;
+		bitmap = new long[WORDS];
+		new ExpressionBinder(schema).bind(express).accept(this);
+		root = kernel;
+	}
+	
+	/**
+	 * This method filters the batch: the rows that do not pass the
+	 * expression are taken out of the selection vector of the batch.
+	 * Every row is written to the end of the selection vector and the
+	 * end only moves when its bit is set, so there is no branch that
+	 * depends on the data.
+	 * @param batch the batch that will be filtered.
+	 * @return the number of rows selected after the filter.
+	 */
+	public int filter(TupleBatch batch) {
+		root.apply(batch, bitmap);
+		int[] selection = batch.getSelection();
+		int count = 0;
+		for(int i=0;i<batch.getCount();i++) {
+			int row = selection[i];
+			selection[count] = row;
+			count += (int)(bitmap[row >>> 6] >>> row) & 1;
+		}
+		batch.setCount(count);
+		return count;
+	}
+	
+	/**
+	 * This method shows whether the whole expression is done by the
+	 * kernels on the vectors, without the evaluator.
+	 * @return true if no row is checked by the evaluator.
+	 */
+	public boolean isVectorized() {
+		return vectorized;
+	}
+	
+	/**
+	 * This method builds the kernel of the expression that could not be
+	 * done on the vectors: the rows selected are checked one by one by
+	 * an evaluator that is built once.
+	 * @param express the expression that will be checked.
+	 */
+	private void fallback(Expression express) {
+		vectorized = false;
+		Evaluator evaluator = new Evaluator(express, schema);
+		kernel = (batch, bits) -> {
+			Arrays.fill(bits, 0);
+			for(int i=0;i<batch.getCount();i++) {
+				int row = batch.getSelected(i);
+				if(evaluator.checkValid(batch.getTuple(row)))
+					bits[row >>> 6] |= 1L << row;
+			}
+		};
+	}
+	
+	/**
+	 * This method builds the kernels of the children, the bitmaps of
+	 * them are combined by a bitwise and or a bitwise or. Notice the
+	 * conjunction of no children is true, the disjunction is false.
+	 * @param list the list of the children.
+	 * @param and true for the conjunction, false for the disjunction.
+	 */
+	private void combine(List<Expression> list, boolean and) {
+		if(list.isEmpty()) {
+			kernel = (batch, bits) -> Arrays.fill(bits, and ? -1L : 0L);
+			return;
+		}
+		Kernel[] children = new Kernel[list.size()];
+		for(int i=0;i<children.length;i++) {
+			list.get(i).accept(this);
+			children[i] = kernel;
+		}
+		long[] other = new long[WORDS];
+		kernel = (batch, bits) -> {
+			children[0].apply(batch, bits);
+			for(int i=1;i<children.length;i++) {
+				children[i].apply(batch, other);
+				if(and) for(int j=0;j<WORDS;j++) bits[j] &= other[j];
+				else for(int j=0;j<WORDS;j++) bits[j] |= other[j];
+			}
+		};
+	}
+	
+	/**
+	 * This method builds the kernel of the comparison. When one side is a
+	 * column of numbers and the other side is a constant, the comparison
+	 * is done on the vector of the column. Otherwise the evaluator is used.
+	 * @param comparator the comparator of the two children.
+	 * @param comparison the kind of the comparison.
+	 */
+	private void compare(BinaryExpression comparator, int comparison) {
+		Expression left = comparator.getLeftChild();
+		Expression right = comparator.getRightChild();
+		if(isColumn(left)&&isConstant(right))
+			kernel = columnKernel((BoundColumnNode)left, right, comparison);
+		else if(isColumn(right)&&isConstant(left))
+			kernel = columnKernel((BoundColumnNode)right, left,
+					FLIPPED[comparison]);
+		else fallback(comparator);
+	}
+	
+	/**
+	 * This method checks whether the expression is a column of numbers
+	 * that is bound to the schema. Notice the dates and the times are
+	 * stored as double values.
+	 * @param express the expression that will be checked.
+	 * @return true if it is a column of numbers.
+	 */
+	private boolean isColumn(Expression express) {
+		if(!(express instanceof BoundColumnNode)) return false;
+		int type = ((BoundColumnNode)express).getDataType();
+		return type==1||type==3||type==4||type==5;
+	}
+	
+	/**
+	 * This method checks whether the expression is a constant of number.
+	 * @param express the expression that will be checked.
+	 * @return true if it is a constant of number.
+	 */
+	private boolean isConstant(Expression express) {
+		return express instanceof LongValue||express instanceof DoubleValue
+				||express instanceof DateValue||express instanceof TimeValue;
+	}
+	
+	/**
+	 * This method builds the kernel that compares a column of numbers with
+	 * a constant. A long column and a long constant are compared as long
+	 * values, the others are compared as double values, the same as the
+	 * evaluator does.
+	 * @param column the column in the comparison.
+	 * @param constant the constant in the comparison.
+	 * @param comparison the kind of the comparison, the column is on the left.
+	 * @return the kernel of the comparison.
+	 */
+	private Kernel columnKernel(BoundColumnNode column, Expression constant,
+			int comparison) {
+		int index = column.getIndex();
+		boolean longcolumn = column.getDataType()==1;
+		if(longcolumn&&constant instanceof LongValue) {
+			long value = ((LongValue)constant).getData();
+			return (batch, bits) -> filterLongs(batch.getColumn(index),
+					batch.size(), value, comparison, bits);
+		}
+		double value = 0;
+		if(constant instanceof LongValue)
+			value = ((LongValue)constant).getData();
+		else if(constant instanceof DoubleValue)
+			value = ((DoubleValue)constant).getData();
+		else if(constant instanceof DateValue)
+			value = convert.fromDateToNumber(((DateValue)constant).getData());
+		else value = convert.fromTimeToNumber(((TimeValue)constant).getData());
+		double number = value;
+		return (batch, bits) -> filterDoubles(batch.getColumn(index),
+				longcolumn, batch.size(), number, comparison, bits);
+	}
+	
+	/**
+	 * This method sets the bitmap of the long column compared with a long
+	 * constant, the whole vector is checked in a single loop without a
+	 * branch. For every 64 rows, the rows smaller than the constant and
+	 * the rows larger than it are gathered into two words, the word of
+	 * the comparison is then picked by the masks of its pattern.
+	 * @param column the vector of the column.
+	 * @param size the number of rows in the batch.
+	 * @param value the value of the constant.
+	 * @param comparison the kind of the comparison.
+	 * @param bits the bitmap of the rows.
+	 */
+	private static void filterLongs(long[] column, int size, long value,
+			int comparison, long[] bits) {
+		int pattern = PATTERNS[comparison];
+		for(int word=0;word<WORDS;word++) {
+			int start = word << 6, end = Math.min(size, start + 64);
+			long less = 0, greater = 0;
+			for(int i=start;i<end;i++) {
+				less |= (column[i] < value ? 1L : 0L) << i;
+				greater |= (column[i] > value ? 1L : 0L) << i;
+			}
+			bits[word] = pick(pattern, less, greater);
+		}
+	}
+	
+	/**
+	 * This method sets the bitmap of the column compared with a double
+	 * constant in the same way as the long column. Notice two values are
+	 * equal when neither of them is smaller than the other one, the same
+	 * as the evaluator does.
+	 * @param column the vector of the column.
+	 * @param longcolumn true if the column stores long values.
+	 * @param size the number of rows in the batch.
+	 * @param value the value of the constant.
+	 * @param comparison the kind of the comparison.
+	 * @param bits the bitmap of the rows.
+	 */
+	private static void filterDoubles(long[] column, boolean longcolumn,
+			int size, double value, int comparison, long[] bits) {
+		int pattern = PATTERNS[comparison];
+		for(int word=0;word<WORDS;word++) {
+			int start = word << 6, end = Math.min(size, start + 64);
+			long less = 0, greater = 0;
+			if(longcolumn) {
+				for(int i=start;i<end;i++) {
+					double number = column[i];
+					less |= (number < value ? 1L : 0L) << i;
+					greater |= (number > value ? 1L : 0L) << i;
+				}
+			}else {
+				for(int i=start;i<end;i++) {
+					double number = Double.longBitsToDouble(column[i]);
+					less |= (number < value ? 1L : 0L) << i;
+					greater |= (number > value ? 1L : 0L) << i;
+				}
+			}
+			bits[word] = pick(pattern, less, greater);
+		}
+	}
+	
+	/**
+	 * This method picks the rows that pass the comparison from the rows
+	 * smaller than the constant and the rows larger than it.
+	 * @param pattern the pattern of the comparison.
+	 * @param less the bits of the rows smaller than the constant.
+	 * @param greater the bits of the rows larger than the constant.
+	 * @return the bits of the rows that pass the comparison.
+	 */
+	private static long pick(int pattern, long less, long greater) {
+		long lessmask = -(pattern & 1), equalmask = -(pattern >>> 1 & 1);
+		long greatermask = -(pattern >>> 2 & 1);
+		return less & lessmask | greater & greatermask
+				| ~(less | greater) & equalmask;
+	}
+	
+	@Override
+	public void visit(AddOperator operator) {
+		fallback(operator);
+	}
+	
+	@Override
+	public void visit(MinusOperator operator) {
+		fallback(operator);
+	}
+	
+	@Override
+	public void visit(MultiplyOperator operator) {
+		fallback(operator);
+	}
+	
+	@Override
+	public void visit(DivideOperator operator) {
+		fallback(operator);
+	}
+	
+	@Override
+	public void visit(NegativeValue operator) {
+		fallback(operator);
+	}
+	
+	/**
+	 * This method builds the kernel of the and operator, the bitmaps of
+	 * the two children are combined by a bitwise and.
+	 * @param operator the and operator that needs to be handled.
+	 */
+	@Override
+	public void visit(AndOperator operator) {
+		combine(Arrays.asList(operator.getLeftChild(),
+				operator.getRightChild()), true);
+	}
+	
+	/**
+	 * This method builds the kernel of the or operator, the bitmaps of
+	 * the two children are combined by a bitwise or.
+	 * @param operator the or operator that needs to be handled.
+	 */
+	@Override
+	public void visit(OrOperator operator) {
+		combine(Arrays.asList(operator.getLeftChild(),
+				operator.getRightChild()), false);
+	}
+	
+	/**
+	 * This method builds the kernel of the not operator, the bitmap of
+	 * the child is flipped.
+	 * @param operator the not operator that needs to be handled.
+	 */
+	@Override
+	public void visit(NotOperator operator) {
+		operator.getChild().accept(this);
+		Kernel child = kernel;
+		kernel = (batch, bits) -> {
+			child.apply(batch, bits);
+			for(int i=0;i<WORDS;i++) bits[i] = ~bits[i];
+		};
+	}
+	
+	/**
+	 * This method builds the kernel of the equals operator.
+	 * @param comparator the comparator performs the comparison.
+	 */
+	@Override
+	public void visit(Equals comparator) {
+		compare(comparator, EQUALS);
+	}
+	
+	/**
+	 * This method builds the kernel of the not equal operator.
+	 * @param comparator the comparator performs the comparison.
+	 */
+	@Override
+	public void visit(NotEquals comparator) {
+		compare(comparator, NOT_EQUALS);
+	}
+	
+	/**
+	 * This method builds the kernel of the greater than operator.
+	 * @param comparator the comparator performs the comparison.
+	 */
+	@Override
+	public void visit(GreaterThan comparator) {
+		compare(comparator, GREATER);
+	}
+	
+	/**
+	 * This method builds the kernel of the greater than or equal operator.
+	 * @param comparator the comparator performs the comparison.
+	 */
+	@Override
+	public void visit(GreaterThanOrEquals comparator) {
+		compare(comparator, GREATER_EQUALS);
+	}
+	
+	/**
+	 * This method builds the kernel of the less than operator.
+	 * @param comparator the comparator performs the comparison.
+	 */
+	@Override
+	public void visit(LessThan comparator) {
+		compare(comparator, LESS);
+	}
+	
+	/**
+	 * This method builds the kernel of the less than or equal operator.
+	 * @param comparator the comparator performs the comparison.
+	 */
+	@Override
+	public void visit(LessThanOrEquals comparator) {
+		compare(comparator, LESS_EQUALS);
+	}
+	
+	@Override
+	public void visit(LikeOperator operator) {
+		fallback(operator);
+	}
+	
+	/**
+	 * This method builds the kernel of the expression inside the
+	 * parenthesis.
+	 * @param expression the parenthesis that is visited.
+	 */
+	@Override
+	public void visit(Parenthesis expression) {
+		expression.getChild().accept(this);
+	}
+	
+	@Override
+	public void visit(ExistsOperator operator) {
+		fallback(operator);
+	}
+	
+	@Override
+	public void visit(InOperator operator) {
+		fallback(operator);
+	}
+	
+	@Override
+	public void visit(AllOperator operator) {
+		fallback(operator);
+	}
+	
+	@Override
+	public void visit(AnyOperator operator) {
+		fallback(operator);
+	}
+	
+	@Override
+	public void visit(DoubleValue value) {
+		fallback(value);
+	}
+	
+	@Override
+	public void visit(StringValue value) {
+		fallback(value);
+	}
+	
+	@Override
+	public void visit(ColumnNode node) {
+		fallback(node);
+	}
+	
+	@Override
+	public void visit(Subselect subquery) {
+		fallback(subquery);
+	}
+	
+	/**
+	 * This method builds the kernel of the multiple and operator, the
+	 * bitmaps of all the children are combined by a bitwise and.
+	 * @param operator the operator that has a list of children.
+	 */
+	@Override
+	public void visit(MultiAndOperator operator) {
+		combine(operator.getList(), true);
+	}
+	
+	/**
+	 * This method builds the kernel of the multiple or operator, the
+	 * bitmaps of all the children are combined by a bitwise or.
+	 * @param operator the operator that has a list of children.
+	 */
+	@Override
+	public void visit(MultiOrOperator operator) {
+		combine(operator.getList(), false);
+	}
+	
+	@Override
+	public void visit(LongValue value) {
+		fallback(value);
+	}
+	
+	@Override
+	public void visit(DateValue value) {
+		fallback(value);
+	}
+	
+	@Override
+	public void visit(TimeValue value) {
+		fallback(value);
+	}
+	
+}
@@ -1,12 +1,13 @@
 package Evaluator;
 
 import java.util.Map;
-import java.util.Stack;
+import java.util.function.Predicate;
 
 import SQLExpression.AddOperator;
 import SQLExpression.AllOperator;
 import SQLExpression.AndOperator;
 import SQLExpression.AnyOperator;
+import SQLExpression.BoundColumnNode;
 import SQLExpression.ColumnNode;
 import SQLExpression.DateValue;
 import SQLExpression.DivideOperator;
@@ -44,6 +45,15 @@ import Support.TimeConversion;
  * is valid or not. Basically it will return a boolean value. It follows
  * this logic: build two stacks. One is for handling different data types,
  * one is storing the boolean values. 
+ * The first stack is a tuple, so the values are kept as primitives and
+ * no data type object is built while the expression is evaluated.
+ * The evaluator could also be built once for an operator: the expression
+ * is bound to the schema of the operator first, so the columns are found
+ * by their indexes instead of the names, and the same evaluator is used
+ * again for every tuple. The bound expression is also compiled into a
+ * tree of functions of its types when it is possible, see the expression
+ * compiler class, the stacks are then only used when the expression
+ * could not be compiled.
  * @author messfish
  *
  */
@@ -52,8 +62,13 @@ public class Evaluator implements ExpressionVisitor {
 	private Tuple tuple;
 	private Expression express;
 	private Map<String, Mule> schema;
-	private Stack<DataType> stack1;
-	private Stack<Boolean> stack2;
+	private Tuple stack1; // this tuple is used as the stack of the data.
+	private int top; // this is the number of data in the first stack.
+	private boolean[] stack2; // this array is used as the stack of booleans.
+	private int top2; // this is the number of booleans in the second stack.
+	private Predicate<Tuple> predicate; // the compiled boolean expression.
+	private ExpressionCompiler.Calculation calculation;
+	// this is the compiled expression of a data.
 	private boolean noDouble; 
 	// the variable checks whether there is a double value in the expression.
 	TimeConversion convert = new TimeConversion();
@@ -69,8 +84,28 @@ public class Evaluator implements ExpressionVisitor {
 		this.tuple = tuple;
 		this.express = express;
 		this.schema = schema;
-		stack1 = new Stack<>();
-		stack2 = new Stack<>();
+		stack1 = new Tuple(8, 0);
+		stack2 = new boolean[8];
+	}
+	
+	/**
+	 * Constructor: this constructor binds the expression to the schema
+	 * once, the evaluator could then be used for every tuple of the
+	 * operator by the methods that take the tuple. The bound expression
+	 * is compiled when it is possible.
+	 * @param express the expression that evaluates the tuples.
+	 * @param schema the schema that the table possess.
+	 */
+	public Evaluator(Expression express, Map<String, Mule> schema) {
+		this.express = new ExpressionBinder(schema).bind(express);
+		this.schema = schema;
+		stack1 = new Tuple(8, 0);
+		stack2 = new boolean[8];
+		ExpressionCompiler compiler = new ExpressionCompiler();
+		if(compiler.compile(this.express)) {
+			predicate = compiler.getPredicate();
+			calculation = compiler.getCalculation();
+		}
 	}
 	
 	/**
@@ -84,8 +119,8 @@ public class Evaluator implements ExpressionVisitor {
 		 * tree since the column node will need to extract data. */
 		tuple = new Tuple(schema.size(), 1);
 		this.schema = schema;
-		stack1 = new Stack<>();
-		stack2 = new Stack<>();
+		stack1 = new Tuple(8, 0);
+		stack2 = new boolean[8];
 		noDouble = true;
 	}
 	
@@ -100,9 +135,50 @@ public class Evaluator implements ExpressionVisitor {
 		express.accept(this);
 		/* this could only happen when the expression is empty. In this case,
 		 * simply return a true value. */
-		if(stack2.isEmpty())
+		if(top2==0)
 			return true;
-		return stack2.pop();
+		return stack2[--top2];
+	}
+	
+	/**
+	 * This method checks whether the tuple given is a valid one, it is
+	 * used by the evaluator that is built once for the operator.
+	 * @param tuple the tuple that will be checked.
+	 * @return the boolean value shows whether the tuple is valid or not.
+	 */
+	public boolean checkValid(Tuple tuple) {
+		if(predicate!=null)
+			return predicate.test(tuple);
+		start(tuple);
+		return checkValid();
+	}
+	
+	/**
+	 * This method is used to calculate the data of the tuple given and
+	 * write it into the result tuple, it is used by the evaluator that
+	 * is built once for the operator.
+	 * @param tuple the tuple that the data is calculated from.
+	 * @param result the tuple that stores the result.
+	 * @param index the index of the result in the tuple.
+	 */
+	public void writeData(Tuple tuple, Tuple result, int index) {
+		if(calculation!=null) {
+			calculation.write(tuple, result, index);
+			return;
+		}
+		start(tuple);
+		writeData(result, index);
+	}
+	
+	/**
+	 * This method is used to set the tuple that will be evaluated next
+	 * and clear the two stacks.
+	 * @param tuple the tuple that will be evaluated.
+	 */
+	private void start(Tuple tuple) {
+		this.tuple = tuple;
+		top = 0;
+		top2 = 0;
 	}
 	
 	/**
@@ -114,7 +190,18 @@ public class Evaluator implements ExpressionVisitor {
 	 */
 	public DataType getData() {
 		express.accept(this);
-		return stack1.pop();
+		return stack1.getData(--top);
+	}
+	
+	/**
+	 * This method is used to calculate the data and write it into the
+	 * tuple given, so no data type object needs to be built.
+	 * @param result the tuple that stores the result.
+	 * @param index the index of the result in the tuple.
+	 */
+	public void writeData(Tuple result, int index) {
+		express.accept(this);
+		result.copyData(index, stack1, --top);
 	}
 	
 	/**
@@ -129,6 +216,94 @@ public class Evaluator implements ExpressionVisitor {
 		return noDouble;
 	}
 	
+	/**
+	 * This method is used to get the place on the top of the first stack
+	 * for a new data. The stack grows when it is full.
+	 * @return the index of the new data in the stack.
+	 */
+	private int push() {
+		if(top==stack1.datasize()) {
+			Tuple larger = new Tuple(top * 2, 0);
+			for(int i=0;i<top;i++)
+				larger.copyData(i, stack1, i);
+			stack1 = larger;
+		}
+		return top++;
+	}
+	
+	/**
+	 * This method is used to push a boolean value on the second stack.
+	 * The stack grows when it is full.
+	 * @param value the boolean value.
+	 */
+	private void push(boolean value) {
+		if(top2==stack2.length) {
+			boolean[] larger = new boolean[top2 * 2];
+			System.arraycopy(stack2, 0, larger, 0, top2);
+			stack2 = larger;
+		}
+		stack2[top2++] = value;
+	}
+	
+	/**
+	 * This method is used to get the number in the first stack as a
+	 * double value, whether it is a long value or not.
+	 * @param index the index of the data in the stack.
+	 * @return the double value of the number.
+	 */
+	private double getNumber(int index) {
+		if(stack1.getType(index)==5)
+			return stack1.getDouble(index);
+		return stack1.getLong(index);
+	}
+	
+	/**
+	 * This method pops out two data from stack1, does the calculation and
+	 * pushes the result back. The result is a long value only when both
+	 * of the data are long values.
+	 * @param operator the operator of the calculation: + - * or /.
+	 */
+	private void calculate(char operator) {
+		int right = --top, left = --top;
+		if(stack1.getType(left)!=5&&stack1.getType(right)!=5) {
+			long number1 = stack1.getLong(right), number2 = stack1.getLong(left);
+			long result = 0;
+			if(operator=='+') result = number2 + number1;
+			else if(operator=='-') result = number2 - number1;
+			else if(operator=='*') result = number2 * number1;
+			else result = number2 / number1;
+			stack1.setLong(push(), result);
+		}else {
+			double number1 = getNumber(right), number2 = getNumber(left);
+			double result = 0;
+			if(operator=='+') result = number2 + number1;
+			else if(operator=='-') result = number2 - number1;
+			else if(operator=='*') result = number2 * number1;
+			else result = number2 / number1;
+			stack1.setDouble(push(), result);
+		}
+	}
+	
+	/**
+	 * This method pops out two data from stack1 and compares them. The
+	 * long values and the double values could be compared with each other.
+	 * @return -1 when the left data is smaller than the right data, 1 when
+	 * the left data is larger and 0 when they are equal.
+	 */
+	private int compare() {
+		int right = --top, left = --top;
+		int type1 = stack1.getType(right), type2 = stack1.getType(left);
+		if(type1==1&&type2==1)
+			return Long.compare(stack1.getLong(left), stack1.getLong(right));
+		if((type1==1||type1==5)&&(type2==1||type2==5)) {
+			double number1 = getNumber(right), number2 = getNumber(left);
+			if(number2 < number1) return -1;
+			else if(number2 > number1) return 1;
+			return 0;
+		}
+		return stack1.compare(left, stack1, right);
+	}
+	
 	/**
 	 * This method handles the addition of two data types. It pops out
 	 * two data type from stack1. Doing an addition and push it back on
@@ -139,24 +314,7 @@ public class Evaluator implements ExpressionVisitor {
 	public void visit(AddOperator operator) {
 		operator.getLeftChild().accept(this);
 		operator.getRightChild().accept(this);
-		DataType data1 = stack1.pop(), data2 = stack1.pop();
-		/* normally there could only be four data types. enumerate them
-		 * all and perform the calculation separately. */
-		if(data1.getType()==1&&data2.getType()==1) {
-			long number1 = data1.getLong(), number2 = data2.getLong();
-			stack1.push(new DataType(number2 + number1));
-		}else if(data1.getType()==1&&data2.getType()==5) {
-			long number1 = data1.getLong();
-			double number2 = data2.getDouble();
-			stack1.push(new DataType(number2 + number1));
-		}else if(data1.getType()==5&&data2.getType()==1) {
-			double number1 = data1.getDouble();
-			long number2 = data2.getLong();
-			stack1.push(new DataType(number2 + number1));
-		}else {
-			double number1 = data1.getDouble(), number2 = data2.getDouble();
-			stack1.push(new DataType(number2 + number1));
-		}
+		calculate('+');
 	}
 
 	/**
@@ -169,24 +327,7 @@ public class Evaluator implements ExpressionVisitor {
 	public void visit(MinusOperator operator) {
 		operator.getLeftChild().accept(this);
 		operator.getRightChild().accept(this);
-		DataType data1 = stack1.pop(), data2 = stack1.pop();
-		/* normally there could only be four data types. enumerate them
-		 * all and perform the calculation separately. */
-		if(data1.getType()==1&&data2.getType()==1) {
-			long number1 = data1.getLong(), number2 = data2.getLong();
-			stack1.push(new DataType(number2 - number1));
-		}else if(data1.getType()==1&&data2.getType()==5) {
-			long number1 = data1.getLong();
-			double number2 = data2.getDouble();
-			stack1.push(new DataType(number2 - number1));
-		}else if(data1.getType()==5&&data2.getType()==1) {
-			double number1 = data1.getDouble();
-			long number2 = data2.getLong();
-			stack1.push(new DataType(number2 - number1));
-		}else {
-			double number1 = data1.getDouble(), number2 = data2.getDouble();
-			stack1.push(new DataType(number2 - number1));
-		}
+		calculate('-');
 	}
 
 	/**
@@ -199,24 +340,7 @@ public class Evaluator implements ExpressionVisitor {
 	public void visit(MultiplyOperator operator) {
 		operator.getLeftChild().accept(this);
 		operator.getRightChild().accept(this);
-		DataType data1 = stack1.pop(), data2 = stack1.pop();
-		/* normally there could only be four data type combinations.
-		 * enumerate them all and perform the calculation separately. */
-		if(data1.getType()==1&&data2.getType()==1) {
-			long number1 = data1.getLong(), number2 = data2.getLong();
-			stack1.push(new DataType(number2 * number1));
-		}else if(data1.getType()==1&&data2.getType()==5) {
-			long number1 = data1.getLong();
-			double number2 = data2.getDouble();
-			stack1.push(new DataType(number2 * number1));
-		}else if(data1.getType()==5&&data2.getType()==1) {
-			double number1 = data1.getDouble();
-			long number2 = data2.getLong();
-			stack1.push(new DataType(number2 * number1));
-		}else {
-			double number1 = data1.getDouble(), number2 = data2.getDouble();
-			stack1.push(new DataType(number2 * number1));
-		}
+		calculate('*');
 	}
 
 	/**
@@ -229,24 +353,7 @@ public class Evaluator implements ExpressionVisitor {
 	public void visit(DivideOperator operator) {
 		operator.getLeftChild().accept(this);
 		operator.getRightChild().accept(this);
-		DataType data1 = stack1.pop(), data2 = stack1.pop();
-		/* normally there could only be four data type combinations.
-		 * enumerate them all and perform the calculation separately. */
-		if(data1.getType()==1&&data2.getType()==1) {
-			long number1 = data1.getLong(), number2 = data2.getLong();
-			stack1.push(new DataType(number2 / number1));
-		}else if(data1.getType()==1&&data2.getType()==5) {
-			long number1 = data1.getLong();
-			double number2 = data2.getDouble();
-			stack1.push(new DataType(number2 / number1));
-		}else if(data1.getType()==5&&data2.getType()==1) {
-			double number1 = data1.getDouble();
-			long number2 = data2.getLong();
-			stack1.push(new DataType(number2 / number1));
-		}else {
-			double number1 = data1.getDouble(), number2 = data2.getDouble();
-			stack1.push(new DataType(number2 / number1));
-		}
+		calculate('/');
 	}
 
 	/**
@@ -257,16 +364,11 @@ public class Evaluator implements ExpressionVisitor {
 	@Override
 	public void visit(NegativeValue operator) {
 		operator.getChild().accept(this);
-		DataType data = stack1.pop();
 		/* the type of the data could only be a long integer or a double
 		 * value, handle them separately. */
-		if(data.getType()==1) {
-			long number = data.getLong();
-			stack1.push(new DataType(-number));
-		}else {
-			double number = data.getDouble();
-			stack1.push(new DataType(-number));
-		}
+		if(stack1.getType(top - 1)==5)
+			stack1.setDouble(top - 1, -stack1.getDouble(top - 1));
+		else stack1.setLong(top - 1, -stack1.getLong(top - 1));
 	}
 
 	/**
@@ -278,8 +380,8 @@ public class Evaluator implements ExpressionVisitor {
 	public void visit(AndOperator operator) {
 		operator.getLeftChild().accept(this);
 		operator.getRightChild().accept(this);
-		boolean right = stack2.pop(), left = stack2.pop();
-		stack2.push(left & right);
+		boolean right = stack2[--top2], left = stack2[--top2];
+		push(left & right);
 	}
 
 	/**
@@ -291,8 +393,8 @@ public class Evaluator implements ExpressionVisitor {
 	public void visit(OrOperator operator) {
 		operator.getLeftChild().accept(this);
 		operator.getRightChild().accept(this);
-		boolean right = stack2.pop(), left = stack2.pop();
-		stack2.push(left | right);
+		boolean right = stack2[--top2], left = stack2[--top2];
+		push(left | right);
 	}
 
 	/**
@@ -303,8 +405,8 @@ public class Evaluator implements ExpressionVisitor {
 	@Override
 	public void visit(NotOperator operator) {
 		operator.getChild().accept(this);
-		boolean child = stack2.pop();
-		stack2.push(!child);
+		boolean child = stack2[--top2];
+		push(!child);
 	}
 
 	/**
@@ -317,27 +419,7 @@ public class Evaluator implements ExpressionVisitor {
 	public void visit(Equals comparator) {
 		comparator.getLeftChild().accept(this);
 		comparator.getRightChild().accept(this);
-		DataType data1 = stack1.pop(), data2 = stack1.pop();
-		/* normally there could only be five data type combinations.
-		 * enumerate them all and perform the calculation separately. */
-		if(data1.getType()==1&&data2.getType()==1) {
-			long number1 = data1.getLong(), number2 = data2.getLong();
-			stack2.push(number2 == number1);
-		}else if(data1.getType()==1&&data2.getType()==5) {
-			long number1 = data1.getLong();
-			double number2 = data2.getDouble();
-			stack2.push(number2 == number1);
-		}else if(data1.getType()==5&&data2.getType()==1) {
-			double number1 = data1.getDouble();
-			long number2 = data2.getLong();
-			stack2.push(number2 == number1);
-		}else if(data1.getType()==5&&data2.getType()==5) {
-			double number1 = data1.getDouble(), number2 = data2.getDouble();
-			stack2.push(number2 == number1);
-		}else if(data1.getType()==2&&data2.getType()==2) {
-			String str1 = data1.getString(), str2 = data2.getString();
-			stack2.push(str2.compareTo(str1) == 0);
-		}
+		push(compare() == 0);
 	}
 
 	/**
@@ -350,27 +432,7 @@ public class Evaluator implements ExpressionVisitor {
 	public void visit(NotEquals comparator) {
 		comparator.getLeftChild().accept(this);
 		comparator.getRightChild().accept(this);
-		DataType data1 = stack1.pop(), data2 = stack1.pop();
-		/* normally there could only be five data type combinations.
-		 * enumerate them all and perform the calculation separately. */
-		if(data1.getType()==1&&data2.getType()==1) {
-			long number1 = data1.getLong(), number2 = data2.getLong();
-			stack2.push(number2 != number1);
-		}else if(data1.getType()==1&&data2.getType()==5) {
-			long number1 = data1.getLong();
-			double number2 = data2.getDouble();
-			stack2.push(number2 != number1);
-		}else if(data1.getType()==5&&data2.getType()==1) {
-			double number1 = data1.getDouble();
-			long number2 = data2.getLong();
-			stack2.push(number2 != number1);
-		}else if(data1.getType()==5&&data2.getType()==5) {
-			double number1 = data1.getDouble(), number2 = data2.getDouble();
-			stack2.push(number2 != number1);
-		}else if(data1.getType()==2&&data2.getType()==2) {
-			String str1 = data1.getString(), str2 = data2.getString();
-			stack2.push(str2.compareTo(str1) != 0);
-		}
+		push(compare() != 0);
 	}
 
 	/**
@@ -383,27 +445,7 @@ public class Evaluator implements ExpressionVisitor {
 	public void visit(GreaterThan comparator) {
 		comparator.getLeftChild().accept(this);
 		comparator.getRightChild().accept(this);
-		DataType data1 = stack1.pop(), data2 = stack1.pop();
-		/* normally there could only be five data type combinations.
-		 * enumerate them all and perform the calculation separately. */
-		if(data1.getType()==1&&data2.getType()==1) {
-			long number1 = data1.getLong(), number2 = data2.getLong();
-			stack2.push(number2 > number1);
-		}else if(data1.getType()==1&&data2.getType()==5) {
-			long number1 = data1.getLong();
-			double number2 = data2.getDouble();
-			stack2.push(number2 > number1);
-		}else if(data1.getType()==5&&data2.getType()==1) {
-			double number1 = data1.getDouble();
-			long number2 = data2.getLong();
-			stack2.push(number2 > number1);
-		}else if(data1.getType()==5&&data2.getType()==5) {
-			double number1 = data1.getDouble(), number2 = data2.getDouble();
-			stack2.push(number2 > number1);
-		}else if(data1.getType()==2&&data2.getType()==2) {
-			String str1 = data1.getString(), str2 = data2.getString();
-			stack2.push(str2.compareTo(str1) > 0);
-		}
+		push(compare() > 0);
 	}
 
 	/**
@@ -416,27 +458,7 @@ public class Evaluator implements ExpressionVisitor {
 	public void visit(GreaterThanOrEquals comparator) {
 		comparator.getLeftChild().accept(this);
 		comparator.getRightChild().accept(this);
-		DataType data1 = stack1.pop(), data2 = stack1.pop();
-		/* normally there could only be five data type combinations.
-		 * enumerate them all and perform the calculation separately. */
-		if(data1.getType()==1&&data2.getType()==1) {
-			long number1 = data1.getLong(), number2 = data2.getLong();
-			stack2.push(number2 >= number1);
-		}else if(data1.getType()==1&&data2.getType()==5) {
-			long number1 = data1.getLong();
-			double number2 = data2.getDouble();
-			stack2.push(number2 >= number1);
-		}else if(data1.getType()==5&&data2.getType()==1) {
-			double number1 = data1.getDouble();
-			long number2 = data2.getLong();
-			stack2.push(number2 >= number1);
-		}else if(data1.getType()==5&&data2.getType()==5) {
-			double number1 = data1.getDouble(), number2 = data2.getDouble();
-			stack2.push(number2 >= number1);
-		}else if(data1.getType()==2&&data2.getType()==2) {
-			String str1 = data1.getString(), str2 = data2.getString();
-			stack2.push(str2.compareTo(str1) >= 0);
-		}
+		push(compare() >= 0);
 	}
 
 	/**
@@ -449,27 +471,7 @@ public class Evaluator implements ExpressionVisitor {
 	public void visit(LessThan comparator) {
 		comparator.getLeftChild().accept(this);
 		comparator.getRightChild().accept(this);
-		DataType data1 = stack1.pop(), data2 = stack1.pop();
-		/* normally there could only be five data type combinations.
-		 * enumerate them all and perform the calculation separately. */
-		if(data1.getType()==1&&data2.getType()==1) {
-			long number1 = data1.getLong(), number2 = data2.getLong();
-			stack2.push(number2 < number1);
-		}else if(data1.getType()==1&&data2.getType()==5) {
-			long number1 = data1.getLong();
-			double number2 = data2.getDouble();
-			stack2.push(number2 < number1);
-		}else if(data1.getType()==5&&data2.getType()==1) {
-			double number1 = data1.getDouble();
-			long number2 = data2.getLong();
-			stack2.push(number2 < number1);
-		}else if(data1.getType()==5&&data2.getType()==5) {
-			double number1 = data1.getDouble(), number2 = data2.getDouble();
-			stack2.push(number2 < number1);
-		}else if(data1.getType()==2&&data2.getType()==2) {
-			String str1 = data1.getString(), str2 = data2.getString();
-			stack2.push(str2.compareTo(str1) < 0);
-		}
+		push(compare() < 0);
 	}
 
 	/**
@@ -482,27 +484,7 @@ public class Evaluator implements ExpressionVisitor {
 	public void visit(LessThanOrEquals comparator) {
 		comparator.getLeftChild().accept(this);
 		comparator.getRightChild().accept(this);
-		DataType data1 = stack1.pop(), data2 = stack1.pop();
-		/* normally there could only be five data type combinations.
-		 * enumerate them all and perform the calculation separately. */
-		if(data1.getType()==1&&data2.getType()==1) {
-			long number1 = data1.getLong(), number2 = data2.getLong();
-			stack2.push(number2 <= number1);
-		}else if(data1.getType()==1&&data2.getType()==5) {
-			long number1 = data1.getLong();
-			double number2 = data2.getDouble();
-			stack2.push(number2 <= number1);
-		}else if(data1.getType()==5&&data2.getType()==1) {
-			double number1 = data1.getDouble();
-			long number2 = data2.getLong();
-			stack2.push(number2 <= number1);
-		}else if(data1.getType()==5&&data2.getType()==5) {
-			double number1 = data1.getDouble(), number2 = data2.getDouble();
-			stack2.push(number2 <= number1);
-		}else if(data1.getType()==2&&data2.getType()==2) {
-			String str1 = data1.getString(), str2 = data2.getString();
-			stack2.push(str2.compareTo(str1) <= 0);
-		}
+		push(compare() <= 0);
 	}
 
 	@Override
@@ -549,34 +531,42 @@ public class Evaluator implements ExpressionVisitor {
 	@Override
 	public void visit(DoubleValue value) {
 		noDouble = false;
-		stack1.push(new DataType(value.getData()));
+		stack1.setDouble(push(), value.getData());
 	}
 
 	/**
 	 * This method is used to deal with the string value in the expression.
-	 * store that value into a data type and push that into stack1.
+	 * store that value into a data type and push that into stack1. Notice
+	 * the comparison with the encoded string will be done on the codes.
 	 * @param value the string value in an expression.
 	 */
 	@Override
 	public void visit(StringValue value) {
-		stack1.push(new DataType(value.getData()));
+		stack1.setString(push(), value.getValue());
 	}
 
 	/**
 	 * This method is used to deal with the column node in the expression.
 	 * check the index of that column from the schema hash map. fetch the
 	 * data type by using the index and store that into stack1. Also, if 
-	 * the type of the data is double, set noDouble to false.
+	 * the type of the data is double, set noDouble to false. The column
+	 * that is bound to the schema already has its index.
 	 * @param value the column node that will be visited.
 	 */
 	@Override
 	public void visit(ColumnNode node) {
+		if(node instanceof BoundColumnNode) {
+			BoundColumnNode bound = (BoundColumnNode)node;
+			if(bound.getDataType()==5)
+				noDouble = false;
+			stack1.copyData(push(), tuple, bound.getIndex());
+			return;
+		}
 		String attribute = node.getWholeColumnName();
 		Mule mule = schema.get(attribute);
-		DataType data = tuple.getData(mule.getIndex());
 		if(mule.getDataType()==5)
 			noDouble = false;
-		stack1.push(data);
+		stack1.copyData(push(), tuple, mule.getIndex());
 	}
 
 	@Override
@@ -584,14 +574,34 @@ public class Evaluator implements ExpressionVisitor {
 		
 	}
 
+	/**
+	 * This method handles the multiple and operator. Visit all the children
+	 * and pop their boolean values from stack2, push the conjunction back.
+	 * @param operator the operator that has a list of children.
+	 */
 	@Override
 	public void visit(MultiAndOperator operator) {
-		
+		boolean result = true;
+		for(Expression child : operator.getList()) {
+			child.accept(this);
+			result &= stack2[--top2];
+		}
+		push(result);
 	}
 
+	/**
+	 * This method handles the multiple or operator. Visit all the children
+	 * and pop their boolean values from stack2, push the disjunction back.
+	 * @param operator the operator that has a list of children.
+	 */
 	@Override
 	public void visit(MultiOrOperator operator) {
-		
+		boolean result = false;
+		for(Expression child : operator.getList()) {
+			child.accept(this);
+			result |= stack2[--top2];
+		}
+		push(result);
 	}
 
 	/**
@@ -601,7 +611,7 @@ public class Evaluator implements ExpressionVisitor {
 	 */
 	@Override
 	public void visit(LongValue value) {
-		stack1.push(new DataType(value.getData()));
+		stack1.setLong(push(), value.getData());
 	}
 
 	/**
@@ -613,7 +623,7 @@ public class Evaluator implements ExpressionVisitor {
 	@Override
 	public void visit(DateValue value) {
 		double data = convert.fromDateToNumber(value.getData());
-		stack1.push(new DataType(data));
+		stack1.setDouble(push(), data);
 	}
 
 	/**
@@ -625,7 +635,7 @@ public class Evaluator implements ExpressionVisitor {
 	@Override
 	public void visit(TimeValue value) {
 		double data = convert.fromTimeToNumber(value.getData());
-		stack1.push(new DataType(data));
+		stack1.setDouble(push(), data);
 	}
 
 }
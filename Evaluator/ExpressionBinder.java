@@ -0,0 +1,438 @@
+package Evaluator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import SQLExpression.AddOperator;
+import SQLExpression.AllOperator;
+import SQLExpression.AndOperator;
+import SQLExpression.AnyOperator;
+import SQLExpression.BoundColumnNode;
+import SQLExpression.CloneExpressionVisitor;
+import SQLExpression.ColumnNode;
+import SQLExpression.DateValue;
+import SQLExpression.DivideOperator;
+import SQLExpression.DoubleValue;
+import SQLExpression.Equals;
+import SQLExpression.ExistsOperator;
+import SQLExpression.Expression;
+import SQLExpression.GreaterThan;
+import SQLExpression.GreaterThanOrEquals;
+import SQLExpression.InOperator;
+import SQLExpression.LessThan;
+import SQLExpression.LessThanOrEquals;
+import SQLExpression.LikeOperator;
+import SQLExpression.LongValue;
+import SQLExpression.MinusOperator;
+import SQLExpression.MultiAndOperator;
+import SQLExpression.MultiOrOperator;
+import SQLExpression.MultiplyOperator;
+import SQLExpression.NegativeValue;
+import SQLExpression.NotEquals;
+import SQLExpression.NotOperator;
+import SQLExpression.OrOperator;
+import SQLExpression.Parenthesis;
+import SQLExpression.StringValue;
+import SQLExpression.Subselect;
+import SQLExpression.TimeValue;
+import Support.Mule;
+
+/**
+ * This class is used to bind an expression tree to the schema of an
+ * operator before any tuple is evaluated. The tree is cloned with the
+ * same structure, except every column node that could be found in the
+ * schema is turned into a bound column node, which keeps the index of
+ * the column in the tuple and its data type. The column node that is not
+ * in the schema is left as it is. The leaves of the constants are shared
+ * with the tree given, since they are never changed.
+ * @author messfish
+ *
+ */
+public class ExpressionBinder implements CloneExpressionVisitor {
+	
+	private Map<String, Mule> schema; // this is the schema of the operator.
+	
+	/**
+	 * Constructor: this constructor sets the schema the expressions will
+	 * be bound to.
+	 * @param schema the schema of the operator.
+	 */
+	public ExpressionBinder(Map<String, Mule> schema) {
+		this.schema = schema;
+	}
+	
+	/**
+	 * This method binds the expression tree to the schema and returns the
+	 * root of the bound tree.
+	 * @param express the root of the expression tree, could be null.
+	 * @return the root of the bound tree.
+	 */
+	public Expression bind(Expression express) {
+		if(express==null) return null;
+		return express.accept(this);
+	}
+	
+	/**
+	 * this method binds the children of the expression and builds a new
+	 * expression of the same kind to combine them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(AddOperator operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new AddOperator(left, right);
+	}
+	
+	/**
+	 * this method binds the children of the expression and builds a new
+	 * expression of the same kind to combine them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(MinusOperator operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new MinusOperator(left, right);
+	}
+	
+	/**
+	 * this method binds the children of the expression and builds a new
+	 * expression of the same kind to combine them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(MultiplyOperator operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new MultiplyOperator(left, right);
+	}
+	
+	/**
+	 * this method binds the children of the expression and builds a new
+	 * expression of the same kind to combine them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(DivideOperator operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new DivideOperator(left, right);
+	}
+	
+	/**
+	 * this method binds the child of the expression and builds a new
+	 * expression of the same kind that contains it.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(NegativeValue operator) {
+		Expression child = operator.getChild().accept(this);
+		return new NegativeValue(child);
+	}
+	
+	/**
+	 * this method binds the children of the expression and builds a new
+	 * expression of the same kind to combine them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(AndOperator operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new AndOperator(left, right);
+	}
+	
+	/**
+	 * this method binds the children of the expression and builds a new
+	 * expression of the same kind to combine them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(OrOperator operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new OrOperator(left, right);
+	}
+	
+	/**
+	 * this method binds the child of the expression and builds a new
+	 * expression of the same kind that contains it.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(NotOperator operator) {
+		Expression child = operator.getChild().accept(this);
+		return new NotOperator(child);
+	}
+	
+	/**
+	 * this method binds the children of the expression and builds a new
+	 * expression of the same kind to combine them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(Equals operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new Equals(left, right);
+	}
+	
+	/**
+	 * this method binds the children of the expression and builds a new
+	 * expression of the same kind to combine them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(NotEquals operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new NotEquals(left, right);
+	}
+	
+	/**
+	 * this method binds the children of the expression and builds a new
+	 * expression of the same kind to combine them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(GreaterThan operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new GreaterThan(left, right);
+	}
+	
+	/**
+	 * this method binds the children of the expression and builds a new
+	 * expression of the same kind to combine them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(GreaterThanOrEquals operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new GreaterThanOrEquals(left, right);
+	}
+	
+	/**
+	 * this method binds the children of the expression and builds a new
+	 * expression of the same kind to combine them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(LessThan operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new LessThan(left, right);
+	}
+	
+	/**
+	 * this method binds the children of the expression and builds a new
+	 * expression of the same kind to combine them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(LessThanOrEquals operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new LessThanOrEquals(left, right);
+	}
+	
+	/**
+	 * this method binds the children of the expression and builds a new
+	 * expression of the same kind to combine them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(LikeOperator operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new LikeOperator(left, right);
+	}
+	
+	/**
+	 * this method binds the child of the expression and builds a new
+	 * expression of the same kind that contains it.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(Parenthesis operator) {
+		Expression child = operator.getChild().accept(this);
+		return new Parenthesis(child);
+	}
+	
+	/**
+	 * this method binds the child of the expression and builds a new
+	 * expression of the same kind that contains it.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(ExistsOperator operator) {
+		Expression child = operator.getChild().accept(this);
+		return new ExistsOperator(child);
+	}
+	
+	/**
+	 * this method binds the children of the expression and builds a new
+	 * expression of the same kind to combine them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(InOperator operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new InOperator(left, right);
+	}
+	
+	/**
+	 * this method binds the child of the expression and builds a new
+	 * expression of the same kind that contains it.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(AllOperator operator) {
+		Expression child = operator.getChild().accept(this);
+		return new AllOperator(child);
+	}
+	
+	/**
+	 * this method binds the child of the expression and builds a new
+	 * expression of the same kind that contains it.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(AnyOperator operator) {
+		Expression child = operator.getChild().accept(this);
+		return new AnyOperator(child);
+	}
+	
+	/**
+	 * this method returns the constant itself, since it does not need
+	 * to be bound.
+	 * @param value the constant that will be visited.
+	 * @return the same constant.
+	 */
+	@Override
+	public Expression visit(DoubleValue value) {
+		return value;
+	}
+	
+	/**
+	 * this method returns the constant itself, since it does not need
+	 * to be bound.
+	 * @param value the constant that will be visited.
+	 * @return the same constant.
+	 */
+	@Override
+	public Expression visit(StringValue value) {
+		return value;
+	}
+	
+	/**
+	 * this method finds the column in the schema and builds the bound
+	 * column node. The column that is not in the schema is left as it is.
+	 * @param node the column node that will be visited.
+	 * @return the bound column node.
+	 */
+	@Override
+	public Expression visit(ColumnNode node) {
+		String attribute = node.getWholeColumnName();
+		Mule mule = schema.get(attribute);
+		if(mule==null) return node;
+		return new BoundColumnNode(attribute, mule.getIndex(), mule.getDataType());
+	}
+	
+	/**
+	 * this method returns the constant itself, since it does not need
+	 * to be bound.
+	 * @param value the constant that will be visited.
+	 * @return the same constant.
+	 */
+	@Override
+	public Expression visit(Subselect value) {
+		return value;
+	}
+	
+	/**
+	 * this method binds every child of the expression and builds a new
+	 * expression of the same kind that contains them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(MultiAndOperator operator) {
+		List<Expression> list = new ArrayList<>();
+		for(int i=0;i<operator.size();i++)
+			list.add(operator.getChild(i).accept(this));
+		return new MultiAndOperator(list);
+	}
+	
+	/**
+	 * this method binds every child of the expression and builds a new
+	 * expression of the same kind that contains them.
+	 * @param operator the expression that will be visited.
+	 * @return the bound expression.
+	 */
+	@Override
+	public Expression visit(MultiOrOperator operator) {
+		List<Expression> list = new ArrayList<>();
+		for(int i=0;i<operator.size();i++)
+			list.add(operator.getChild(i).accept(this));
+		return new MultiOrOperator(list);
+	}
+	
+	/**
+	 * this method returns the constant itself, since it does not need
+	 * to be bound.
+	 * @param value the constant that will be visited.
+	 * @return the same constant.
+	 */
+	@Override
+	public Expression visit(LongValue value) {
+		return value;
+	}
+	
+	/**
+	 * this method returns the constant itself, since it does not need
+	 * to be bound.
+	 * @param value the constant that will be visited.
+	 * @return the same constant.
+	 */
+	@Override
+	public Expression visit(DateValue value) {
+		return value;
+	}
+	
+	/**
+	 * this method returns the constant itself, since it does not need
+	 * to be bound.
+	 * @param value the constant that will be visited.
+	 * @return the same constant.
+	 */
+	@Override
+	public Expression visit(TimeValue value) {
+		return value;
+	}
+
+}
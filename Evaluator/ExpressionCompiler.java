@@ -0,0 +1,778 @@
+package Evaluator;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import SQLExpression.AddOperator;
+import SQLExpression.AllOperator;
+import SQLExpression.AndOperator;
+import SQLExpression.AnyOperator;
+import SQLExpression.BinaryExpression;
+import SQLExpression.BoundColumnNode;
+import SQLExpression.ColumnNode;
+import SQLExpression.DateValue;
+import SQLExpression.DivideOperator;
+import SQLExpression.DoubleValue;
+import SQLExpression.Equals;
+import SQLExpression.ExistsOperator;
+import SQLExpression.Expression;
+import SQLExpression.ExpressionVisitor;
+import SQLExpression.GreaterThan;
+import SQLExpression.GreaterThanOrEquals;
+import SQLExpression.InOperator;
+import SQLExpression.LessThan;
+import SQLExpression.LessThanOrEquals;
+import SQLExpression.LikeOperator;
+import SQLExpression.LongValue;
+import SQLExpression.MinusOperator;
+import SQLExpression.MultiAndOperator;
+import SQLExpression.MultiOrOperator;
+import SQLExpression.MultiplyOperator;
+import SQLExpression.NegativeValue;
+import SQLExpression.NotEquals;
+import SQLExpression.NotOperator;
+import SQLExpression.OrOperator;
+import SQLExpression.Parenthesis;
+import SQLExpression.StringValue;
+import SQLExpression.Subselect;
+import SQLExpression.TimeValue;
+import Storage.Dictionary;
+import Support.TimeConversion;
+import TableElement.Tuple;
+
+/**
+ * This class is used to compile an expression tree that has been bound
+ * to the schema into a tree of small functions. Every node of the tree
+ * is turned into a function of the kind of its result: a predicate for
+ * the boolean expressions, a function that returns a long or a double
+ * for the numbers and a function that compares two strings. The types
+ * are found once when the tree is compiled, so no data is pushed on a
+ * stack and no value is boxed when a tuple is evaluated.
+ * The expression that could not be compiled (the column that is not
+ * bound, the operators that are not supported yet or the data of the
+ * types that do not match) is left to the evaluator, which interprets
+ * the tree instead.
+ * @author messfish
+ *
+ */
+public class ExpressionCompiler implements ExpressionVisitor {
+	
+	/**
+	 * This interface is the compiled form of an expression that calculates
+	 * a data: it writes the data of the tuple into the result tuple.
+	 */
+	public interface Calculation {
+		
+		/**
+		 * This method calculates the data of the tuple and writes it
+		 * into the result tuple.
+		 * @param tuple the tuple that the data is calculated from.
+		 * @param result the tuple that stores the result.
+		 * @param index the index of the result in the tuple.
+		 */
+		public void write(Tuple tuple, Tuple result, int index);
+		
+	}
+	
+	private static final int EQUALS = 0, NOT_EQUALS = 1, GREATER = 2,
+			GREATER_EQUALS = 3, LESS = 4, LESS_EQUALS = 5;
+	// these are the kinds of the comparison.
+	private int kind; // the type of the last node: 0 boolean, 1 long,
+	// 2 string and 5 double, -1 means it could not be compiled.
+	private Predicate<Tuple> predicate; // the function of a boolean.
+	private ToLongFunction<Tuple> longfunction; // the function of a long.
+	private ToDoubleFunction<Tuple> doublefunction; // the function of a double.
+	private int column; // the index of the string column, -1 for a constant.
+	private String string; // the constant string.
+	private int slot; // the index of the number column, -1 for the others.
+	private boolean constant; // this shows the last node is a number constant.
+	private long longvalue; // the value of the long constant.
+	private double doublevalue; // the value of the number constant.
+	private TimeConversion convert = new TimeConversion();
+	
+	/**
+	 * This method compiles the expression given, the compiled function
+	 * could then be fetched by the getter methods.
+	 * @param express the expression that has been bound to the schema.
+	 * @return true if the expression is compiled, false if it should be
+	 * interpreted by the evaluator.
+	 */
+	public boolean compile(Expression express) {
+		kind = -1;
+		if(express==null) return false;
+		try {
+			express.accept(this);
+		}catch(Unsupported e) {
+			kind = -1;
+		}
+		return kind!=-1;
+	}
+	
+	/**
+	 * This method returns the predicate of the boolean expression that
+	 * has been compiled.
+	 * @return the predicate, null if the expression is not a compiled
+	 * boolean expression.
+	 */
+	public Predicate<Tuple> getPredicate() {
+		return kind==0 ? predicate : null;
+	}
+	
+	/**
+	 * This method returns the calculation of the expression of a data
+	 * that has been compiled.
+	 * @return the calculation, null if the expression is not a compiled
+	 * expression of a data.
+	 */
+	public Calculation getCalculation() {
+		if(kind==1) {
+			ToLongFunction<Tuple> function = longfunction;
+			return (tuple, result, index) ->
+					result.setLong(index, function.applyAsLong(tuple));
+		}else if(kind==5) {
+			ToDoubleFunction<Tuple> function = doublefunction;
+			return (tuple, result, index) ->
+					result.setDouble(index, function.applyAsDouble(tuple));
+		}else if(kind==2) {
+			int source = column;
+			String value = string;
+			if(source==-1)
+				return (tuple, result, index) -> result.setString(index, value);
+			return (tuple, result, index) -> result.copyData(index, tuple, source);
+		}
+		return null;
+	}
+	
+	/**
+	 * This method is called when the node could not be compiled, the
+	 * compilation stops and the evaluator will be used instead.
+	 */
+	private void unsupported() {
+		throw new Unsupported();
+	}
+	
+	/**
+	 * This method returns the last node as a function of a double value,
+	 * the long value will be turned into a double value.
+	 * @return the function of a double value.
+	 */
+	private ToDoubleFunction<Tuple> toDouble() {
+		if(kind==5) return doublefunction;
+		if(kind!=1) unsupported();
+		ToLongFunction<Tuple> function = longfunction;
+		return tuple -> function.applyAsLong(tuple);
+	}
+	
+	/**
+	 * This method compiles the child of a boolean expression.
+	 * @param express the child that should be a boolean expression.
+	 * @return the predicate of the child.
+	 */
+	private Predicate<Tuple> compileBoolean(Expression express) {
+		express.accept(this);
+		if(kind!=0) unsupported();
+		return predicate;
+	}
+	
+	/**
+	 * This method records the last node is a constant of a double value.
+	 * @param data the value of the constant.
+	 */
+	private void number(double data) {
+		doublevalue = data;
+		slot = -1;
+		constant = true;
+		kind = 5;
+	}
+	
+	/**
+	 * This method compiles the two children of the calculation. The
+	 * result is a long value only when both of the children are long
+	 * values, just like the evaluator. A column and a constant are
+	 * calculated by a single function.
+	 * @param operator the operator of the calculation.
+	 * @param sign the sign of the calculation: + - * or /.
+	 */
+	private void calculate(BinaryExpression operator, char sign) {
+		operator.getLeftChild().accept(this);
+		int type = kind, index = slot;
+		ToLongFunction<Tuple> left = longfunction;
+		ToDoubleFunction<Tuple> leftdouble = toDouble();
+		operator.getRightChild().accept(this);
+		if(type==1&&kind==1) {
+			long value = longvalue;
+			ToLongFunction<Tuple> right = longfunction;
+			if(index!=-1&&constant) {
+				if(sign=='+') longfunction = t -> t.getLong(index) + value;
+				else if(sign=='-') longfunction = t -> t.getLong(index) - value;
+				else if(sign=='*') longfunction = t -> t.getLong(index) * value;
+				else longfunction = t -> t.getLong(index) / value;
+			}
+			else if(sign=='+') longfunction = t -> left.applyAsLong(t) + right.applyAsLong(t);
+			else if(sign=='-') longfunction = t -> left.applyAsLong(t) - right.applyAsLong(t);
+			else if(sign=='*') longfunction = t -> left.applyAsLong(t) * right.applyAsLong(t);
+			else longfunction = t -> left.applyAsLong(t) / right.applyAsLong(t);
+		}else {
+			double value = doublevalue;
+			ToDoubleFunction<Tuple> right = toDouble();
+			if(type==5&&index!=-1&&constant) {
+				if(sign=='+') doublefunction = t -> t.getDouble(index) + value;
+				else if(sign=='-') doublefunction = t -> t.getDouble(index) - value;
+				else if(sign=='*') doublefunction = t -> t.getDouble(index) * value;
+				else doublefunction = t -> t.getDouble(index) / value;
+			}
+			else if(sign=='+') doublefunction = t -> leftdouble.applyAsDouble(t) + right.applyAsDouble(t);
+			else if(sign=='-') doublefunction = t -> leftdouble.applyAsDouble(t) - right.applyAsDouble(t);
+			else if(sign=='*') doublefunction = t -> leftdouble.applyAsDouble(t) * right.applyAsDouble(t);
+			else doublefunction = t -> leftdouble.applyAsDouble(t) / right.applyAsDouble(t);
+			kind = 5;
+		}
+		slot = -1;
+		constant = false;
+	}
+	
+	/**
+	 * This method compiles the two children of the comparison into a
+	 * predicate. The long values are compared as long values, the numbers
+	 * with a double value are compared as double values and the strings
+	 * are compared as the tuple does, by the codes in the dictionary
+	 * when the string is encoded. A column compared with a constant is
+	 * checked by a single function.
+	 * @param comparator the comparator of the two children.
+	 * @param comparison the kind of the comparison.
+	 */
+	private void compare(BinaryExpression comparator, int comparison) {
+		comparator.getLeftChild().accept(this);
+		int type = kind;
+		if(type==2) {
+			int leftcolumn = column;
+			String leftstring = string;
+			comparator.getRightChild().accept(this);
+			if(kind!=2) unsupported();
+			predicate = test(compareStrings(leftcolumn, leftstring,
+					column, string), comparison);
+		}else {
+			int index = slot;
+			ToLongFunction<Tuple> left = longfunction;
+			ToDoubleFunction<Tuple> leftdouble = toDouble();
+			comparator.getRightChild().accept(this);
+			if(type==1&&kind==1&&index!=-1&&constant)
+				predicate = compareColumn(index, longvalue, comparison);
+			else if(type==1&&kind==1)
+				predicate = compareLongs(left, longfunction, comparison);
+			else if(type==5&&index!=-1&&constant)
+				predicate = compareColumn(index, doublevalue, comparison);
+			else predicate = compareDoubles(leftdouble, toDouble(), comparison);
+		}
+		kind = 0;
+	}
+	
+	/**
+	 * This method builds the predicate that compares a long column with
+	 * a constant.
+	 * @param index the index of the column in the tuple.
+	 * @param value the value of the constant.
+	 * @param comparison the kind of the comparison.
+	 * @return the predicate of the comparison.
+	 */
+	private Predicate<Tuple> compareColumn(int index, long value, int comparison) {
+		switch(comparison) {
+		case EQUALS: return t -> t.getLong(index) == value;
+		case NOT_EQUALS: return t -> t.getLong(index) != value;
+		case GREATER: return t -> t.getLong(index) > value;
+		case GREATER_EQUALS: return t -> t.getLong(index) >= value;
+		case LESS: return t -> t.getLong(index) < value;
+		default: return t -> t.getLong(index) <= value;
+		}
+	}
+	
+	/**
+	 * This method builds the predicate that compares a double column with
+	 * a constant, the same as the comparison of two double values.
+	 * @param index the index of the column in the tuple.
+	 * @param value the value of the constant.
+	 * @param comparison the kind of the comparison.
+	 * @return the predicate of the comparison.
+	 */
+	private Predicate<Tuple> compareColumn(int index, double value, int comparison) {
+		switch(comparison) {
+		case EQUALS: return t -> {
+			double number = t.getDouble(index);
+			return !(number < value) && !(number > value);
+		};
+		case NOT_EQUALS: return t -> {
+			double number = t.getDouble(index);
+			return number < value || number > value;
+		};
+		case GREATER: return t -> t.getDouble(index) > value;
+		case GREATER_EQUALS: return t -> !(t.getDouble(index) < value);
+		case LESS: return t -> t.getDouble(index) < value;
+		default: return t -> !(t.getDouble(index) > value);
+		}
+	}
+	
+	/**
+	 * This method builds the predicate that compares two long values.
+	 * @param left the function of the left value.
+	 * @param right the function of the right value.
+	 * @param comparison the kind of the comparison.
+	 * @return the predicate of the comparison.
+	 */
+	private Predicate<Tuple> compareLongs(ToLongFunction<Tuple> left,
+			ToLongFunction<Tuple> right, int comparison) {
+		switch(comparison) {
+		case EQUALS: return t -> left.applyAsLong(t) == right.applyAsLong(t);
+		case NOT_EQUALS: return t -> left.applyAsLong(t) != right.applyAsLong(t);
+		case GREATER: return t -> left.applyAsLong(t) > right.applyAsLong(t);
+		case GREATER_EQUALS: return t -> left.applyAsLong(t) >= right.applyAsLong(t);
+		case LESS: return t -> left.applyAsLong(t) < right.applyAsLong(t);
+		default: return t -> left.applyAsLong(t) <= right.applyAsLong(t);
+		}
+	}
+	
+	/**
+	 * This method builds the predicate that compares two double values.
+	 * Notice two values are equal when neither of them is smaller than
+	 * the other one, the same as the evaluator does.
+	 * @param left the function of the left value.
+	 * @param right the function of the right value.
+	 * @param comparison the kind of the comparison.
+	 * @return the predicate of the comparison.
+	 */
+	private Predicate<Tuple> compareDoubles(ToDoubleFunction<Tuple> left,
+			ToDoubleFunction<Tuple> right, int comparison) {
+		switch(comparison) {
+		case EQUALS: return t -> {
+			double number1 = left.applyAsDouble(t), number2 = right.applyAsDouble(t);
+			return !(number1 < number2) && !(number1 > number2);
+		};
+		case NOT_EQUALS: return t -> {
+			double number1 = left.applyAsDouble(t), number2 = right.applyAsDouble(t);
+			return number1 < number2 || number1 > number2;
+		};
+		case GREATER: return t -> left.applyAsDouble(t) > right.applyAsDouble(t);
+		case GREATER_EQUALS: return t -> !(left.applyAsDouble(t) < right.applyAsDouble(t));
+		case LESS: return t -> left.applyAsDouble(t) < right.applyAsDouble(t);
+		default: return t -> !(left.applyAsDouble(t) > right.applyAsDouble(t));
+		}
+	}
+	
+	/**
+	 * This method builds the function that compares two strings, each of
+	 * them is either a column of the tuple or a constant.
+	 * @param leftcolumn the index of the left column, -1 for a constant.
+	 * @param leftstring the left constant.
+	 * @param rightcolumn the index of the right column, -1 for a constant.
+	 * @param rightstring the right constant.
+	 * @return the function returns the result of the comparison.
+	 */
+	private ToIntFunction<Tuple> compareStrings(int leftcolumn, String leftstring,
+			int rightcolumn, String rightstring) {
+		if(leftcolumn!=-1&&rightcolumn!=-1)
+			return t -> t.compare(leftcolumn, t, rightcolumn);
+		if(leftcolumn!=-1)
+			return new StringConstant(leftcolumn, rightstring);
+		if(rightcolumn!=-1) {
+			StringConstant function = new StringConstant(rightcolumn, leftstring);
+			return t -> -function.applyAsInt(t);
+		}
+		int result = leftstring.compareTo(rightstring);
+		return t -> result;
+	}
+	
+	/**
+	 * This method builds the predicate that checks the result of the
+	 * comparison of two strings.
+	 * @param function the function returns the result of the comparison.
+	 * @param comparison the kind of the comparison.
+	 * @return the predicate of the comparison.
+	 */
+	private Predicate<Tuple> test(ToIntFunction<Tuple> function, int comparison) {
+		switch(comparison) {
+		case EQUALS: return t -> function.applyAsInt(t) == 0;
+		case NOT_EQUALS: return t -> function.applyAsInt(t) != 0;
+		case GREATER: return t -> function.applyAsInt(t) > 0;
+		case GREATER_EQUALS: return t -> function.applyAsInt(t) >= 0;
+		case LESS: return t -> function.applyAsInt(t) < 0;
+		default: return t -> function.applyAsInt(t) <= 0;
+		}
+	}
+	
+	/**
+	 * This method compiles the addition of the two children.
+	 * @param operator operator that handles the addition.
+	 */
+	@Override
+	public void visit(AddOperator operator) {
+		calculate(operator, '+');
+	}
+	
+	/**
+	 * This method compiles the subtraction of the two children.
+	 * @param operator operator that handles the subtraction.
+	 */
+	@Override
+	public void visit(MinusOperator operator) {
+		calculate(operator, '-');
+	}
+	
+	/**
+	 * This method compiles the multiplication of the two children.
+	 * @param operator operator that handles the multiplication.
+	 */
+	@Override
+	public void visit(MultiplyOperator operator) {
+		calculate(operator, '*');
+	}
+	
+	/**
+	 * This method compiles the division of the two children.
+	 * @param operator operator that handles the division.
+	 */
+	@Override
+	public void visit(DivideOperator operator) {
+		calculate(operator, '/');
+	}
+	
+	/**
+	 * This method compiles the negative value of the child, which could
+	 * only be a long value or a double value.
+	 * @param operator the operator that handles the negative operation.
+	 */
+	@Override
+	public void visit(NegativeValue operator) {
+		operator.getChild().accept(this);
+		if(kind==1) {
+			ToLongFunction<Tuple> function = longfunction;
+			longfunction = t -> -function.applyAsLong(t);
+		}else if(kind==5) {
+			ToDoubleFunction<Tuple> function = doublefunction;
+			doublefunction = t -> -function.applyAsDouble(t);
+		}else unsupported();
+		slot = -1;
+		constant = false;
+	}
+	
+	/**
+	 * This method compiles the and operator. Notice the right child is
+	 * not evaluated when the left one is false.
+	 * @param operator the and operator that needs to be handled.
+	 */
+	@Override
+	public void visit(AndOperator operator) {
+		Predicate<Tuple> left = compileBoolean(operator.getLeftChild());
+		Predicate<Tuple> right = compileBoolean(operator.getRightChild());
+		predicate = t -> left.test(t) && right.test(t);
+	}
+	
+	/**
+	 * This method compiles the or operator. Notice the right child is
+	 * not evaluated when the left one is true.
+	 * @param operator the or operator that needs to be handled.
+	 */
+	@Override
+	public void visit(OrOperator operator) {
+		Predicate<Tuple> left = compileBoolean(operator.getLeftChild());
+		Predicate<Tuple> right = compileBoolean(operator.getRightChild());
+		predicate = t -> left.test(t) || right.test(t);
+	}
+	
+	/**
+	 * This method compiles the not operator.
+	 * @param operator the not operator that needs to be handled.
+	 */
+	@Override
+	public void visit(NotOperator operator) {
+		Predicate<Tuple> child = compileBoolean(operator.getChild());
+		predicate = t -> !child.test(t);
+	}
+	
+	/**
+	 * This method compiles the equals operator.
+	 * @param comparator the comparator performs the comparison.
+	 */
+	@Override
+	public void visit(Equals comparator) {
+		compare(comparator, EQUALS);
+	}
+	
+	/**
+	 * This method compiles the not equal operator.
+	 * @param comparator the comparator performs the comparison.
+	 */
+	@Override
+	public void visit(NotEquals comparator) {
+		compare(comparator, NOT_EQUALS);
+	}
+	
+	/**
+	 * This method compiles the greater than operator.
+	 * @param comparator the comparator performs the comparison.
+	 */
+	@Override
+	public void visit(GreaterThan comparator) {
+		compare(comparator, GREATER);
+	}
+	
+	/**
+	 * This method compiles the greater than or equal operator.
+	 * @param comparator the comparator performs the comparison.
+	 */
+	@Override
+	public void visit(GreaterThanOrEquals comparator) {
+		compare(comparator, GREATER_EQUALS);
+	}
+	
+	/**
+	 * This method compiles the less than operator.
+	 * @param comparator the comparator performs the comparison.
+	 */
+	@Override
+	public void visit(LessThan comparator) {
+		compare(comparator, LESS);
+	}
+	
+	/**
+	 * This method compiles the less than or equal operator.
+	 * @param comparator the comparator performs the comparison.
+	 */
+	@Override
+	public void visit(LessThanOrEquals comparator) {
+		compare(comparator, LESS_EQUALS);
+	}
+	
+	@Override
+	public void visit(LikeOperator operator) {
+		unsupported();
+	}
+	
+	/**
+	 * This method compiles the expression inside the parenthesis.
+	 * @param expression the parenthesis that is visited.
+	 */
+	@Override
+	public void visit(Parenthesis expression) {
+		expression.getChild().accept(this);
+	}
+	
+	@Override
+	public void visit(ExistsOperator operator) {
+		unsupported();
+	}
+	
+	@Override
+	public void visit(InOperator operator) {
+		unsupported();
+	}
+	
+	@Override
+	public void visit(AllOperator operator) {
+		unsupported();
+	}
+	
+	@Override
+	public void visit(AnyOperator operator) {
+		unsupported();
+	}
+	
+	/**
+	 * This method compiles the double value into a constant function.
+	 * @param value the double value in an expression.
+	 */
+	@Override
+	public void visit(DoubleValue value) {
+		double data = value.getData();
+		doublefunction = t -> data;
+		number(data);
+	}
+	
+	/**
+	 * This method compiles the string value into a constant, the quotes
+	 * around the string are removed.
+	 * @param value the string value in an expression.
+	 */
+	@Override
+	public void visit(StringValue value) {
+		string = value.getValue();
+		column = -1;
+		kind = 2;
+	}
+	
+	/**
+	 * This method compiles the column node that is bound to the schema
+	 * into a function that reads the data of its type from the tuple.
+	 * Notice the dates and the times are stored as double values.
+	 * @param node the column node that will be visited.
+	 */
+	@Override
+	public void visit(ColumnNode node) {
+		if(!(node instanceof BoundColumnNode)) unsupported();
+		BoundColumnNode bound = (BoundColumnNode)node;
+		int index = bound.getIndex(), type = bound.getDataType();
+		slot = index;
+		constant = false;
+		if(type==1) {
+			longfunction = t -> t.getLong(index);
+			kind = 1;
+		}else if(type==2) {
+			column = index;
+			string = null;
+			kind = 2;
+		}else if(type==3||type==4||type==5) {
+			doublefunction = t -> t.getDouble(index);
+			kind = 5;
+		}else unsupported();
+	}
+	
+	@Override
+	public void visit(Subselect subquery) {
+		unsupported();
+	}
+	
+	/**
+	 * This method compiles the conjunction of all the children.
+	 * @param operator the operator that has a list of children.
+	 */
+	@Override
+	public void visit(MultiAndOperator operator) {
+		Predicate<Tuple>[] children = compileChildren(operator.getList());
+		predicate = t -> {
+			for(Predicate<Tuple> child : children)
+				if(!child.test(t)) return false;
+			return true;
+		};
+	}
+	
+	/**
+	 * This method compiles the disjunction of all the children.
+	 * @param operator the operator that has a list of children.
+	 */
+	@Override
+	public void visit(MultiOrOperator operator) {
+		Predicate<Tuple>[] children = compileChildren(operator.getList());
+		predicate = t -> {
+			for(Predicate<Tuple> child : children)
+				if(child.test(t)) return true;
+			return false;
+		};
+	}
+	
+	/**
+	 * This method compiles all the children of the multiple expression.
+	 * @param list the list of the children.
+	 * @return the array of the predicates of the children.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Predicate<Tuple>[] compileChildren(List<Expression> list) {
+		Predicate<Tuple>[] children = new Predicate[list.size()];
+		for(int i=0;i<children.length;i++)
+			children[i] = compileBoolean(list.get(i));
+		kind = 0;
+		return children;
+	}
+	
+	/**
+	 * This method compiles the long value into a constant function.
+	 * @param value the long value in an expression.
+	 */
+	@Override
+	public void visit(LongValue value) {
+		long data = value.getData();
+		longfunction = t -> data;
+		longvalue = data;
+		doublevalue = data;
+		slot = -1;
+		constant = true;
+		kind = 1;
+	}
+	
+	/**
+	 * This method compiles the date value into a constant function of
+	 * the double value.
+	 * @param value the date value in an expression.
+	 */
+	@Override
+	public void visit(DateValue value) {
+		double data = convert.fromDateToNumber(value.getData());
+		doublefunction = t -> data;
+		number(data);
+	}
+	
+	/**
+	 * This method compiles the time value into a constant function of
+	 * the double value.
+	 * @param value the time value in an expression.
+	 */
+	@Override
+	public void visit(TimeValue value) {
+		double data = convert.fromTimeToNumber(value.getData());
+		doublefunction = t -> data;
+		number(data);
+	}
+	
+	/**
+	 * This class is thrown when the node could not be compiled. It is only
+	 * used to stop the compilation, so the other exceptions thrown while
+	 * the tree is compiled are not taken as the nodes not supported.
+	 */
+	private static class Unsupported extends RuntimeException {
+		
+		private static final long serialVersionUID = 1L;
+		
+		/**
+		 * Constructor: the stack trace is not needed, so it is not filled.
+		 */
+		private Unsupported() {
+			super(null, null, false, false);
+		}
+		
+	}
+	
+	/**
+	 * This class compares the string column of the tuple with a constant.
+	 * The string encoded by the dictionary is compared without building
+	 * it: the constant is looked up once in each dictionary it meets, and
+	 * the codes of the tuples are compared with the result of the look up.
+	 * Every constant has its own look up, so the constants of an IN list
+	 * do not take turns in it.
+	 */
+	private static class StringConstant implements ToIntFunction<Tuple> {
+		
+		private int index; // the index of the string in the tuple.
+		private String value; // the constant string.
+		private Dictionary dictionary; // the dictionary looked up last.
+		private int point; // the result of the look up in that dictionary.
+		
+		/**
+		 * Constructor: this constructor takes the column and the constant.
+		 * @param index the index of the string in the tuple.
+		 * @param value the constant string.
+		 */
+		private StringConstant(int index, String value) {
+			this.index = index;
+			this.value = value;
+		}
+		
+		/**
+		 * This method compares the string in the tuple with the constant.
+		 * @param tuple the tuple that has the string.
+		 * @return the result of the comparison.
+		 */
+		@Override
+		public int applyAsInt(Tuple tuple) {
+			Dictionary current = tuple.getDictionary(index);
+			if(current==null)
+				return tuple.getString(index).compareTo(value);
+			if(current!=dictionary) {
+				point = current.getCode(value);
+				dictionary = current;
+			}
+			return Dictionary.compare(tuple.getCode(index), point);
+		}
+		
+	}
+	
+}
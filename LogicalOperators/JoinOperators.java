@@ -2,20 +2,77 @@ package LogicalOperators;
 
 import java.util.List;
 
+import SQLExpression.Expression;
+
 /**
- * this class is the logical version of the join operator.
+ * this class is the logical version of the join operator. The children
+ * are joined from the left to the right, the condition is checked on
+ * the tuples joined, it could be null when there is no condition.
+ * The physical join could be chosen when the plan is built, otherwise
+ * it is chosen by the rules of the physical visitor.
  * @author messfish
  *
  */
 public class JoinOperators extends MultipleOperators{
 	
+	public static final int AUTO = 0;
+	// the physical join will be chosen by the physical visitor.
+	public static final int NESTED_LOOP = 1; // the block nested loops.
+	public static final int HASH = 2; // the hash join.
+	public static final int SORT_MERGE = 3; // the merge join.
+	public static final int INDEX = 4; // the index nested loops.
+	private static final String[] NAMES = {"", "nested loop", "hash",
+			"sort merge", "index"}; // the name of each physical join.
+	private Expression condition; // the condition of the join.
+	private int method; // the physical join that will be used.
+	
 	/**
 	 * Constructor: this constructor extends the logic
 	 * from its parent.
 	 * @param child the children of this logical operator.
 	 */
 	public JoinOperators(List<Operators> child) {
+		this(child, null);
+	}
+	
+	/**
+	 * Constructor: this constructor extends the logic
+	 * from its parent and takes the condition of the join.
+	 * @param child the children of this logical operator.
+	 * @param condition the condition of the join, could be null.
+	 */
+	public JoinOperators(List<Operators> child, Expression condition) {
+		this(child, condition, AUTO);
+	}
+	
+	/**
+	 * Constructor: this constructor extends the logic from its parent
+	 * and takes the condition and the physical join.
+	 * @param child the children of this logical operator.
+	 * @param condition the condition of the join, could be null.
+	 * @param method the physical join that will be used.
+	 */
+	public JoinOperators(List<Operators> child, Expression condition,
+			int method) {
 		super(child);
+		this.condition = condition;
+		this.method = method;
+	}
+	
+	/**
+	 * this is the getter method of the condition.
+	 * @return the condition of the join, null if there is none.
+	 */
+	public Expression getCondition() {
+		return condition;
+	}
+	
+	/**
+	 * this is the getter method of the physical join.
+	 * @return the physical join, AUTO means it is not chosen yet.
+	 */
+	public int getMethod() {
+		return method;
 	}
 
 	/**
@@ -36,7 +93,18 @@ public class JoinOperators extends MultipleOperators{
 	 */
 	@Override
 	public void print(String s, StringBuilder sb) {
-		
+		sb.append(s).append("Join");
+		if(method!=AUTO)
+			sb.append(" (").append(NAMES[method]).append(")");
+		sb.append(":");
+		if(condition!=null) {
+			StringBuilder exp = new StringBuilder();
+			condition.toString(exp);
+			sb.append(" ").append(exp.toString().trim());
+		}
+		sb.append("\n");
+		for(int i=0;i<length();i++)
+			getChild(i).print(s+"-", sb);
 	}
 	
 }
@@ -24,4 +24,6 @@ public interface OperatorVisitor {
 	
 	void visit(CartesianOperators cart);
 	
+	void visit(ScanOperators scan);
+	
 }
@@ -0,0 +1,63 @@
+package LogicalOperators;
+
+import TableElement.Table;
+
+/**
+ * This class is the logical version of the scan operators, it is the
+ * leaf of the query plan that reads a single table of the from list.
+ * @author messfish
+ *
+ */
+public class ScanOperators extends Operators {
+	
+	private String alias; // the alias of the table in the query.
+	private Table table; // the table that will be read.
+	
+	/**
+	 * Constructor: this constructor takes the alias and the table.
+	 * @param alias the alias of the table in the query.
+	 * @param table the table that will be read.
+	 */
+	public ScanOperators(String alias, Table table) {
+		this.alias = alias;
+		this.table = table;
+	}
+	
+	/**
+	 * this is the getter method of the alias.
+	 * @return the alias of the table.
+	 */
+	public String getAlias() {
+		return alias;
+	}
+	
+	/**
+	 * this is the getter method of the table.
+	 * @return the table that will be read.
+	 */
+	public Table getTable() {
+		return table;
+	}
+	
+	/**
+	 * this method just calls the visit method for the class
+	 * that implements the operator visitor. The rest of the 
+	 * logic will be handled by that class.
+	 */
+	@Override
+	public void accept(OperatorVisitor operator) {
+		operator.visit(this);
+	}
+	
+	/**
+	 * This method is mainly for debugging, it will store the 
+	 * tree structure in the string builder.
+	 * @param s the string that indicates the level of the tree.
+	 * @param sb the string that stores the structure of the tree.
+	 */
+	@Override
+	public void print(String s, StringBuilder sb) {
+		sb.append(s).append("Scan: ").append(alias).append("\n");
+	}
+	
+}
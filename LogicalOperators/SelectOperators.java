@@ -1,5 +1,7 @@
 package LogicalOperators;
 
+import SQLExpression.Expression;
+
 /**
  * this is the logical version of the select operator.
  * @author messfish
@@ -7,13 +9,25 @@ package LogicalOperators;
  */
 public class SelectOperators extends UnaryOperators{
 
+	private Expression express; // the expression checked by this operator.
+	
 	/**
 	 * Constructor: this constructor extends the logic
-	 * from its parent.
+	 * from its parent and takes the expression it checks.
 	 * @param child the children of this logical operator.
+	 * @param express the expression checked by this operator.
 	 */
-	public SelectOperators(Operators child) {
+	public SelectOperators(Operators child, Expression express) {
 		super(child);
+		this.express = express;
+	}
+	
+	/**
+	 * this is the getter method of the expression.
+	 * @return the expression checked by this operator.
+	 */
+	public Expression getExpression() {
+		return express;
 	}
 
 	/**
@@ -34,7 +48,9 @@ public class SelectOperators extends UnaryOperators{
 	 */
 	@Override
 	public void print(String s, StringBuilder sb) {
-		sb.append(s).append("Select:").append("\n");
+		StringBuilder exp = new StringBuilder();
+		express.toString(exp);
+		sb.append(s).append("Select: ").append(exp.toString().trim()).append("\n");
 		getChild().print(s+"-", sb);
 	}
 	
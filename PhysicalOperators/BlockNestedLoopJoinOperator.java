@@ -0,0 +1,124 @@
+package PhysicalOperators;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import SQLExpression.Expression;
+import SmallSQLServer.Main;
+import TableElement.Tuple;
+
+/**
+ * This class handles the join of two operators that could not use the
+ * equality of the keys. Instead of reading the right side again for every
+ * tuple of the left side, the tuples of the left side are read as a block
+ * that fills the memory given to the join, and the right side is read once
+ * for each block: every tuple of the right side is joined with the whole
+ * block. So the right side is read once for each block instead of once for
+ * each tuple. The right side is rewound by its reset, the files are not
+ * opened again.
+ * @author messfish
+ *
+ */
+public class BlockNestedLoopJoinOperator extends JoinOperator {
+	
+	private static final int NUM_OF_BYTES = 16384; // the size of a page.
+	private byte[] lefttypes; // the type of each data of the left side.
+	private List<Tuple> block; // the tuples of the left side in the memory.
+	private boolean finished; // this shows the left side has run out.
+	private boolean done; // this shows there are no tuples left.
+	private Tuple inner; // the current tuple from the right side.
+	private int position; // the next tuple of the block to join.
+	private boolean found; // this shows the right side has any tuple.
+	
+	/**
+	 * Constructor: this constructor takes the two operators and the
+	 * condition of the join.
+	 * @param left the left operator.
+	 * @param right the right operator.
+	 * @param condition the condition of the join, null means every pair.
+	 */
+	public BlockNestedLoopJoinOperator(Operator left, Operator right,
+			Expression condition) {
+		super(left, right, condition);
+		lefttypes = getTupleTypes(left.getSchema());
+	}
+	
+	/**
+	 * This method is used to read the next block of the left side. The
+	 * tuples are copied since the tuples of the scan operators are backed
+	 * by the pages read. The right side is read again from the start for
+	 * every block but the first.
+	 * @return false if there are no tuples left on the left side.
+	 */
+	private boolean nextBlock() {
+		if(finished) return false;
+		if(block!=null) right.reset();
+		long limit = (long)Main.getJoinPages() * NUM_OF_BYTES, bytes = 0;
+		int tables = left.getNumOfTables();
+		block = new ArrayList<>();
+		while(bytes <= limit) {
+			Tuple tuple = left.getNextTuple();
+			if(tuple==null) {
+				finished = true;
+				break;
+			}
+			Tuple copy = new Tuple(lefttypes, tables);
+			for(int i=0;i<lefttypes.length;i++)
+				copy.copyData(i, tuple, i);
+			for(int i=0;i<tables;i++)
+				copy.setTupleID(i, tuple.getTupleID(i));
+			block.add(copy);
+			bytes += checkSize(tuple);
+		}
+		return block.size() > 0;
+	}
+	
+	/**
+	 * This method is used to get the next tuple that passes the condition.
+	 * Join the current tuple of the right side with the next tuple of the
+	 * block, when the block runs out, move to the next tuple of the right
+	 * side. When the right side runs out, move to the next block. When the
+	 * right side has no tuples for the first block, the rest of the left
+	 * side is not read at all.
+	 * @return the next joined tuple, null if there is none left.
+	 */
+	@Override
+	public Tuple getNextTuple() {
+		if(done) return null;
+		if(block==null&&!nextBlock()) {
+			done = true;
+			return null;
+		}
+		while(true) {
+			if(inner!=null&&position < block.size()) {
+				Tuple result = combine(block.get(position++), inner);
+				if(evaluator==null||evaluator.checkValid(result))
+					return result;
+				continue;
+			}
+			inner = right.getNextTuple();
+			position = 0;
+			if(inner!=null) found = true;
+			else if(!found||!nextBlock()) {
+				done = true;
+				return null;
+			}
+		}
+	}
+	
+	/**
+	 * This method is used to reset the operator, both sides are read
+	 * again from the start.
+	 */
+	@Override
+	public void reset() {
+		left.reset();
+		right.reset();
+		block = null;
+		inner = null;
+		finished = false;
+		done = false;
+		found = false;
+	}
+	
+}
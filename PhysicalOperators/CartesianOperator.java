@@ -2,8 +2,11 @@ package PhysicalOperators;
 
 import java.io.File;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
+import SQLExpression.Expression;
 import Support.Catalog;
 import Support.Mule;
 import TableElement.Table;
@@ -20,6 +23,8 @@ public class CartesianOperator extends Operator {
 	private ScanOperator[] scanlist;
 	private int size; // this indicates how many attributes in the table.
 	private Map<String, Mule> schema;
+	private String[] aliasarray; // this array stores the alias of each table.
+	private byte[] types; // this array stores the type of each data.
 	
 	/**
 	 * Constructor: this constructor takes the map from the from list 
@@ -28,16 +33,39 @@ public class CartesianOperator extends Operator {
 	 * @param catalog the catalog that will be used.
 	 */
 	public CartesianOperator(Map<String, Table> map, Catalog catalog) {
+		this(map, catalog, null);
+	}
+	
+	/**
+	 * Constructor: this constructor takes the map from the from list 
+	 * and the columns used by the query. Only the columns used will be
+	 * read from each table and kept in the schema.
+	 * @param map the hash map originated from the from list.
+	 * @param catalog the catalog that will be used.
+	 * @param columns the map uses the alias as the key and the set of
+	 * attributes used as the value, null means every column is needed.
+	 */
+	public CartesianOperator(Map<String, Table> map, Catalog catalog,
+			Map<String, Set<String>> columns) {
 		scanlist = new ScanOperator[map.size()];
 		schema = new HashMap<>();
 		int index = 0, previous = 0;
-		String[] aliasarray = new String[map.size()];
+		aliasarray = new String[map.size()];
 		for(Map.Entry<String, Table> entry : map.entrySet()) {
 			String locate = entry.getKey();
 			String tablename = entry.getValue().getName();
 			File scanfile = new File(catalog.getFileLocation(tablename));
 			aliasarray[index] = locate;
-			scanlist[index++] = new ScanOperator(scanfile);
+			boolean mapped = catalog.isMemoryMapped(tablename);
+			Set<String> attributes = null;
+			/* the table that is not used by any column needs no column. */
+			if(columns!=null)
+				attributes = columns.getOrDefault(locate, new HashSet<>());
+			if(catalog.isColumnar(tablename))
+				scanlist[index++] = 
+					new ColumnarScanOperator(scanfile, mapped, attributes);
+			else scanlist[index++] = 
+					new ScanOperator(scanfile, mapped, attributes);
 			size += scanlist[index-1].getSchema().size();
 		}
 		for(int i=0;i<scanlist.length;i++) {
@@ -45,12 +73,14 @@ public class CartesianOperator extends Operator {
 			for(Map.Entry<String, Mule> entry : schema.entrySet()) {
 				String part = entry.getKey().split("\\.")[1];
 				String combination = aliasarray[i] + "." + part;
+				/* a new mule is built so the schema of the scan stays. */
 				Mule mule = entry.getValue();
-				mule.setIndex(previous + mule.getIndex());
-				this.schema.put(combination, entry.getValue());
+				this.schema.put(combination, new Mule(previous + 
+						mule.getIndex(), mule.getDataType()));
 			}
 			previous += schema.size();
 		}
+		types = getTupleTypes(schema);
 	}
 	
 	/**
@@ -60,14 +90,16 @@ public class CartesianOperator extends Operator {
 	 */
 	@Override
 	public Tuple getNextTuple() {
-		Tuple result = new Tuple(size, scanlist.length);
+		Tuple result = new Tuple(types, scanlist.length);
 		/* this indicates we are getting the first tuple. */
 		if(scanlist[0].getCurrentTuple()==null) {
 			int index = 0;
 			for(int i=0;i<scanlist.length;i++) {
 				Tuple tuple = scanlist[i].getNextTuple();
+				/* one of the tables is empty, so there is nothing to join. */
+				if(tuple==null) return null;
 				for(int j=0;j<tuple.datasize();j++) {
-					result.setData(index, tuple.getData(j));
+					result.copyData(index, tuple, j);
 					index++;
 				}
 				result.setTupleID(i, 1);
@@ -79,6 +111,33 @@ public class CartesianOperator extends Operator {
 		return result;
 	}
 
+	/**
+	 * This method is used to fetch a single tuple by its record pointer.
+	 * Notice it is only used when the operator has a single table in the
+	 * row form.
+	 * @param pageno the order of the data page in the file.
+	 * @param slot the order of the tuple in the page.
+	 * @return the tuple, null if the page does not exist.
+	 */
+	public Tuple getTuple(int pageno, int slot) {
+		Tuple tuple = scanlist[0].getTuple(pageno, slot);
+		if(tuple==null) return null;
+		Tuple result = new Tuple(types, 1);
+		setTuple(0, 0, tuple, result);
+		return result;
+	}
+
+	/**
+	 * This method is used to push the where clause into every scan 
+	 * operator, so the pages that could not satisfy the comparisons on
+	 * that table could be skipped.
+	 * @param where the root of the where expression, could be null.
+	 */
+	public void setFilter(Expression where) {
+		for(int i=0;i<scanlist.length;i++)
+			scanlist[i].setFilter(where, aliasarray[i]);
+	}
+	
 	/**
 	 * This method is used to reset the operator. Simply reset every
 	 * scan operators in the array.
@@ -152,7 +211,7 @@ public class CartesianOperator extends Operator {
 	 */
 	private void setTuple(int index, int start, Tuple tuple, Tuple result) {
 		for(int i=start;i<start+tuple.datasize();i++){
-			result.setData(i, tuple.getData(i - start));
+			result.copyData(i, tuple, i - start);
 		}
 		result.setTupleID(index, tuple.getTupleID(0));
 	}
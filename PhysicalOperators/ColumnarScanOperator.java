@@ -0,0 +1,185 @@
+package PhysicalOperators;
+
+import java.io.File;
+import java.util.Set;
+
+import Storage.Dictionary;
+import TableElement.Tuple;
+import TableElement.TupleBatch;
+
+/**
+ * This operator is used to scan the table that is stored in the columnar
+ * form. The header page is the same as the row form. For each data page,
+ * the first integer is the number of tuples in the page, followed by an
+ * integer for each column (the tuple ID comes first) which is the starting
+ * point of the mini page of that column. In the mini page, the values of
+ * the column are stored one by one: 8 bytes for the numbers, a byte of
+ * the length followed by the characters for the strings, and the code
+ * for the strings encoded by the dictionary.
+ * Since every column has its own mini page, this operator only reads the
+ * columns that are used by the query and skips the rest of the page. The
+ * schema of this operator only contains those columns, the same as the
+ * scan operator in the row form.
+ * @author messfish
+ *
+ */
+public class ColumnarScanOperator extends ScanOperator {
+
+	private int[] filetypes;
+	// this array stores the type of those columns in the file.
+	private int[] cursor;
+	// this array stores the current point in each mini page.
+	private int idpoint; // this is the current point of the tuple IDs.
+
+	/**
+	 * Constructor: this constructor reads the header page of the file
+	 * and only keeps the attributes that will be used in the schema.
+	 * Notice the columnar file could only store a single table.
+	 * @param file the file in the columnar form.
+	 * @param mapped the flag shows whether the file should be memory
+	 * mapped instead of being copied page by page into the heap.
+	 * @param attributes the set of attributes that will be read without
+	 * the table name, null means all the attributes will be read.
+	 */
+	public ColumnarScanOperator(File file, boolean mapped,
+			Set<String> attributes) {
+		super(file, mapped, attributes);
+		filetypes = new int[columns.length];
+		cursor = new int[columns.length];
+		/* the first element in the type list is the tuple ID, so is the
+		 * first mini page in the page. */
+		for(int i=0;i<columns.length;i++)
+			filetypes[i] = typelist.get(columns[i] + 1);
+	}
+
+	/**
+	 * This method is used to get the next tuple available in the
+	 * table. Only the columns in the schema will be read.
+	 * @return the tuple or a null value.
+	 */
+	@Override
+	public Tuple getNextTuple() {
+		if(!loadPage()) return null;
+		Tuple result = new Tuple(types, 1);
+		result.setTupleID(0, buffer.getLong(idpoint));
+		idpoint += 8;
+		for(int i=0;i<columns.length;i++) {
+			int index = cursor[i];
+			/* this means this is a long integer value. */
+			if(filetypes[i]==1) {
+				result.setLong(i, buffer.getLong(index));
+				cursor[i] += 8;
+			}
+			/* this means this is a string encoded by the dictionary. */
+			else if(filetypes[i]==6) {
+				Dictionary dictionary = dictionaries[columns[i] + 1];
+				int code = dictionary.getWidth()==2 ? 
+						buffer.getShort(index) & 0xffff : buffer.getInt(index);
+				result.setCode(i, code, dictionary);
+				cursor[i] += dictionary.getWidth();
+			}
+			/* this means this is a string value. */
+			else if(filetypes[i]==2) {
+				int length = buffer.get(index);
+				index++;
+				StringBuilder sb = new StringBuilder();
+				for(int j=0;j<length;j++)
+					sb.append((char)buffer.get(index + j));
+				result.setString(i, sb.toString());
+				cursor[i] += length + 1;
+			}
+			/* this means this is a double value. It could be a time value
+			 * , date value or just a plain double value.*/
+			else {
+				result.setDouble(i, buffer.getDouble(index));
+				cursor[i] += 8;
+			}
+		}
+		currentpoint++;
+		current = result;
+		return result;
+	}
+
+	/**
+	 * This method is used to get the next batch of tuples available in
+	 * the table. The batch is filled from the mini pages column by column,
+	 * so each column is read in a single loop and no tuple is built.
+	 * @return the batch or a null value.
+	 */
+	@Override
+	public TupleBatch getNextBatch() {
+		TupleBatch batch = null;
+		while(batch==null||!batch.isFull()) {
+			if(!loadPage()) break;
+			if(batch==null)
+				batch = new TupleBatch(types, 1);
+			int start = batch.size();
+			int end = start + Math.min(TupleBatch.BATCH_SIZE - start,
+					pagelimit - currentpoint);
+			for(int row=start;row<end;row++) {
+				batch.addRow();
+				batch.setTupleID(0, row, buffer.getLong(idpoint));
+				idpoint += 8;
+			}
+			for(int i=0;i<columns.length;i++) {
+				int index = cursor[i];
+				/* this means this is a string encoded by the dictionary. */
+				if(filetypes[i]==6) {
+					Dictionary dictionary = dictionaries[columns[i] + 1];
+					int width = dictionary.getWidth();
+					for(int row=start;row<end;row++) {
+						int code = width==2 ? 
+								buffer.getShort(index) & 0xffff : buffer.getInt(index);
+						batch.setCode(i, row, code, dictionary);
+						index += width;
+					}
+				}
+				/* this means this is a string value. */
+				else if(filetypes[i]==2) {
+					for(int row=start;row<end;row++) {
+						int length = buffer.get(index);
+						index++;
+						StringBuilder sb = new StringBuilder();
+						for(int j=0;j<length;j++)
+							sb.append((char)buffer.get(index + j));
+						batch.setString(i, row, sb.toString());
+						index += length;
+					}
+				}
+				/* the bits of the long value and the double value are 
+				 * stored in the same way in the column. */
+				else {
+					for(int row=start;row<end;row++) {
+						batch.setLong(i, row, buffer.getLong(index));
+						index += 8;
+					}
+				}
+				cursor[i] = index;
+			}
+			currentpoint += end - start;
+		}
+		current = null;
+		return batch;
+	}
+	
+	/**
+	 * This method is used to make sure the current page still has tuples
+	 * left. If not, the next page will be fetched from the disk and the
+	 * points of the mini pages are read.
+	 * @return false if there are no pages left.
+	 */
+	private boolean loadPage() {
+		/* this indicates we need to fetch a new page from the disk. */
+		while(currentpoint==pagelimit) {
+			buffer = nextPage();
+			if(buffer==null) return false;
+			pagelimit = buffer.getInt(0);
+			currentpoint = 0;
+			idpoint = buffer.getInt(4);
+			for(int i=0;i<columns.length;i++)
+				cursor[i] = buffer.getInt(8 + 4 * columns[i]);
+		}
+		return true;
+	}
+
+}
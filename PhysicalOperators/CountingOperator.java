@@ -0,0 +1,129 @@
+package PhysicalOperators;
+
+import java.util.Map;
+
+import Support.Mule;
+import TableElement.Tuple;
+import TableElement.TupleBatch;
+
+/**
+ * This class hands out the tuples and the batches of its child as they
+ * are, and counts them on the way. It is put above every operator of the
+ * plan when the query is explained with the actual number of tuples, so
+ * the plan is only run once for all the operators. The operator that is
+ * read again after it is reset, such as the inner side of the nested
+ * loops, counts the number of times it is read as well.
+ * @author messfish
+ *
+ */
+public class CountingOperator extends Operator {
+	
+	private Operator child; // the operator whose tuples are counted.
+	private long rows; // the number of tuples handed out.
+	private int loops; // the number of times the child is read.
+	private boolean started; // this shows the child is read since the reset.
+	
+	/**
+	 * Constructor: this constructor takes the operator to be counted.
+	 * @param child the operator whose tuples are counted.
+	 */
+	public CountingOperator(Operator child) {
+		this.child = child;
+	}
+	
+	/**
+	 * This is the getter method of the operator counted.
+	 * @return the operator whose tuples are counted.
+	 */
+	public Operator getChild() {
+		return child;
+	}
+	
+	/**
+	 * This method is used to get the next tuple of the child.
+	 * @return the next tuple, null if there is none left.
+	 */
+	@Override
+	public Tuple getNextTuple() {
+		start();
+		Tuple tuple = child.getNextTuple();
+		if(tuple!=null) rows++;
+		return tuple;
+	}
+	
+	/**
+	 * This method is used to get the next batch of the child.
+	 * @return the next batch, null if there is none left.
+	 */
+	@Override
+	public TupleBatch getNextBatch() {
+		start();
+		TupleBatch batch = child.getNextBatch();
+		if(batch!=null) rows += batch.getCount();
+		return batch;
+	}
+	
+	/**
+	 * This method is used to count the first read since the reset.
+	 */
+	private void start() {
+		if(!started) {
+			started = true;
+			loops++;
+		}
+	}
+	
+	/**
+	 * This method is used to reset the child, the tuples read after that
+	 * are counted in the next loop.
+	 */
+	@Override
+	public void reset() {
+		child.reset();
+		started = false;
+	}
+	
+	/**
+	 * This method is used to close the operator, the child is closed
+	 * as well.
+	 */
+	@Override
+	public void close() {
+		child.close();
+	}
+	
+	/**
+	 * This is the getter method of the number of tuples handed out.
+	 * @return the number of tuples in all the loops.
+	 */
+	public long getRows() {
+		return rows;
+	}
+	
+	/**
+	 * This is the getter method of the number of loops.
+	 * @return the number of times the child is read, 0 if it is never read.
+	 */
+	public int getLoops() {
+		return loops;
+	}
+	
+	/**
+	 * This method is used to get the schema of the child.
+	 * @return the schema of the child.
+	 */
+	@Override
+	public Map<String, Mule> getSchema() {
+		return child.getSchema();
+	}
+	
+	/**
+	 * This method is used to get the number of tables of the child.
+	 * @return the number of tables in the child.
+	 */
+	@Override
+	public int getNumOfTables() {
+		return child.getNumOfTables();
+	}
+	
+}
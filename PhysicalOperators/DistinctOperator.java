@@ -3,7 +3,6 @@ package PhysicalOperators;
 import java.util.Map;
 
 import Support.Mule;
-import TableElement.DataType;
 import TableElement.Tuple;
 
 /**
@@ -31,7 +30,7 @@ public class DistinctOperator extends Operator {
 		 * projection operator, so the number of tupleID should be 1. */
 		tuple = new Tuple(op.getSchema().size(), 1);
 		for(int i=0;i<tuple.datasize();i++)
-			tuple.setData(i, new DataType(""));
+			tuple.setString(i, "");
 	}
 
 	/**
@@ -61,7 +60,16 @@ public class DistinctOperator extends Operator {
 		op.reset();
 		tuple = new Tuple(op.getSchema().size(), 1);
 		for(int i=0;i<tuple.datasize();i++)
-			tuple.setData(i, new DataType(""));
+			tuple.setString(i, "");
+	}
+
+	/**
+	 * This method is used to close the operator, the child is closed
+	 * as well.
+	 */
+	@Override
+	public void close() {
+		op.close();
 	}
 
 	/**
@@ -0,0 +1,75 @@
+package PhysicalOperators;
+
+import java.util.Map;
+
+import Support.Mule;
+import TableElement.Tuple;
+import TableElement.TupleBatch;
+
+/**
+ * This class handles the query that could never have a tuple, for example
+ * when the where expression is always false. The child operator is only
+ * used for the schema of the table, it is never asked for a tuple, so the
+ * tables are not scanned at all.
+ * @author messfish
+ *
+ */
+public class EmptyOperator extends Operator {
+	
+	private Operator child; // the operator that gives the schema.
+	
+	/**
+	 * Constructor: this constructor is used to pass the operator to
+	 * the global variable.
+	 * @param operator the operator that gives the schema.
+	 */
+	public EmptyOperator(Operator operator) {
+		child = operator;
+	}
+	
+	/**
+	 * This method is used to get the next tuple, there is none.
+	 * @return null since there is no tuple.
+	 */
+	@Override
+	public Tuple getNextTuple() {
+		return null;
+	}
+	
+	/**
+	 * This method is used to get the next batch, there is none.
+	 * @return null since there is no tuple.
+	 */
+	@Override
+	public TupleBatch getNextBatch() {
+		return null;
+	}
+	
+	/**
+	 * This method does nothing since there is no tuple to go back to.
+	 */
+	@Override
+	public void reset() {
+	}
+	
+	/**
+	 * This method is used to get the schema of the table. Basically
+	 * it just returns the schema from the child operator.
+	 * @return the schema of the table.
+	 */
+	@Override
+	public Map<String, Mule> getSchema() {
+		return child.getSchema();
+	}
+	
+	/**
+	 * This method is used to fetch the number of tables in the
+	 * single operator.
+	 * @return the number of tables in this operator.
+	 */
+	@Override
+	public int getNumOfTables() {
+		return child.getNumOfTables();
+	}
+	
+}
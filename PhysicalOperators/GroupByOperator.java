@@ -1,9 +1,7 @@
 package PhysicalOperators;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -14,9 +12,10 @@ import SQLExpression.Expression;
 import SmallSQLServer.Main;
 import Sorting.ExternalSort;
 import Sorting.TempOperator;
+import Storage.PageWriter;
 import Support.Mule;
-import TableElement.DataType;
 import TableElement.Tuple;
+import TableElement.TupleBatch;
 
 /**
  * This class is mainly used for grouping the attributes that has the 
@@ -63,8 +62,8 @@ public class GroupByOperator extends Operator {
 				residuelist.add(entry);
 		}
 		schema = new HashMap<>();
-		buildSchema(grouplist);
 		this.op = op;
+		buildSchema(grouplist);
 		/* we need to change the list of strings to list of expressions
 		 * first so it could be used for the external sort. */
 		List<Expression> expressionlist = new ArrayList<>(grouplist.size());
@@ -84,6 +83,15 @@ public class GroupByOperator extends Operator {
 	public Tuple getNextTuple() {
 		return operator.getNextTuple();
 	}
+	
+	/**
+	 * This method is used to fetch the next batch of the groups.
+	 * @return the next batch.
+	 */
+	@Override
+	public TupleBatch getNextBatch() {
+		return operator.getNextBatch();
+	}
 
 	/**
 	 * This method is used to reset the operator back to the starting point.
@@ -115,6 +123,7 @@ public class GroupByOperator extends Operator {
 	/**
 	 * This method is used to close the file stream in the operator.
 	 */
+	@Override
 	public void close() {
 		operator.close();
 	}
@@ -131,8 +140,7 @@ public class GroupByOperator extends Operator {
 	private void buildSchema(List<String> grouplist) {
 		for(int i=0;i<grouplist.size();i++) {
 			Mule mule = op.getSchema().get(grouplist.get(i));
-			mule.setIndex(i);
-			schema.put(grouplist.get(i), mule);
+			schema.put(grouplist.get(i), new Mule(i, mule.getDataType()));
 		}
 		int index = grouplist.size();
 		schema.put("COUNT(*)", new Mule(index, 1));
@@ -148,7 +156,7 @@ public class GroupByOperator extends Operator {
 			}
 			schema.put("MAX("+attribute+")", new Mule(index, type));
 			schema.put("MIN("+attribute+")", new Mule(index + 1, type));
-			schema.put("COUNT("+attribute+")", new Mule(index + 2, type));
+			schema.put("COUNT("+attribute+")", new Mule(index + 2, 1));
 			index += 3;
 		}
 	}
@@ -167,14 +175,11 @@ public class GroupByOperator extends Operator {
 	private File getStatistics(TempOperator temp) {
 		File result = new File(Main.getTemp() + "/statistics");
 		try {
-			FileOutputStream out = new FileOutputStream(result);
-			FileChannel fc = out.getChannel();
+			PageWriter out = new PageWriter(result, Main.isCompressed());
 			ByteBuffer buffer = null;
-			while((buffer=writePage(temp))!=null) {
-				buffer.limit(buffer.capacity());
-				buffer.position(0);
-				fc.write(buffer);
-			}
+			dummystore = temp.getNextTuple();
+			while((buffer=writePage(temp))!=null)
+				out.writePage(buffer);
 			out.close();
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -188,21 +193,26 @@ public class GroupByOperator extends Operator {
 	 * @return the buffer page that will be written by file channel.
 	 */
 	private ByteBuffer writePage(TempOperator temp) {
+		/* this means all the groups have been written. */
+		if(tempstore==null&&dummystore==null)
+			return null;
 		ByteBuffer buffer = ByteBuffer.allocate(NUM_OF_BYTES);
 		int index = 4, numoftuples = 0;
 		if(tempstore != null) {
 			writeTuple(buffer, tempstore, index);
 			index += checkSize(tempstore);
 			numoftuples++;
+			tempstore = null;
 		}
-		dummystore = temp.getNextTuple(); 
-		while(true) {
+		while(dummystore!=null) {
 			Tuple tuple = getTuple(temp);
 			int size = checkSize(tuple);
 			if(index + size > NUM_OF_BYTES) {
 				tempstore = tuple;
 				break;
 			}
+			writeTuple(buffer, tuple, index);
+			index += size;
 			numoftuples++;
 		}
 		buffer.putInt(0, numoftuples);
@@ -229,8 +239,8 @@ public class GroupByOperator extends Operator {
 			changeTuple(temp,proceed,result);
 			proceed = temp.getNextTuple();
 		}
-		result.setData(groupindexlist.size(), new DataType(numoftuples));
-		result.setData(groupindexlist.size()+1, new DataType(numofdistuples));
+		result.setLong(groupindexlist.size(), numoftuples);
+		result.setLong(groupindexlist.size()+1, numofdistuples);
 		setlast(result, numoftuples);
 		result.setTupleID(0, tupleID);
 		tupleID++;
@@ -247,21 +257,21 @@ public class GroupByOperator extends Operator {
 	private void constructTuple(TempOperator temp, Tuple result) {
 		for(Map.Entry<String, Mule> entry : temp.getSchema().entrySet()) {
 			String attribute = entry.getKey();
-			DataType data = dummystore.getData(entry.getValue().getIndex());
+			int index = entry.getValue().getIndex();
 			if(schema.containsKey(attribute)) 
-				result.setData(schema.get(attribute).getIndex(), data);
+				result.copyData(schema.get(attribute).getIndex(), dummystore, index);
 		}
 		int start = groupindexlist.size() + 2;
 		for(Map.Entry<String, Mule> entry : residuelist) {
-			DataType data = dummystore.getData(entry.getValue().getIndex());
+			int index = entry.getValue().getIndex();
 			int type = entry.getValue().getDataType();
 			if(type==1||type==5) {
-				result.setData(start, data);
-				result.setData(start + 1, data);
+				result.copyData(start, dummystore, index);
+				result.copyData(start + 1, dummystore, index);
 				start += 2;
 			}
-			result.setData(start, data);
-			result.setData(start + 1, data);
+			result.copyData(start, dummystore, index);
+			result.copyData(start + 1, dummystore, index);
 			start += 3;
 		}
 	}
@@ -278,20 +288,17 @@ public class GroupByOperator extends Operator {
 		int start = groupindexlist.size() + 2;
 		for(Map.Entry<String, Mule> entry : residuelist) {
 			int index = temp.getSchema().get(entry.getKey()).getIndex();
-			DataType paradata = proceed.getData(index);
 			int type = entry.getValue().getDataType();
 			if(type==1||type==5) {
-				result.setData(start, result.getData(start).add(paradata));
-				result.setData(start+1, result.getData(start+1).add(paradata));
+				add(result, start, proceed, index);
+				add(result, start + 1, proceed, index);
 				start += 2;
 			}
-			DataType target = result.getData(start).compare(paradata) >= 0 ?
-							  result.getData(start) : paradata;
-			result.setData(start, target);
+			if(result.compare(start, proceed, index) < 0)
+				result.copyData(start, proceed, index);
 			start++;
-			target = result.getData(start).compare(paradata) <= 0 ?
-					  result.getData(start) : paradata;
-			result.setData(start, target);
+			if(result.compare(start, proceed, index) > 0)
+				result.copyData(start, proceed, index);
 			start += 2;
 		}
 	}
@@ -306,16 +313,33 @@ public class GroupByOperator extends Operator {
 	private void setlast(Tuple result, long numoftuples) {
 		int start = groupindexlist.size() + 2;
 		for(Map.Entry<String, Mule> entry : residuelist) {
-			int type = entry.getValue().getIndex();
+			int type = entry.getValue().getDataType();
 			if(type==1||type==5) {
-				DataType temp = result.getData(start + 1);
-				result.setData(start + 1, temp.divide(numoftuples));
+				if(result.getType(start + 1)==1)
+					result.setLong(start + 1, result.getLong(start + 1) / numoftuples);
+				else result.setDouble(start + 1, 
+						result.getDouble(start + 1) / numoftuples);
 				start += 2;
 			}
-			result.setData(start + 2, new DataType(numoftuples));
+			result.setLong(start + 2, numoftuples);
 			start += 3;
 		}
 	}
 	
+	/**
+	 * This method is used to add the number in the tuple given to the
+	 * number in the result tuple.
+	 * @param result the result tuple that stores the sum.
+	 * @param start the index of the sum in the result tuple.
+	 * @param proceed the tuple that has the number.
+	 * @param index the index of the number in the tuple.
+	 */
+	private void add(Tuple result, int start, Tuple proceed, int index) {
+		if(result.getType(start)==1)
+			result.setLong(start, result.getLong(start) + proceed.getLong(index));
+		else result.setDouble(start, 
+				result.getDouble(start) + proceed.getDouble(index));
+	}
+	
 }
 
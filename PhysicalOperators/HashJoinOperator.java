@@ -0,0 +1,474 @@
+package PhysicalOperators;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import SQLExpression.AndOperator;
+import SQLExpression.ColumnNode;
+import SQLExpression.Equals;
+import SQLExpression.Expression;
+import SQLExpression.MultiAndOperator;
+import SmallSQLServer.Main;
+import Sorting.TempOperator;
+import Support.LongHashTable;
+import Support.Mule;
+import TableElement.Tuple;
+
+/**
+ * This class handles the join of two operators with an equality of a
+ * column from each side in the condition. The tuples of the smaller side
+ * are kept in the memory and put into a hash table with the value of the
+ * column as the key, then the tuples of the other side are read one by
+ * one and joined with the tuples that have the same key. The sizes are not
+ * known before the tuples are read, so the two sides are read in turns
+ * until one of them runs out, that one is the smaller side and the tuples
+ * read from the other side are joined first. Notice the key is a long
+ * value: the long values are used directly, the double values use their
+ * bits and the strings use their hash codes, so the whole condition is
+ * still checked on the tuples joined unless the equality of two long
+ * columns is the whole condition.
+ * When both sides are larger than the memory given to the join, both of
+ * them are written into the temporary files in parts by the hash of the
+ * key, the tuples with the same key are in the parts with the same number.
+ * Then the parts are joined in pairs, the pairs that are still too large
+ * are split again with another hash, which helps when a lot of keys fall
+ * into the same part. After a few times the pair is joined in the memory
+ * anyway, since the tuples left might all have the same key. The parts
+ * are kept so the operator could be reset, they are deleted when the
+ * operator is closed.
+ * @author messfish
+ *
+ */
+public class HashJoinOperator extends JoinOperator {
+	
+	private static final int NUM_OF_BYTES = 16384; // the size of a page.
+	private static final int FAN_OUT = 16; // the number of parts of a side.
+	private static final int MAX_DEPTH = 3;
+	// the number of times a pair of parts could be split again.
+	private static int count = 1; // this is used to name the temporary files.
+	private int leftindex, rightindex; // the index of the key on each side.
+	private int keytype; // the type of the key in the tuples: 1, 2 or 5.
+	private boolean exact;
+	// this shows the equality of the keys is the whole condition.
+	private byte[] lefttypes, righttypes;
+	// the type of each data of the tuples from each side.
+	private LongHashTable table; // the hash table of the smaller side.
+	private List<Tuple> rows; // the tuples of the smaller side.
+	private boolean buildleft; // this shows the left side is the smaller one.
+	private Operator probeside; // the operator of the larger side.
+	private List<Tuple> buffer; // the tuples read from the larger side.
+	private int position; // the next tuple to be joined in the buffer.
+	private boolean finished; // this shows the larger side has run out.
+	private Tuple probe; // the current tuple from the larger side.
+	private int match = -1; // the next row of the smaller side to join.
+	private int ID, files; // the ID and the number of the temporary files.
+	private Map<String, Mule> leftspill, rightspill;
+	// the schema of the temporary files of each side.
+	private List<SpillFile[]> pairs;
+	// the pairs of the parts to be joined, null if nothing is written.
+	private int pair = -1; // the pair of the parts being joined.
+	
+	/**
+	 * Constructor: this constructor takes the two operators, the condition
+	 * of the join and the two columns of the equality.
+	 * @param left the left operator.
+	 * @param right the right operator.
+	 * @param condition the condition of the join.
+	 * @param leftkey the column of the equality from the left operator.
+	 * @param rightkey the column of the equality from the right operator.
+	 */
+	public HashJoinOperator(Operator left, Operator right, Expression condition,
+			String leftkey, String rightkey) {
+		super(left, right, condition);
+		lefttypes = getTupleTypes(left.getSchema());
+		righttypes = getTupleTypes(right.getSchema());
+		leftindex = left.getSchema().get(leftkey).getIndex();
+		rightindex = right.getSchema().get(rightkey).getIndex();
+		keytype = lefttypes[leftindex];
+		exact = keytype==1&&condition instanceof Equals;
+		leftspill = SpillFile.getSchema(left);
+		rightspill = SpillFile.getSchema(right);
+	}
+	
+	/**
+	 * This method is used to find the equality of a column from the left
+	 * operator and a column from the right operator in the condition. The
+	 * two columns should have the same type in the tuples.
+	 * @param condition the condition of the join, could be null.
+	 * @param left the schema of the left operator.
+	 * @param right the schema of the right operator.
+	 * @return the column from the left and the column from the right, null
+	 * if there is no such equality.
+	 */
+	public static String[] findKeys(Expression condition, Map<String, Mule> left,
+			Map<String, Mule> right) {
+		List<Expression> conjuncts = new ArrayList<>();
+		if(condition!=null) collect(condition, conjuncts);
+		for(Expression express : conjuncts) {
+			if(!(express instanceof Equals)) continue;
+			Expression child1 = ((Equals)express).getLeftChild();
+			Expression child2 = ((Equals)express).getRightChild();
+			if(!(child1 instanceof ColumnNode)||!(child2 instanceof ColumnNode))
+				continue;
+			String name1 = ((ColumnNode)child1).getWholeColumnName();
+			String name2 = ((ColumnNode)child2).getWholeColumnName();
+			if(right.containsKey(name1)&&left.containsKey(name2)) {
+				String dummy = name1;
+				name1 = name2;
+				name2 = dummy;
+			}
+			if(!left.containsKey(name1)||!right.containsKey(name2))
+				continue;
+			if(getType(left.get(name1))==getType(right.get(name2)))
+				return new String[]{name1, name2};
+		}
+		return null;
+	}
+	
+	/**
+	 * This method is used to collect the conjuncts of the expression, the
+	 * AND operators could be nested in each other.
+	 * @param express the expression that will be split.
+	 * @param conjuncts the list that stores the conjuncts.
+	 */
+	private static void collect(Expression express, List<Expression> conjuncts) {
+		if(express instanceof MultiAndOperator) {
+			for(Expression child : ((MultiAndOperator)express).getList())
+				collect(child, conjuncts);
+		}else if(express instanceof AndOperator) {
+			collect(((AndOperator)express).getLeftChild(), conjuncts);
+			collect(((AndOperator)express).getRightChild(), conjuncts);
+		}else conjuncts.add(express);
+	}
+	
+	/**
+	 * This method is used to get the type of the data in the tuples from
+	 * the type in the schema, the date and the time are double values.
+	 * @param mule the mule in the schema.
+	 * @return the type of the data in the tuples.
+	 */
+	private static int getType(Mule mule) {
+		int type = mule.getDataType();
+		return type==1||type==2 ? type : 5;
+	}
+	
+	/**
+	 * This method is used to get the key of the tuple.
+	 * @param tuple the tuple.
+	 * @param index the index of the key in the tuple.
+	 * @return the key as a long value.
+	 */
+	private long getKey(Tuple tuple, int index) {
+		if(keytype==1) return tuple.getLong(index);
+		if(keytype==2) return tuple.getString(index).hashCode();
+		double value = tuple.getDouble(index);
+		/* 0.0 and -0.0 are equal but they have different bits. */
+		return value==0.0 ? 0 : Double.doubleToLongBits(value);
+	}
+	
+	/**
+	 * This method is used to copy the tuple, since the tuples handed out
+	 * by the scan operators are backed by the pages read.
+	 * @param tuple the tuple that will be copied.
+	 * @param types the type of each data in the tuple.
+	 * @param tables the number of tables in the tuple.
+	 * @return the copy of the tuple.
+	 */
+	private Tuple copy(Tuple tuple, byte[] types, int tables) {
+		Tuple result = new Tuple(types, tables);
+		for(int i=0;i<tuple.datasize();i++)
+			result.copyData(i, tuple, i);
+		for(int i=0;i<tables;i++)
+			result.setTupleID(i, tuple.getTupleID(i));
+		return result;
+	}
+	
+	/**
+	 * This method is used to build the hash table. Read the two sides in
+	 * turns until one of them runs out, put the tuples of that side into
+	 * the hash table and keep the tuples read from the other side. A side
+	 * is not read any more when it is larger than the memory, when both
+	 * are, they are written into the temporary files in parts.
+	 */
+	private void build() {
+		List<Tuple> list1 = new ArrayList<>(), list2 = new ArrayList<>();
+		int tables1 = left.getNumOfTables(), tables2 = right.getNumOfTables();
+		long limit = (long)Main.getJoinPages() * NUM_OF_BYTES;
+		long bytes1 = 0, bytes2 = 0;
+		boolean end1 = false, end2 = false;
+		while(!end1&&!end2) {
+			if(bytes1 > limit&&bytes2 > limit) {
+				spill(list1, list2);
+				return;
+			}
+			if(bytes1 <= limit) {
+				Tuple tuple = left.getNextTuple();
+				if(tuple==null) end1 = true;
+				else {
+					list1.add(copy(tuple, lefttypes, tables1));
+					bytes1 += checkSize(tuple);
+				}
+			}
+			if(bytes2 <= limit) {
+				Tuple tuple = right.getNextTuple();
+				if(tuple==null) end2 = true;
+				else {
+					list2.add(copy(tuple, righttypes, tables2));
+					bytes2 += checkSize(tuple);
+				}
+			}
+		}
+		/* the right side is kept when both have the same size, so the
+		 * tuples come out in the same order as the nested loops. */
+		buildleft = end1&&(!end2||list1.size() < list2.size());
+		buffer = buildleft ? list2 : list1;
+		probeside = buildleft ? right : left;
+		finished = buildleft ? end2 : end1;
+		load(buildleft ? list1 : list2);
+	}
+	
+	/**
+	 * This method is used to put the tuples of the smaller side into the
+	 * hash table.
+	 * @param list the tuples of the smaller side.
+	 */
+	private void load(List<Tuple> list) {
+		rows = list;
+		int index = buildleft ? leftindex : rightindex;
+		table = new LongHashTable(rows.size());
+		for(int i=0;i<rows.size();i++)
+			table.put(getKey(rows.get(i), index), i);
+	}
+	
+	/**
+	 * This method is used to write both sides into the temporary files in
+	 * parts, then split the pairs of the parts that are still too large.
+	 * @param list1 the tuples read from the left side.
+	 * @param list2 the tuples read from the right side.
+	 */
+	private void spill(List<Tuple> list1, List<Tuple> list2) {
+		ID = count++;
+		SpillFile[] lefts = partition(list1, left, true, 0, false);
+		SpillFile[] rights = partition(list2, right, false, 0, false);
+		pairs = new ArrayList<>();
+		for(int i=0;i<FAN_OUT;i++)
+			split(lefts[i], rights[i], 0);
+		rows = new ArrayList<>();
+		buffer = new ArrayList<>();
+		finished = true;
+	}
+	
+	/**
+	 * This method is used to get the part of the key, the seed changes
+	 * the hash so the keys in the same part could be split again.
+	 * @param key the key of the tuple.
+	 * @param seed the seed of the hash.
+	 * @return the number of the part.
+	 */
+	private int part(long key, int seed) {
+		key += seed * 0x9e3779b97f4a7c15L;
+		key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+		key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+		key ^= key >>> 31;
+		return (int)((key >>> 1) % FAN_OUT);
+	}
+	
+	/**
+	 * This method is used to write the tuples of one side into the parts.
+	 * The tuples in the list come first, then the tuples of the operator.
+	 * @param list the tuples read from the side.
+	 * @param op the operator of the side.
+	 * @param leftside true means the side is the left side.
+	 * @param seed the seed of the hash.
+	 * @param written true means the tuples of the operator are read from
+	 * the parts written before, so their tuple IDs are in the data already.
+	 * @return the parts of the side.
+	 */
+	private SpillFile[] partition(List<Tuple> list, Operator op, boolean leftside,
+			int seed, boolean written) {
+		SpillFile[] result = new SpillFile[FAN_OUT];
+		for(int i=0;i<FAN_OUT;i++)
+			result[i] = new SpillFile(new File(Main.getTemp() + "/join "
+					+ ID + " " + files++), leftside ? left : right);
+		int index = leftside ? leftindex : rightindex;
+		for(Tuple tuple : list)
+			result[part(getKey(tuple, index), seed)].write(tuple, false);
+		Tuple tuple = null;
+		while((tuple=op.getNextTuple())!=null)
+			result[part(getKey(tuple, index), seed)].write(tuple, written);
+		for(SpillFile spill : result)
+			spill.close();
+		return result;
+	}
+	
+	/**
+	 * This method is used to add the pair of the parts to be joined. The
+	 * pair is split again when both parts are larger than the memory.
+	 * @param part1 the part of the left side.
+	 * @param part2 the part of the right side.
+	 * @param depth the number of times the parts have been split.
+	 */
+	private void split(SpillFile part1, SpillFile part2, int depth) {
+		if(part1.getTuples()==0||part2.getTuples()==0) {
+			part1.delete();
+			part2.delete();
+			return;
+		}
+		long limit = (long)Main.getJoinPages() * NUM_OF_BYTES;
+		if(Math.min(part1.getBytes(), part2.getBytes()) <= limit||depth==MAX_DEPTH) {
+			pairs.add(new SpillFile[]{part1, part2});
+			return;
+		}
+		SpillFile[] lefts = repartition(part1, true, depth + 1);
+		SpillFile[] rights = repartition(part2, false, depth + 1);
+		for(int i=0;i<FAN_OUT;i++)
+			split(lefts[i], rights[i], depth + 1);
+	}
+	
+	/**
+	 * This method is used to split a part into the smaller parts.
+	 * @param spill the part that will be split.
+	 * @param leftside true means the part is from the left side.
+	 * @param seed the seed of the hash.
+	 * @return the smaller parts.
+	 */
+	private SpillFile[] repartition(SpillFile spill, boolean leftside, int seed) {
+		TempOperator temp = new TempOperator(spill.getFile(),
+				leftside ? leftspill : rightspill);
+		SpillFile[] result = partition(new ArrayList<>(), temp, leftside,
+				seed, true);
+		temp.close();
+		spill.delete();
+		return result;
+	}
+	
+	/**
+	 * This method is used to move to the next pair of the parts. The
+	 * smaller part is put into the hash table, the other is read later.
+	 * @return false if there are no pairs left.
+	 */
+	private boolean nextPair() {
+		if(probeside!=null) {
+			((TempOperator)probeside).close();
+			probeside = null;
+		}
+		if(pair==pairs.size() - 1) return false;
+		SpillFile[] spill = pairs.get(++pair);
+		buildleft = spill[0].getBytes() < spill[1].getBytes();
+		TempOperator temp = new TempOperator(spill[buildleft ? 0 : 1].getFile(),
+				buildleft ? leftspill : rightspill);
+		List<Tuple> list = new ArrayList<>();
+		Tuple tuple = null;
+		while((tuple=temp.getNextTuple())!=null)
+			list.add(restore(tuple, buildleft));
+		temp.close();
+		load(list);
+		probeside = new TempOperator(spill[buildleft ? 1 : 0].getFile(),
+				buildleft ? rightspill : leftspill);
+		buffer = new ArrayList<>();
+		position = 0;
+		finished = false;
+		return true;
+	}
+	
+	/**
+	 * This method is used to get the next tuple from the larger side, the
+	 * tuples read when the hash table is built come first.
+	 * @return the next tuple from the larger side, null if there is none.
+	 */
+	private Tuple nextProbe() {
+		if(position < buffer.size())
+			return buffer.get(position++);
+		if(finished) return null;
+		Tuple tuple = probeside.getNextTuple();
+		if(tuple==null) finished = true;
+		else if(pairs!=null) tuple = restore(tuple, !buildleft);
+		return tuple;
+	}
+	
+	/**
+	 * This method is used to get the tuple back from the temporary file.
+	 * @param tuple the tuple from the temporary file.
+	 * @param leftside true means the tuple is from the left side.
+	 * @return the tuple with the tuple IDs.
+	 */
+	private Tuple restore(Tuple tuple, boolean leftside) {
+		if(leftside)
+			return SpillFile.restore(tuple, lefttypes, left.getNumOfTables());
+		return SpillFile.restore(tuple, righttypes, right.getNumOfTables());
+	}
+	
+	/**
+	 * This method is used to get the next tuple that passes the condition.
+	 * Join the current tuple from the larger side with the next tuple of
+	 * the same key, when there is none, move to the next tuple from the
+	 * larger side and look up its key in the hash table. When the larger
+	 * side runs out, move to the next pair of the parts if there is any.
+	 * @return the next joined tuple, null if there is none left.
+	 */
+	@Override
+	public Tuple getNextTuple() {
+		if(rows==null) build();
+		while(true) {
+			if(match!=-1) {
+				Tuple row = rows.get(match);
+				match = table.next(match);
+				Tuple result = buildleft ? combine(row, probe) : combine(probe, row);
+				if(exact||evaluator.checkValid(result))
+					return result;
+				continue;
+			}
+			probe = nextProbe();
+			if(probe==null) {
+				if(pairs==null||!nextPair()) return null;
+				continue;
+			}
+			match = table.get(getKey(probe, buildleft ? rightindex : leftindex));
+		}
+	}
+	
+	/**
+	 * This method is used to reset the operator. The hash table is kept,
+	 * only the larger side is read again from the start. When the sides
+	 * are written in parts, the pairs are joined again from the first.
+	 */
+	@Override
+	public void reset() {
+		if(rows==null) return;
+		match = -1;
+		buffer = new ArrayList<>();
+		position = 0;
+		if(pairs!=null) {
+			if(probeside!=null) ((TempOperator)probeside).close();
+			probeside = null;
+			pair = -1;
+			finished = true;
+			return;
+		}
+		probeside.reset();
+		finished = false;
+	}
+	
+	/**
+	 * This method is used to close the operator. The parts written into
+	 * the temporary files are kept for the reset until now, they are
+	 * deleted here.
+	 */
+	@Override
+	public void close() {
+		if(pairs!=null) {
+			if(probeside!=null) ((TempOperator)probeside).close();
+			probeside = null;
+			for(SpillFile[] spill : pairs) {
+				spill[0].delete();
+				spill[1].delete();
+			}
+			pairs.clear();
+			pair = -1;
+		}
+		super.close();
+	}
+	
+}
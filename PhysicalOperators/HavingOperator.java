@@ -19,6 +19,9 @@ public class HavingOperator extends Operator {
 
 	private Operator op; // object that performs the scanning.
 	private Expression express; // object stores the expression.
+	private Evaluator evaluator;
+	// the evaluator that is bound to the schema once, null if there is
+	// no expression.
 	
 	/**
 	 * Constructor: this constructor is used to set the expression to the
@@ -29,6 +32,8 @@ public class HavingOperator extends Operator {
 	public HavingOperator(Operator operator, Expression express) {
 		op = operator;
 		this.express = express;
+		if(express!=null)
+			evaluator = new Evaluator(express, getSchema());
 	}
 
 	/**
@@ -44,11 +49,9 @@ public class HavingOperator extends Operator {
 		if(tuple == null) return null;
 		/* this usually indicates no where language. return that tuple. */
 		if(express==null) return tuple;
-		Evaluator eva = new Evaluator(tuple, express, getSchema());
-		while(!eva.checkValid()) {
+		while(!evaluator.checkValid(tuple)) {
 			tuple = op.getNextTuple();
 			if(tuple == null) return null;
-			eva = new Evaluator(tuple,express,getSchema());
 		}
 		return tuple;
 	}
@@ -63,6 +66,15 @@ public class HavingOperator extends Operator {
 		op.reset();
 	}
 
+	/**
+	 * This method is used to close the operator, the child is closed
+	 * as well.
+	 */
+	@Override
+	public void close() {
+		op.close();
+	}
+
 	/**
 	 * This method is used to get the schema of the table. Basically
 	 * it just returns the schema from the Operator.
@@ -0,0 +1,99 @@
+package PhysicalOperators;
+
+import java.util.List;
+
+import BPlusTree.BPlusTree;
+import BPlusTree.Node;
+import Evaluator.Evaluator;
+import SQLExpression.Equals;
+import SQLExpression.Expression;
+import TableElement.Tuple;
+
+/**
+ * This class handles the join of two operators by using the tree built
+ * on the key of the right side. For each tuple from the left side, the
+ * tree is searched with the key and the tuples of the right side that
+ * have the same key are fetched by their record pointers, so the right
+ * side is never scanned. The right side should be a single table in the
+ * row form. Since the tuples of the right side are fetched directly, the
+ * where clause of that table is checked by the filter of this operator.
+ * When the condition is a single equality, the tuples found by the tree
+ * always pass it and the condition is not checked again.
+ * @author messfish
+ *
+ */
+public class IndexNestedLoopJoinOperator extends JoinOperator {
+	
+	private CartesianOperator inner; // the table of the right side.
+	private BPlusTree tree; // the tree built on the key of the right side.
+	private int leftindex; // the index of the key in the left tuple.
+	private Evaluator filter;
+	// the evaluator of the where clause of the right side, could be null.
+	private boolean exact;
+	// this shows the condition is exactly the equality of the keys.
+	private Tuple outer; // the current tuple from the left side.
+	private List<int[]> pointers; // the pointers found by the tree.
+	private int position; // the next pointer that will be fetched.
+	
+	/**
+	 * Constructor: this constructor takes the two operators, the condition
+	 * and the tree of the right side.
+	 * @param left the left operator.
+	 * @param right the table of the right side.
+	 * @param condition the condition of the join.
+	 * @param leftkey the name of the key column from the left side.
+	 * @param tree the tree built on the key column of the right side.
+	 * @param where the where clause of the right side, could be null.
+	 */
+	public IndexNestedLoopJoinOperator(Operator left, CartesianOperator right,
+			Expression condition, String leftkey, BPlusTree tree,
+			Expression where) {
+		super(left, right, condition);
+		inner = right;
+		this.tree = tree;
+		leftindex = left.getSchema().get(leftkey).getIndex();
+		if(where!=null)
+			filter = new Evaluator(where, right.getSchema());
+		exact = condition instanceof Equals;
+	}
+	
+	/**
+	 * This method is used to get the next tuple that passes the condition.
+	 * Fetch the next tuple pointed by the tree and put it together with
+	 * the current tuple from the left side. When the pointers run out,
+	 * move to the next tuple from the left side and search the tree again.
+	 * @return the next joined tuple, null if there is none left.
+	 */
+	@Override
+	public Tuple getNextTuple() {
+		while(true) {
+			if(pointers==null||position==pointers.size()) {
+				outer = left.getNextTuple();
+				if(outer==null) return null;
+				pointers = tree.search(Node.toKey(outer, leftindex));
+				position = 0;
+				continue;
+			}
+			int[] pointer = pointers.get(position);
+			position++;
+			Tuple tuple = inner.getTuple(pointer[0], pointer[1]);
+			if(filter!=null&&!filter.checkValid(tuple))
+				continue;
+			Tuple result = combine(outer, tuple);
+			if(exact||evaluator.checkValid(result))
+				return result;
+		}
+	}
+	
+	/**
+	 * This method is used to reset the operator. Only the left side needs
+	 * to be reset, since the right side is never scanned.
+	 */
+	@Override
+	public void reset() {
+		left.reset();
+		pointers = null;
+		outer = null;
+	}
+	
+}
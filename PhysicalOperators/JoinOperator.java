@@ -0,0 +1,144 @@
+package PhysicalOperators;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import Evaluator.Evaluator;
+import SQLExpression.Expression;
+import Support.Mule;
+import TableElement.Tuple;
+
+/**
+ * This class handles the join of two operators with the nested loops:
+ * for each tuple from the left operator, every tuple from the right
+ * operator is read and the two are put together, the right operator is
+ * reset when it runs out. The tuple joined is handed out only when it
+ * passes the condition. The data of the left operator come first in the
+ * joined tuple, so a chain of joins keeps the same order as the Cartesian
+ * operator of the same tables.
+ * @author messfish
+ *
+ */
+public class JoinOperator extends Operator {
+	
+	protected Operator left, right; // the two operators that will be joined.
+	private Map<String, Mule> schema;
+	private byte[] types; // this array stores the type of each data.
+	protected Evaluator evaluator;
+	// the evaluator that checks the condition, null if there is none.
+	private Tuple outer; // the current tuple from the left operator.
+	
+	/**
+	 * Constructor: this constructor takes the two operators and the
+	 * condition of the join. The schema of the right operator is put
+	 * after the schema of the left one.
+	 * @param left the left operator, which is the outer loop.
+	 * @param right the right operator, which is the inner loop.
+	 * @param condition the condition of the join, could be null.
+	 */
+	public JoinOperator(Operator left, Operator right, Expression condition) {
+		this.left = left;
+		this.right = right;
+		schema = new HashMap<>(left.getSchema());
+		int previous = left.getSchema().size();
+		for(Map.Entry<String, Mule> entry : right.getSchema().entrySet()) {
+			Mule mule = entry.getValue();
+			schema.put(entry.getKey(), new Mule(previous + mule.getIndex(),
+					mule.getDataType()));
+		}
+		types = getTupleTypes(schema);
+		if(condition!=null)
+			evaluator = new Evaluator(condition, schema);
+	}
+	
+	/**
+	 * This method is used to get the next tuple that passes the condition.
+	 * Get the next tuple from the right operator and put it together with
+	 * the current tuple from the left one. When the right operator runs
+	 * out, reset it and move to the next tuple from the left operator.
+	 * @return the next joined tuple, null if there is none left.
+	 */
+	@Override
+	public Tuple getNextTuple() {
+		while(true) {
+			if(outer==null) {
+				outer = left.getNextTuple();
+				if(outer==null) return null;
+			}
+			Tuple inner = right.getNextTuple();
+			if(inner==null) {
+				right.reset();
+				outer = null;
+				continue;
+			}
+			Tuple result = combine(outer, inner);
+			if(evaluator==null||evaluator.checkValid(result))
+				return result;
+		}
+	}
+	
+	/**
+	 * This method is used to put the data and the tuple ids of the two
+	 * tuples together in a new tuple.
+	 * @param tuple1 the tuple from the left operator.
+	 * @param tuple2 the tuple from the right operator.
+	 * @return the joined tuple.
+	 */
+	protected Tuple combine(Tuple tuple1, Tuple tuple2) {
+		int tables = left.getNumOfTables();
+		Tuple result = new Tuple(types, getNumOfTables());
+		int size = tuple1.datasize();
+		for(int i=0;i<size;i++)
+			result.copyData(i, tuple1, i);
+		for(int i=0;i<tuple2.datasize();i++)
+			result.copyData(size + i, tuple2, i);
+		for(int i=0;i<tables;i++)
+			result.setTupleID(i, tuple1.getTupleID(i));
+		for(int i=0;i<right.getNumOfTables();i++)
+			result.setTupleID(tables + i, tuple2.getTupleID(i));
+		return result;
+	}
+	
+	/**
+	 * This method is used to reset the operator. Simply reset both of
+	 * the operators.
+	 */
+	@Override
+	public void reset() {
+		left.reset();
+		right.reset();
+		outer = null;
+	}
+	
+	/**
+	 * This method is used to close the operator, both of the operators
+	 * joined are closed as well.
+	 */
+	@Override
+	public void close() {
+		left.close();
+		right.close();
+	}
+	
+	
+	/**
+	 * This method is used to retrieve the schema of the joined tuples.
+	 * @return a hash map with the attribute as the key and a combination
+	 * of the index and the data type as the value.
+	 */
+	@Override
+	public Map<String, Mule> getSchema() {
+		return schema;
+	}
+	
+	/**
+	 * This method is used to fetch the number of tables in the
+	 * single operator.
+	 * @return the number of tables in this operator.
+	 */
+	@Override
+	public int getNumOfTables() {
+		return left.getNumOfTables() + right.getNumOfTables();
+	}
+	
+}
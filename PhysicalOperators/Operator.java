@@ -1,7 +1,8 @@
 package PhysicalOperators;
 
-import TableElement.DataType;
+import TableElement.PageTuple;
 import TableElement.Tuple;
+import TableElement.TupleBatch;
 
 import java.io.BufferedWriter;
 import java.io.File;
@@ -12,6 +13,7 @@ import java.util.List;
 import java.util.Map;
 
 import SmallSQLServer.Main;
+import Storage.PageReader;
 import Support.Mule;
 import Support.TimeConversion;
 
@@ -21,6 +23,12 @@ import Support.TimeConversion;
  * implemented and they are the fundamentals of the database methods:
  * The first one is the getNextTuple() and the second one is 
  * reset(). 
+ * The operators could also hand out the tuples in batches by the method
+ * getNextBatch(). An operator that does not work on the batches builds
+ * them from its tuples, and an operator that works on the batches could
+ * hand the rows out as the tuples backed by the batch, so the operators
+ * could be moved to the batches one at a time. Notice the tuples and
+ * the batches should not be asked from the same operator before reset.
  * @author messfish
  *
  */
@@ -31,6 +39,9 @@ public abstract class Operator {
 	// this is used to store the list of attributes with the order
 	// that is given from the schema.
 	private TimeConversion convert = new TimeConversion();
+	private boolean finished;
+	// this flag shows the last batch built from the tuples has reached the
+	// end, the operators should not be asked for a tuple after that.
 	
 	/**
 	 * This abstract method is used to get the next valid tuple 
@@ -45,6 +56,55 @@ public abstract class Operator {
 	 */
 	public abstract void reset();
 	
+	/**
+	 * This method is used to release what the operator holds when its
+	 * tuples are not needed any more, such as the temporary files. The
+	 * operators that have children close them as well. Notice the
+	 * operator could not be reset or read again after it is closed.
+	 */
+	public void close() {
+	}
+	
+	/**
+	 * This method is used to get the next batch of the valid tuples from
+	 * the table. By default the batch is built from the tuples of the
+	 * getNextTuple() method, the operators that work on the batches
+	 * override this method.
+	 * @return the next batch, null if there is no tuple left.
+	 */
+	public TupleBatch getNextBatch() {
+		return collectBatch();
+	}
+	
+	/**
+	 * This method is used to build a batch from the tuples handed out by
+	 * the getNextTuple() method, until the batch is full. Notice when the
+	 * end is reached in the middle of a batch, the next call returns null
+	 * without asking for another tuple, since most of the operators could
+	 * not be asked again after they return null.
+	 * @return the batch, null if there is no tuple left.
+	 */
+	protected TupleBatch collectBatch() {
+		if(finished) {
+			finished = false;
+			return null;
+		}
+		Tuple tuple = getNextTuple();
+		if(tuple==null) return null;
+		TupleBatch batch = new TupleBatch(getTupleTypes(getSchema()), 
+				getNumOfTables());
+		batch.add(tuple);
+		while(!batch.isFull()) {
+			tuple = getNextTuple();
+			if(tuple==null) {
+				finished = true;
+				break;
+			}
+			batch.add(tuple);
+		}
+		return batch;
+	}
+	
 	/**
 	 * This abstract method is used to get the schema of the table
 	 * and store the result in a map, which has the string attribute
@@ -61,10 +121,47 @@ public abstract class Operator {
 	 */
 	public abstract int getNumOfTables();
 	
+	/**
+	 * This method is used to get the type of each data in the tuple from
+	 * the schema, the array could be shared by the tuples of the operator.
+	 * Notice the date and the time are stored as double values.
+	 * @param schema the schema of the operator.
+	 * @return the array stores the type of each data in the tuple.
+	 */
+	protected static byte[] getTupleTypes(Map<String, Mule> schema) {
+		byte[] types = new byte[schema.size()];
+		for(Mule mule : schema.values()) {
+			int type = mule.getDataType();
+			types[mule.getIndex()] = (byte)(type==1||type==2 ? type : 5);
+		}
+		return types;
+	}
+	
+	/**
+	 * This method is used to keep the page for the tuples backed by it.
+	 * Only the readers that fill the same buffers again with the pages
+	 * after (the read ahead ring, the compressed reader) need the page to
+	 * be copied into a buffer of its own, the pages of the buffer pool and
+	 * the mapped file are used as they are.
+	 * @param reader the page reader that gives the page.
+	 * @param buffer the page given by the page reader.
+	 * @return the page itself, or the copy of it.
+	 */
+	protected static ByteBuffer copyPage(PageReader reader, ByteBuffer buffer) {
+		if(!reader.reusesBuffers()) return buffer;
+		ByteBuffer source = buffer.duplicate();
+		source.clear();
+		ByteBuffer page = ByteBuffer.allocate(source.remaining());
+		page.put(source);
+		page.clear();
+		return page;
+	}
+	
 	/**
 	 * This method is used to get all the tuples available and store them
 	 * into a file. Notice we need to get the data that has the largest 
 	 * length of the column and store that into the array. Return that array.
+	 * The operator is closed when all the tuples are stored.
 	 * @param index the 
 	 */
 	public int[] dump(int index) {
@@ -74,9 +171,14 @@ public abstract class Operator {
 		try {
 			StringBuilder sb = new StringBuilder();
 			sb.append(writeHead(getSchema(), datatype, result)).append("\n");
-			Tuple tuple = null;
-			while((tuple=getNextTuple())!=null) 
-				sb.append(writeLine(tuple, datatype, result)).append("\n");
+			TupleBatch batch = null;
+			while((batch=getNextBatch())!=null) {
+				for(int i=0;i<batch.getCount();i++) {
+					Tuple tuple = batch.getTuple(batch.getSelected(i));
+					sb.append(writeLine(tuple, datatype, result)).append("\n");
+				}
+			}
+			close();
 			BufferedWriter write = new BufferedWriter(new FileWriter(file));
 			write.write(sb.toString());
 			write.close();
@@ -121,18 +223,17 @@ public abstract class Operator {
 		StringBuilder sb = new StringBuilder();
 		sb.append(tuple.getTupleID(0)).append(" ");
 		for(int i=0;i<tuple.datasize();i++) {
-			DataType data = tuple.getData(i);
 			String datastr = null;
 			if(datatype[i]==1) 
-				datastr = String.valueOf(data.getLong());
+				datastr = String.valueOf(tuple.getLong(i));
 			else if(datatype[i]==2) 
-				datastr = String.valueOf(data.getString());
+				datastr = String.valueOf(tuple.getString(i));
 			else if(datatype[i]==3) 
-				datastr = convert.fromNumberToDate(data.getDouble());
+				datastr = convert.fromNumberToDate(tuple.getDouble(i));
 			else if(datatype[i]==4) 
-				datastr = convert.fromNumberToTime(data.getDouble());
+				datastr = convert.fromNumberToTime(tuple.getDouble(i));
 			else if(datatype[i]==5) 
-				datastr = String.valueOf(data.getDouble());
+				datastr = String.valueOf(tuple.getDouble(i));
 			sb.append(datastr.length()).append("/").append(datastr).append(" ");
 			result[i] = Math.max(result[i], datastr.length());
 		}
@@ -146,15 +247,18 @@ public abstract class Operator {
 	 * @return the number of bytes to store the tuple.
 	 */
 	public int checkSize(Tuple tuple) {
+		/* the tuple in a page could have its length ready. */
+		if(tuple instanceof PageTuple&&((PageTuple)tuple).getLength()!=-1)
+			return ((PageTuple)tuple).getLength();
 		int size = 0;
 		for(int i=0; i<tuple.datasize();i++) {
-			DataType data = tuple.getData(i);
-			if(data.getType()==1) 
+			int type = tuple.getType(i);
+			if(type==1) 
 				size += 8;
 			/* we need a byte to identify the length of the string. */
-			else if(data.getType()==2)
-				size += data.getString().length() + 1;
-			else if(data.getType()==5)
+			else if(type==2)
+				size += tuple.getString(i).length() + 1;
+			else if(type==5)
 				size += 8;
 		}
 		return size;
@@ -162,27 +266,33 @@ public abstract class Operator {
 	
 	/**
 	 * This method is mainly used for writing the tuple into the byte buffer.
+	 * The tuple in a page that has the fields in the same form is copied
+	 * by a single copy of the bytes.
 	 * @param buffer the byte buffer used to put the data in.
 	 * @param tuple the tuple that will be put into the byte buffer
 	 * @param index the index shows the location to put in the byte buffer.
 	 */
 	public void writeTuple(ByteBuffer buffer, Tuple tuple, int index) {
+		if(tuple instanceof PageTuple&&((PageTuple)tuple).getLength()!=-1) {
+			((PageTuple)tuple).copyTo(buffer, index);
+			return;
+		}
 		for(int i=0;i<tuple.datasize();i++) {
-			DataType data = tuple.getData(i);
-			if(data.getType()==1) {
-				long number = data.getLong();
+			int type = tuple.getType(i);
+			if(type==1) {
+				long number = tuple.getLong(i);
 				buffer.putLong(index, number);
 				index += 8;
-			}else if(data.getType()==2) {
-				String s = data.getString();
+			}else if(type==2) {
+				String s = tuple.getString(i);
 				buffer.put(index, (byte)s.length());
 				index++;
 				for(char c : s.toCharArray()) {
 					buffer.put(index, (byte)c);
 					index++;
 				}
-			}else if(data.getType()==5) {
-				double number = data.getDouble();
+			}else if(type==5) {
+				double number = tuple.getDouble(i);
 				buffer.putDouble(index, number);
 				index += 8;
 			}
@@ -3,19 +3,30 @@ package PhysicalOperators;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import BPlusTree.BPlusTree;
 import LogicalOperators.CartesianOperators;
 import LogicalOperators.DistinctOperators;
 import LogicalOperators.GroupByOperators;
 import LogicalOperators.HavingOperators;
 import LogicalOperators.JoinOperators;
 import LogicalOperators.OperatorVisitor;
+import LogicalOperators.Operators;
 import LogicalOperators.OrderByOperators;
 import LogicalOperators.ProjectOperators;
+import LogicalOperators.ScanOperators;
 import LogicalOperators.SelectOperators;
+import SQLExpression.ColumnNode;
+import SQLExpression.Expression;
+import SQLParser.ExpressionSimplifier;
 import SQLParser.PlainSelect;
 import SmallSQLServer.Main;
 import Support.Catalog;
+import TableElement.Table;
 
 /**
  * This class is mainly used for building the query plan tree: It uses the
@@ -28,26 +39,94 @@ public class PhysicalVisitor implements OperatorVisitor {
 	private PlainSelect ps;
 	private Operator op;
 	private Catalog catalog;
+	private Expression whereexpress;
+	// the simplified where expression, null when it is always true.
+	private boolean isEmpty;
+	// this shows the where or the having expression is always false.
+	private CartesianOperator scanned;
+	// this is the operator built for the last table that has been visited.
+	private Map<Operators, CountingOperator> counters;
+	// the counting operator put above the operator built for each logical
+	// operator, null when the tuples are not counted.
+	private Operators ordered;
+	// the logical operator right below the order by, its joins are
+	// the ones that could hand out the tuples in the order asked for.
 	
 	/**
 	 * Constructor: this constructor is used to pass the argument 
-	 * to the global variable.
+	 * to the global variable. The where and the having expression are
+	 * simplified once before the plan is built.
 	 * @param ps the select query.
 	 * @param catalog the list of schemas available.
 	 */
 	public PhysicalVisitor(PlainSelect ps, Catalog catalog) {
 		this.ps = ps;
 		this.catalog = catalog;
+		ExpressionSimplifier simplifier = new ExpressionSimplifier();
+		whereexpress = simplifier.simplify(ps.getWhereExpression());
+		isEmpty = simplifier.isContradiction();
+		simplifier.simplify(ps.getHavingExpression());
+		isEmpty |= simplifier.isContradiction();
 	}
 	
 	/**
-	 * This is the visiting method of the order by Operators.
+	 * This method is used to count the tuples of every operator built.
+	 * The operator built for each logical operator is wrapped by a counting
+	 * operator, which is put into the map with the logical operator.
+	 * @param counters the map that stores the counting operators.
+	 */
+	public void setCounters(Map<Operators, CountingOperator> counters) {
+		this.counters = counters;
+	}
+	
+	/**
+	 * This method is used to wrap the operator just built by a counting
+	 * operator when the tuples are counted.
+	 * @param logical the logical operator that has been visited.
+	 */
+	private void count(Operators logical) {
+		if(counters==null) return;
+		CountingOperator counter = new CountingOperator(op);
+		counters.put(logical, counter);
+		op = counter;
+	}
+	
+	/**
+	 * This method is used to do the calculations of the constants in the
+	 * list of expressions once. Notice the expression that becomes a single
+	 * constant is left as it is, since a leaf in the list is taken as a
+	 * column by the operators.
+	 * @param list the list of expressions.
+	 * @return the list of simplified expressions.
+	 */
+	private List<Expression> fold(List<Expression> list) {
+		ExpressionSimplifier simplifier = new ExpressionSimplifier();
+		List<Expression> result = new ArrayList<>();
+		for(Expression express : list) {
+			Expression folded = simplifier.simplify(express);
+			result.add(folded==null||folded.isLeaf() ? express : folded);
+		}
+		return result;
+	}
+	
+	/**
+	 * This is the visiting method of the order by Operators. When the
+	 * child is a merge join that is sorted on the only column of the order
+	 * by, the tuples are in the order already and they are not sorted again.
 	 * @param cart the logical Order By Operators that needs to be visited.
 	 */
 	@Override
 	public void visit(OrderByOperators order) {
+		ordered = order.getChild();
 		order.getChild().accept(this);
-		op = new SortOperator(op, ps.getOrderByElements(), ps.isDescList());
+		Operator child = op instanceof CountingOperator ?
+				((CountingOperator)op).getChild() : op;
+		String column = getOrder();
+		if(column==null||!(child instanceof SortMergeJoinOperator)||
+				!((SortMergeJoinOperator)child).isSortedOn(column))
+			op = new SortOperator(op, fold(ps.getOrderByElements()),
+					ps.isDescList());
+		count(order);
 	}
 
 	@Override
@@ -62,7 +141,9 @@ public class PhysicalVisitor implements OperatorVisitor {
 	@Override
 	public void visit(ProjectOperators project) {
 		project.getChild().accept(this);
-		op = new ProjectOperator(op, ps.getSelectElements(), ps.getSelectAlias());
+		op = new ProjectOperator(op, fold(ps.getSelectElements()),
+				ps.getSelectAlias());
+		count(project);
 	}
 
 	/**
@@ -73,11 +154,103 @@ public class PhysicalVisitor implements OperatorVisitor {
 	public void visit(DistinctOperators distinct) {
 		distinct.getChild().accept(this);
 		op = new DistinctOperator(op);
+		count(distinct);
 	}
 
+	/**
+	 * This is the visiting method of the Join Operators. The children
+	 * are joined from the left to the right, the condition is checked
+	 * by the last join. When the condition has an equality of a column
+	 * from each side, the merge join is used if the left side is sorted
+	 * by the key already or the last join right below the order by could
+	 * save the sorting of the query on the key. Otherwise the
+	 * index nested loops are used when the right side is a single table
+	 * with a tree on its key, and the hash join is used when it has no tree.
+	 * The block nested loops are used for the rest. When the physical join
+	 * is chosen in the logical plan, it is used as long as it could be.
+	 * @param join the logical Join Operators that needs to be visited.
+	 */
 	@Override
 	public void visit(JoinOperators join) {
-		
+		join.getChild(0).accept(this);
+		Operator result = op;
+		for(int i=1;i<join.length();i++) {
+			join.getChild(i).accept(this);
+			Expression condition = i==join.length()-1 ? join.getCondition() : null;
+			String[] keys = HashJoinOperator.findKeys(condition,
+					result.getSchema(), op.getSchema());
+			Operator previous = result instanceof CountingOperator ?
+					((CountingOperator)result).getChild() : result;
+			boolean sorted = keys!=null&&previous instanceof SortMergeJoinOperator
+					&&((SortMergeJoinOperator)previous).isSortedOn(keys[0]);
+			String index = keys==null ? null : getIndex(join.getChild(i), keys[1]);
+			int method = join.getMethod();
+			if(keys==null)
+				method = JoinOperators.NESTED_LOOP;
+			else if(method==JoinOperators.AUTO) {
+				if(sorted||join==ordered&&i==join.length()-1&&isOrderedBy(keys))
+					method = JoinOperators.SORT_MERGE;
+				else if(index!=null) method = JoinOperators.INDEX;
+				else method = JoinOperators.HASH;
+			}else if(method==JoinOperators.INDEX&&index==null)
+				method = JoinOperators.HASH;
+			if(method==JoinOperators.SORT_MERGE)
+				result = new SortMergeJoinOperator(result, op, condition,
+						keys[0], keys[1], sorted, false);
+			else if(method==JoinOperators.INDEX) {
+				Expression where = join.getChild(i) instanceof SelectOperators ?
+					((SelectOperators)join.getChild(i)).getExpression() : null;
+				result = new IndexNestedLoopJoinOperator(result, scanned,
+						condition, keys[0], new BPlusTree(index), where);
+			}else if(method==JoinOperators.HASH)
+				result = new HashJoinOperator(result, op, condition,
+						keys[0], keys[1]);
+			else result = new BlockNestedLoopJoinOperator(result, op, condition);
+		}
+		op = result;
+		count(join);
+	}
+	
+	/**
+	 * This method is used to find the tree on the key of the right side.
+	 * The right side should be a single table, which could be filtered by
+	 * the where clause of that table.
+	 * @param child the logical operator of the right side.
+	 * @param key the name of the key column from the right side.
+	 * @return the location of the tree, null if there is none.
+	 */
+	private String getIndex(Operators child, String key) {
+		if(child instanceof SelectOperators)
+			child = ((SelectOperators)child).getChild();
+		if(isEmpty||!(child instanceof ScanOperators)) return null;
+		String table = ((ScanOperators)child).getTable().getName();
+		return catalog.getIndex(table, key.substring(key.indexOf('.') + 1));
+	}
+	
+	/**
+	 * This method is used to find the column the query is ordered by when
+	 * it is the only order by element and it is in the ascending order.
+	 * @return the name of the column, null if there is no such column.
+	 */
+	private String getOrder() {
+		List<Expression> list = ps.getOrderByElements();
+		if(list==null||list.size()!=1||!(list.get(0) instanceof ColumnNode)
+				||ps.isDescList()[0]!=1)
+			return null;
+		return ((ColumnNode)list.get(0)).getWholeColumnName();
+	}
+	
+	/**
+	 * This method is used to check whether the query is ordered by one
+	 * of the columns alone, in the ascending order.
+	 * @param columns the names of the columns.
+	 * @return true if the only order by element is one of the columns.
+	 */
+	private boolean isOrderedBy(String[] columns) {
+		String name = getOrder();
+		for(String column : columns)
+			if(column.equals(name)) return true;
+		return false;
 	}
 
 	@Override
@@ -92,16 +265,53 @@ public class PhysicalVisitor implements OperatorVisitor {
 	@Override
 	public void visit(SelectOperators select) {
 		select.getChild().accept(this);
-		op = new SelectOperator(op, ps.getWhereExpression());
+		op = new SelectOperator(op, select.getExpression());
+		count(select);
 	}
 
 	/**
-	 * This is the visiting method of the Cartesian Operators.
+	 * This is the visiting method of the Cartesian Operators. When the
+	 * query could never have a tuple, the tables are not scanned at all.
 	 * @param cart the logical Cartesian Operators that needs to be visited.
 	 */
 	@Override
 	public void visit(CartesianOperators cart) {
-		op = new CartesianOperator(ps.getFromList(), catalog);
+		CartesianOperator cartesian = new CartesianOperator(ps.getFromList(),
+				catalog, ps.getReferencedColumns());
+		cartesian.setFilter(whereexpress);
+		op = cartesian;
+		if(isEmpty) op = new EmptyOperator(cartesian);
+		count(cart);
+	}
+	
+	/**
+	 * This is the visiting method of the Scan Operators, a single table
+	 * is read with its alias. The where expression is given to the scan
+	 * so the pages that could not satisfy the comparisons on the table
+	 * could be skipped. When the query could never have a tuple, the
+	 * table is not scanned at all.
+	 * @param scan the logical Scan Operators that needs to be visited.
+	 */
+	@Override
+	public void visit(ScanOperators scan) {
+		Map<String, Table> map = new HashMap<>();
+		map.put(scan.getAlias(), scan.getTable());
+		CartesianOperator cartesian = new CartesianOperator(map,
+				catalog, ps.getReferencedColumns());
+		cartesian.setFilter(whereexpress);
+		scanned = cartesian;
+		op = cartesian;
+		if(isEmpty) op = new EmptyOperator(cartesian);
+		count(scan);
+	}
+	
+	/**
+	 * This is the getter method of the physical operator built by the
+	 * last logical operator visited.
+	 * @return the root of the physical operators.
+	 */
+	public Operator getOperator() {
+		return op;
 	}
 	
 	/**
@@ -8,8 +8,8 @@ import Evaluator.Evaluator;
 import SQLExpression.ColumnNode;
 import SQLExpression.Expression;
 import Support.Mule;
-import TableElement.DataType;
 import TableElement.Tuple;
+import TableElement.TupleBatch;
 
 /**
  * This class is mainly used to handle the projection part.
@@ -22,6 +22,8 @@ public class ProjectOperator extends Operator {
 	private List<Expression> list;
 	private Map<String, Mule> schema;
 	private Evaluator eva;
+	private Evaluator[] evaluators;
+	// the evaluator of each expression, bound to the schema of the child.
 	private long tupleID; // this is used to trace the tuple ID.
 	
 	/**
@@ -34,6 +36,9 @@ public class ProjectOperator extends Operator {
 		eva = new Evaluator(op.getSchema());
 		operator = op;
 		this.list = list;
+		evaluators = new Evaluator[list.size()];
+		for(int i=0;i<list.size();i++)
+			evaluators[i] = new Evaluator(list.get(i), op.getSchema());
 		/* this indicates there is only an '*' for SELECT part. */
 		if(list.size()==0)
 			schema = op.getSchema();
@@ -45,16 +50,15 @@ public class ProjectOperator extends Operator {
 					ColumnNode node = (ColumnNode)express;
 					String str = node.getWholeColumnName();
 					Mule mule = op.getSchema().get(str);
-					mule.setIndex(i);
-					schema.put(str, mule);
+					schema.put(str, new Mule(i, mule.getDataType()));
 				}else {
 					/* check whether there is only one elements in the tree. */
 					Mule mule = null;
 					if(express.isLeaf()) {
 						ColumnNode node = (ColumnNode)express;
 						String str = node.getWholeColumnName();
-						mule = op.getSchema().get(str);
-						mule.setIndex(i);
+						mule = new Mule(i, 
+								op.getSchema().get(str).getDataType());
 					}else {
 						/* check whether there is a double type in the tree. */
 						int datatype = 5;
@@ -85,14 +89,40 @@ public class ProjectOperator extends Operator {
 		}
 		Tuple result = new Tuple(list.size(), 1);
 		result.setTupleID(0, tupleID);
-		for(int i=0;i<list.size();i++) {
-			Evaluator eva=new Evaluator(tuple,list.get(i),operator.getSchema());
-			DataType data = eva.getData();
-			result.setData(i, data);
-		}
+		for(int i=0;i<list.size();i++)
+			evaluators[i].writeData(tuple, result, i);
 		tupleID++;
 		return result;
 	}
+	
+	/**
+	 * This method is used to fetch the next batch from the table. The 
+	 * expressions are evaluated for each row selected in the batch of 
+	 * the child operator, the results are put into a new batch.
+	 * @return the next batch.
+	 */
+	@Override
+	public TupleBatch getNextBatch() {
+		TupleBatch batch = operator.getNextBatch();
+		if(batch == null)
+			return null;
+		/* this indicates there is only an "*" in the SELECT query. */
+		if(list.size()==0) {
+			tupleID = batch.resetTupleIDs(tupleID);
+			return batch;
+		}
+		TupleBatch result = new TupleBatch(getTupleTypes(schema), 1);
+		Tuple row = new Tuple(list.size(), 1);
+		for(int i=0;i<batch.getCount();i++) {
+			Tuple tuple = batch.getTuple(batch.getSelected(i));
+			for(int j=0;j<list.size();j++)
+				evaluators[j].writeData(tuple, row, j);
+			row.setTupleID(0, tupleID);
+			tupleID++;
+			result.add(row);
+		}
+		return result;
+	}
 
 	/**
 	 * This method is used to reset the operator back to the starting point.
@@ -103,6 +133,15 @@ public class ProjectOperator extends Operator {
 		operator.reset();
 	}
 
+	/**
+	 * This method is used to close the operator, the child is closed
+	 * as well.
+	 */
+	@Override
+	public void close() {
+		operator.close();
+	}
+
 	/**
 	 * This is the getter method of the schema of the operator.
 	 * @return the schema of the operator.
@@ -1,91 +1,232 @@
 package PhysicalOperators;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 
+import SQLExpression.AndOperator;
+import SQLExpression.BinaryExpression;
+import SQLExpression.ColumnNode;
+import SQLExpression.DateValue;
+import SQLExpression.DoubleValue;
+import SQLExpression.Equals;
+import SQLExpression.Expression;
+import SQLExpression.GreaterThan;
+import SQLExpression.GreaterThanOrEquals;
+import SQLExpression.LessThan;
+import SQLExpression.LessThanOrEquals;
+import SQLExpression.LongValue;
+import SQLExpression.MultiAndOperator;
+import SQLExpression.NegativeValue;
+import SQLExpression.TimeValue;
+import SmallSQLServer.Main;
+import Storage.Dictionary;
+import Storage.PageReader;
+import Storage.ZoneMap;
+import Storage.ZonePredicate;
 import Support.Mule;
-import TableElement.DataType;
+import Support.TimeConversion;
+import TableElement.PageTuple;
 import TableElement.Tuple;
+import TableElement.TupleBatch;
 
 /**
  * This operator is used to scan the whole tables and fetch the 
  * whole tuples out. Notice the tuple should be a list of data.
+ * When the file has a zone map, the comparisons between an attribute
+ * and a constant in the where clause could be pushed into the operator,
+ * the pages that could not contain any tuple satisfying all of them will
+ * be skipped without being read. Notice the skipping is only a shortcut,
+ * the select operator still checks every tuple handed out.
+ * The string attribute that is dictionary encoded (type 6) is handed out
+ * as a string data type that only holds the code, it appears as a plain
+ * string (type 2) in the schema.
+ * The scan could be told which attributes are used by the query, then
+ * only those attributes are kept in the schema and handed out in the
+ * tuple. The rest of the fields are skipped over by their lengths, so no
+ * data type is built for them.
+ * The tuples handed out are backed by the page, a field is decoded only
+ * when it is asked. The page is copied only when the reader fills the
+ * same buffer again with the pages after. When the file has a single table and
+ * every attribute is read in the plain form, the fields of the tuple are
+ * in the same form as the temporary files of the sorting, so the tuple
+ * could be copied into those pages by a single copy of the bytes.
+ * The tuples could also be handed out in batches, then the fields are
+ * decoded straight into the columns of the batch.
+ * A single tuple could also be fetched by its record pointer, which is
+ * the order of the data page and the order of the tuple in that page.
+ * The scan could also read only a sample of the data pages, every page is
+ * kept with the same chance and the other pages are skipped unread.
  * @author messfish
  *
  */
 public class ScanOperator extends Operator {
 
-	private File file;
-	private RandomAccessFile output;
-	private FileChannel fc;
-	private ByteBuffer buffer;
-	private static final int NUM_OF_BYTES = 16384;
-	// this is the number of bytes in a single page.
-	private int numoftables; 
+	protected PageReader reader;
+	// this is the reader that hands out the pages of the file.
+	protected ByteBuffer buffer;
+	private ByteBuffer page;
+	// this is the current page kept by the scan, the tuples are backed by it.
+	protected int numoftables; 
 	// this variable stores the number of tables in the file.
-	private Map<String, Mule> schema; // this map stores the schema.
-	private int currentpoint; 
+	protected Map<String, Mule> schema; // this map stores the schema.
+	protected int currentpoint; 
 	// this index tells the current order of the tuples in a page.
-	private int pagelimit;
+	protected int pagelimit;
 	// this integer stores the number of tuples available in a page.
 	private int index; // this integer stores the point in the page.
-	private List<Integer> typelist;
+	protected List<Integer> typelist;
 	// this integer stores the index of each attributes in the table.
-	private Tuple current; // this variable stores the current tuple.
+	protected Tuple current; // this variable stores the current tuple.
+	private Map<String, Integer> positions;
+	// this map uses the attribute without the table name as the key and
+	// stores the order of the attribute in the file as the value.
+	private ZoneMap zonemap; // the zone map of the file, could be null.
+	private List<ZonePredicate> predicates;
+	// this is the list of the comparisons pushed into the operator.
+	private int datapage; // this is the order of the next data page.
+	private int skipped; // this is the number of pages skipped.
+	private double fraction; // the chance that a page is in the sample.
+	private Random random; // this decides the pages sampled, could be null.
+	private long numofpages; // the number of data pages in the file.
+	protected Dictionary[] dictionaries;
+	// this array stores the dictionary of each encoded attribute, it has
+	// the same order as the type list.
+	protected int[] columns;
+	// this array stores the order in the file of each attribute that is
+	// kept in the schema, the tuple ID is not counted.
+	private int[] slots;
+	// this array has the same order as the type list, it stores the index
+	// in the tuple of each attribute, -1 means the attribute is skipped.
+	protected byte[] types;
+	// this array stores the type of each data in the tuple handed out, it
+	// is shared by all the tuples.
+	private Dictionary[] slotdictionaries;
+	// this array stores the dictionary of each data in the tuple, it is
+	// null when no attribute is encoded.
+	private boolean packed;
+	// this flag shows whether the fields of the tuple are in the same form
+	// as the temporary files.
+	
+	/**
+	 * Constructor: this constructor consumes a file and scans it with
+	 * the global scan mode set in the main class.
+	 * @param file the file in the binary form.
+	 */
+	public ScanOperator(File file) {
+		this(file, Main.isMemoryMapped());
+	}
 	
 	/**
 	 * Constructor: this constructor consumes a file and stores 
 	 * the file into the global objects. It will then retrieve the
 	 * first page from the file and stores the schema of the table.
+	 * The pages will be read ahead by a thread if the main class says so.
 	 * @param file the file in the binary form.
+	 * @param mapped the flag shows whether the file should be memory
+	 * mapped instead of being copied page by page into the heap.
 	 */
-	public ScanOperator(File file) {
-		this.file = file;
+	public ScanOperator(File file, boolean mapped) {
+		this(file, mapped, null);
+	}
+	
+	/**
+	 * Constructor: this constructor consumes a file and the attributes
+	 * used by the query. Only those attributes will be in the schema and
+	 * the tuples handed out, the other fields will be skipped.
+	 * @param file the file in the binary form.
+	 * @param mapped the flag shows whether the file should be memory
+	 * mapped instead of being copied page by page into the heap.
+	 * @param attributes the set of attributes that will be read without
+	 * the table name, null means all the attributes will be read.
+	 */
+	public ScanOperator(File file, boolean mapped, Set<String> attributes) {
 		schema = new HashMap<>();
 		typelist = new ArrayList<>();
+		positions = new HashMap<>();
 		String temp = "";
-		try {
-			output = new RandomAccessFile(file, "r");
-			fc = output.getChannel();
-			buffer = readPage();
-			/* Notice the format of the head file: the first byte is
-			 * the number of tables in it. Followed by the name of the
-			 * attributes and the type of that attribute. */
-			numoftables = buffer.get(0);
-			int index = 1, point = 0;
-			/* the length of the name could not be 0, so when we encounter
-			 * this, usually means we reach the end of the table list. */
-			while(buffer.get(index)!=0) {
-				int size = buffer.get(index);
+		reader = PageReader.open(file, mapped, Main.isPrefetching());
+		zonemap = ZoneMap.read(file);
+		buffer = reader.readPage();
+		/* Notice the format of the head file: the first byte is
+		 * the number of tables in it. Followed by the name of the
+		 * attributes and the type of that attribute. */
+		numoftables = buffer.get(0);
+		int index = 1, point = 0;
+		/* the length of the name could not be 0, so when we encounter
+		 * this, usually means we reach the end of the table list. */
+		while(buffer.get(index)!=0) {
+			int size = buffer.get(index);
+			index++;
+			StringBuilder sb = new StringBuilder();
+			for(int i=0;i<size;i++) {
+				char c = (char)buffer.get(index);
+				sb.append(c);
 				index++;
-				StringBuilder sb = new StringBuilder();
-				for(int i=0;i<size;i++) {
-					char c = (char)buffer.get(index);
-					sb.append(c);
-					index++;
-				}
-				String get = sb.toString().split("\\.")[0];
-				if(!temp.equals(get)) {
-					typelist.add(-1);
-					temp = get;
-				}
-				int datatype = buffer.get(index);
-				index++;
-				Mule mule = new Mule(point, datatype);
+			}
+			String get = sb.toString().split("\\.")[0];
+			if(!temp.equals(get)) {
+				typelist.add(-1);
+				temp = get;
+			}
+			int datatype = buffer.get(index);
+			index++;
+			Mule mule = new Mule(point, datatype==6 ? 2 : datatype);
+			positions.put(sb.toString().substring(get.length() + 1), point);
+			point++;
+			typelist.add(datatype);
+			schema.put(sb.toString(), mule);
+		}
+		dictionaries = Dictionary.read(file, typelist);
+		narrow(attributes);
+	}
+	
+	/**
+	 * This method is used to keep only the attributes used by the query
+	 * in the schema. The attributes kept are given the indexes in the
+	 * order of the file.
+	 * @param attributes the set of attributes that will be read without
+	 * the table name, null means all the attributes will be read.
+	 */
+	private void narrow(Set<String> attributes) {
+		String[] keys = new String[schema.size()];
+		for(Map.Entry<String, Mule> entry : schema.entrySet())
+			keys[entry.getValue().getIndex()] = entry.getKey();
+		Map<String, Mule> narrow = new HashMap<>();
+		List<Integer> kept = new ArrayList<>();
+		slots = new int[typelist.size()];
+		int point = 0, column = 0;
+		for(int i=0;i<typelist.size();i++) {
+			slots[i] = -1;
+			if(typelist.get(i)==-1) continue;
+			String key = keys[column];
+			if(attributes==null||
+					attributes.contains(key.substring(key.indexOf('.') + 1))) {
+				slots[i] = point;
+				narrow.put(key, new Mule(point, schema.get(key).getDataType()));
+				kept.add(column);
 				point++;
-				typelist.add(datatype);
-				schema.put(sb.toString(), mule);
 			}
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
+			column++;
+		}
+		columns = new int[kept.size()];
+		for(int i=0;i<columns.length;i++)
+			columns[i] = kept.get(i);
+		schema = narrow;
+		types = getTupleTypes(schema);
+		packed = numoftables==1&&columns.length==column;
+		for(int i=0;i<typelist.size();i++) {
+			if(typelist.get(i)!=6) continue;
+			packed = false;
+			if(slots[i]==-1) continue;
+			if(slotdictionaries==null)
+				slotdictionaries = new Dictionary[types.length];
+			slotdictionaries[slots[i]] = dictionaries[i];
 		}
 	}
 	
@@ -96,73 +237,332 @@ public class ScanOperator extends Operator {
 	 */
 	@Override
 	public Tuple getNextTuple() {
-		/* this indicates we need to fetch a new page from the disk. */
-		if(currentpoint==pagelimit) {
-			buffer = readPage();
-			if(buffer==null) return null;
-			pagelimit = buffer.getInt(0);
-			currentpoint = 0;
-			index = 4;
-		}
+		if(!fetchPage()) return null;
 		/* this byte indicates whether the tuple is valid, skip it. */
 		index++;
-		Tuple result = new Tuple(schema.size(), numoftables);
-		int point = 0, IDpoint = 0;
+		int[] offsets = new int[types.length];
+		PageTuple result = new PageTuple(types, numoftables, page,
+				offsets, slotdictionaries);
+		int IDpoint = 0;
 		for(int i=0;i<typelist.size();i++) {
 			int dummy = typelist.get(i);
+			/* this is the index in the tuple, -1 means skip the field. */
+			int point = slots[i];
 			/* this means this is the order of the sub tuple. */
 			if(dummy==-1){
-				result.setTupleID(IDpoint, buffer.getLong(index));
+				result.setTupleID(IDpoint, page.getLong(index));
 				IDpoint++;
 				index += 8;
-				point--;
-			}
-			/* this means this is a long integer value. */
-			else if(dummy==1) {
-				DataType data = new DataType(buffer.getLong(index));
-				result.setData(point, data);
-				index += 8;
+				continue;
 			}
+			/* only the offset is kept, the field is decoded when asked. */
+			if(point!=-1)
+				offsets[point] = index;
+			/* this means this is a string encoded by the dictionary. */
+			if(dummy==6)
+				index += dictionaries[i].getWidth();
 			/* this means this is a string value. */
-			else if(dummy==2) {
-				int length = buffer.get(index);
-				index++;
-				StringBuilder sb = new StringBuilder();
-				for(int j=0;j<length;j++) {
-					char c = (char)buffer.get(index);
+			else if(dummy==2)
+				index += page.get(index) + 1;
+			/* this means this is a long integer value or a double value. It
+			 * could be a time value, date value or just a plain double value.*/
+			else index += 8;
+		}
+		/* the fields come right after the tuple ID of the single table. */
+		if(packed)
+			result.setRange(offsets.length==0 ? index : offsets[0],
+					offsets.length==0 ? 0 : index - offsets[0]);
+		currentpoint++;
+		current = result;
+		return result;
+	}
+
+	/**
+	 * This method is used to get the next batch of tuples available in
+	 * the table. The fields are decoded straight into the columns of the
+	 * batch, no tuple is built.
+	 * @return the batch or a null value.
+	 */
+	@Override
+	public TupleBatch getNextBatch() {
+		TupleBatch batch = null;
+		while(batch==null||!batch.isFull()) {
+			if(!fetchPage()) break;
+			if(batch==null)
+				batch = new TupleBatch(types, numoftables);
+			int row = batch.addRow();
+			/* this byte indicates whether the tuple is valid, skip it. */
+			index++;
+			int IDpoint = 0;
+			for(int i=0;i<typelist.size();i++) {
+				int dummy = typelist.get(i);
+				int point = slots[i];
+				if(dummy==-1) {
+					batch.setTupleID(IDpoint, row, page.getLong(index));
+					IDpoint++;
+					index += 8;
+				}else if(dummy==6) {
+					Dictionary dictionary = dictionaries[i];
+					if(point!=-1) {
+						int code = dictionary.getWidth()==2 ? 
+							page.getShort(index) & 0xffff : page.getInt(index);
+						batch.setCode(point, row, code, dictionary);
+					}
+					index += dictionary.getWidth();
+				}else if(dummy==2) {
+					int length = page.get(index);
 					index++;
-					sb.append(c);
+					if(point!=-1)
+						batch.setString(point, row,
+								PageTuple.getString(page, index, length));
+					index += length;
+				}else {
+					/* the bits of the long value and the double value are 
+					 * stored in the same way in the column. */
+					if(point!=-1)
+						batch.setLong(point, row, page.getLong(index));
+					index += 8;
 				}
-				DataType data = new DataType(sb.toString());
-				result.setData(point, data);				
 			}
-			/* this means this is a double value. It could be a time value
-			 * , date value or just a plain double value.*/
-			else {
-				DataType data = new DataType(buffer.getDouble(index));
-				result.setData(point, data);
-				index += 8;
-			}
-			point++; // do not forget to increment the index of the tuple array!
+			currentpoint++;
+		}
+		current = null;
+		return batch;
+	}
+	
+	/**
+	 * This method is used to fetch a single tuple by its record pointer.
+	 * The page is read only when it is not the current page, and the
+	 * tuples before the slot are skipped by their lengths. Notice the
+	 * scan goes on from the tuple after it when the next tuple is asked.
+	 * @param pageno the order of the data page, the header page is not
+	 * counted.
+	 * @param slot the order of the tuple in the page.
+	 * @return the tuple, null if the page does not exist.
+	 */
+	public Tuple getTuple(int pageno, int slot) {
+		if(page==null||datapage!=pageno+1) {
+			reader.seek(pageno + 1);
+			buffer = reader.readPage();
+			if(buffer==null) return null;
+			page = copyPage(reader, buffer);
+			pagelimit = page.getInt(0);
+			datapage = pageno + 1;
+		}
+		currentpoint = 0;
+		index = 4;
+		for(int i=0;i<slot;i++)
+			skipTuple();
+		return getNextTuple();
+	}
+	
+	/**
+	 * This method is used to move over the next tuple in the page without
+	 * building it.
+	 */
+	private void skipTuple() {
+		/* this byte indicates whether the tuple is valid. */
+		index++;
+		for(int i=0;i<typelist.size();i++) {
+			int dummy = typelist.get(i);
+			if(dummy==6)
+				index += dictionaries[i].getWidth();
+			else if(dummy==2)
+				index += page.get(index) + 1;
+			/* the tuple ID, the long value and the double value. */
+			else index += 8;
 		}
 		currentpoint++;
-		current = result;
-		return result;
+	}
+	
+	/**
+	 * This method is used to get the record pointer of the last tuple 
+	 * handed out by the scan.
+	 * @return the array of the order of the data page and the order of
+	 * the tuple in the page.
+	 */
+	public int[] getPointer() {
+		return new int[]{datapage - 1, currentpoint - 1};
+	}
+	
+	/**
+	 * This method is used to make sure the current page still has tuples
+	 * left. If not, the next page will be fetched from the disk.
+	 * @return false if there are no pages left.
+	 */
+	private boolean fetchPage() {
+		/* this indicates we need to fetch a new page from the disk. */
+		while(currentpoint==pagelimit) {
+			buffer = nextPage();
+			if(buffer==null) return false;
+			page = copyPage(reader, buffer);
+			pagelimit = page.getInt(0);
+			currentpoint = 0;
+			index = 4;
+		}
+		return true;
 	}
 
 	/**
 	 * this method is used to reset the file pointer back to the starting point.
+	 * Notice the file is not opened again, we only rewind the page reader
+	 * and skip the header page.
 	 */
 	@Override
 	public void reset() {
 		current = null;
-		try {
-			output = new RandomAccessFile(file, "r");
-			fc = output.getChannel();
-			buffer = readPage();
-		} catch (Exception e) {
-			e.printStackTrace();
+		reader.rewind();
+		buffer = reader.readPage();
+		currentpoint = 0;
+		pagelimit = 0;
+		datapage = 0;
+	}
+	
+	/**
+	 * This method is used to get the next data page that may contain the
+	 * tuples satisfying the comparisons pushed in. The pages that are
+	 * ruled out by the zone map will be skipped.
+	 * @return the byte buffer of the page, null if no pages left.
+	 */
+	protected ByteBuffer nextPage() {
+		if(zonemap!=null&&predicates!=null) {
+			while(!zonemap.mayMatch(datapage, predicates)) {
+				reader.skipPage();
+				datapage++;
+				skipped++;
+			}
+		}
+		while(random!=null&&datapage < numofpages
+				&&random.nextDouble() >= fraction) {
+			reader.skipPage();
+			datapage++;
+			skipped++;
 		}
+		datapage++;
+		return reader.readPage();
+	}
+	
+	/**
+	 * This method is used to read only a sample of the data pages. The
+	 * pages not chosen are skipped without being read, and they are
+	 * counted as the skipped pages.
+	 * @param fraction the chance that a page is read, 1 or more means
+	 * every page is read.
+	 * @param seed the seed that decides the pages sampled.
+	 */
+	public void setSample(double fraction, long seed) {
+		this.fraction = fraction;
+		random = fraction >= 1 ? null : new Random(seed);
+		numofpages = getPageCount();
+	}
+	
+	/**
+	 * This method is used to count the data pages of the file.
+	 * @return the number of pages, the header page is not counted.
+	 */
+	public long getPageCount() {
+		return Math.max(0, reader.getPageCount() - 1);
+	}
+	
+	/**
+	 * This method is used to push the where clause into the operator.
+	 * Only the comparisons between an attribute of this table and a 
+	 * constant that are connected by AND at the top level will be used.
+	 * Nothing will happen if the file has no zone map.
+	 * @param where the root of the where expression, could be null.
+	 * @param alias the alias of the table in the query.
+	 */
+	public void setFilter(Expression where, String alias) {
+		if(zonemap==null||where==null) return;
+		List<Expression> conjuncts = new ArrayList<>();
+		flatten(where, conjuncts);
+		predicates = new ArrayList<>();
+		for(Expression express : conjuncts) {
+			ZonePredicate predicate = toPredicate(express, alias);
+			if(predicate!=null)
+				predicates.add(predicate);
+		}
+	}
+	
+	/**
+	 * This method is used to split the expression into a list of 
+	 * expressions that are connected by AND.
+	 * @param express the expression that will be split.
+	 * @param conjuncts the list that stores the result.
+	 */
+	private void flatten(Expression express, List<Expression> conjuncts) {
+		if(express instanceof AndOperator) {
+			AndOperator and = (AndOperator)express;
+			flatten(and.getLeftChild(), conjuncts);
+			flatten(and.getRightChild(), conjuncts);
+		}else if(express instanceof MultiAndOperator) {
+			MultiAndOperator and = (MultiAndOperator)express;
+			for(int i=0;i<and.size();i++)
+				flatten(and.getChild(i), conjuncts);
+		}else conjuncts.add(express);
+	}
+	
+	/**
+	 * This method is used to change the expression into a comparison
+	 * that could be checked by the zone map.
+	 * @param express the expression that will be changed.
+	 * @param alias the alias of the table in the query.
+	 * @return the comparison, null if the expression could not be used.
+	 */
+	private ZonePredicate toPredicate(Expression express, String alias) {
+		int operator = 0;
+		if(express instanceof Equals) operator = ZonePredicate.EQUALS;
+		else if(express instanceof LessThan) 
+			operator = ZonePredicate.LESS_THAN;
+		else if(express instanceof LessThanOrEquals)
+			operator = ZonePredicate.LESS_THAN_OR_EQUALS;
+		else if(express instanceof GreaterThan)
+			operator = ZonePredicate.GREATER_THAN;
+		else if(express instanceof GreaterThanOrEquals)
+			operator = ZonePredicate.GREATER_THAN_OR_EQUALS;
+		else return null;
+		Expression left = ((BinaryExpression)express).getLeftChild();
+		Expression right = ((BinaryExpression)express).getRightChild();
+		/* switch the sides so the attribute is always on the left. */
+		if(right instanceof ColumnNode) {
+			Expression dummy = left;
+			left = right;
+			right = dummy;
+			operator = ZonePredicate.flip(operator);
+		}
+		if(!(left instanceof ColumnNode)) return null;
+		String[] array = ((ColumnNode)left).getWholeColumnName().split("\\.");
+		if(array.length!=2||!array[0].equals(alias)
+				||!positions.containsKey(array[1]))
+			return null;
+		int column = positions.get(array[1]);
+		boolean negative = false;
+		if(right instanceof NegativeValue) {
+			negative = true;
+			right = ((NegativeValue)right).getChild();
+		}
+		TimeConversion convert = new TimeConversion();
+		if(right instanceof LongValue) {
+			long value = ((LongValue)right).getData();
+			return new ZonePredicate(column, operator, negative ? -value : value);
+		}
+		double value = 0;
+		if(right instanceof DoubleValue)
+			value = ((DoubleValue)right).getData();
+		else if(right instanceof DateValue)
+			value = convert.fromDateToNumber(((DateValue)right).getData());
+		else if(right instanceof TimeValue)
+			value = convert.fromTimeToNumber(((TimeValue)right).getData());
+		else return null;
+		return new ZonePredicate(column, operator, negative ? -value : value);
+	}
+	
+	/**
+	 * This is the getter method of the number of pages skipped.
+	 * @return the number of pages skipped by using the zone map.
+	 */
+	public int getSkippedPages() {
+		return skipped;
 	}
 
 	/**
@@ -185,23 +585,6 @@ public class ScanOperator extends Operator {
 		return numoftables;
 	}
 	
-	/**
-	 * This private method reads a page from the file and stores
-	 * that page into the byte buffer.
-	 * @return the byte buffer, null means nothing left to read.
-	 */
-	private ByteBuffer readPage() {
-		ByteBuffer buffer = ByteBuffer.allocate(NUM_OF_BYTES);
-		int length = 0;
-		try {
-			length = fc.read(buffer);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		if(length==-1) return null;
-		return buffer;
-	}
-	
 	/**
 	 * This method is used to get the current tuple.
 	 * @return the current tuple.
@@ -213,12 +596,9 @@ public class ScanOperator extends Operator {
 	/**
 	 * This method is used to close the file out put stream.
 	 */
+	@Override
 	public void close() {
-		try {
-			output.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		reader.close();
 	}
 	
 }
@@ -2,10 +2,12 @@ package PhysicalOperators;
 
 import java.util.Map;
 
+import Evaluator.BatchFilter;
 import Evaluator.Evaluator;
 import SQLExpression.Expression;
 import Support.Mule;
 import TableElement.Tuple;
+import TableElement.TupleBatch;
 
 /**
  * This class handles the logic of scan operator. Basically it scans the 
@@ -20,6 +22,11 @@ public class SelectOperator extends Operator{
 
 	private Operator scan; // object that performs the scanning.
 	private Expression express; // object stores the expression.
+	private Evaluator evaluator;
+	// the evaluator that is bound to the schema once, null if there is
+	// no expression.
+	private BatchFilter filter;
+	// the filter that works on the vectors of the batches.
 	
 	/**
 	 * Constructor: this constructor is used to set the expression to the
@@ -30,6 +37,10 @@ public class SelectOperator extends Operator{
 	public SelectOperator(Operator operator, Expression express) {
 		scan = operator;
 		this.express = express;
+		if(express!=null) {
+			evaluator = new Evaluator(express, getSchema());
+			filter = new BatchFilter(express, getSchema());
+		}
 	}
 
 	/**
@@ -45,14 +56,31 @@ public class SelectOperator extends Operator{
 		if(tuple == null) return null;
 		/* this usually indicates no where language. return that tuple. */
 		if(express==null) return tuple;
-		Evaluator eva = new Evaluator(tuple, express, getSchema());
-		while(!eva.checkValid()) {
+		while(!evaluator.checkValid(tuple)) {
 			tuple = scan.getNextTuple();
 			if(tuple == null) return null;
-			eva = new Evaluator(tuple,express,getSchema());
 		}
 		return tuple;
 	}
+	
+	/**
+	 * This method is used to get the next batch that has valid tuples
+	 * from the operator. The batch filter checks the whole batch at once
+	 * and the rows that do not pass are taken out of the selection vector
+	 * of the batch, the columns are not copied. The batch with no rows
+	 * selected will be skipped.
+	 * @return the batch that has the tuples that pass the evaluation.
+	 */
+	@Override
+	public TupleBatch getNextBatch() {
+		TupleBatch batch = null;
+		while((batch=scan.getNextBatch())!=null) {
+			/* this usually indicates no where language. return that batch. */
+			if(express==null) return batch;
+			if(filter.filter(batch)!=0) return batch;
+		}
+		return null;
+	}
 
 	/**
 	 * This method is mainly used for reseting the pointer back to 
@@ -64,6 +92,15 @@ public class SelectOperator extends Operator{
 		scan.reset();
 	}
 
+	/**
+	 * This method is used to close the operator, the child is closed
+	 * as well.
+	 */
+	@Override
+	public void close() {
+		scan.close();
+	}
+
 	/**
 	 * This method is used to get the schema of the table. Basically
 	 * it just returns the schema from the Operator.
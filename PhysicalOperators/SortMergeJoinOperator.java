@@ -0,0 +1,284 @@
+package PhysicalOperators;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import SQLExpression.ColumnNode;
+import SQLExpression.Equals;
+import SQLExpression.Expression;
+import SmallSQLServer.Main;
+import Sorting.ExternalSort;
+import Sorting.TempOperator;
+import TableElement.Tuple;
+
+/**
+ * This class handles the join of two operators with an equality of a
+ * column from each side in the condition by merging the two sides sorted
+ * by the columns. The sides are sorted by the external sort unless they are
+ * known to be sorted already. Then the tuples of the right side with the
+ * same key are kept as a group, and each tuple of the left side with that
+ * key is joined with the whole group. The group that is larger than the
+ * memory given to the join is partly written into a temporary file. The
+ * tuples come out sorted by the key, which helps the order by on the key
+ * and the next merge join on it.
+ * Notice the tuples sorted by the external sort lose their tuple IDs, just
+ * as the tuples of the group by operator. The sorted files are kept so the
+ * operator could be reset, they are deleted when the operator is closed.
+ * @author messfish
+ *
+ */
+public class SortMergeJoinOperator extends JoinOperator {
+	
+	private static final int NUM_OF_BYTES = 16384; // the size of a page.
+	private static int count = -1;
+	// the ID of the sorts and the temporary files, it counts down so it
+	// never meets the IDs used by the group by operator.
+	private String leftkey, rightkey; // the columns of the equality.
+	private int leftindex, rightindex; // the index of the key on each side.
+	private Operator leftinput, rightinput;
+	// the sorted sides, null if the side has no tuples.
+	private boolean leftsorted, rightsorted;
+	// this shows the side is not sorted by the external sort.
+	private byte[] lefttypes, righttypes;
+	// the type of each data of the tuples from each side.
+	private boolean exact;
+	// this shows the equality of the keys is the whole condition.
+	private int ID, files; // the ID and the number of the temporary files.
+	private boolean started; // this shows the first tuples have been read.
+	private Tuple outer; // the current tuple from the left side.
+	private Tuple inner; // the next tuple from the right side not in the group.
+	private List<Tuple> group; // the tuples of the group in the memory.
+	private SpillFile spill; // the tuples of the group that do not fit.
+	private TempOperator reader; // this is used to read the spilled tuples.
+	private int position; // the next tuple of the group in the memory.
+	private List<ExternalSort> sorts = new ArrayList<>();
+	// the sorts of the sides, their files are deleted when it is closed.
+	
+	/**
+	 * Constructor: this constructor takes the two operators, the condition
+	 * of the join and the two columns of the equality. The sides that are
+	 * not sorted by the columns are sorted here.
+	 * @param left the left operator.
+	 * @param right the right operator.
+	 * @param condition the condition of the join.
+	 * @param leftkey the column of the equality from the left operator.
+	 * @param rightkey the column of the equality from the right operator.
+	 * @param leftsorted true means the left operator is sorted by the key.
+	 * @param rightsorted true means the right operator is sorted by the key.
+	 */
+	public SortMergeJoinOperator(Operator left, Operator right,
+			Expression condition, String leftkey, String rightkey,
+			boolean leftsorted, boolean rightsorted) {
+		super(left, right, condition);
+		this.leftkey = leftkey;
+		this.rightkey = rightkey;
+		this.leftsorted = leftsorted;
+		this.rightsorted = rightsorted;
+		ID = count--;
+		lefttypes = getTupleTypes(left.getSchema());
+		righttypes = getTupleTypes(right.getSchema());
+		leftindex = left.getSchema().get(leftkey).getIndex();
+		rightindex = right.getSchema().get(rightkey).getIndex();
+		exact = condition instanceof Equals;
+		leftinput = leftsorted ? left : sort(left, leftkey);
+		rightinput = rightsorted ? right : sort(right, rightkey);
+	}
+	
+	/**
+	 * This method is used to sort the operator by the column.
+	 * @param op the operator that will be sorted.
+	 * @param key the column used for sorting.
+	 * @return the operator that reads the sorted tuples, null if the
+	 * operator has no tuples.
+	 */
+	private Operator sort(Operator op, String key) {
+		List<Expression> list = new ArrayList<>();
+		list.add(new ColumnNode(key));
+		ExternalSort sort = new ExternalSort(op, list, count--);
+		sorts.add(sort);
+		if(sort.getResult()==null) return null;
+		return new TempOperator(sort.getResult(), op.getSchema());
+	}
+	
+	/**
+	 * This method is used to check whether the tuples of the operator
+	 * are sorted by the column.
+	 * @param column the name of the column.
+	 * @return true if the tuples are sorted by the column.
+	 */
+	public boolean isSortedOn(String column) {
+		return column.equals(leftkey)||column.equals(rightkey);
+	}
+	
+	/**
+	 * This method is used to copy the tuple. The tuples of the sides
+	 * sorted here have no tuple IDs, they are left as 0.
+	 * @param tuple the tuple that will be copied.
+	 * @param types the type of each data in the tuple.
+	 * @param tables the number of tables in the tuple.
+	 * @param sorted true means the side is not sorted here.
+	 * @return the copy of the tuple.
+	 */
+	private Tuple copy(Tuple tuple, byte[] types, int tables, boolean sorted) {
+		Tuple result = new Tuple(types, tables);
+		for(int i=0;i<types.length;i++)
+			result.copyData(i, tuple, i);
+		if(sorted) {
+			for(int i=0;i<tables;i++)
+				result.setTupleID(i, tuple.getTupleID(i));
+		}
+		return result;
+	}
+	
+	/**
+	 * This method is used to get the next tuple of the left side.
+	 * @return the next tuple of the left side, null if there is none.
+	 */
+	private Tuple nextLeft() {
+		if(leftinput==null) return null;
+		Tuple tuple = leftinput.getNextTuple();
+		if(tuple==null||leftsorted) return tuple;
+		return copy(tuple, lefttypes, left.getNumOfTables(), false);
+	}
+	
+	/**
+	 * This method is used to get the next tuple of the right side.
+	 * @return the next tuple of the right side, null if there is none.
+	 */
+	private Tuple nextRight() {
+		if(rightinput==null) return null;
+		Tuple tuple = rightinput.getNextTuple();
+		if(tuple==null||rightsorted) return tuple;
+		return copy(tuple, righttypes, right.getNumOfTables(), false);
+	}
+	
+	/**
+	 * This method is used to read the tuples of the right side with the
+	 * same key as the current one into the group. The tuples are kept in
+	 * the memory until the group is larger than the memory given to the
+	 * join, the rest are written into the temporary file.
+	 */
+	private void buildGroup() {
+		long limit = (long)Main.getJoinPages() * NUM_OF_BYTES, bytes = 0;
+		int tables = right.getNumOfTables();
+		group = new ArrayList<>();
+		Tuple first = copy(inner, righttypes, tables, true);
+		group.add(first);
+		bytes += checkSize(first);
+		while((inner=nextRight())!=null&&
+				inner.compare(rightindex, first, rightindex)==0) {
+			if(bytes <= limit) {
+				group.add(copy(inner, righttypes, tables, true));
+				bytes += checkSize(inner);
+				continue;
+			}
+			if(spill==null)
+				spill = new SpillFile(new File(Main.getTemp() + "/merge "
+						+ ID + " " + files++), right);
+			spill.write(inner, false);
+		}
+		if(spill!=null) {
+			spill.close();
+			reader = new TempOperator(spill.getFile(), SpillFile.getSchema(right));
+		}
+		position = 0;
+	}
+	
+	/**
+	 * This method is used to get the next tuple of the group.
+	 * @return the next tuple of the group, null if there is none left.
+	 */
+	private Tuple nextInGroup() {
+		if(position < group.size())
+			return group.get(position++);
+		if(reader==null) return null;
+		Tuple tuple = reader.getNextTuple();
+		if(tuple==null) return null;
+		return SpillFile.restore(tuple, righttypes, right.getNumOfTables());
+	}
+	
+	/**
+	 * This method is used to drop the group, the temporary file of the
+	 * group is deleted.
+	 */
+	private void clearGroup() {
+		group = null;
+		if(reader!=null) {
+			reader.close();
+			spill.delete();
+			reader = null;
+			spill = null;
+		}
+	}
+	
+	/**
+	 * This method is used to get the next tuple that passes the condition.
+	 * Join the current tuple of the left side with the next tuple of the
+	 * group, when the group runs out, move to the next tuple of the left
+	 * side and join it with the group again if it has the same key.
+	 * Otherwise move the side with the smaller key forward until the keys
+	 * meet and build the group of the key.
+	 * @return the next joined tuple, null if there is none left.
+	 */
+	@Override
+	public Tuple getNextTuple() {
+		if(!started) {
+			started = true;
+			outer = nextLeft();
+			inner = nextRight();
+		}
+		while(true) {
+			if(group!=null) {
+				Tuple tuple = nextInGroup();
+				if(tuple!=null) {
+					Tuple result = combine(outer, tuple);
+					if(exact||evaluator.checkValid(result))
+						return result;
+					continue;
+				}
+				outer = nextLeft();
+				if(outer!=null&&
+						outer.compare(leftindex, group.get(0), rightindex)==0) {
+					position = 0;
+					if(reader!=null) reader.reset();
+					continue;
+				}
+				clearGroup();
+			}
+			if(outer==null||inner==null) return null;
+			int result = outer.compare(leftindex, inner, rightindex);
+			if(result < 0) outer = nextLeft();
+			else if(result > 0) inner = nextRight();
+			else buildGroup();
+		}
+	}
+	
+	/**
+	 * This method is used to reset the operator, the sorted sides are
+	 * read again from the start.
+	 */
+	@Override
+	public void reset() {
+		clearGroup();
+		if(leftinput!=null) leftinput.reset();
+		if(rightinput!=null) rightinput.reset();
+		started = false;
+	}
+	
+	/**
+	 * This method is used to close the operator. The files of the sides
+	 * sorted here are kept for the reset until now, they are deleted here.
+	 */
+	@Override
+	public void close() {
+		clearGroup();
+		if(!leftsorted&&leftinput!=null) leftinput.close();
+		if(!rightsorted&&rightinput!=null) rightinput.close();
+		for(ExternalSort sort : sorts)
+			sort.delete();
+		sorts.clear();
+		super.close();
+	}
+	
+}
@@ -9,8 +9,8 @@ import java.util.Map;
 import Evaluator.Evaluator;
 import SQLExpression.Expression;
 import Support.Mule;
-import TableElement.DataType;
 import TableElement.Tuple;
+import TableElement.TupleBatch;
 
 /** 
  * This class is used to handle the "Order by" language, note this
@@ -25,6 +25,7 @@ public class SortOperator extends Operator {
 	private Map<String, Mule> schema;
 	private int index; // the current index of the tuple list.
 	private int numoftables;
+	private Operator child; // the operator whose tuples are sorted.
 	
 	/**
 	 * Constructor: this constructor gets all the tuples from an operator
@@ -39,28 +40,35 @@ public class SortOperator extends Operator {
 	 */
 	public SortOperator(Operator op, List<Expression> orderlist, int[] desclist) {
 		numoftables = op.getNumOfTables();
+		child = op;
 		tuplelist = new ArrayList<>();
-		Tuple tuple = null;
+		TupleBatch batch = null;
 		schema = op.getSchema();
-		while((tuple=op.getNextTuple())!=null)
-			tuplelist.add(tuple);
+		/* the child operator is read by batches, each row is kept as the
+		 * tuple backed by the batch. */
+		while((batch=op.getNextBatch())!=null) {
+			for(int i=0;i<batch.getCount();i++)
+				tuplelist.add(batch.getTuple(batch.getSelected(i)));
+		}
+		/* these tuples store the values of the order by expressions. */
+		Tuple key1 = new Tuple(orderlist.size(), 0);
+		Tuple key2 = new Tuple(orderlist.size(), 0);
+		/* the expressions are bound to the schema once for all the tuples. */
+		Evaluator[] evaluators = new Evaluator[orderlist.size()];
+		for(int i=0;i<orderlist.size();i++)
+			evaluators[i] = new Evaluator(orderlist.get(i), schema);
 		Collections.sort(tuplelist, new Comparator<Tuple>(){
 			@Override
 			public int compare(Tuple tuple1, Tuple tuple2) {
 				for(int i=0;i<orderlist.size();i++) {
-					Expression exp = orderlist.get(i);
-					Evaluator eva1 = new Evaluator(tuple1, exp, schema);
-					DataType data1 = eva1.getData();
-					Evaluator eva2 = new Evaluator(tuple2, exp, schema);
-					DataType data2 = eva2.getData();
-					int result = data1.compare(data2);
+					evaluators[i].writeData(tuple1, key1, i);
+					evaluators[i].writeData(tuple2, key2, i);
+					int result = key1.compare(i, key2, i);
 					if(result!=0) 
 						return result * desclist[i];
 				}
 				for(int i=0;i<tuple1.datasize();i++) {
-					DataType data1 = tuple1.getData(i);
-					DataType data2 = tuple2.getData(i);
-					int result = data1.compare(data2);
+					int result = tuple1.compare(i, tuple2, i);
 					if(result!=0) return result;
 				}
 				/* this means the two tuples are equal, return 0. */
@@ -81,6 +89,22 @@ public class SortOperator extends Operator {
 		index++;
 		return tuple;
 	}
+	
+	/**
+	 * This method is used to fetch the next batch of the tuples available.
+	 * @return the next batch.
+	 */
+	@Override
+	public TupleBatch getNextBatch() {
+		if(index == tuplelist.size())
+			return null;
+		TupleBatch batch = new TupleBatch(getTupleTypes(schema), numoftables);
+		while(index < tuplelist.size()&&!batch.isFull()) {
+			batch.add(tuplelist.get(index));
+			index++;
+		}
+		return batch;
+	}
 
 	/**
 	 * This method is used to reset the tuple back to the starting point.
@@ -91,6 +115,15 @@ public class SortOperator extends Operator {
 		index = 0;
 	}
 
+	/**
+	 * This method is used to close the operator, the child is closed
+	 * as well.
+	 */
+	@Override
+	public void close() {
+		child.close();
+	}
+
 	/**
 	 * This is the getter method of the schema of the operator.
 	 */
@@ -0,0 +1,169 @@
+package PhysicalOperators;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import SmallSQLServer.Main;
+import Storage.PageCodec;
+import Storage.PageWriter;
+import Support.Mule;
+import TableElement.Tuple;
+
+/**
+ * This class writes the tuples of an operator into a temporary file when
+ * they could not be kept in the memory, it is used by the joins. The pages
+ * are in the form the temp operator reads, except the tuple IDs are written
+ * after the data as the long values, so the schema of the file has one more
+ * long column for each table. The tuples read back by the temp operator
+ * should be restored before they are joined.
+ * @author messfish
+ *
+ */
+public class SpillFile {
+	
+	private static final int NUM_OF_BYTES = 16384; // the size of a page.
+	private Operator op; // the operator whose tuples are written.
+	private File file; // the temporary file.
+	private PageWriter writer; // this is used to write the pages.
+	private ByteBuffer page; // the page being filled.
+	private int index = 4, size; // the next byte and the tuples of the page.
+	private int[] widths;
+	// the number of bytes of each data, -1 means a string.
+	private int tables; // the number of tuple IDs of each tuple.
+	private int tuples; // the number of tuples in the file.
+	private long bytes; // the number of bytes of the tuples in the file.
+	
+	/**
+	 * Constructor: this constructor sets the file and the form of the
+	 * tuples of the operator. Notice the file is only created when the
+	 * first page is written.
+	 * @param file the temporary file.
+	 * @param op the operator whose tuples are written.
+	 */
+	public SpillFile(File file, Operator op) {
+		this.file = file;
+		this.op = op;
+		Map<String, Mule> schema = getSchema(op);
+		widths = new int[schema.size()];
+		for(Mule mule : schema.values())
+			widths[mule.getIndex()] = mule.getDataType()==2 ? -1 : 8;
+		tables = op.getNumOfTables();
+		page = ByteBuffer.allocate(NUM_OF_BYTES);
+	}
+	
+	/**
+	 * This method is used to get the schema of the temporary file of the
+	 * operator, the tuple IDs are kept as the long values after the data.
+	 * @param op the operator whose tuples are written.
+	 * @return the schema of the temporary file.
+	 */
+	public static Map<String, Mule> getSchema(Operator op) {
+		Map<String, Mule> result = new HashMap<>(op.getSchema());
+		int size = op.getSchema().size();
+		for(int i=0;i<op.getNumOfTables();i++)
+			result.put("#" + i, new Mule(size + i, 1));
+		return result;
+	}
+	
+	/**
+	 * This method is used to get the tuple back from the temporary file.
+	 * @param tuple the tuple read by the temp operator.
+	 * @param types the type of each data of the tuples of the operator.
+	 * @param tables the number of tables of the operator.
+	 * @return the tuple with the tuple IDs.
+	 */
+	public static Tuple restore(Tuple tuple, byte[] types, int tables) {
+		Tuple result = new Tuple(types, tables);
+		for(int i=0;i<types.length;i++)
+			result.copyData(i, tuple, i);
+		for(int i=0;i<tables;i++)
+			result.setTupleID(i, tuple.getLong(types.length + i));
+		return result;
+	}
+	
+	/**
+	 * This method is used to write the tuple into the page, the page
+	 * is written into the file when there is no room for the tuple.
+	 * @param tuple the tuple that will be written.
+	 * @param written true means the tuple is read from a temporary file
+	 * of the same operator, so the tuple IDs are already in the data.
+	 */
+	public void write(Tuple tuple, boolean written) {
+		int length = op.checkSize(tuple);
+		int total = written ? length : length + tables * 8;
+		if(index + total > NUM_OF_BYTES) flush();
+		op.writeTuple(page, tuple, index);
+		if(!written) {
+			for(int i=0;i<tables;i++)
+				page.putLong(index + length + i * 8, tuple.getTupleID(i));
+		}
+		index += total;
+		size++;
+		tuples++;
+		bytes += total;
+	}
+	
+	/**
+	 * This method is used to write the page into the file.
+	 */
+	private void flush() {
+		try {
+			if(writer==null)
+				writer = new PageWriter(file, Main.isCompressed());
+			page.putInt(0, size);
+			writer.writePage(page, PageCodec.getRuns(4, widths, size));
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		page = ByteBuffer.allocate(NUM_OF_BYTES);
+		index = 4;
+		size = 0;
+	}
+	
+	/**
+	 * This method is used to write the last page and close the file.
+	 */
+	public void close() {
+		if(size > 0) flush();
+		try {
+			if(writer!=null) writer.close();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		page = null;
+	}
+	
+	/**
+	 * This method is used to delete the file when it is not needed.
+	 */
+	public void delete() {
+		file.delete();
+	}
+	
+	/**
+	 * This is the getter method of the temporary file.
+	 * @return the temporary file.
+	 */
+	public File getFile() {
+		return file;
+	}
+	
+	/**
+	 * This is the getter method of the number of tuples written.
+	 * @return the number of tuples in the file.
+	 */
+	public int getTuples() {
+		return tuples;
+	}
+	
+	/**
+	 * This is the getter method of the number of bytes written.
+	 * @return the number of bytes of the tuples in the file.
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+	
+}
@@ -0,0 +1,60 @@
+package SQLExpression;
+
+/**
+ * This class is the column node that has been bound to the schema of an
+ * operator: the index of the column in the tuple and its data type are
+ * found once when the query is planned, so the column does not need to be
+ * looked up in the schema for every tuple. It is visited as a column node,
+ * so the visitors that do not know about the binding still work on it.
+ * Notice the node could not be changed after it is built.
+ * @author messfish
+ *
+ */
+public class BoundColumnNode extends ColumnNode {
+	
+	private final int index; // this is the index of the column in the tuple.
+	private final int datatype; // this is the data type of the column.
+	
+	/**
+	 * Constructor: this constructor builds the column node with the index
+	 * and the data type in the schema.
+	 * @param data the whole name of the column.
+	 * @param index the index of the column in the tuple.
+	 * @param datatype the data type of the column.
+	 */
+	public BoundColumnNode(String data, int index, int datatype) {
+		super(data);
+		this.index = index;
+		this.datatype = datatype;
+	}
+	
+	/**
+	 * the getter method of the index of the column.
+	 * @return the index of the column in the tuple.
+	 */
+	public int getIndex() {
+		return index;
+	}
+	
+	/**
+	 * the getter method of the data type of the column.
+	 * @return the data type of the column.
+	 */
+	public int getDataType() {
+		return datatype;
+	}
+	
+	/**
+	 * This is mainly used for debugging: it will print the
+	 * structure of the expression in a tree structure. The
+	 * number of "-" indicates the level of the tree.
+	 * @param s a list of '-' to indicate the level of the tree.
+	 * @param sb the string that will be used to generate the output.
+	 */
+	@Override
+	public void print(String s, StringBuilder sb) {
+		sb.append(s + "[" + "Column: " + getWholeColumnName() + " #" + index
+				+ "]").append("\n");
+	}
+	
+}
@@ -67,13 +67,22 @@ public class MultiAndOperator extends MultipleExpression{
 	}
 
 	/**
-	 * Since this Expression is not a binary expression anymore. I will
-	 * also leave this method as blank.
+	 * This is used to convert the tree structure into a string. The
+	 * children are put together with the "AND", the child that is an
+	 * or operator is put in the parenthesis to keep the order.
 	 * @param sb the string builder that handles the output of the method.
 	 */
 	@Override
 	public void toString(StringBuilder sb) {
-		
+		for(int i=0;i<size();i++) {
+			if(i!=0) sb.append("AND ");
+			Expression child = getChild(i);
+			boolean group = child instanceof OrOperator||
+					child instanceof MultiOrOperator;
+			if(group) sb.append("( ");
+			child.toString(sb);
+			if(group) sb.append(") ");
+		}
 	}
 
 }
@@ -25,6 +25,28 @@ public class StringValue extends Expression{
 	public String getData() {
 		return data;
 	}
+	
+	/**
+	 * This method is used to get the data without the quotes around it.
+	 * @return the value of the string in the query.
+	 */
+	public String getValue() {
+		return unquote(data);
+	}
+	
+	/**
+	 * This method is used to get rid of the quotes around the value. The
+	 * strings, the dates and the times in the query are wrapped by the
+	 * double quotes or the single quotes.
+	 * @param data the value in the query.
+	 * @return the value without the quotes.
+	 */
+	public static String unquote(String data) {
+		if(data.length()>=2&&(data.charAt(0)=='"'||data.charAt(0)=='\'')
+				&&data.charAt(data.length() - 1)==data.charAt(0))
+			return data.substring(1, data.length() - 1);
+		return data;
+	}
 
 	/**
 	 * this method is the method for accepting visitor: just calls the 
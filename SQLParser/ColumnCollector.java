@@ -0,0 +1,122 @@
+package SQLParser;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import SQLExpression.AbstractVisitor;
+import SQLExpression.BinaryExpression;
+import SQLExpression.ColumnNode;
+import SQLExpression.Expression;
+import SQLExpression.MultipleExpression;
+import SQLExpression.Subselect;
+import SQLExpression.UnaryExpression;
+
+/**
+ * This class is used to collect the columns used by the expressions.
+ * The columns are grouped by the table alias, so the scan operators
+ * know which attributes need to be read from the table. Notice when
+ * a column could not be resolved (there is no alias before the name,
+ * or there is a sub query in the expression), the result could not be
+ * trusted and null will be returned, which means every column is needed.
+ * @author messfish
+ *
+ */
+public class ColumnCollector implements AbstractVisitor {
+
+	private Map<String, Set<String>> columns = new HashMap<>();
+	// this map uses the alias as the key and the attributes as the value.
+	private boolean complete = true;
+	// this flag shows whether all the columns could be resolved.
+
+	/**
+	 * This method is used to collect the columns from the expression tree.
+	 * @param express the root of the expression tree, could be null.
+	 */
+	public void collect(Expression express) {
+		if(express!=null)
+			express.accept(this);
+	}
+
+	/**
+	 * This method is used to collect a single column name. Notice the name
+	 * could be an aggregation such as SUM(S.A) or COUNT(DISTINCT*), in that
+	 * case only the column inside the parenthesis will be collected.
+	 * @param name the name of the column.
+	 */
+	public void collect(String name) {
+		int left = name.indexOf('(');
+		if(left!=-1)
+			name = name.substring(left + 1, name.lastIndexOf(')'));
+		if(name.startsWith("DISTINCT"))
+			name = name.substring(8);
+		name = name.trim();
+		if(name.equals("*")) return;
+		String[] array = name.split("\\.");
+		if(array.length!=2) {
+			complete = false;
+			return;
+		}
+		if(!columns.containsKey(array[0]))
+			columns.put(array[0], new HashSet<>());
+		columns.get(array[0]).add(array[1]);
+	}
+
+	/**
+	 * This is the getter method of the columns collected.
+	 * @return the map uses the alias as the key and the set of attributes
+	 * as the value, null means every column is needed.
+	 */
+	public Map<String, Set<String>> getColumns() {
+		if(!complete) return null;
+		return columns;
+	}
+
+	/**
+	 * this is the visit method of the expression class. Only the column
+	 * nodes will be collected, the sub query may use any columns so the
+	 * result could not be trusted any more.
+	 * @param express the expression that will be visited.
+	 */
+	@Override
+	public void visit(Expression express) {
+		if(express instanceof ColumnNode)
+			collect(((ColumnNode)express).getWholeColumnName());
+		else if(express instanceof Subselect)
+			complete = false;
+	}
+
+	/**
+	 * this is the visit method of the binary expression class, visit
+	 * the left child and the right child.
+	 * @param express the expression that will be visited.
+	 */
+	@Override
+	public void visit(BinaryExpression express) {
+		express.getLeftChild().accept(this);
+		express.getRightChild().accept(this);
+	}
+
+	/**
+	 * this is the visit method of the unary expression class, visit
+	 * the only child.
+	 * @param express the expression that will be visited.
+	 */
+	@Override
+	public void visit(UnaryExpression express) {
+		express.getChild().accept(this);
+	}
+
+	/**
+	 * this is the visit method of the multiple expression class, visit
+	 * the children from the left of the list to the right.
+	 * @param express the expression that will be visited.
+	 */
+	@Override
+	public void visit(MultipleExpression express) {
+		for(int i=0;i<express.size();i++)
+			express.getChild(i).accept(this);
+	}
+
+}
@@ -0,0 +1,717 @@
+package SQLParser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import SQLExpression.AddOperator;
+import SQLExpression.AllOperator;
+import SQLExpression.AndOperator;
+import SQLExpression.AnyOperator;
+import SQLExpression.BinaryExpression;
+import SQLExpression.CloneExpressionVisitor;
+import SQLExpression.ColumnNode;
+import SQLExpression.DateValue;
+import SQLExpression.DivideOperator;
+import SQLExpression.DoubleValue;
+import SQLExpression.Equals;
+import SQLExpression.ExistsOperator;
+import SQLExpression.Expression;
+import SQLExpression.GreaterThan;
+import SQLExpression.GreaterThanOrEquals;
+import SQLExpression.InOperator;
+import SQLExpression.LessThan;
+import SQLExpression.LessThanOrEquals;
+import SQLExpression.LikeOperator;
+import SQLExpression.LongValue;
+import SQLExpression.MinusOperator;
+import SQLExpression.MultiAndOperator;
+import SQLExpression.MultiOrOperator;
+import SQLExpression.MultiplyOperator;
+import SQLExpression.NegativeValue;
+import SQLExpression.NotEquals;
+import SQLExpression.NotOperator;
+import SQLExpression.OrOperator;
+import SQLExpression.Parenthesis;
+import SQLExpression.StringValue;
+import SQLExpression.Subselect;
+import SQLExpression.TimeValue;
+import Support.TimeConversion;
+
+/**
+ * This class is used to simplify an expression tree before it is evaluated
+ * for every tuple. The tree is cloned with these rules: the calculations
+ * of the constants are done once, so "1 + 2 * 3" becomes 7 and a date
+ * compared through the arithmetic becomes a double value. The parenthesis
+ * are left out since the tree already keeps the order. The comparisons of
+ * two constants or of an expression with itself are either true or false,
+ * "NOT NOT x" becomes x and a not operator over a comparison becomes the
+ * opposite comparison. The conditions that are always true are taken out
+ * of an and operator, the ones that are always false are taken out of an
+ * or operator. At last, the comparisons of a column with the constants in
+ * the same conjunction are put together as a range, the conjunction could
+ * never be true when the range is empty, for example "S.A > 5 AND S.A < 3".
+ * @author messfish
+ *
+ */
+public class ExpressionSimplifier implements CloneExpressionVisitor {
+	
+	private static final Expression TRUE = new LongValue(1);
+	private static final Expression FALSE = new LongValue(0);
+	// the markers of the conditions that are always true or always false,
+	// they are taken by the logical operators and never left in the tree.
+	private static final double LIMIT = 9007199254740992.0;
+	// the long values larger than this could not be kept by a double.
+	private static final int EQUALS = 0, NOT_EQUALS = 1, GREATER = 2,
+			GREATER_EQUALS = 3, LESS = 4, LESS_EQUALS = 5;
+	private static final int[] FLIPPED = {0, 1, 4, 5, 2, 3};
+	// the comparison when the two sides are swapped.
+	private static final int[] NEGATED = {1, 0, 5, 4, 3, 2};
+	// the comparison that is true when the original one is not.
+	private boolean contradiction;
+	// this shows the last expression could never be true.
+	private TimeConversion convert = new TimeConversion();
+	
+	/**
+	 * This method is used to simplify the expression tree and return the
+	 * root of the simplified one. Notice the original tree is not changed.
+	 * @param express the root of the expression tree.
+	 * @return the root of the simplified tree, null when the expression
+	 * is always true or always false. Use isContradiction() to tell them.
+	 */
+	public Expression simplify(Expression express) {
+		contradiction = false;
+		if(express==null) return null;
+		Expression result = express.accept(this);
+		if(result==FALSE) contradiction = true;
+		if(result==TRUE||result==FALSE) return null;
+		return result;
+	}
+	
+	/**
+	 * This method is used to tell whether the last expression simplified
+	 * could never be true.
+	 * @return true if no tuple could pass the last expression.
+	 */
+	public boolean isContradiction() {
+		return contradiction;
+	}
+	
+	/**
+	 * This method is used to check whether the expression is a constant
+	 * that could be calculated: a long, a double, a date or a time value.
+	 * @param express the expression that will be checked.
+	 * @return true if the expression is a numeric constant.
+	 */
+	private boolean isNumber(Expression express) {
+		return express instanceof LongValue||express instanceof DoubleValue
+				||express instanceof DateValue||express instanceof TimeValue;
+	}
+	
+	/**
+	 * This method is used to get the numeric constant as a double value,
+	 * the dates and the times are converted the same way as the evaluator.
+	 * @param express the numeric constant.
+	 * @return the double value of the constant.
+	 */
+	private double getNumber(Expression express) {
+		if(express instanceof LongValue)
+			return ((LongValue)express).getData();
+		if(express instanceof DoubleValue)
+			return ((DoubleValue)express).getData();
+		if(express instanceof DateValue)
+			return convert.fromDateToNumber(((DateValue)express).getData());
+		return convert.fromTimeToNumber(((TimeValue)express).getData());
+	}
+	
+	/**
+	 * This method is used to do the calculation on the two children when
+	 * both of them are numeric constants. The result is a long value only
+	 * when both of them are long values, which is the same as the evaluator.
+	 * The division of a long value by zero is left to the evaluator.
+	 * @param operator the operator of the calculation: + - * or /.
+	 * @param left the simplified left child.
+	 * @param right the simplified right child.
+	 * @return the result of the calculation, or the new operator when
+	 * the calculation could not be done now.
+	 */
+	private Expression calculate(char operator, Expression left, Expression right) {
+		if(left instanceof LongValue&&right instanceof LongValue) {
+			long number1 = ((LongValue)left).getData();
+			long number2 = ((LongValue)right).getData();
+			if(operator=='+') return new LongValue(number1 + number2);
+			if(operator=='-') return new LongValue(number1 - number2);
+			if(operator=='*') return new LongValue(number1 * number2);
+			if(number2!=0) return new LongValue(number1 / number2);
+		}else if(isNumber(left)&&isNumber(right)) {
+			double number1 = getNumber(left), number2 = getNumber(right);
+			if(operator=='+') return new DoubleValue(number1 + number2);
+			if(operator=='-') return new DoubleValue(number1 - number2);
+			if(operator=='*') return new DoubleValue(number1 * number2);
+			return new DoubleValue(number1 / number2);
+		}
+		if(operator=='+') return new AddOperator(left, right);
+		if(operator=='-') return new MinusOperator(left, right);
+		if(operator=='*') return new MultiplyOperator(left, right);
+		return new DivideOperator(left, right);
+	}
+	
+	/**
+	 * This method is used to compare the two children when the result is
+	 * known before the tuples come: both of them are constants or they
+	 * are the same expression. The long values and the double values are
+	 * compared the same way as the evaluator.
+	 * @param left the simplified left child.
+	 * @param right the simplified right child.
+	 * @return -1, 0 or 1 as the result of the comparison, 2 if the result
+	 * is not known.
+	 */
+	private int compare(Expression left, Expression right) {
+		if(left instanceof LongValue&&right instanceof LongValue)
+			return Long.compare(((LongValue)left).getData(),
+					((LongValue)right).getData());
+		if(isNumber(left)&&isNumber(right)) {
+			double number1 = getNumber(left), number2 = getNumber(right);
+			if(number1 < number2) return -1;
+			else if(number1 > number2) return 1;
+			return 0;
+		}
+		if(left instanceof StringValue&&right instanceof StringValue)
+			return Integer.signum(((StringValue)left).getValue().compareTo(
+					((StringValue)right).getValue()));
+		if(!isNumber(left)&&!(left instanceof StringValue)&&
+				new CheckEquals().checkEqual(left, right))
+			return 0;
+		return 2;
+	}
+	
+	/**
+	 * This method is used to simplify a comparison. The comparison is
+	 * replaced by the marker when the result is known.
+	 * @param code the code of the comparison, see the constants above.
+	 * @param comparator the comparison that will be simplified.
+	 * @return the simplified comparison.
+	 */
+	private Expression compare(int code, BinaryExpression comparator) {
+		Expression left = comparator.getLeftChild().accept(this);
+		Expression right = comparator.getRightChild().accept(this);
+		int result = compare(left, right);
+		if(result!=2) {
+			boolean valid = false;
+			if(code==EQUALS) valid = result==0;
+			else if(code==NOT_EQUALS) valid = result!=0;
+			else if(code==GREATER) valid = result > 0;
+			else if(code==GREATER_EQUALS) valid = result >= 0;
+			else if(code==LESS) valid = result < 0;
+			else valid = result <= 0;
+			return valid ? TRUE : FALSE;
+		}
+		return build(code, left, right);
+	}
+	
+	/**
+	 * This method is used to build the comparison with the code.
+	 * @param code the code of the comparison.
+	 * @param left the left child.
+	 * @param right the right child.
+	 * @return the new comparison.
+	 */
+	private Expression build(int code, Expression left, Expression right) {
+		if(code==EQUALS) return new Equals(left, right);
+		if(code==NOT_EQUALS) return new NotEquals(left, right);
+		if(code==GREATER) return new GreaterThan(left, right);
+		if(code==GREATER_EQUALS) return new GreaterThanOrEquals(left, right);
+		if(code==LESS) return new LessThan(left, right);
+		return new LessThanOrEquals(left, right);
+	}
+	
+	/**
+	 * This method is used to get the code of the comparison.
+	 * @param express the expression that will be checked.
+	 * @return the code of the comparison, -1 if it is not a comparison.
+	 */
+	private int getCode(Expression express) {
+		if(express instanceof Equals) return EQUALS;
+		if(express instanceof NotEquals) return NOT_EQUALS;
+		if(express instanceof GreaterThan) return GREATER;
+		if(express instanceof GreaterThanOrEquals) return GREATER_EQUALS;
+		if(express instanceof LessThan) return LESS;
+		if(express instanceof LessThanOrEquals) return LESS_EQUALS;
+		return -1;
+	}
+	
+	/**
+	 * This method is used to put the simplified children of an and
+	 * operator together. The children that are always true are left out,
+	 * the whole conjunction is always false when one of the children is
+	 * or when the ranges of the columns could not be met.
+	 * @param children the simplified children.
+	 * @param binary true if the original one is an and operator.
+	 * @return the simplified conjunction.
+	 */
+	private Expression conjunction(List<Expression> children, boolean binary) {
+		List<Expression> list = new ArrayList<>();
+		for(Expression child : children) {
+			if(child==FALSE) return FALSE;
+			if(child!=TRUE) list.add(child);
+		}
+		Map<String, Range> ranges = new HashMap<>();
+		for(Expression child : list)
+			collect(child, ranges);
+		for(Range range : ranges.values())
+			if(range.isEmpty()) return FALSE;
+		if(list.size()==0) return TRUE;
+		if(list.size()==1) return list.get(0);
+		if(binary&&list.size()==2)
+			return new AndOperator(list.get(0), list.get(1));
+		return new MultiAndOperator(list);
+	}
+	
+	/**
+	 * This method is used to put the simplified children of an or
+	 * operator together. The children that are always false are left out,
+	 * the whole disjunction is always true when one of the children is.
+	 * @param children the simplified children.
+	 * @param binary true if the original one is an or operator.
+	 * @return the simplified disjunction.
+	 */
+	private Expression disjunction(List<Expression> children, boolean binary) {
+		List<Expression> list = new ArrayList<>();
+		for(Expression child : children) {
+			if(child==TRUE) return TRUE;
+			if(child!=FALSE) list.add(child);
+		}
+		if(list.size()==0) return FALSE;
+		if(list.size()==1) return list.get(0);
+		if(binary&&list.size()==2)
+			return new OrOperator(list.get(0), list.get(1));
+		return new MultiOrOperator(list);
+	}
+	
+	/**
+	 * This method is used to collect the comparisons of a column with a
+	 * numeric constant in a conjunction, the and operators inside are
+	 * also looked into. Each column has its own range.
+	 * @param express the simplified child of the conjunction.
+	 * @param ranges the map from the column name to its range.
+	 */
+	private void collect(Expression express, Map<String, Range> ranges) {
+		if(express instanceof AndOperator) {
+			collect(((AndOperator)express).getLeftChild(), ranges);
+			collect(((AndOperator)express).getRightChild(), ranges);
+			return;
+		}
+		if(express instanceof MultiAndOperator) {
+			for(Expression child : ((MultiAndOperator)express).getList())
+				collect(child, ranges);
+			return;
+		}
+		int code = getCode(express);
+		if(code==-1) return;
+		Expression left = ((BinaryExpression)express).getLeftChild();
+		Expression right = ((BinaryExpression)express).getRightChild();
+		/* put the column on the left side. */
+		if(right instanceof ColumnNode&&isNumber(left)) {
+			Expression dummy = left;
+			left = right;
+			right = dummy;
+			code = FLIPPED[code];
+		}
+		if(!(left instanceof ColumnNode)||!isNumber(right)) return;
+		double value = getNumber(right);
+		if(Double.isNaN(value)||Math.abs(value) > LIMIT) return;
+		String name = ((ColumnNode)left).getWholeColumnName();
+		Range range = ranges.get(name);
+		if(range==null) {
+			range = new Range();
+			ranges.put(name, range);
+		}
+		range.add(code, value);
+	}
+	
+	/**
+	 * this method simplifies the addition, the constants are added now.
+	 * @param operator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(AddOperator operator) {
+		return calculate('+', operator.getLeftChild().accept(this),
+				operator.getRightChild().accept(this));
+	}
+	
+	/**
+	 * this method simplifies the subtraction, the constants are
+	 * subtracted now.
+	 * @param operator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(MinusOperator operator) {
+		return calculate('-', operator.getLeftChild().accept(this),
+				operator.getRightChild().accept(this));
+	}
+	
+	/**
+	 * this method simplifies the multiplication, the constants are
+	 * multiplied now.
+	 * @param operator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(MultiplyOperator operator) {
+		return calculate('*', operator.getLeftChild().accept(this),
+				operator.getRightChild().accept(this));
+	}
+	
+	/**
+	 * this method simplifies the division, the constants are divided now.
+	 * @param operator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(DivideOperator operator) {
+		return calculate('/', operator.getLeftChild().accept(this),
+				operator.getRightChild().accept(this));
+	}
+	
+	/**
+	 * this method simplifies the negative expression, the negative
+	 * value of a constant is calculated now.
+	 * @param operator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(NegativeValue operator) {
+		Expression child = operator.getChild().accept(this);
+		if(child instanceof LongValue)
+			return new LongValue(-((LongValue)child).getData());
+		if(isNumber(child))
+			return new DoubleValue(-getNumber(child));
+		return new NegativeValue(child);
+	}
+	
+	/**
+	 * this method simplifies the and operator, see conjunction().
+	 * @param operator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(AndOperator operator) {
+		List<Expression> list = new ArrayList<>();
+		list.add(operator.getLeftChild().accept(this));
+		list.add(operator.getRightChild().accept(this));
+		return conjunction(list, true);
+	}
+	
+	/**
+	 * this method simplifies the or operator, see disjunction().
+	 * @param operator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(OrOperator operator) {
+		List<Expression> list = new ArrayList<>();
+		list.add(operator.getLeftChild().accept(this));
+		list.add(operator.getRightChild().accept(this));
+		return disjunction(list, true);
+	}
+	
+	/**
+	 * this method simplifies the not operator. Two not operators cancel
+	 * each other and a not operator over a comparison becomes the
+	 * opposite comparison, since the comparisons always give an answer.
+	 * @param operator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(NotOperator operator) {
+		Expression child = operator.getChild().accept(this);
+		if(child==TRUE) return FALSE;
+		if(child==FALSE) return TRUE;
+		if(child instanceof NotOperator)
+			return ((NotOperator)child).getChild();
+		int code = getCode(child);
+		if(code!=-1)
+			return build(NEGATED[code], ((BinaryExpression)child).getLeftChild(),
+					((BinaryExpression)child).getRightChild());
+		return new NotOperator(child);
+	}
+	
+	/**
+	 * this method simplifies the equals operator.
+	 * @param comparator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(Equals comparator) {
+		return compare(EQUALS, comparator);
+	}
+	
+	/**
+	 * this method simplifies the not equals operator.
+	 * @param comparator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(NotEquals comparator) {
+		return compare(NOT_EQUALS, comparator);
+	}
+	
+	/**
+	 * this method simplifies the greater than operator.
+	 * @param comparator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(GreaterThan comparator) {
+		return compare(GREATER, comparator);
+	}
+	
+	/**
+	 * this method simplifies the greater than or equals operator.
+	 * @param comparator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(GreaterThanOrEquals comparator) {
+		return compare(GREATER_EQUALS, comparator);
+	}
+	
+	/**
+	 * this method simplifies the less than operator.
+	 * @param comparator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(LessThan comparator) {
+		return compare(LESS, comparator);
+	}
+	
+	/**
+	 * this method simplifies the less than or equals operator.
+	 * @param comparator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(LessThanOrEquals comparator) {
+		return compare(LESS_EQUALS, comparator);
+	}
+	
+	/**
+	 * this method simplifies the children of the like operator.
+	 * @param operator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(LikeOperator operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new LikeOperator(left, right);
+	}
+	
+	/**
+	 * this method leaves the parenthesis out, the structure of the tree
+	 * already keeps the order of the calculation.
+	 * @param expression the expression that will be visited.
+	 * @return the simplified child.
+	 */
+	@Override
+	public Expression visit(Parenthesis expression) {
+		return expression.getChild().accept(this);
+	}
+	
+	/**
+	 * this method simplifies the child of the exists operator.
+	 * @param operator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(ExistsOperator operator) {
+		return new ExistsOperator(operator.getChild().accept(this));
+	}
+	
+	/**
+	 * this method simplifies the children of the in operator.
+	 * @param operator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(InOperator operator) {
+		Expression left = operator.getLeftChild().accept(this);
+		Expression right = operator.getRightChild().accept(this);
+		return new InOperator(left, right);
+	}
+	
+	/**
+	 * this method simplifies the child of the all operator.
+	 * @param operator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(AllOperator operator) {
+		return new AllOperator(operator.getChild().accept(this));
+	}
+	
+	/**
+	 * this method simplifies the child of the any operator.
+	 * @param operator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(AnyOperator operator) {
+		return new AnyOperator(operator.getChild().accept(this));
+	}
+	
+	/**
+	 * this method makes a copy of the double value.
+	 * @param value the expression that will be visited.
+	 * @return the copied expression.
+	 */
+	@Override
+	public Expression visit(DoubleValue value) {
+		return new DoubleValue(value.getData());
+	}
+	
+	/**
+	 * this method makes a copy of the long value.
+	 * @param value the expression that will be visited.
+	 * @return the copied expression.
+	 */
+	@Override
+	public Expression visit(LongValue value) {
+		return new LongValue(value.getData());
+	}
+	
+	/**
+	 * this method makes a copy of the date value, it is kept as a date
+	 * until it is used in a calculation.
+	 * @param value the expression that will be visited.
+	 * @return the copied expression.
+	 */
+	@Override
+	public Expression visit(DateValue value) {
+		return new DateValue(value.getData());
+	}
+	
+	/**
+	 * this method makes a copy of the time value, it is kept as a time
+	 * until it is used in a calculation.
+	 * @param value the expression that will be visited.
+	 * @return the copied expression.
+	 */
+	@Override
+	public Expression visit(TimeValue value) {
+		return new TimeValue(value.getData());
+	}
+	
+	/**
+	 * this method makes a copy of the string value.
+	 * @param value the expression that will be visited.
+	 * @return the copied expression.
+	 */
+	@Override
+	public Expression visit(StringValue value) {
+		return new StringValue(value.getData());
+	}
+	
+	/**
+	 * this method makes a copy of the column.
+	 * @param node the expression that will be visited.
+	 * @return the copied expression.
+	 */
+	@Override
+	public Expression visit(ColumnNode node) {
+		return new ColumnNode(node.getWholeColumnName());
+	}
+	
+	/**
+	 * this method makes a copy of the sub query.
+	 * @param subquery the expression that will be visited.
+	 * @return the copied expression.
+	 */
+	@Override
+	public Expression visit(Subselect subquery) {
+		return new Subselect(subquery.getString());
+	}
+	
+	/**
+	 * this method simplifies the multiple and operator, see conjunction().
+	 * @param operator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(MultiAndOperator operator) {
+		List<Expression> list = new ArrayList<>();
+		for(int i=0;i<operator.size();i++)
+			list.add(operator.getChild(i).accept(this));
+		return conjunction(list, false);
+	}
+	
+	/**
+	 * this method simplifies the multiple or operator, see disjunction().
+	 * @param operator the expression that will be visited.
+	 * @return the simplified expression.
+	 */
+	@Override
+	public Expression visit(MultiOrOperator operator) {
+		List<Expression> list = new ArrayList<>();
+		for(int i=0;i<operator.size();i++)
+			list.add(operator.getChild(i).accept(this));
+		return disjunction(list, false);
+	}
+	
+	/**
+	 * This class keeps the range of the values a column could have in a
+	 * conjunction: the lower bound, the upper bound and the values that
+	 * the column should not be equal to.
+	 */
+	private static class Range {
+		
+		private double low = Double.NEGATIVE_INFINITY;
+		private double high = Double.POSITIVE_INFINITY;
+		private boolean lowopen, highopen;
+		// the bound is open when the value itself is not in the range.
+		private Set<Double> excluded = new HashSet<>();
+		
+		/**
+		 * This method is used to narrow the range with the comparison.
+		 * @param code the code of the comparison, the column is on the left.
+		 * @param value the constant on the right.
+		 */
+		private void add(int code, double value) {
+			if(code==NOT_EQUALS) {
+				excluded.add(value);
+				return;
+			}
+			if(code==EQUALS||code==GREATER||code==GREATER_EQUALS) {
+				boolean open = code==GREATER;
+				if(value > low||(value==low&&open)) {
+					low = value;
+					lowopen = open;
+				}
+			}
+			if(code==EQUALS||code==LESS||code==LESS_EQUALS) {
+				boolean open = code==LESS;
+				if(value < high||(value==high&&open)) {
+					high = value;
+					highopen = open;
+				}
+			}
+		}
+		
+		/**
+		 * This method is used to tell whether no value is in the range.
+		 * @return true if the range is empty.
+		 */
+		private boolean isEmpty() {
+			if(low > high) return true;
+			return low==high&&(lowopen||highopen||excluded.contains(low));
+		}
+		
+	}
+	
+}
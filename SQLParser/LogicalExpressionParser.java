@@ -185,6 +185,7 @@ public class LogicalExpressionParser {
 			int pointer = 0;
 			while(index<tokens.length&&stopset.contains(tokens[index]))
 				connection[pointer++] = tokens[index++];
+			boolean isIn = connection[pointer - 1].equals("IN");
 			/* handle the "not like" case at here. */
 			if(pointer>1&&connection[1].equals("LIKE")) {
 				CalculationParser rcal = 
@@ -192,6 +193,12 @@ public class LogicalExpressionParser {
 				Expression right = rcal.parse();
 				Expression like = new LikeOperator(left, right);
 				result = new NotOperator(like);
+			}
+			/* this is the IN with a list of values instead of a sub query. */
+			else if(isIn&&!tokens[index + 1].equals("SELECT")) {
+				result = inList(left, index + 1, endpoint - 1);
+				if(pointer>1) result = new NotOperator(result);
+				index = endpoint;
 			}else{
 				/* get the sub query into the right expression tree. 
 				 * Note the current index is the left parenthesis, so
@@ -208,6 +215,29 @@ public class LogicalExpressionParser {
 		return result;
 	}
 	
+	/**
+	 * This method is used to deal with the IN followed by a list of values,
+	 * such as S.C IN ( "a" , "b" ). It will be changed into the equal 
+	 * comparisons connected by OR: ( S.C = "a" OR S.C = "b" ).
+	 * @param left the expression on the left of the IN.
+	 * @param start the index of the first value in the list.
+	 * @param endpoint the index of the right parenthesis of the list.
+	 * @return the parenthesis that has the comparisons in it.
+	 */
+	private Expression inList(Expression left, int start, int endpoint) {
+		CloneExpression clone = new CloneExpression();
+		Expression result = null;
+		int point = start;
+		for(int i=start;i<=endpoint;i++) {
+			if(i<endpoint&&!tokens[i].equals(",")) continue;
+			CalculationParser cal = new CalculationParser(tokens, point, i);
+			Expression equals = new Equals(clone.clone(left), cal.parse());
+			result = result==null ? equals : new OrOperator(result, equals);
+			point = i + 1;
+		}
+		return new Parenthesis(result);
+	}
+	
 	/**
 	 * This method is used to deal with the comparison between two calculations,
 	 * It return the expression tree whose root is the comparison node. Notice
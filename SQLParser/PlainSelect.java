@@ -526,6 +526,27 @@ public class PlainSelect {
 		return tablemap;
 	}
 	
+	/**
+	 * This method is used to find out the columns used by the query, 
+	 * which includes the SELECT, WHERE, GROUP BY, HAVING and ORDER BY part.
+	 * @return a map uses the alias as the key and the set of attributes
+	 * as the value, null means every column of every table is needed.
+	 */
+	public Map<String, Set<String>> getReferencedColumns() {
+		/* this indicates the select query contains an "*". */
+		if(selectlist.size()==0) return null;
+		ColumnCollector collector = new ColumnCollector();
+		for(Expression express : selectlist)
+			collector.collect(express);
+		collector.collect(whereexpress);
+		for(String str : groupbylist)
+			collector.collect(str);
+		collector.collect(havingexpress);
+		for(Expression express : orderbylist)
+			collector.collect(express);
+		return collector.getColumns();
+	}
+	
 	/**
 	 * this is the getter method of the where expression.
 	 * @return the where expression tree.
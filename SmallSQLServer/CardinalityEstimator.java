@@ -0,0 +1,624 @@
+package SmallSQLServer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import LogicalOperators.CartesianOperators;
+import LogicalOperators.DistinctOperators;
+import LogicalOperators.GroupByOperators;
+import LogicalOperators.HavingOperators;
+import LogicalOperators.JoinOperators;
+import LogicalOperators.OperatorVisitor;
+import LogicalOperators.Operators;
+import LogicalOperators.OrderByOperators;
+import LogicalOperators.ProjectOperators;
+import LogicalOperators.ScanOperators;
+import LogicalOperators.SelectOperators;
+import SQLExpression.AndOperator;
+import SQLExpression.BinaryExpression;
+import SQLExpression.ColumnNode;
+import SQLExpression.DateValue;
+import SQLExpression.DoubleValue;
+import SQLExpression.Equals;
+import SQLExpression.Expression;
+import SQLExpression.GreaterThan;
+import SQLExpression.GreaterThanOrEquals;
+import SQLExpression.LessThan;
+import SQLExpression.LessThanOrEquals;
+import SQLExpression.LongValue;
+import SQLExpression.MultiAndOperator;
+import SQLExpression.MultiOrOperator;
+import SQLExpression.NegativeValue;
+import SQLExpression.NotEquals;
+import SQLExpression.NotOperator;
+import SQLExpression.OrOperator;
+import SQLExpression.Parenthesis;
+import SQLExpression.StringValue;
+import SQLExpression.TimeValue;
+import SQLParser.CNFConverter;
+import SQLParser.PlainSelect;
+import Support.Catalog;
+import Support.ColumnStatistics;
+import Support.TableStatistics;
+import Support.TimeConversion;
+import TableElement.DataType;
+import TableElement.Table;
+
+/**
+ * This class is used to estimate the number of tuples handed out by every
+ * logical operator, by using the statistics collected by the analyzer.
+ * The where expression is turned into the CNF form and the selectivity of
+ * the conjuncts are multiplied, the disjuncts are put together as the
+ * events that are independent of each other. The lower bound and the
+ * upper bound of the same column are not independent, so they are put
+ * together as a range: the tuples that pass both of them are the ones
+ * that pass either of them minus all the tuples.
+ * The equality of a column and a constant uses the frequency of the value
+ * when it is one of the most common values, otherwise the tuples left are
+ * shared by the rest of the distinct values. The comparison of a column
+ * and a constant finds the part of the histogram below the constant, and
+ * the value is placed in its bucket by the linear interpolation. The
+ * equality of two columns from different tables assumes every value of
+ * the side with fewer distinct values is found on the other side, so a
+ * tuple matches one out of the larger number of distinct values. Notice
+ * a table could not have more distinct values than the tuples left after
+ * its own conjuncts, so the number is capped by them. The
+ * number of groups is the product of the distinct values of the columns
+ * grouped, which could not be more than the tuples in the child.
+ * When the table is not analyzed, the number of tuples is estimated by
+ * the size of the file, every value is taken as distinct, and the
+ * comparisons with a constant use the fixed selectivities.
+ * @author messfish
+ *
+ */
+public class CardinalityEstimator implements OperatorVisitor {
+	
+	private static final double EQUALS = 0.1;
+	// the selectivity of the equality with a constant without statistics.
+	private static final double RANGE = 1.0 / 3;
+	// the selectivity of the comparison with a constant without statistics.
+	private static final double OTHERS = 0.5;
+	// the selectivity of the expression that could not be estimated.
+	private Catalog catalog;
+	private PlainSelect plain; // the query, could be null.
+	private Map<String, String> tables;
+	// this map uses the alias as the key and stores the name of the table.
+	private Map<String, Double> inputs;
+	// this map uses the alias as the key and stores the estimated number
+	// of tuples of the table after its own conjuncts.
+	private Map<Operators, Double> estimates;
+	// this map stores the number of tuples of every operator visited.
+	private double rows; // the number of tuples of the last operator.
+	private TimeConversion convert = new TimeConversion();
+	// this is used to change the date and the time into numbers.
+	
+	/**
+	 * Constructor: this constructor builds the estimator without any
+	 * table, the tables should be added one by one.
+	 * @param catalog the list of schemas and statistics available.
+	 */
+	public CardinalityEstimator(Catalog catalog) {
+		this.catalog = catalog;
+		tables = new HashMap<>();
+		inputs = new HashMap<>();
+		estimates = new HashMap<>();
+	}
+	
+	/**
+	 * Constructor: this constructor builds the estimator of the query,
+	 * every table of the from list is added.
+	 * @param plain the query.
+	 * @param catalog the list of schemas and statistics available.
+	 */
+	public CardinalityEstimator(PlainSelect plain, Catalog catalog) {
+		this(catalog);
+		this.plain = plain;
+		for(Map.Entry<String, Table> entry : plain.getFromList().entrySet())
+			addTable(entry.getKey(), entry.getValue().getName());
+	}
+	
+	/**
+	 * This method is used to add a table used by the expressions.
+	 * @param alias the alias of the table.
+	 * @param table the name of the table.
+	 */
+	public void addTable(String alias, String table) {
+		tables.put(alias, table);
+	}
+	
+	/**
+	 * This method is used to set the number of tuples of the table after
+	 * its own conjuncts, the distinct values of its columns are capped by
+	 * the number.
+	 * @param alias the alias of the table.
+	 * @param tuples the estimated number of tuples.
+	 */
+	public void setRows(String alias, double tuples) {
+		inputs.put(alias, tuples);
+	}
+	
+	/**
+	 * This method is used to estimate the number of tuples handed out by
+	 * the operator and all the operators below it.
+	 * @param root the logical operator.
+	 * @return the estimated number of tuples.
+	 */
+	public double estimate(Operators root) {
+		root.accept(this);
+		return rows;
+	}
+	
+	/**
+	 * This method is used to get the estimate of an operator that has been
+	 * visited by the estimate() method.
+	 * @param op the logical operator.
+	 * @return the estimated number of tuples, -1 if it is not visited.
+	 */
+	public double getEstimate(Operators op) {
+		if(!estimates.containsKey(op)) return -1;
+		return estimates.get(op);
+	}
+	
+	/**
+	 * This method is used to keep the estimate of the operator.
+	 * @param op the logical operator.
+	 * @param tuples the number of tuples.
+	 */
+	private void keep(Operators op, double tuples) {
+		rows = tuples;
+		estimates.put(op, tuples);
+	}
+	
+	/**
+	 * This is the visiting method of the Order By Operators, the sorting
+	 * keeps every tuple.
+	 * @param order the logical Order By Operators.
+	 */
+	@Override
+	public void visit(OrderByOperators order) {
+		keep(order, estimate(order.getChild()));
+	}
+	
+	/**
+	 * This is the visiting method of the Group By Operators. There is a
+	 * tuple for every combination of the distinct values grouped.
+	 * @param group the logical Group By Operators.
+	 */
+	@Override
+	public void visit(GroupByOperators group) {
+		double child = estimate(group.getChild()), groups = 1;
+		if(plain==null) {
+			keep(group, child);
+			return;
+		}
+		for(String column : plain.getGroupByElements())
+			groups *= getDistinct(column);
+		keep(group, Math.max(1, Math.min(child, groups)));
+	}
+	
+	/**
+	 * This is the visiting method of the Project Operators, every tuple
+	 * is kept.
+	 * @param project the logical Project Operators.
+	 */
+	@Override
+	public void visit(ProjectOperators project) {
+		keep(project, estimate(project.getChild()));
+	}
+	
+	/**
+	 * This is the visiting method of the Distinct Operators. When every
+	 * element selected is a column, the number of tuples is estimated in
+	 * the same way as the groups.
+	 * @param distinct the logical Distinct Operators.
+	 */
+	@Override
+	public void visit(DistinctOperators distinct) {
+		double child = estimate(distinct.getChild()), groups = 1;
+		if(plain==null) {
+			keep(distinct, child);
+			return;
+		}
+		for(Expression element : plain.getSelectElements()) {
+			if(!(element instanceof ColumnNode)) {
+				groups = child;
+				break;
+			}
+			groups *= getDistinct(((ColumnNode)element).getWholeColumnName());
+		}
+		keep(distinct, Math.max(1, Math.min(child, groups)));
+	}
+	
+	/**
+	 * This is the visiting method of the Join Operators, the product of
+	 * the children is filtered by the condition.
+	 * @param join the logical Join Operators.
+	 */
+	@Override
+	public void visit(JoinOperators join) {
+		double product = 1;
+		for(int i=0;i<join.length();i++)
+			product *= estimate(join.getChild(i));
+		keep(join, product * getConjunction(join.getCondition()));
+	}
+	
+	/**
+	 * This is the visiting method of the Having Operators. The having
+	 * expression usually compares the aggregations, which could not be
+	 * estimated, so the fixed selectivity is used.
+	 * @param having the logical Having Operators.
+	 */
+	@Override
+	public void visit(HavingOperators having) {
+		keep(having, estimate(having.getChild()) * OTHERS);
+	}
+	
+	/**
+	 * This is the visiting method of the Select Operators.
+	 * @param select the logical Select Operators.
+	 */
+	@Override
+	public void visit(SelectOperators select) {
+		double child = estimate(select.getChild());
+		keep(select, child * getConjunction(select.getExpression()));
+		if(select.getChild() instanceof ScanOperators)
+			setRows(((ScanOperators)select.getChild()).getAlias(), rows);
+	}
+	
+	/**
+	 * This is the visiting method of the Cartesian Operators, which reads
+	 * all the tables of the query and checks the where expression.
+	 * @param cart the logical Cartesian Operators.
+	 */
+	@Override
+	public void visit(CartesianOperators cart) {
+		double product = 1;
+		for(String table : tables.values())
+			product *= catalog.getTupleCount(table);
+		Expression where = plain==null ? null : plain.getWhereExpression();
+		keep(cart, product * getConjunction(where));
+	}
+	
+	/**
+	 * This is the visiting method of the Scan Operators.
+	 * @param scan the logical Scan Operators.
+	 */
+	@Override
+	public void visit(ScanOperators scan) {
+		keep(scan, catalog.getTupleCount(scan.getTable().getName()));
+		setRows(scan.getAlias(), rows);
+	}
+	
+	/**
+	 * This method is used to estimate the part of the tuples that pass
+	 * the expression, the expression is turned into the CNF form first.
+	 * @param express the expression, null means every tuple passes.
+	 * @return the selectivity between 0 and 1.
+	 */
+	public double getConjunction(Expression express) {
+		if(express==null) return 1;
+		CNFConverter cnf = new CNFConverter();
+		cnf.convert(express);
+		return getSelectivity(cnf.getRoot());
+	}
+	
+	/**
+	 * This method is used to estimate the part of the tuples that pass
+	 * the expression.
+	 * @param express the expression.
+	 * @return the selectivity between 0 and 1.
+	 */
+	public double getSelectivity(Expression express) {
+		if(express instanceof Parenthesis)
+			return getSelectivity(((Parenthesis)express).getChild());
+		if(express instanceof NotOperator)
+			return 1 - getSelectivity(((NotOperator)express).getChild());
+		if(express instanceof AndOperator) {
+			List<Expression> list = new ArrayList<>();
+			list.add(((BinaryExpression)express).getLeftChild());
+			list.add(((BinaryExpression)express).getRightChild());
+			return getSelectivity(list);
+		}
+		if(express instanceof OrOperator) {
+			BinaryExpression or = (BinaryExpression)express;
+			double one = getSelectivity(or.getLeftChild());
+			double two = getSelectivity(or.getRightChild());
+			return one + two - one * two;
+		}
+		if(express instanceof MultiAndOperator)
+			return getSelectivity(((MultiAndOperator)express).getList());
+		if(express instanceof MultiOrOperator) {
+			double result = 0;
+			for(Expression child : ((MultiOrOperator)express).getList()) {
+				double one = getSelectivity(child);
+				result = result + one - result * one;
+			}
+			return result;
+		}
+		if(express instanceof Equals)
+			return getEquality((BinaryExpression)express);
+		if(express instanceof NotEquals)
+			return 1 - getEquality((BinaryExpression)express);
+		if(express instanceof LessThan||express instanceof LessThanOrEquals
+				||express instanceof GreaterThan
+				||express instanceof GreaterThanOrEquals)
+			return getRange((BinaryExpression)express);
+		return OTHERS;
+	}
+	
+	/**
+	 * This method is used to estimate the part of the tuples that pass
+	 * all the conjuncts. The bounds of the same column are put together.
+	 * @param conjuncts the list of conjuncts.
+	 * @return the selectivity between 0 and 1.
+	 */
+	public double getSelectivity(List<Expression> conjuncts) {
+		/* the map stores the selectivity of the upper bound and the lower
+		 * bound of each column. */
+		Map<String, double[]> ranges = new HashMap<>();
+		double result = 1;
+		for(Expression conjunct : conjuncts) {
+			String column = getBoundColumn(conjunct);
+			if(column==null) {
+				result *= getSelectivity(conjunct);
+				continue;
+			}
+			double[] pair = ranges.get(column);
+			if(pair==null) {
+				pair = new double[]{1, 1};
+				ranges.put(column, pair);
+			}
+			int index = isUpperBound((BinaryExpression)conjunct) ? 0 : 1;
+			pair[index] = Math.min(pair[index], getSelectivity(conjunct));
+		}
+		for(double[] pair : ranges.values())
+			result *= Math.max(0, pair[0] + pair[1] - 1);
+		return result;
+	}
+	
+	/**
+	 * This method is used to find the column of the comparison between a
+	 * column and a constant.
+	 * @param express the expression.
+	 * @return the name of the column, null if the expression is not such
+	 * a comparison.
+	 */
+	private String getBoundColumn(Expression express) {
+		if(!(express instanceof LessThan||express instanceof LessThanOrEquals
+				||express instanceof GreaterThan
+				||express instanceof GreaterThanOrEquals))
+			return null;
+		BinaryExpression compare = (BinaryExpression)express;
+		String left = getColumn(compare.getLeftChild());
+		String right = getColumn(compare.getRightChild());
+		if(left!=null&&getConstant(compare.getRightChild())!=null)
+			return left;
+		if(right!=null&&getConstant(compare.getLeftChild())!=null)
+			return right;
+		return null;
+	}
+	
+	/**
+	 * This method is used to check whether the comparison between a column
+	 * and a constant gives the upper bound of the column.
+	 * @param express the comparison.
+	 * @return true if the column should be smaller than the constant.
+	 */
+	private boolean isUpperBound(BinaryExpression express) {
+		boolean less = express instanceof LessThan
+				||express instanceof LessThanOrEquals;
+		return getColumn(express.getLeftChild())!=null ? less : !less;
+	}
+	
+	/**
+	 * This method is used to estimate the selectivity of the equality.
+	 * @param express the equality.
+	 * @return the selectivity between 0 and 1.
+	 */
+	private double getEquality(BinaryExpression express) {
+		String one = getColumn(express.getLeftChild());
+		String two = getColumn(express.getRightChild());
+		if(one!=null&&two!=null) {
+			if(getAlias(one).equals(getAlias(two))) return EQUALS;
+			return 1 / Math.max(1, Math.max(getDistinct(one), getDistinct(two)));
+		}
+		String column = one==null ? two : one;
+		Expression other = one==null ? express.getLeftChild() :
+			express.getRightChild();
+		ColumnStatistics stats = getStatistics(column);
+		DataType value = getConstant(other);
+		if(stats==null||value==null) return EQUALS;
+		return getEquality(stats, value);
+	}
+	
+	/**
+	 * This method is used to estimate the part of the tuples whose value
+	 * of the column is the same as the constant.
+	 * @param stats the statistics of the column.
+	 * @param value the constant.
+	 * @return the selectivity between 0 and 1.
+	 */
+	private double getEquality(ColumnStatistics stats, DataType value) {
+		if(stats.getMin()==null||compare(value, stats.getMin()) < 0
+				||compare(value, stats.getMax()) > 0)
+			return 0;
+		DataType[] common = stats.getCommonValues();
+		double rest = 1;
+		for(int i=0;i<common.length;i++) {
+			if(compare(value, common[i])==0) return stats.getFrequencies()[i];
+			rest -= stats.getFrequencies()[i];
+		}
+		double others = stats.getDistinct() - common.length;
+		if(others < 1) return 0;
+		return Math.max(0, rest) / others;
+	}
+	
+	/**
+	 * This method is used to estimate the selectivity of the comparison
+	 * between a column and a constant.
+	 * @param express the comparison.
+	 * @return the selectivity between 0 and 1.
+	 */
+	private double getRange(BinaryExpression express) {
+		String column = getColumn(express.getLeftChild());
+		Expression other = express.getRightChild();
+		boolean less = express instanceof LessThan
+				||express instanceof LessThanOrEquals;
+		boolean inclusive = express instanceof LessThanOrEquals
+				||express instanceof GreaterThanOrEquals;
+		/* switch the sides so the column is always on the left. */
+		if(column==null) {
+			column = getColumn(express.getRightChild());
+			other = express.getLeftChild();
+			less = !less;
+		}
+		ColumnStatistics stats = column==null ? null : getStatistics(column);
+		DataType value = getConstant(other);
+		if(stats==null||value==null||stats.getMin()==null) return RANGE;
+		double below = getFractionBelow(stats, value);
+		double equal = getEquality(stats, value);
+		double result = less ? below + (inclusive ? equal : 0) :
+			1 - below - (inclusive ? 0 : equal);
+		return Math.min(1, Math.max(0, result));
+	}
+	
+	/**
+	 * This method is used to find the part of the values smaller than the
+	 * constant. The histogram is used when there is one, otherwise the
+	 * values are taken as spread evenly between the smallest and the
+	 * largest value.
+	 * @param stats the statistics of the column.
+	 * @param value the constant.
+	 * @return the part of the values between 0 and 1.
+	 */
+	private double getFractionBelow(ColumnStatistics stats, DataType value) {
+		DataType[] bounds = stats.getHistogram();
+		if(bounds.length < 2)
+			bounds = new DataType[]{stats.getMin(), stats.getMax()};
+		int buckets = bounds.length - 1;
+		if(compare(value, bounds[0]) <= 0) return 0;
+		if(compare(value, bounds[buckets]) > 0) return 1;
+		for(int i=0;i<buckets;i++) {
+			if(compare(value, bounds[i + 1]) > 0) continue;
+			double part = 0.5;
+			if(value.getType()!=2) {
+				double low = toNumber(bounds[i]), high = toNumber(bounds[i + 1]);
+				part = high <= low ? 1 : (toNumber(value) - low) / (high - low);
+			}
+			return (i + part) / buckets;
+		}
+		return 1;
+	}
+	
+	/**
+	 * This method is used to get the number of distinct values of the
+	 * column, which is the number of tuples of the table when the table
+	 * is not analyzed. The number is capped by the tuples of the table.
+	 * @param column the name of the column with the alias.
+	 * @return the number of distinct values, at least 1.
+	 */
+	private double getDistinct(String column) {
+		String alias = getAlias(column), table = tables.get(alias);
+		if(table==null) return 1;
+		ColumnStatistics stats = getStatistics(column);
+		double result = stats!=null ? stats.getDistinct() :
+			catalog.getTupleCount(table);
+		if(inputs.containsKey(alias))
+			result = Math.min(result, inputs.get(alias));
+		return Math.max(1, result);
+	}
+	
+	/**
+	 * This method is used to get the statistics of the column.
+	 * @param column the name of the column with the alias.
+	 * @return the statistics, null if the table is not analyzed.
+	 */
+	private ColumnStatistics getStatistics(String column) {
+		String table = tables.get(getAlias(column));
+		if(table==null) return null;
+		TableStatistics stats = catalog.getStatistics(table);
+		if(stats==null) return null;
+		return stats.getColumn(column.substring(column.indexOf('.') + 1));
+	}
+	
+	/**
+	 * This method is used to get the alias of the column.
+	 * @param column the name of the column with the alias.
+	 * @return the alias, an empty string if there is none.
+	 */
+	private String getAlias(String column) {
+		int index = column.indexOf('.');
+		return index==-1 ? "" : column.substring(0, index);
+	}
+	
+	/**
+	 * This method is used to get the name of the column.
+	 * @param express the expression.
+	 * @return the name of the column, null if the expression is not a
+	 * column.
+	 */
+	private String getColumn(Expression express) {
+		if(!(express instanceof ColumnNode)) return null;
+		return ((ColumnNode)express).getWholeColumnName();
+	}
+	
+	/**
+	 * This method is used to change the constant into the data type, the
+	 * date and the time are changed into the numbers.
+	 * @param express the expression.
+	 * @return the data type, null if the expression is not a constant.
+	 */
+	private DataType getConstant(Expression express) {
+		boolean negative = false;
+		if(express instanceof NegativeValue) {
+			negative = true;
+			express = ((NegativeValue)express).getChild();
+		}
+		double value = 0;
+		if(express instanceof LongValue) {
+			long data = ((LongValue)express).getData();
+			return new DataType(negative ? -data : data);
+		}
+		if(express instanceof StringValue) {
+			if(negative) return null;
+			return new DataType(((StringValue)express).getValue());
+		}
+		if(express instanceof DoubleValue)
+			value = ((DoubleValue)express).getData();
+		else if(express instanceof DateValue)
+			value = convert.fromDateToNumber(((DateValue)express).getData());
+		else if(express instanceof TimeValue)
+			value = convert.fromTimeToNumber(((TimeValue)express).getData());
+		else return null;
+		return new DataType(negative ? -value : value);
+	}
+	
+	/**
+	 * This method is used to compare the two values. The long value and
+	 * the double value are compared as numbers, and a string is always
+	 * taken as larger than a number.
+	 * @param one the first value.
+	 * @param two the second value.
+	 * @return the negative number, 0 or the positive number when the first
+	 * value is smaller, the same or larger.
+	 */
+	private int compare(DataType one, DataType two) {
+		boolean first = one.getType()==2, second = two.getType()==2;
+		if(first&&second) return one.getString().compareTo(two.getString());
+		if(first||second) return first ? 1 : -1;
+		return Double.compare(toNumber(one), toNumber(two));
+	}
+	
+	/**
+	 * This method is used to change the long value or the double value
+	 * into the double number.
+	 * @param data the value.
+	 * @return the number.
+	 */
+	private double toNumber(DataType data) {
+		return data.getType()==1 ? data.getLong() : data.getDouble();
+	}
+	
+}
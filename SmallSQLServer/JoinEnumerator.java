@@ -0,0 +1,425 @@
+package SmallSQLServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import LogicalOperators.JoinOperators;
+import LogicalOperators.Operators;
+import SQLExpression.ColumnNode;
+import SQLExpression.Equals;
+import SQLExpression.Expression;
+import SQLExpression.MultiAndOperator;
+import Support.Catalog;
+import TableElement.Table;
+
+/**
+ * This class is used to choose the order of the joins and the physical
+ * join of each of them by the estimated cost. Every table of the from
+ * list is a leaf, which is the scan of the table with the select right
+ * above it when the table has its own conjuncts. The number of tuples of
+ * each leaf is estimated from the size of the table and the selectivity
+ * of the conjuncts, and the number of tuples of a join is estimated by
+ * the selectivity of the conjuncts that use both sides. The selectivity
+ * is given by the cardinality estimator.
+ * When there are no more than 10 tables, the best plan of every subset
+ * of the tables is found by the dynamic programming, each subset is split
+ * into two smaller subsets in every way, so the plan could be left deep
+ * or bushy. For more tables, the two plans that give the cheapest join
+ * are joined again and again until a single plan is left. The splits that
+ * have no conjunct between the two sides are only used when there is
+ * no other way, so the Cartesian product is left to the end.
+ * The cost is counted in the pages read, the tuples handled in the memory
+ * are counted as a small part of a page.
+ * @author messfish
+ *
+ */
+public class JoinEnumerator {
+	
+	private static final int DP_LIMIT = 10;
+	// the largest number of tables ordered by the dynamic programming.
+	private static final double CPU_COST = 0.01;
+	// the cost of handling a single tuple, counted in the pages read.
+	private static final int NUM_OF_BYTES = 16384; // the size of a page.
+	private Catalog catalog;
+	private CardinalityEstimator estimator;
+	// this is used to estimate the selectivity of the conjuncts.
+	private List<Operators> leaves; // the plan of each table.
+	private List<String> aliases; // the alias of each table.
+	private List<String> tables; // the name of each table.
+	private List<Double> sizes; // the number of tuples of each table.
+	private List<Double> rows; // the number of tuples of each leaf.
+	private List<Expression> conditions;
+	// the conjuncts that use several tables.
+	private List<Integer> masks;
+	// the tables used by each conjunct, the table i is the bit i.
+	private String order; // the only column of the order by, could be null.
+	
+	/**
+	 * This class stores a plan of a subset of the tables. The plan of a
+	 * single table has no children.
+	 */
+	private static class Plan {
+		
+		private int mask; // the tables in the plan as bits.
+		private Plan left, right; // the two sides of the join.
+		private List<Expression> conditions; // the conjuncts of the join.
+		private int method; // the physical join used.
+		private double rows; // the estimated number of tuples.
+		private double width; // the estimated number of bytes of a tuple.
+		private double cost; // the estimated cost of the whole plan.
+		private String[] sorted;
+		// the columns the tuples are sorted on, could be null.
+		
+	}
+	
+	/**
+	 * Constructor: this constructor takes the catalog used to estimate
+	 * the size of the tables.
+	 * @param catalog the list of schemas available.
+	 */
+	public JoinEnumerator(Catalog catalog) {
+		this.catalog = catalog;
+		estimator = new CardinalityEstimator(catalog);
+		leaves = new ArrayList<>();
+		aliases = new ArrayList<>();
+		tables = new ArrayList<>();
+		sizes = new ArrayList<>();
+		rows = new ArrayList<>();
+		conditions = new ArrayList<>();
+		masks = new ArrayList<>();
+	}
+	
+	/**
+	 * This method is used to add a table of the from list.
+	 * @param alias the alias of the table.
+	 * @param table the table.
+	 * @param leaf the plan of the table, the scan or the select above it.
+	 * @param filters the conjuncts that only use this table.
+	 */
+	public void addTable(String alias, Table table, Operators leaf,
+			List<Expression> filters) {
+		estimator.addTable(alias, table.getName());
+		double size = catalog.getTupleCount(table.getName());
+		double selectivity = estimator.getSelectivity(filters);
+		aliases.add(alias);
+		tables.add(table.getName());
+		leaves.add(leaf);
+		sizes.add(size);
+		rows.add(Math.max(1, size * selectivity));
+		estimator.setRows(alias, size * selectivity);
+	}
+	
+	/**
+	 * This method is used to add a conjunct that uses several tables.
+	 * Notice it should be called after all the tables are added.
+	 * @param conjunct the conjunct.
+	 * @param used the aliases of the tables used by the conjunct.
+	 */
+	public void addCondition(Expression conjunct, Set<String> used) {
+		int mask = 0;
+		for(String alias : used)
+			mask |= 1 << aliases.indexOf(alias);
+		conditions.add(conjunct);
+		masks.add(mask);
+	}
+	
+	/**
+	 * This method is used to set the column the query is ordered by, so
+	 * the merge join of all the tables on that column saves the sorting
+	 * after it. It should only be set when the order by is right above
+	 * the joins and the column is the only one of the order by.
+	 * @param column the only column of the order by in the ascending
+	 * order, null if there is none.
+	 */
+	public void setOrder(String column) {
+		order = column;
+	}
+	
+	/**
+	 * This method is used to find the best plan of all the tables.
+	 * @return the root of the join tree.
+	 */
+	public Operators enumerate() {
+		Plan best = null;
+		if(leaves.size() <= DP_LIMIT)
+			best = dynamic();
+		else best = greedy();
+		return build(best);
+	}
+	
+	/**
+	 * This method is used to find the best plan by the dynamic programming.
+	 * Since every subset of a set is a smaller number, the subsets are
+	 * handled in the ascending order of the bits.
+	 * @return the best plan of all the tables.
+	 */
+	private Plan dynamic() {
+		int full = (1 << leaves.size()) - 1;
+		Plan[] best = new Plan[full + 1];
+		for(int i=0;i<leaves.size();i++)
+			best[1 << i] = leaf(i);
+		for(int mask=1;mask<=full;mask++) {
+			if(Integer.bitCount(mask) < 2) continue;
+			/* the product is only used when no split has a conjunct. */
+			for(int pass=0;pass<2&&best[mask]==null;pass++) {
+				for(int sub=(mask-1)&mask;sub>0;sub=(sub-1)&mask) {
+					Plan left = best[sub], right = best[mask ^ sub];
+					if(left==null||right==null) continue;
+					if(pass==0&&!isConnected(sub, mask ^ sub)) continue;
+					Plan plan = join(left, right);
+					if(best[mask]==null||plan.cost < best[mask].cost)
+						best[mask] = plan;
+				}
+			}
+		}
+		return best[full];
+	}
+	
+	/**
+	 * This method is used to find the plan by the greedy way: the two
+	 * plans that give the cheapest join are joined until a single plan
+	 * is left.
+	 * @return the plan of all the tables.
+	 */
+	private Plan greedy() {
+		List<Plan> plans = new ArrayList<>();
+		for(int i=0;i<leaves.size();i++)
+			plans.add(leaf(i));
+		while(plans.size() > 1) {
+			Plan best = null;
+			int first = 0, second = 0;
+			for(int pass=0;pass<2&&best==null;pass++) {
+				for(int i=0;i<plans.size();i++) {
+					for(int j=0;j<plans.size();j++) {
+						if(i==j) continue;
+						Plan left = plans.get(i), right = plans.get(j);
+						if(pass==0&&!isConnected(left.mask, right.mask))
+							continue;
+						Plan plan = join(left, right);
+						if(best==null||plan.cost < best.cost) {
+							best = plan;
+							first = i;
+							second = j;
+						}
+					}
+				}
+			}
+			plans.remove(Math.max(first, second));
+			plans.remove(Math.min(first, second));
+			plans.add(best);
+		}
+		return plans.get(0);
+	}
+	
+	/**
+	 * This method is used to build the plan of a single table.
+	 * @param index the order of the table.
+	 * @return the plan of the table.
+	 */
+	private Plan leaf(int index) {
+		Plan plan = new Plan();
+		plan.mask = 1 << index;
+		plan.rows = rows.get(index);
+		plan.width = catalog.getTupleWidth(tables.get(index));
+		plan.cost = catalog.getPageCount(tables.get(index));
+		return plan;
+	}
+	
+	/**
+	 * This method is used to check whether there is a conjunct that uses
+	 * both sets of tables.
+	 * @param left the first set of tables as bits.
+	 * @param right the second set of tables as bits.
+	 * @return true if there is such a conjunct.
+	 */
+	private boolean isConnected(int left, int right) {
+		for(int mask : masks)
+			if((mask & left)!=0&&(mask & right)!=0
+					&&(mask & ~(left | right))==0)
+				return true;
+		return false;
+	}
+	
+	/**
+	 * This method is used to join two plans with the cheapest physical
+	 * join. The hash join, the merge join and the index nested loops need
+	 * an equality of a column from each side, the index nested loops also
+	 * need the right side to be a single table with a tree on its column.
+	 * The block nested loops could always be used.
+	 * @param left the plan of the left side.
+	 * @param right the plan of the right side.
+	 * @return the plan of the join.
+	 */
+	private Plan join(Plan left, Plan right) {
+		Plan plan = new Plan();
+		plan.mask = left.mask | right.mask;
+		plan.left = left;
+		plan.right = right;
+		plan.conditions = new ArrayList<>();
+		double selectivity = 1;
+		String[] keys = null;
+		for(int i=0;i<conditions.size();i++) {
+			int mask = masks.get(i);
+			if((mask & ~plan.mask)!=0||(mask & ~left.mask)==0
+					||(mask & ~right.mask)==0)
+				continue;
+			Expression condition = conditions.get(i);
+			plan.conditions.add(condition);
+			selectivity *= estimator.getSelectivity(condition);
+			if(keys==null)
+				keys = getKeys(condition, left.mask, right.mask);
+		}
+		plan.rows = Math.max(1, left.rows * right.rows * selectivity);
+		plan.width = left.width + right.width;
+		double memory = (double)Main.getJoinPages() * NUM_OF_BYTES;
+		double leftbytes = left.rows * left.width;
+		double rightbytes = right.rows * right.width;
+		/* the block nested loops read the right side once for each block. */
+		double blocks = Math.max(1, Math.ceil(leftbytes / memory));
+		plan.method = JoinOperators.NESTED_LOOP;
+		plan.cost = left.cost + blocks * right.cost +
+				CPU_COST * left.rows * right.rows;
+		if(keys==null) return plan;
+		/* the hash join spills both sides when neither of them fits. */
+		double cost = left.cost + right.cost +
+				CPU_COST * (left.rows + right.rows);
+		if(Math.min(leftbytes, rightbytes) > memory)
+			cost += 2 * (leftbytes + rightbytes) / NUM_OF_BYTES;
+		choose(plan, JoinOperators.HASH, cost);
+		/* the merge join sorts the sides not sorted on the key. When it
+		 * joins all the tables, it saves the sorting of the order by on
+		 * the key, since the order by is right above it. The order by
+		 * sorts in the memory, so only the comparisons are saved. */
+		cost = left.cost + right.cost + CPU_COST * (left.rows + right.rows);
+		if(!isSortedOn(left, keys[0]))
+			cost += getSortCost(left.rows, leftbytes, memory);
+		cost += getSortCost(right.rows, rightbytes, memory);
+		if(order!=null&&plan.mask==(1 << leaves.size()) - 1
+				&&(order.equals(keys[0])||order.equals(keys[1])))
+			cost -= getSortCost(plan.rows, 0, memory);
+		if(choose(plan, JoinOperators.SORT_MERGE, cost))
+			plan.sorted = keys;
+		/* every tuple of the left side searches the tree once, and every
+		 * tuple found is fetched by its page. */
+		if(right.left==null&&hasIndex(right.mask, keys[1])) {
+			int index = Integer.numberOfTrailingZeros(right.mask);
+			double found = left.rows * sizes.get(index) * selectivity;
+			cost = left.cost + left.rows + found;
+			choose(plan, JoinOperators.INDEX, cost);
+		}
+		return plan;
+	}
+	
+	/**
+	 * This method is used to take the physical join if it is cheaper.
+	 * @param plan the plan of the join.
+	 * @param method the physical join.
+	 * @param cost the cost of the whole plan with the physical join.
+	 * @return true if the physical join is taken.
+	 */
+	private boolean choose(Plan plan, int method, double cost) {
+		if(cost >= plan.cost) return false;
+		plan.method = method;
+		plan.cost = cost;
+		plan.sorted = null;
+		return true;
+	}
+	
+	/**
+	 * This method is used to estimate the cost of sorting the tuples.
+	 * @param tuples the number of tuples.
+	 * @param bytes the number of bytes of the tuples.
+	 * @param memory the number of bytes that could be kept in the memory.
+	 * @return the cost of the sorting.
+	 */
+	private double getSortCost(double tuples, double bytes, double memory) {
+		double cost = CPU_COST * tuples * Math.log(Math.max(2, tuples))
+				/ Math.log(2);
+		/* the runs are written and read again. */
+		if(bytes > memory)
+			cost += 2 * bytes / NUM_OF_BYTES;
+		return cost;
+	}
+	
+	/**
+	 * This method is used to check whether the tuples of the plan are
+	 * sorted on the column.
+	 * @param plan the plan.
+	 * @param column the name of the column.
+	 * @return true if the tuples are sorted on the column.
+	 */
+	private boolean isSortedOn(Plan plan, String column) {
+		if(plan.sorted==null) return false;
+		return plan.sorted[0].equals(column)||plan.sorted[1].equals(column);
+	}
+	
+	/**
+	 * This method is used to check whether the column of the single table
+	 * has a tree on it.
+	 * @param mask the table as a bit.
+	 * @param column the name of the column with the alias.
+	 * @return true if there is a tree on the column.
+	 */
+	private boolean hasIndex(int mask, String column) {
+		String table = tables.get(Integer.numberOfTrailingZeros(mask));
+		return catalog.getIndex(table,
+				column.substring(column.indexOf('.') + 1))!=null;
+	}
+	
+	/**
+	 * This method is used to find the columns of the equality between
+	 * the two sides.
+	 * @param condition the conjunct.
+	 * @param left the tables of the left side as bits.
+	 * @param right the tables of the right side as bits.
+	 * @return the column from the left side and the column from the right
+	 * side, null if the conjunct is not such an equality.
+	 */
+	private String[] getKeys(Expression condition, int left, int right) {
+		if(!(condition instanceof Equals)) return null;
+		Expression first = ((Equals)condition).getLeftChild();
+		Expression second = ((Equals)condition).getRightChild();
+		if(!(first instanceof ColumnNode)||!(second instanceof ColumnNode))
+			return null;
+		String[] keys = {((ColumnNode)first).getWholeColumnName(),
+				((ColumnNode)second).getWholeColumnName()};
+		int one = getMask(keys[0]), two = getMask(keys[1]);
+		if((one & left)!=0&&(two & right)!=0) return keys;
+		if((one & right)!=0&&(two & left)!=0)
+			return new String[]{keys[1], keys[0]};
+		return null;
+	}
+	
+	/**
+	 * This method is used to find the table of the column.
+	 * @param column the name of the column with the alias.
+	 * @return the table as a bit, 0 if the alias is not found.
+	 */
+	private int getMask(String column) {
+		int index = column.indexOf('.');
+		if(index==-1) return 0;
+		int order = aliases.indexOf(column.substring(0, index));
+		return order==-1 ? 0 : 1 << order;
+	}
+	
+	/**
+	 * This method is used to build the logical join tree of the plan.
+	 * @param plan the plan.
+	 * @return the root of the join tree.
+	 */
+	private Operators build(Plan plan) {
+		if(plan.left==null)
+			return leaves.get(Integer.numberOfTrailingZeros(plan.mask));
+		List<Operators> children = new ArrayList<>();
+		children.add(build(plan.left));
+		children.add(build(plan.right));
+		Expression condition = null;
+		if(plan.conditions.size()==1)
+			condition = plan.conditions.get(0);
+		else if(plan.conditions.size() > 1)
+			condition = new MultiAndOperator(plan.conditions);
+		return new JoinOperators(children, condition, plan.method);
+	}
+	
+}
@@ -3,7 +3,10 @@ package SmallSQLServer;
 import java.util.Scanner;
 
 import SQLParser.PlainSelect;
+import Storage.BufferPool;
+import Support.Analyzer;
 import Support.Catalog;
+import Support.TableStatistics;
 
 /**
  * This is the top level of all the whole project.
@@ -25,6 +28,15 @@ public class Main {
 	// this string is the testing file directory of the file system.
 	private static int index = 1;
 	// this index is used to tell the order of the query.
+	private static boolean memorymapped;
+	// this flag tells whether the tables are scanned by mapping the
+	// file into the memory instead of copying pages into the heap.
+	private static boolean compressed;
+	// this flag tells whether the temporary files are compressed.
+	private static boolean prefetching;
+	// this flag tells whether the pages are read ahead by a thread.
+	private static int joinpages = 4096;
+	// the number of pages a join could keep in the memory.
 	
 	/**
 	 * this function is the setter method of the input directory string.
@@ -82,24 +94,131 @@ public class Main {
 		return test_dir;
 	}
 	
+	/**
+	 * this function is the setter method of the global scan mode.
+	 * @param mapped true means the tables will be memory mapped.
+	 */
+	public static void setMemoryMapped(boolean mapped) {
+		memorymapped = mapped;
+	}
+	
+	/**
+	 * this function is the getter method of the global scan mode.
+	 * @return true if the tables should be memory mapped by default.
+	 */
+	public static boolean isMemoryMapped() {
+		return memorymapped;
+	}
+	
+	/**
+	 * this function is the setter method of the compression of the
+	 * temporary files written by the sort and the group by operator.
+	 * @param compress true means the temporary pages will be compressed.
+	 */
+	public static void setCompressed(boolean compress) {
+		compressed = compress;
+	}
+	
+	/**
+	 * this function is the getter method of the compression flag.
+	 * @return true if the temporary pages should be compressed.
+	 */
+	public static boolean isCompressed() {
+		return compressed;
+	}
+	
+	/**
+	 * this function is the setter method of the read ahead of the pages
+	 * for the scan operator and the temp operator.
+	 * @param prefetch true means the pages will be read ahead.
+	 */
+	public static void setPrefetching(boolean prefetch) {
+		prefetching = prefetch;
+	}
+	
+	/**
+	 * this function is the getter method of the read ahead flag.
+	 * @return true if the pages should be read ahead by a thread.
+	 */
+	public static boolean isPrefetching() {
+		return prefetching;
+	}
+	
+	/**
+	 * this function is the setter method of the number of pages a join
+	 * could keep in the memory. The inputs of the hash join that are
+	 * larger are written into the temporary files in parts, and the block
+	 * nested loops join reads the left side in blocks of this size.
+	 * @param pages the number of pages of 16KB.
+	 */
+	public static void setJoinPages(int pages) {
+		joinpages = pages;
+	}
+	
+	/**
+	 * this function is the getter method of the memory of a join.
+	 * @return the number of pages a join could keep in the memory.
+	 */
+	public static int getJoinPages() {
+		return joinpages;
+	}
+	
 	/**
 	 * This method is used to handle the string as the query. Generate
 	 * the PlainSelect object and call the method from the QueryHandler
-	 * to finish the rest.
+	 * to finish the rest. The counters of the buffer pool will be printed
+	 * after the time usage, which is handy for sizing the pool.
+	 * The query could also be "ANALYZE table", which collects the
+	 * statistics of the table, or "ANALYZE table SAMPLE percent", which
+	 * only reads the given percent of the data pages. The query that
+	 * starts with "EXPLAIN" prints the plan with the estimated number of
+	 * tuples of every operator instead of the tuples, and the one that
+	 * starts with "EXPLAIN ANALYZE" prints the actual numbers as well.
 	 * @param query the SQL query.
 	 * @param index the order of the query.
 	 * @param catalog the list of schemas available.
 	 */
 	public static void handleQuery(String query, int index, Catalog catalog) {
 		long start = System.currentTimeMillis();
-		PlainSelect plain = new PlainSelect(query);
-		QueryHandler.handle(plain, index, catalog);
+		String[] words = query.trim().split("\\s+");
+		if(words[0].equalsIgnoreCase("ANALYZE")&&words.length>1)
+			analyze(words, catalog);
+		else if(words[0].equalsIgnoreCase("EXPLAIN")&&words.length>1) {
+			boolean analyze = words[1].equalsIgnoreCase("ANALYZE");
+			String rest = query.trim().substring(words[0].length()).trim();
+			if(analyze) rest = rest.substring(words[1].length()).trim();
+			System.out.print(QueryHandler.explain(new PlainSelect(rest),
+					catalog, analyze));
+		}else {
+			PlainSelect plain = new PlainSelect(query);
+			QueryHandler.handle(plain, index, catalog);
+		}
 		long end = System.currentTimeMillis();
 		long timeused = end - start;
 		long numofseconds = timeused / 1000;
 		long numofmilliseconds = timeused % 1000;
 		System.out.println("Time usage on the query: " + numofseconds + 
 				" s " + numofmilliseconds + " ms.");
+		System.out.println(BufferPool.getPool().getStatistics());
+	}
+	
+	/**
+	 * This method is used to collect the statistics of the table named in
+	 * the ANALYZE command and print the size of the table.
+	 * @param words the words of the command.
+	 * @param catalog the list of schemas available.
+	 */
+	private static void analyze(String[] words, Catalog catalog) {
+		double fraction = 1;
+		if(words.length>3&&words[2].equalsIgnoreCase("SAMPLE"))
+			fraction = Double.parseDouble(words[3]) / 100;
+		TableStatistics stats = new Analyzer().analyze(words[1], catalog,
+				fraction);
+		if(stats==null)
+			System.out.println("The table " + words[1] + " does not exist.");
+		else System.out.println("Analyzed " + words[1] + ": " 
+				+ Math.round(stats.getRowCount()) + " rows in " 
+				+ stats.getPageCount() + " pages.");
 	}
 	
 	/**
@@ -110,6 +229,10 @@ public class Main {
 	 * If it is valid, parse the SQL query into a parse tree.
 	 * Last, it runs the query and prints the result if this is 
 	 * a read query, connected with the time that spend on this query.
+	 * Notice if the second argument is "mmap", all the tables will be
+	 * scanned in the memory mapped mode. If any argument after the first
+	 * one is "compress", the temporary files will be compressed, and if
+	 * it is "prefetch", the pages will be read ahead by a thread.
 	 * @param args the argument stores the formated file directory.
 	 */
 	@SuppressWarnings("resource")
@@ -118,6 +241,13 @@ public class Main {
 		output_dir = args[0] + "/output";
 		temp_dir = args[0] + "/temp";
 		test_dir = args[0] + "/test";
+		if(args.length>1&&args[1].equals("mmap"))
+			memorymapped = true;
+		for(int i=1;i<args.length;i++)
+			if(args[i].equals("compress"))
+				compressed = true;
+			else if(args[i].equals("prefetch"))
+				prefetching = true;
 		while(true) {
 			Catalog catalog = new Catalog();
 			System.out.println("Please Enter a query: ");
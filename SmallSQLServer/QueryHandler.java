@@ -1,16 +1,34 @@
 package SmallSQLServer;
 
-import LogicalOperators.CartesianOperators;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import LogicalOperators.DistinctOperators;
 import LogicalOperators.GroupByOperators;
 import LogicalOperators.HavingOperators;
+import LogicalOperators.JoinOperators;
+import LogicalOperators.MultipleOperators;
 import LogicalOperators.Operators;
 import LogicalOperators.OrderByOperators;
 import LogicalOperators.ProjectOperators;
+import LogicalOperators.ScanOperators;
 import LogicalOperators.SelectOperators;
+import LogicalOperators.UnaryOperators;
+import PhysicalOperators.CountingOperator;
+import PhysicalOperators.Operator;
 import PhysicalOperators.PhysicalVisitor;
+import SQLExpression.ColumnNode;
+import SQLExpression.Expression;
+import SQLExpression.MultiAndOperator;
+import SQLParser.CNFConverter;
+import SQLParser.ColumnCollector;
+import SQLParser.ExpressionSimplifier;
 import SQLParser.PlainSelect;
 import Support.Catalog;
+import TableElement.Table;
 
 /**
  * This class is mainly used for handling the query, build the logical
@@ -30,28 +48,128 @@ public class QueryHandler {
 	 */
 	public static void handle(PlainSelect plain, int index, Catalog catalog) {
 		PhysicalVisitor pv = new PhysicalVisitor(plain, catalog);
-		Operators ops = BuildQueryPlan(plain);
+		Operators ops = BuildQueryPlan(plain, catalog);
 		ops.accept(pv);
 		pv.dump(index);
 	}
 	
+	/**
+	 * This method builds the logical query plan and writes it with the
+	 * estimated number of tuples of every operator. When the query is
+	 * analyzed, the physical plan is built once with a counting operator
+	 * above every operator and run to the end, so the actual number of
+	 * tuples could be compared with the estimate. The operator read in
+	 * several loops shows the average number of each loop, and the one
+	 * never read, such as the inner table of the index join, shows no
+	 * actual number. Notice the plan that has the group by or the having
+	 * operator could not be run, so it shows no actual number at all.
+	 * @param plain the Plain Select object for the query.
+	 * @param catalog the list of schemas available.
+	 * @param analyze true means the actual number of tuples is counted.
+	 * @return the plan with the numbers, a line for each operator.
+	 */
+	public static String explain(PlainSelect plain, Catalog catalog,
+			boolean analyze) {
+		Operators root = BuildQueryPlan(plain, catalog);
+		CardinalityEstimator estimator = new CardinalityEstimator(plain, catalog);
+		estimator.estimate(root);
+		Map<Operators, CountingOperator> counters = new HashMap<>();
+		if(analyze&&isRunnable(root)) {
+			PhysicalVisitor pv = new PhysicalVisitor(plain, catalog);
+			pv.setCounters(counters);
+			root.accept(pv);
+			Operator physical = pv.getOperator();
+			/* the counting operators count the tuples on their way up. */
+			while(physical.getNextBatch()!=null)
+				continue;
+			physical.close();
+		}
+		StringBuilder sb = new StringBuilder();
+		explain(root, "", estimator, counters, sb);
+		return sb.toString();
+	}
+	
+	/**
+	 * This method writes the line of the operator and the lines of its
+	 * children, the line is the first line printed by the operator.
+	 * @param op the logical operator.
+	 * @param s indicates the level of the tree.
+	 * @param estimator the estimator that has visited the plan.
+	 * @param counters the counting operator of each logical operator, it
+	 * is empty when the plan is not run.
+	 * @param sb the string that stores the plan.
+	 */
+	private static void explain(Operators op, String s,
+			CardinalityEstimator estimator,
+			Map<Operators, CountingOperator> counters, StringBuilder sb) {
+		StringBuilder line = new StringBuilder();
+		op.print(s, line);
+		sb.append(line.substring(0, line.indexOf("\n")));
+		sb.append(" (estimated ").append(Math.round(estimator.getEstimate(op)));
+		CountingOperator counter = counters.get(op);
+		int loops = counter==null ? 0 : counter.getLoops();
+		if(loops > 0)
+			sb.append(", actual ").append(Math.round((double)counter.getRows() / loops));
+		sb.append(" rows");
+		if(loops > 1) sb.append(", ").append(loops).append(" loops");
+		sb.append(")\n");
+		if(op instanceof UnaryOperators)
+			explain(((UnaryOperators)op).getChild(), s + "-", estimator,
+					counters, sb);
+		else if(op instanceof MultipleOperators) {
+			MultipleOperators multiple = (MultipleOperators)op;
+			for(int i=0;i<multiple.length();i++)
+				explain(multiple.getChild(i), s + "-", estimator, counters, sb);
+		}
+	}
+	
+	/**
+	 * This method is used to check whether the plan under the operator
+	 * could be run, the group by and the having operator are not built
+	 * by the physical visitor.
+	 * @param op the logical operator.
+	 * @return true if the plan could be run.
+	 */
+	private static boolean isRunnable(Operators op) {
+		if(op instanceof GroupByOperators||op instanceof HavingOperators)
+			return false;
+		if(op instanceof UnaryOperators)
+			return isRunnable(((UnaryOperators)op).getChild());
+		if(op instanceof MultipleOperators) {
+			MultipleOperators multiple = (MultipleOperators)op;
+			for(int i=0;i<multiple.length();i++)
+				if(!isRunnable(multiple.getChild(i))) return false;
+		}
+		return true;
+	}
+	
 	/**
 	 * This method is mainly used for building the logical query plan tree 
 	 * by using the information from the Plain Select object. Generally 
 	 * speaking, the logical query plan may generally be like this:
-	 * The Cartesian operators is usually the leaf node, Followed by a 
-	 * Select operators, then we have the Group By and Having operator.
+	 * The tables joined with the where expression are at the bottom, see
+	 * BuildJoinTree(). Then we have the Group By and Having operator.
 	 * Finally we use the Order by operator and Project operator, and follows
-	 * by a distinct operator. Note that besides Cartesian operator, 
-	 * every else operators are optional and we only create it when
-	 * we need it.
+	 * by a distinct operator. Note that besides the tables, every else
+	 * operators are optional and we only create it when we need it.
+	 * @param plain the object we use to extract valuable information out.
+	 * @return the root of the logical query plan tree.
+	 */
+	public static Operators BuildQueryPlan(PlainSelect plain) {
+		return BuildQueryPlan(plain, null);
+	}
+	
+	/**
+	 * This method builds the logical query plan tree in the same way as
+	 * the one above, but the order of the joins and the physical joins
+	 * are chosen by the estimated cost when the catalog is given.
 	 * @param plain the object we use to extract valuable information out.
+	 * @param catalog the catalog used to estimate the size of the tables,
+	 * null means the tables are joined in the order of the from list.
 	 * @return the root of the logical query plan tree.
 	 */
-	private static Operators BuildQueryPlan(PlainSelect plain) {
-		Operators result = new CartesianOperators();
-		if(plain.getWhereExpression()!=null)
-			result = new SelectOperators(result);
+	public static Operators BuildQueryPlan(PlainSelect plain, Catalog catalog) {
+		Operators result = BuildJoinTree(plain, catalog);
 		if(plain.getGroupByElements().size()!=0)
 			result = new GroupByOperators(result);
 		if(plain.getHavingExpression()!=null)
@@ -64,4 +182,151 @@ public class QueryHandler {
 		return result;
 	}
 	
+	/**
+	 * This method is used to build the part of the plan that reads the
+	 * tables and applies the where expression. The where expression is
+	 * turned into the CNF form and split into the conjuncts. A conjunct
+	 * that uses only one table is checked by a Select operators right
+	 * above the scan of that table, so the tuples are taken out before
+	 * they are joined. The tables are joined from the left to the right
+	 * in the order of the from list, a conjunct that uses several tables
+	 * is checked by the first join that has all of them. The conjuncts
+	 * left, such as the ones with a sub query, are checked at the top.
+	 * When the catalog is given and there are several tables, the order
+	 * of the joins is chosen by the join enumerator instead.
+	 * @param plain the object we use to extract valuable information out.
+	 * @param catalog the catalog used to estimate the size of the tables,
+	 * could be null.
+	 * @return the root of the join tree.
+	 */
+	private static Operators BuildJoinTree(PlainSelect plain, Catalog catalog) {
+		Map<String, Table> from = plain.getFromList();
+		List<String> aliases = new ArrayList<>(from.keySet());
+		List<List<Expression>> filters = new ArrayList<>();
+		List<List<Expression>> conditions = new ArrayList<>();
+		for(int i=0;i<aliases.size();i++) {
+			filters.add(new ArrayList<>());
+			conditions.add(new ArrayList<>());
+		}
+		List<Expression> rest = new ArrayList<>();
+		JoinEnumerator enumerator = null;
+		if(catalog!=null&&aliases.size() > 1)
+			enumerator = new JoinEnumerator(catalog);
+		List<Expression> joins = new ArrayList<>();
+		List<Set<String>> used = new ArrayList<>();
+		for(Expression conjunct : getConjuncts(plain.getWhereExpression())) {
+			ColumnCollector collector = new ColumnCollector();
+			collector.collect(conjunct);
+			Map<String, Set<String>> columns = collector.getColumns();
+			/* find the last table used by the conjunct in the from list. */
+			int level = -1;
+			if(columns!=null) {
+				for(String alias : columns.keySet()) {
+					int index = aliases.indexOf(alias);
+					if(index==-1) {
+						level = -1;
+						break;
+					}
+					level = Math.max(level, index);
+				}
+			}
+			if(level==-1) rest.add(conjunct);
+			else if(columns.size()==1) filters.get(level).add(conjunct);
+			else {
+				conditions.get(level).add(conjunct);
+				joins.add(conjunct);
+				used.add(columns.keySet());
+			}
+		}
+		Operators result = null;
+		for(int i=0;i<aliases.size();i++) {
+			String alias = aliases.get(i);
+			Operators leaf = new ScanOperators(alias, from.get(alias));
+			if(filters.get(i).size()!=0)
+				leaf = new SelectOperators(leaf, combine(filters.get(i)));
+			if(enumerator!=null) {
+				enumerator.addTable(alias, from.get(alias), leaf, filters.get(i));
+				continue;
+			}
+			if(result==null) {
+				result = leaf;
+				continue;
+			}
+			List<Operators> children = new ArrayList<>();
+			children.add(result);
+			children.add(leaf);
+			result = new JoinOperators(children, combine(conditions.get(i)));
+		}
+		if(enumerator!=null) {
+			for(int i=0;i<joins.size();i++)
+				enumerator.addCondition(joins.get(i), used.get(i));
+			if(rest.size()==0)
+				enumerator.setOrder(getOrder(plain));
+			result = enumerator.enumerate();
+		}
+		if(rest.size()!=0)
+			result = new SelectOperators(result, combine(rest));
+		return result;
+	}
+	
+	/**
+	 * This method is used to find the column the query is ordered by when
+	 * the sorting could be saved by the joins: it is the only column of
+	 * the order by in the ascending order, and there is no group by or
+	 * having between the joins and the order by.
+	 * @param plain the object we use to extract valuable information out.
+	 * @return the name of the column, null if there is none.
+	 */
+	private static String getOrder(PlainSelect plain) {
+		List<Expression> list = plain.getOrderByElements();
+		if(plain.getGroupByElements().size()!=0
+				||plain.getHavingExpression()!=null)
+			return null;
+		if(list==null||list.size()!=1||!(list.get(0) instanceof ColumnNode)
+				||plain.isDescList()[0]!=1)
+			return null;
+		return ((ColumnNode)list.get(0)).getWholeColumnName();
+	}
+	
+	/**
+	 * This method is used to split the where expression into the conjuncts.
+	 * The expression is simplified and turned into the CNF form, each child
+	 * of the root is simplified again to leave out the or operators with
+	 * a single child.
+	 * @param where the where expression, could be null.
+	 * @return the list of conjuncts.
+	 */
+	private static List<Expression> getConjuncts(Expression where) {
+		List<Expression> result = new ArrayList<>();
+		ExpressionSimplifier simplifier = new ExpressionSimplifier();
+		where = simplifier.simplify(where);
+		if(where==null) return result;
+		CNFConverter cnf = new CNFConverter();
+		cnf.convert(where);
+		Expression root = cnf.getRoot();
+		List<Expression> list = new ArrayList<>();
+		if(root instanceof MultiAndOperator)
+			list.addAll(((MultiAndOperator)root).getList());
+		else list.add(root);
+		for(Expression express : list) {
+			Expression conjunct = simplifier.simplify(express);
+			/* the conjunct that is always false is kept as it is. */
+			if(conjunct==null&&simplifier.isContradiction())
+				conjunct = express;
+			if(conjunct!=null) result.add(conjunct);
+		}
+		return result;
+	}
+	
+	/**
+	 * This method is used to put the conjuncts together.
+	 * @param list the list of conjuncts.
+	 * @return the conjunction, null if the list is empty.
+	 */
+	private static Expression combine(List<Expression> list) {
+		if(list.size()==0) return null;
+		if(list.size()==1) return list.get(0);
+		return new MultiAndOperator(list);
+	}
+	
 }
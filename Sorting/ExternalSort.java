@@ -1,9 +1,7 @@
 package Sorting;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -15,8 +13,9 @@ import Evaluator.Evaluator;
 import PhysicalOperators.Operator;
 import SQLExpression.Expression;
 import SmallSQLServer.Main;
+import Storage.PageCodec;
+import Storage.PageWriter;
 import Support.Mule;
-import TableElement.DataType;
 import TableElement.Tuple;
 
 /** 
@@ -30,12 +29,24 @@ public class ExternalSort {
 	private static final int NUM_OF_BUFFER = 10;
 	private static final int NUM_OF_BYTES = 16384;
 	private int file_index = 1;
+	private int ID; // the ID that is used to name the files.
 	private Map<String, Mule> schema;
 	private List<Expression> attributeslist;
 	private File result; // this will be used to store the result.
 	private Operator op;
 	private Tuple first; // this is used to store the previous tuple 
 	// that could not be stored in the buffer page.
+	private int[] widths;
+	// this array stores the number of bytes of each attribute, -1 means
+	// the attribute is a string, which has no fixed size.
+	private Tuple key1, key2;
+	// these tuples store the values of the sort attributes of the two
+	// tuples being compared, so the values are not built as objects.
+	private Evaluator[] evaluators;
+	// the evaluator of each sort attribute, bound to the schema once.
+	private boolean finished;
+	// this shows the operator has run out, it should not be asked again
+	// since some operators start over after they run out.
 	
 	/**
 	 * Constructor: this constructor is used to fetch all the tuples
@@ -53,8 +64,17 @@ public class ExternalSort {
 	 */
 	public ExternalSort(Operator op, List<Expression> attributeslist, int ID) {
 		this.op = op;
+		this.ID = ID;
 		schema = op.getSchema();
 		this.attributeslist = attributeslist;
+		key1 = new Tuple(attributeslist.size(), 0);
+		key2 = new Tuple(attributeslist.size(), 0);
+		evaluators = new Evaluator[attributeslist.size()];
+		for(int i=0;i<attributeslist.size();i++)
+			evaluators[i] = new Evaluator(attributeslist.get(i), schema);
+		widths = new int[schema.size()];
+		for(Mule mule : schema.values())
+			widths[mule.getIndex()] = mule.getDataType()==2 ? -1 : 8;
 		/* At first, we build the base of the sorting file. */
 		File file = null, previous = null;
 		while(true) {
@@ -93,6 +113,15 @@ public class ExternalSort {
 		return result;
 	}
 	
+	/**
+	 * This method is used to delete all the files written by the sort,
+	 * including the result file. The result could not be read after that.
+	 */
+	public void delete() {
+		for(int i=1;i<=file_index;i++)
+			new File(Main.getTemp() + "/" + ID + " " + i).delete();
+	}
+	
 	/**
 	 * This method is used to write the base of the file. Get all the tuples
 	 * available from the operator and store them in the file.
@@ -120,15 +149,13 @@ public class ExternalSort {
 		});
 		File file = new File(Main.getTemp() + "/" + ID + " " + file_index);
 		try{
-			FileOutputStream output = new FileOutputStream(file);
-			FileChannel fc = output.getChannel();
+			PageWriter output = new PageWriter(file, Main.isCompressed());
 			ByteBuffer buffer = null;
 			int start = 0;
 			while((buffer=writePage(list, start))!=null) {
 				start += buffer.getInt(0);
-				buffer.limit(buffer.capacity());
-				buffer.position(0);
-				fc.write(buffer);
+				output.writePage(buffer, 
+						PageCodec.getRuns(4, widths, buffer.getInt(0)));
 			}
 			output.close();
 		}catch (Exception e) {
@@ -153,7 +180,7 @@ public class ExternalSort {
 			list.add(tuple);
 			index += op.checkSize(tuple);
 		}
-		while((tuple=op.getNextTuple())!=null) {
+		while(!finished&&(tuple=op.getNextTuple())!=null) {
 			index += op.checkSize(tuple);
 			if(index > NUM_OF_BYTES)
 				return tuple;
@@ -161,6 +188,7 @@ public class ExternalSort {
 		}
 		/* when we meet this code, that means there are no tuples left
 		 * in the operator, so we simply return null. */ 
+		finished = true;
 		return null;
 	}
 	
@@ -178,19 +206,16 @@ public class ExternalSort {
 	 */
 	int comparison(Tuple t1, Tuple t2) {
 		for(int i=0;i<attributeslist.size();i++) {
-			Expression exp = attributeslist.get(i);
-			Evaluator eva1 = new Evaluator(t1, exp, schema);
-			DataType data1 = eva1.getData();
-			Evaluator eva2 = new Evaluator(t2, exp, schema);
-			DataType data2 = eva2.getData();
-			if(data1.compare(data2)!=0)
-				return data1.compare(data2);
+			evaluators[i].writeData(t1, key1, i);
+			evaluators[i].writeData(t2, key2, i);
+			int result = key1.compare(i, key2, i);
+			if(result!=0)
+				return result;
 		}
 		for(int i=0;i<t1.datasize();i++){
-			DataType data1 = t1.getData(i);
-			DataType data2 = t2.getData(i);
-			if(data1.compare(data2)!=0)
-				return data1.compare(data2);
+			int result = t1.compare(i, t2, i);
+			if(result!=0)
+				return result;
 		}
 		return 0;
 	}
@@ -264,13 +289,12 @@ public class ExternalSort {
 						   TempOperator[] temparray, int ID) {
 		File file = new File(Main.getTemp() + "/" + ID + " " + file_index);
 		try {
-			FileOutputStream out = new FileOutputStream(file);
-			FileChannel fc = out.getChannel();
-			while(!pq.isEmpty()) {
+			PageWriter out = new PageWriter(file, Main.isCompressed());
+			/* the last tuple may not fit in the page, it is kept in first. */
+			while(!pq.isEmpty()||first!=null) {
 				ByteBuffer buffer = writePage(pq, temparray);
-				buffer.limit(buffer.capacity());
-				buffer.position(0);
-				fc.write(buffer);
+				out.writePage(buffer, 
+						PageCodec.getRuns(4, widths, buffer.getInt(0)));
 			}
 			first = null;
 			out.close();
@@ -294,6 +318,7 @@ public class ExternalSort {
 			op.writeTuple(buffer, first, index);
 			index += op.checkSize(first);
 			times++;
+			first = null;
 		}
 		while(!pq.isEmpty()) {
 			HeapData mule = pq.poll();
@@ -1,15 +1,14 @@
 package Sorting;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.util.Map;
 
 import PhysicalOperators.Operator;
+import SmallSQLServer.Main;
+import Storage.PageReader;
 import Support.Mule;
-import TableElement.DataType;
+import TableElement.PageTuple;
 import TableElement.Tuple;
 
 /**
@@ -17,19 +16,21 @@ import TableElement.Tuple;
  * time, we do not have the header page. Also, we do not include
  * the tupleID and the valid byte to save the space. After all, this
  * operator is mainly used for sorting.
+ * The tuples handed out are backed by the page, so they could be written
+ * into the pages of the next run by a single copy of the bytes. The page
+ * is copied only when the reader fills the same buffer again.
  * @author messfish
  *
  */
 public class TempOperator extends Operator {
 
 	private Map<String, Mule> schema;
-	private FileInputStream in; // note for reading, we need to use this!
-	private FileChannel fc;
+	private PageReader reader; // this is used to read the pages.
 	private ByteBuffer buffer;
 	private int[] datatypearray;
+	private byte[] types; // this array stores the type of each data in the tuple.
+	private ByteBuffer page; // this is the current page kept by the operator.
 	private int tupleindex, limit, index;
-	private static final int NUM_OF_BYTES = 16384;
-	private File file;
 	
 	/**
 	 * Constructor: this constructor is mainly used for extracting pages
@@ -38,20 +39,21 @@ public class TempOperator extends Operator {
 	 * @param op the operator that will provide the schema.
 	 */
 	public TempOperator(File file, Map<String, Mule> schema) {
-		this.file = file;
 		this.schema = schema;
 		datatypearray = new int[schema.size()];
 		for(Map.Entry<String, Mule> entry : schema.entrySet()) {
 			Mule mule = entry.getValue();
 			datatypearray[mule.getIndex()] = mule.getDataType();
 		}
+		types = getTupleTypes(schema);
 		try {
-			in = new FileInputStream(file);
-			fc = in.getChannel();
-			buffer = readPage();
+			reader = PageReader.open(file, false, Main.isPrefetching());
+			buffer = reader.readPage();
 			tupleindex = 0;
-			if(buffer!=null)
-				limit = buffer.getInt(0);
+			if(buffer!=null) {
+				page = copyPage(reader, buffer);
+				limit = page.getInt(0);
+			}
 			index = 4;
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -66,56 +68,44 @@ public class TempOperator extends Operator {
 	@Override
 	public Tuple getNextTuple() {
 		if(tupleindex==limit) {
-			buffer = readPage();
+			buffer = reader.readPage();
 			if(buffer==null)
 				return null;
+			page = copyPage(reader, buffer);
 			tupleindex = 0;
-			limit = buffer.getInt(0);
+			limit = page.getInt(0);
 			index = 4;
 		}
 		/* since we do not need a tupleID, we set the second parameter 0. */
-		Tuple result = new Tuple(datatypearray.length, 0);
+		int[] offsets = new int[datatypearray.length];
+		PageTuple result = new PageTuple(types, 0, page, offsets, null);
+		int start = index;
 		for(int i=0;i<datatypearray.length;i++) {
-			DataType data = null;
-			if(datatypearray[i]==1) {
-				data = new DataType(buffer.getLong(index));
-				index += 8;
-			}else if(datatypearray[i]==2) {
-				int size = buffer.get(index);
-				index++;
-				StringBuilder sb = new StringBuilder();
-				for(int j=0;j<size;j++) {
-					char c = (char)buffer.get(index);
-					sb.append(c);
-					index++;
-				}
-				data = new DataType(sb.toString());
-			}else {
-				data = new DataType(buffer.getDouble(index));
-				index += 8;
-			}
-			result.setData(i, data);
+			offsets[i] = index;
+			if(datatypearray[i]==2)
+				index += page.get(index) + 1;
+			else index += 8;
 		}
+		result.setRange(start, index - start);
 		tupleindex++;
 		return result;
 	}
 
 	/**
 	 * This method is used to reset the pointer back to the starting point.
+	 * Notice the file is not opened again, we only rewind the reader.
 	 */
 	@Override
 	public void reset() {
-		try {
-			in = new FileInputStream(file);
-			fc = in.getChannel();
-			buffer = readPage();
-			tupleindex = 0;
-			if(buffer!=null)
-				limit = buffer.getInt(0);
-			index = 4;
-		} catch (Exception e) {
-			e.printStackTrace();
+		reader.rewind();
+		buffer = reader.readPage();
+		tupleindex = 0;
+		limit = 0;
+		if(buffer!=null) {
+			page = copyPage(reader, buffer);
+			limit = page.getInt(0);
 		}
+		index = 4;
 	}
 
 	/**
@@ -141,31 +131,9 @@ public class TempOperator extends Operator {
 	 * This method is mainly used for closing the operator when we do 
 	 * not need to extract the tuple out anymore.
 	 */
+	@Override
 	public void close() {
-		try {
-			in.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-	}
-	
-	/**
-	 * This method is used for reading a page from the file and
-	 * store the content in the byte buffer. return null if we 
-	 * cannot find any.
-	 * @return the byte buffer that stores the content of the page.
-	 */
-	private ByteBuffer readPage() {
-		ByteBuffer buffer = ByteBuffer.allocate(NUM_OF_BYTES);
-		int length = 0;
-		try {
-			length = fc.read(buffer);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		if(length == -1)
-			return null;
-		return buffer;
+		reader.close();
 	}
 
 }
@@ -0,0 +1,310 @@
+package Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is the buffer pool shared by all the page readers. The pages
+ * are identified by the file, the page number and the page size, so both
+ * the 16KB table pages and the 4KB index pages could live in the same pool.
+ * A page is pinned when a reader gets it and unpinned when the reader moves
+ * on, only the unpinned pages could be evicted.
+ * For the eviction, I use the CLOCK-sweep method: every frame has a usage
+ * count which is increased by every hit and decreased by the clock hand,
+ * the frame whose usage count reaches zero will be evicted. Notice a newly
+ * loaded page starts with a usage count of zero, so a page that is touched
+ * only once by a large sequential scan will be the first to go, and the pages
+ * that are read again and again will stay in the pool. This keeps a single
+ * large scan from flushing the whole pool.
+ * Also notice the buffer of an evicted frame is never reused, so a reader
+ * that still holds an old page will never see its content overwritten.
+ * @author messfish
+ *
+ */
+public class BufferPool {
+
+	private static final long DEFAULT_CAPACITY = 64L << 20;
+	// this is the default memory budget of the pool, which is 64MB.
+	private static final int MAX_USAGE = 5;
+	// this is the maximum usage count of a single frame.
+	private static BufferPool pool = new BufferPool(DEFAULT_CAPACITY);
+	// this is the pool shared by the whole server.
+	private long capacity; // the number of bytes the pool could use.
+	private long used; // the number of bytes used by the frames.
+	private Map<PageKey, Frame> table;
+	// this map uses the page as the key and the frame as the value.
+	private List<Frame> ring; // this list is the clock of the frames.
+	private int hand; // this is the index of the clock hand in the ring.
+	private long hits, misses, evictions;
+	// these are the counters used for sizing the pool.
+
+	/**
+	 * This class is the key of a single page in the pool.
+	 * @author messfish
+	 *
+	 */
+	private static class PageKey {
+		private String file;
+		private long pageno;
+		private int pagesize;
+		private PageKey(String file, long pageno, int pagesize) {
+			this.file = file;
+			this.pageno = pageno;
+			this.pagesize = pagesize;
+		}
+		@Override
+		public boolean equals(Object object) {
+			if(!(object instanceof PageKey)) return false;
+			PageKey that = (PageKey)object;
+			return pageno==that.pageno && pagesize==that.pagesize
+					&& file.equals(that.file);
+		}
+		@Override
+		public int hashCode() {
+			return (file.hashCode() * 31 + (int)(pageno ^ (pageno >>> 32)))
+					* 31 + pagesize;
+		}
+	}
+
+	/**
+	 * This class stores a single page in the pool with its pin count
+	 * and the usage count used by the clock.
+	 * @author messfish
+	 *
+	 */
+	private static class Frame {
+		private PageKey key;
+		private ByteBuffer buffer;
+		private int pincount;
+		private int usage;
+		private Frame(PageKey key, ByteBuffer buffer) {
+			this.key = key;
+			this.buffer = buffer;
+		}
+	}
+
+	/**
+	 * Constructor: this constructor is used to build a pool with the
+	 * given memory budget.
+	 * @param capacity the number of bytes the pool could use.
+	 */
+	public BufferPool(long capacity) {
+		this.capacity = capacity;
+		table = new HashMap<>();
+		ring = new ArrayList<>();
+	}
+
+	/**
+	 * This is the getter method of the pool shared by the server.
+	 * @return the shared buffer pool.
+	 */
+	public static BufferPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * This method is used to get the page from the pool and pin it. If
+	 * the page is not in the pool, read it from the file channel. Notice
+	 * when all the frames are pinned and there is no room for the page,
+	 * the page will be handed out without being stored in the pool.
+	 * @param file the key of the file, normally the absolute path.
+	 * @param pageno the number of the page in the file.
+	 * @param pagesize the number of bytes in a single page.
+	 * @param fc the file channel used for reading the page.
+	 * @return a read only view of the page, null if the page is out of
+	 * the range of the file.
+	 */
+	public synchronized ByteBuffer pin(String file, long pageno,
+			int pagesize, FileChannel fc) {
+		PageKey key = new PageKey(file, pageno, pagesize);
+		Frame frame = table.get(key);
+		if(frame != null) {
+			hits++;
+			frame.pincount++;
+			if(frame.usage < MAX_USAGE)
+				frame.usage++;
+			return frame.buffer.asReadOnlyBuffer();
+		}
+		ByteBuffer buffer = load(pageno, pagesize, fc);
+		if(buffer == null) return null;
+		misses++;
+		if(!makeRoom(pagesize))
+			return buffer.asReadOnlyBuffer();
+		frame = new Frame(key, buffer);
+		frame.pincount = 1;
+		table.put(key, frame);
+		ring.add(frame);
+		used += pagesize;
+		return buffer.asReadOnlyBuffer();
+	}
+
+	/**
+	 * This method is used to unpin the page so it could be evicted.
+	 * @param file the key of the file, normally the absolute path.
+	 * @param pageno the number of the page in the file.
+	 * @param pagesize the number of bytes in a single page.
+	 */
+	public synchronized void unpin(String file, long pageno, int pagesize) {
+		Frame frame = table.get(new PageKey(file, pageno, pagesize));
+		if(frame != null && frame.pincount > 0)
+			frame.pincount--;
+	}
+
+	/**
+	 * This method is used to drop all the pages of the file from the
+	 * pool. It must be called whenever the file is written again.
+	 * @param file the file whose pages will be dropped.
+	 */
+	public synchronized void invalidate(File file) {
+		String path = file.getAbsolutePath();
+		for(int i=ring.size()-1;i>=0;i--) {
+			Frame frame = ring.get(i);
+			if(frame.key.file.equals(path))
+				remove(i);
+		}
+	}
+
+	/**
+	 * This method is used to change the memory budget of the pool. The
+	 * unpinned pages will be evicted until the pool fits the new budget.
+	 * @param capacity the number of bytes the pool could use.
+	 */
+	public synchronized void setCapacity(long capacity) {
+		this.capacity = capacity;
+		makeRoom(0);
+	}
+
+	/**
+	 * This is the getter method of the memory budget.
+	 * @return the number of bytes the pool could use.
+	 */
+	public synchronized long getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * This is the getter method of the memory used by the pages.
+	 * @return the number of bytes used by the pages in the pool.
+	 */
+	public synchronized long getUsed() {
+		return used;
+	}
+
+	/**
+	 * This is the getter method of the number of hits.
+	 * @return the number of pages found in the pool.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * This is the getter method of the number of misses.
+	 * @return the number of pages read from the disk.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * This is the getter method of the number of evictions.
+	 * @return the number of pages evicted from the pool.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * This method is used to set all the counters back to zero.
+	 */
+	public synchronized void resetCounters() {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+
+	/**
+	 * This method is used to describe the counters of the pool in a
+	 * single line, it is mainly used for sizing the pool.
+	 * @return the string shows the counters of the pool.
+	 */
+	public synchronized String getStatistics() {
+		return "Buffer pool: " + hits + " hits, " + misses + " misses, "
+				+ evictions + " evictions, " + (used >> 10) + " KB used of "
+				+ (capacity >> 10) + " KB.";
+	}
+
+	/**
+	 * This method is used to read a single page from the file channel.
+	 * @param pageno the number of the page in the file.
+	 * @param pagesize the number of bytes in a single page.
+	 * @param fc the file channel used for reading.
+	 * @return the byte buffer that stores the page, null if the page is
+	 * out of the range of the file.
+	 */
+	private ByteBuffer load(long pageno, int pagesize, FileChannel fc) {
+		long offset = pageno * pagesize;
+		ByteBuffer buffer = ByteBuffer.allocate(pagesize);
+		try {
+			if(offset >= fc.size()) return null;
+			int length = 0;
+			while(buffer.hasRemaining()&&
+					(length=fc.read(buffer, offset + buffer.position()))!=-1);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+		return buffer;
+	}
+
+	/**
+	 * This method moves the clock hand to evict the frames until there
+	 * is enough room for the new page. The frame that is pinned will be
+	 * skipped, the frame that has a positive usage count will have its
+	 * usage count decreased.
+	 * @param size the number of bytes needed for the new page.
+	 * @return true if there is enough room for the new page.
+	 */
+	private boolean makeRoom(long size) {
+		int scanned = 0, limit = ring.size() * (MAX_USAGE + 1);
+		while(used + size > capacity) {
+			/* this indicates all the frames are pinned. */
+			if(ring.isEmpty() || scanned > limit)
+				return false;
+			if(hand >= ring.size()) hand = 0;
+			Frame frame = ring.get(hand);
+			if(frame.pincount == 0) {
+				if(frame.usage == 0) {
+					remove(hand);
+					evictions++;
+					continue;
+				}
+				frame.usage--;
+			}
+			hand++;
+			scanned++;
+		}
+		return true;
+	}
+
+	/**
+	 * This method removes the frame at the given index of the ring. The
+	 * last frame will be moved to the empty slot.
+	 * @param index the index of the frame in the ring.
+	 */
+	private void remove(int index) {
+		Frame frame = ring.get(index);
+		Frame last = ring.remove(ring.size() - 1);
+		if(index < ring.size())
+			ring.set(index, last);
+		table.remove(frame.key);
+		used -= frame.key.pagesize;
+	}
+
+}
@@ -0,0 +1,110 @@
+package Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class is the plain page reader: every page is fetched through
+ * the shared buffer pool, so the pages that have been read by other
+ * operators will not be read from the disk again. The page handed out
+ * stays pinned until the next page is read or the reader is closed.
+ * @author messfish
+ *
+ */
+public class ChannelPageReader extends PageReader {
+
+	private RandomAccessFile input;
+	private FileChannel fc;
+	private String filekey; // this is the key of the file in the pool.
+	private long pageno; // this is the page number of the next page.
+	private boolean pinned;
+	// this flag shows whether the previous page is still pinned.
+
+	/**
+	 * Constructor: this constructor opens the file and keeps the file
+	 * channel open until the reader is closed.
+	 * @param file the file that will be read.
+	 * @param pagesize the number of bytes in a single page.
+	 */
+	public ChannelPageReader(File file, int pagesize) {
+		super(file, pagesize);
+		filekey = file.getAbsolutePath();
+		try {
+			input = new RandomAccessFile(file, "r");
+			fc = input.getChannel();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * This method unpins the previous page and gets the next page from
+	 * the buffer pool.
+	 * @return the byte buffer, null means nothing left to read.
+	 */
+	@Override
+	public ByteBuffer readPage() {
+		release();
+		ByteBuffer buffer = BufferPool.getPool().pin(filekey, pageno, pagesize, fc);
+		if(buffer==null) return null;
+		pinned = true;
+		pageno++;
+		return buffer;
+	}
+
+	/**
+	 * This method moves over the next page, notice the page will not
+	 * be fetched from the buffer pool.
+	 */
+	@Override
+	public void skipPage() {
+		release();
+		pageno++;
+	}
+
+	/**
+	 * This method moves the reader to the given page, no page in between
+	 * will be fetched.
+	 * @param pageno the order of the page in the file, starts from 0.
+	 */
+	@Override
+	public void seek(long pageno) {
+		release();
+		this.pageno = pageno;
+	}
+
+	/**
+	 * This method sets the reader back to the first page.
+	 */
+	@Override
+	public void rewind() {
+		release();
+		pageno = 0;
+	}
+
+	/**
+	 * This method is used to unpin the last page and close the file.
+	 */
+	@Override
+	public void close() {
+		release();
+		try {
+			input.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * This method is used to unpin the page that was handed out last time.
+	 */
+	private void release() {
+		if(pinned)
+			BufferPool.getPool().unpin(filekey, pageno - 1, pagesize);
+		pinned = false;
+	}
+
+}
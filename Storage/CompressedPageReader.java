@@ -0,0 +1,200 @@
+package Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class reads the pages of a compressed file. Since the frames of
+ * the compressed pages do not have the same size, the pages could not
+ * be fetched by the page number, so this reader does not go through the
+ * buffer pool, it reads the frames one by one and decodes them into a
+ * single page buffer. The page handed out stays valid until the next
+ * page is read. Skipping a page only reads the head of the frame.
+ * The offset of every frame reached is kept, so seeking a page that has
+ * been passed before jumps to its frame directly.
+ * @author messfish
+ *
+ */
+public class CompressedPageReader extends PageReader {
+
+	private RandomAccessFile input;
+	private FileChannel fc;
+	private long filesize; // this is the number of bytes in the file.
+	private long position; // the file offset of the next frame.
+	private PageCodec codec; // this is used to decode the frames.
+	private ByteBuffer head; // this buffer stores the head of a frame.
+	private ByteBuffer frame; // this buffer stores the bytes of a frame.
+	private ByteBuffer page; // this buffer stores the page decoded.
+	private List<Long> offsets;
+	// this list stores the file offset of every frame that has been reached.
+	private long pageno; // this is the page number of the next frame.
+
+	/**
+	 * Constructor: this constructor opens the file and moves over the
+	 * magic integer at the start of the file.
+	 * @param file the file that will be read.
+	 * @param pagesize the number of bytes in a single page.
+	 */
+	public CompressedPageReader(File file, int pagesize) {
+		super(file, pagesize);
+		codec = new PageCodec(pagesize);
+		head = ByteBuffer.allocate(PageCodec.HEADER_SIZE);
+		frame = ByteBuffer.allocate(pagesize);
+		page = ByteBuffer.allocate(pagesize);
+		position = 4;
+		offsets = new ArrayList<>();
+		try {
+			input = new RandomAccessFile(file, "r");
+			fc = input.getChannel();
+			filesize = fc.size();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * This method reads the next frame and decodes it into the page.
+	 * @return the byte buffer, null means nothing left to read.
+	 */
+	@Override
+	public ByteBuffer readPage() {
+		mark();
+		if(!readHead()) return null;
+		int type = head.get(0), length = head.getInt(1);
+		if(frame.capacity() < length)
+			frame = ByteBuffer.allocate(length);
+		frame.clear();
+		frame.limit(length);
+		try {
+			while(frame.hasRemaining()) {
+				int size = fc.read(frame, position + frame.position());
+				if(size < 0) return null;
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+		position += length;
+		pageno++;
+		codec.decode(type, frame.array(), length, page.array());
+		return page;
+	}
+
+	/**
+	 * This method moves over the next frame without reading the bytes
+	 * of the frame, only the head of the frame will be read.
+	 */
+	@Override
+	public void skipPage() {
+		mark();
+		if(readHead()) {
+			position += head.getInt(1);
+			pageno++;
+		}
+	}
+
+	/**
+	 * This method shows every frame is decoded into the same page buffer.
+	 * @return true since the buffer is reused.
+	 */
+	@Override
+	public boolean reusesBuffers() {
+		return true;
+	}
+
+	/**
+	 * This method moves the reader to the given page. When the frame has
+	 * not been reached yet, the frames after the last one known will be
+	 * skipped until the page is reached.
+	 * @param pageno the order of the page in the file, starts from 0.
+	 */
+	@Override
+	public void seek(long pageno) {
+		if(pageno < offsets.size()) {
+			position = offsets.get((int)pageno);
+			this.pageno = pageno;
+			return;
+		}
+		if(!offsets.isEmpty()) {
+			this.pageno = offsets.size() - 1;
+			position = offsets.get((int)this.pageno);
+		}else rewind();
+		while(this.pageno < pageno) {
+			long previous = this.pageno;
+			skipPage();
+			/* this means we reach the end of the file. */
+			if(this.pageno==previous) return;
+		}
+	}
+
+	/**
+	 * This method counts the frames by skipping over their heads, the
+	 * position of the reader is kept.
+	 * @return the number of pages in the file, the header page included.
+	 */
+	@Override
+	public long getPageCount() {
+		long previousposition = position, previouspage = pageno;
+		seek(Long.MAX_VALUE);
+		long result = pageno;
+		position = previousposition;
+		pageno = previouspage;
+		return result;
+	}
+
+	/**
+	 * This method sets the reader back to the first frame.
+	 */
+	@Override
+	public void rewind() {
+		position = 4;
+		pageno = 0;
+	}
+
+	/**
+	 * This method is used to close the file.
+	 */
+	@Override
+	public void close() {
+		try {
+			input.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * This method is used to keep the offset of the next frame when it
+	 * is reached for the first time.
+	 */
+	private void mark() {
+		if(pageno==offsets.size())
+			offsets.add(position);
+	}
+
+	/**
+	 * This method reads the head of the next frame and moves over it.
+	 * @return false if there are no frames left.
+	 */
+	private boolean readHead() {
+		if(position + PageCodec.HEADER_SIZE > filesize) return false;
+		head.clear();
+		try {
+			while(head.hasRemaining()) {
+				int size = fc.read(head, position + head.position());
+				if(size < 0) return false;
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+		position += PageCodec.HEADER_SIZE;
+		return true;
+	}
+
+}
@@ -0,0 +1,175 @@
+package Storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This class is the dictionary of a string attribute that is stored in
+ * the dictionary encoded form (type 6). The dictionary stores the distinct
+ * values of the attribute in the sorted order, and the tuples only store
+ * the order of the value in the dictionary, which is called the code.
+ * Since the values are sorted, comparing two codes is the same as comparing
+ * the two strings. The code is stored in 2 bytes when the dictionary has
+ * no more than 65536 values, or 4 bytes when it has more.
+ * The dictionaries of a file are stored in a side file next to the table
+ * file, which has the same name with ".dict" appended. The format of the
+ * side file is like this: an integer of the number of dictionaries, then
+ * for each dictionary, an integer of the number of values followed by the
+ * values in the sorted order. The dictionaries follow the order of the
+ * encoded attributes in the file.
+ * @author messfish
+ *
+ */
+public class Dictionary {
+
+	private static final String EXTENSION = ".dict";
+	// this is the extension of the side file.
+	private String[] values; // this array stores the sorted values.
+
+	/**
+	 * Constructor: this constructor builds the dictionary from the list
+	 * of distinct values.
+	 * @param distinct the collection of the distinct values.
+	 */
+	public Dictionary(Collection<String> distinct) {
+		values = distinct.toArray(new String[distinct.size()]);
+		Arrays.sort(values);
+	}
+
+	/**
+	 * This method is used to get the side file of the table file.
+	 * @param file the table file.
+	 * @return the side file that stores the dictionaries.
+	 */
+	public static File getFile(File file) {
+		return new File(file.getPath() + EXTENSION);
+	}
+
+	/**
+	 * This method is used to get the value of the code.
+	 * @param code the code of the value.
+	 * @return the value in the dictionary.
+	 */
+	public String getValue(int code) {
+		return values[code];
+	}
+
+	/**
+	 * This method is used to get the number of values in the dictionary.
+	 * @return the number of values.
+	 */
+	public int size() {
+		return values.length;
+	}
+
+	/**
+	 * This method is used to get the number of bytes of a single code.
+	 * @return 2 if the code fits in 2 bytes, 4 if not.
+	 */
+	public int getWidth() {
+		return values.length <= 65536 ? 2 : 4;
+	}
+
+	/**
+	 * This method is used to look up the code of the value. Notice the
+	 * constant in the where clause should be looked up once for each
+	 * dictionary when the expression is compiled, not for every tuple.
+	 * @param value the value that will be looked up.
+	 * @return the code of the value if it is in the dictionary. If not,
+	 * return (-(insertion point) - 1) like the binary search does.
+	 */
+	public int getCode(String value) {
+		return Arrays.binarySearch(values, value);
+	}
+
+	/**
+	 * This method is used to compare the value of the code with a string
+	 * without decoding the code.
+	 * @param code the code of the value in the dictionary.
+	 * @param value the string that will be compared.
+	 * @return a negative number, zero or a positive number if the value
+	 * of the code is smaller, equal or larger than the string.
+	 */
+	public int compare(int code, String value) {
+		return compare(code, getCode(value));
+	}
+
+	/**
+	 * This method is used to compare the value of the code with a string
+	 * that has been looked up in the same dictionary already.
+	 * @param code the code of the value in the dictionary.
+	 * @param point the result of the look up of the string.
+	 * @return a negative number, zero or a positive number if the value
+	 * of the code is smaller, equal or larger than the string.
+	 */
+	public static int compare(int code, int point) {
+		if(point >= 0) return Integer.compare(code, point);
+		/* the string is not in the dictionary, so the code could never
+		 * be equal to it. The codes before the insertion point are smaller. */
+		return code < -point - 1 ? -1 : 1;
+	}
+
+	/**
+	 * This method is used to write the dictionaries into the side file.
+	 * @param file the table file.
+	 * @param dictionaries the list of dictionaries of the encoded attributes.
+	 */
+	public static void write(File file, List<Dictionary> dictionaries) {
+		try {
+			DataOutputStream output = new DataOutputStream(new
+					BufferedOutputStream(new FileOutputStream(getFile(file))));
+			output.writeInt(dictionaries.size());
+			for(Dictionary dictionary : dictionaries) {
+				output.writeInt(dictionary.values.length);
+				for(String value : dictionary.values)
+					output.writeUTF(value);
+			}
+			output.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * This method is used to read the dictionaries of the table file.
+	 * The result is aligned with the list of types, which means the
+	 * dictionary of the attribute with type 6 will be at the same index
+	 * as the attribute, and the rest of the array will be null.
+	 * @param file the table file.
+	 * @param typelist the list of the types of the attributes in the file.
+	 * @return the array of dictionaries, null if there is no side file.
+	 */
+	public static Dictionary[] read(File file, List<Integer> typelist) {
+		File side = getFile(file);
+		if(!typelist.contains(6)||!side.exists()) return null;
+		Dictionary[] result = new Dictionary[typelist.size()];
+		try {
+			DataInputStream input = new DataInputStream(new
+					BufferedInputStream(new FileInputStream(side)));
+			int numofdictionaries = input.readInt(), point = 0;
+			for(int i=0;i<numofdictionaries;i++) {
+				String[] values = new String[input.readInt()];
+				for(int j=0;j<values.length;j++)
+					values[j] = input.readUTF();
+				while(typelist.get(point)!=6)
+					point++;
+				result[point++] = new Dictionary(Arrays.asList(values));
+			}
+			input.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+		return result;
+	}
+
+}
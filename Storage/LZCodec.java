@@ -0,0 +1,202 @@
+package Storage;
+
+/**
+ * This class is a small compressor of the LZ family, it is used to
+ * compress the pages before they are written into the disk. The output
+ * is a list of sequences, each sequence is like this: a token byte whose
+ * high 4 bits is the number of literals and the low 4 bits is the length
+ * of the match minus 4, the literals, 2 bytes of the distance of the match
+ * and then the rest of the match length. When any of the two numbers in
+ * the token reaches 15, the rest of the number follows as a list of bytes,
+ * and the list ends at the first byte that is not 255. The last sequence
+ * only has the literals, since a page is never larger than 64KB, the
+ * distance of the match always fits in 2 bytes.
+ * @author messfish
+ *
+ */
+public class LZCodec {
+
+	private static final int MIN_MATCH = 4;
+	// this is the minimum length of a match.
+	private static final int HASH_BITS = 12;
+	// this is the number of bits of the hash of 4 bytes.
+	private static final int MAX_DISTANCE = 65535;
+	// this is the maximum distance between the match and the source.
+
+	/**
+	 * This method is used to get the maximum number of bytes the data of
+	 * the length could be compressed into, which happens when there is no
+	 * match at all.
+	 * @param length the number of bytes of the data.
+	 * @return the maximum number of bytes after compression.
+	 */
+	public static int getMaxLength(int length) {
+		return length + length / 255 + 16;
+	}
+
+	/**
+	 * This method is used to compress the data.
+	 * @param source the array that stores the data.
+	 * @param length the number of bytes of the data.
+	 * @param target the array that stores the result, it should have
+	 * at least the maximum length of the data.
+	 * @param start the point in the target where the result begins.
+	 * @return the point in the target where the result ends.
+	 */
+	public static int compress(byte[] source, int length,
+			byte[] target, int start) {
+		int[] table = new int[1 << HASH_BITS];
+		int index = 0, anchor = 0, point = start;
+		while(index + MIN_MATCH <= length) {
+			int hash = hash(source, index);
+			int match = table[hash] - 1;
+			table[hash] = index + 1;
+			if(match < 0||index - match > MAX_DISTANCE||
+					!same(source, match, index)) {
+				index++;
+				continue;
+			}
+			int size = MIN_MATCH;
+			while(index + size < length&&
+					source[match + size]==source[index + size])
+				size++;
+			int token = point;
+			point = writeSequence(source, anchor, index - anchor,
+					target, point);
+			target[point++] = (byte)(index - match);
+			target[point++] = (byte)((index - match) >>> 8);
+			point = writeLength(target, token, point, size - MIN_MATCH);
+			/* put the positions inside the match into the table so
+			 * that the following data could find them. */
+			for(int i=index+1;i<index+size&&i+MIN_MATCH<=length;i+=2)
+				table[hash(source, i)] = i + 1;
+			index += size;
+			anchor = index;
+		}
+		return writeSequence(source, anchor, length - anchor, target, point);
+	}
+
+	/**
+	 * This method is used to decompress the data.
+	 * @param source the array that stores the compressed data.
+	 * @param start the point in the source where the data begins.
+	 * @param end the point in the source where the data ends.
+	 * @param target the array that stores the original data.
+	 * @return the number of bytes of the original data.
+	 */
+	public static int decompress(byte[] source, int start, int end,
+			byte[] target) {
+		int index = start, point = 0;
+		while(index < end) {
+			int token = source[index++] & 0xff;
+			int literals = token >>> 4;
+			if(literals==15) {
+				int next = 255;
+				while(next==255) {
+					next = source[index++] & 0xff;
+					literals += next;
+				}
+			}
+			System.arraycopy(source, index, target, point, literals);
+			index += literals;
+			point += literals;
+			/* the last sequence does not have the match. */
+			if(index >= end) break;
+			int distance = (source[index] & 0xff) |
+					((source[index + 1] & 0xff) << 8);
+			index += 2;
+			int size = token & 15;
+			if(size==15) {
+				int next = 255;
+				while(next==255) {
+					next = source[index++] & 0xff;
+					size += next;
+				}
+			}
+			size += MIN_MATCH;
+			int match = point - distance;
+			/* the match could overlap with the bytes that are being
+			 * written, so we need to copy it byte by byte. */
+			if(distance >= size)
+				System.arraycopy(target, match, target, point, size);
+			else for(int i=0;i<size;i++)
+				target[point + i] = target[match + i];
+			point += size;
+		}
+		return point;
+	}
+
+	/**
+	 * This method writes the token and the literals of a sequence. Notice
+	 * the low 4 bits of the token are filled by the match length later.
+	 * @param source the array that stores the data.
+	 * @param anchor the point of the first literal.
+	 * @param literals the number of literals.
+	 * @param target the array that stores the result.
+	 * @param point the current point in the target.
+	 * @return the point after the literals.
+	 */
+	private static int writeSequence(byte[] source, int anchor, int literals,
+			byte[] target, int point) {
+		target[point++] = (byte)(Math.min(literals, 15) << 4);
+		if(literals >= 15) {
+			int rest = literals - 15;
+			while(rest >= 255) {
+				target[point++] = (byte)255;
+				rest -= 255;
+			}
+			target[point++] = (byte)rest;
+		}
+		System.arraycopy(source, anchor, target, point, literals);
+		return point + literals;
+	}
+
+	/**
+	 * This method writes the match length into the token of the sequence
+	 * and the bytes followed by the distance when it is too long.
+	 * @param target the array that stores the result.
+	 * @param token the point of the token of the sequence.
+	 * @param point the current point in the target.
+	 * @param size the length of the match minus 4.
+	 * @return the point after the length.
+	 */
+	private static int writeLength(byte[] target, int token, int point,
+			int size) {
+		target[token] |= (byte)Math.min(size, 15);
+		if(size >= 15) {
+			int rest = size - 15;
+			while(rest >= 255) {
+				target[point++] = (byte)255;
+				rest -= 255;
+			}
+			target[point++] = (byte)rest;
+		}
+		return point;
+	}
+
+	/**
+	 * This method is used to get the hash of the 4 bytes at the point.
+	 * @param source the array that stores the data.
+	 * @param index the point of the first byte.
+	 * @return the hash value.
+	 */
+	private static int hash(byte[] source, int index) {
+		int value = (source[index] & 0xff) | ((source[index + 1] & 0xff) << 8)
+				| ((source[index + 2] & 0xff) << 16) | (source[index + 3] << 24);
+		return (value * -1640531535) >>> (32 - HASH_BITS);
+	}
+
+	/**
+	 * This method checks whether the 4 bytes at the two points are equal.
+	 * @param source the array that stores the data.
+	 * @param match the point of the possible match.
+	 * @param index the current point.
+	 * @return true if the 4 bytes are the same.
+	 */
+	private static boolean same(byte[] source, int match, int index) {
+		return source[match]==source[index]&&source[match + 1]==source[index + 1]
+			&&source[match + 2]==source[index + 2]
+			&&source[match + 3]==source[index + 3];
+	}
+
+}
@@ -0,0 +1,126 @@
+package Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class reads the pages by mapping the file into the memory. Since
+ * a single mapped region could not be larger than 2GB, the file will be
+ * mapped window by window, each window contains a whole number of pages
+ * so that a page will never be split by two windows. The page handed out
+ * is a slice of the window, so there is no copy and no allocation of the
+ * page content at all.
+ * @author messfish
+ *
+ */
+public class MappedPageReader extends PageReader {
+
+	private static final long WINDOW_SIZE = 1L << 30;
+	// this is the number of bytes in a single mapped window, it is 1GB
+	// and it should always be a multiple of the page size.
+	private RandomAccessFile input;
+	private FileChannel fc;
+	private long filesize; // this is the number of bytes in the file.
+	private MappedByteBuffer window; // this is the current mapped window.
+	private long windowstart; // the file offset of the current window.
+	private long position; // the file offset of the next page.
+
+	/**
+	 * Constructor: this constructor opens the file and maps the first
+	 * window of the file into the memory.
+	 * @param file the file that will be read.
+	 * @param pagesize the number of bytes in a single page.
+	 */
+	public MappedPageReader(File file, int pagesize) {
+		super(file, pagesize);
+		try {
+			input = new RandomAccessFile(file, "r");
+			fc = input.getChannel();
+			filesize = fc.size();
+			windowstart = -1;
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * This method returns the next page as a slice of the mapped window.
+	 * When the page is out of the current window, map the next window.
+	 * Notice the last page of the file may be shorter than a whole page,
+	 * in that case, we copy it into a heap buffer of the full size.
+	 * @return the byte buffer, null means nothing left to read.
+	 */
+	@Override
+	public ByteBuffer readPage() {
+		if(position>=filesize) return null;
+		long start = position - position % WINDOW_SIZE;
+		if(start!=windowstart) {
+			try {
+				long size = Math.min(WINDOW_SIZE, filesize - start);
+				window = fc.map(FileChannel.MapMode.READ_ONLY, start, size);
+				windowstart = start;
+			} catch (IOException e) {
+				e.printStackTrace();
+				return null;
+			}
+		}
+		int offset = (int)(position - windowstart);
+		int length = (int)Math.min(pagesize, filesize - position);
+		position += pagesize;
+		ByteBuffer slice = window.duplicate();
+		slice.position(offset);
+		slice.limit(offset + length);
+		slice = slice.slice();
+		if(length==pagesize) return slice;
+		ByteBuffer buffer = ByteBuffer.allocate(pagesize);
+		buffer.put(slice);
+		return buffer;
+	}
+
+	/**
+	 * This method moves over the next page without touching the window.
+	 */
+	@Override
+	public void skipPage() {
+		position += pagesize;
+	}
+
+	/**
+	 * This method moves the reader to the given page, the window will
+	 * be mapped again only when the page is outside of it.
+	 * @param pageno the order of the page in the file, starts from 0.
+	 */
+	@Override
+	public void seek(long pageno) {
+		position = pageno * pagesize;
+	}
+
+	/**
+	 * This method moves the reader back to the first page. The window
+	 * that has been mapped is kept so the first pages are not mapped again.
+	 */
+	@Override
+	public void rewind() {
+		position = 0;
+	}
+
+	/**
+	 * This method is used to close the file. Notice the mapped window
+	 * will be released by the garbage collector.
+	 */
+	@Override
+	public void close() {
+		window = null;
+		windowstart = -1;
+		try {
+			input.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+}
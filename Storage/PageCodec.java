@@ -0,0 +1,399 @@
+package Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * This class is used to compress and decompress the pages. A compressed
+ * file starts with a magic integer whose highest bit is set, which could
+ * never be the start of a plain file, since a plain file starts with
+ * the number of tables or the number of tuples in the first page. After
+ * that, every page is stored as a frame: a byte of the codec, an integer
+ * of the number of bytes stored, and then the bytes themselves.
+ * There are three codecs: the raw codec stores the page as it is, the
+ * LZ codec stores the page compressed by the LZ codec, and the delta
+ * codec stores the runs of 8-byte values (the long and double attributes)
+ * in the frame of reference form before the LZ codec is applied. For the
+ * delta codec, every run is stored like this: the offset, the number of
+ * values and the distance between two values, the first value, the
+ * minimum difference between two values next to each other, the number
+ * of bits of each difference and then the differences minus the minimum
+ * difference packed in those bits. The page is followed with the places
+ * of the runs filled with zeros, which costs almost nothing after the LZ.
+ * Notice the codec is chosen page by page, when the compressed page is
+ * not smaller than the page itself, the page will be stored raw.
+ * @author messfish
+ *
+ */
+public class PageCodec {
+
+	public static final int MAGIC = 0xC0DEC0DE;
+	// this is the integer at the start of every compressed file.
+	public static final int RAW = 0; // this is the codec of the raw page.
+	public static final int LZ = 1; // this is the codec of the LZ page.
+	public static final int DELTA = 2;
+	// this is the codec of the page with the runs of 8-byte values.
+	public static final int HEADER_SIZE = 5;
+	// this is the number of bytes of the head of each frame.
+	private int pagesize; // this is the number of bytes in a page.
+	private byte[] frame; // this array stores the frame encoded.
+	private byte[] transformed; // this array stores the page with the runs.
+
+	/**
+	 * Constructor: this constructor is used to build the codec for the
+	 * pages with the size. The arrays are reused between the pages.
+	 * @param pagesize the number of bytes in a single page.
+	 */
+	public PageCodec(int pagesize) {
+		this.pagesize = pagesize;
+		frame = new byte[HEADER_SIZE + LZCodec.getMaxLength(2 * pagesize)];
+		transformed = new byte[2 * pagesize];
+	}
+
+	/**
+	 * This method checks whether the file is a compressed file by looking
+	 * at the first integer of the file.
+	 * @param file the file that will be checked.
+	 * @return true if the file starts with the magic integer.
+	 */
+	public static boolean isCompressed(File file) {
+		if(file.length() < 4) return false;
+		try {
+			RandomAccessFile input = new RandomAccessFile(file, "r");
+			int first = input.readInt();
+			input.close();
+			return first==MAGIC;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * This method is used to build the runs of the 8-byte values for the
+	 * page that stores the tuples of a fixed size one after another. The
+	 * fields with 8 bytes are considered as the long and double values.
+	 * @param start the point of the first tuple in the page.
+	 * @param widths the number of bytes of each field of the tuple, a
+	 * negative number means the field has no fixed size.
+	 * @param count the number of tuples in the page.
+	 * @return the array of the runs, three integers for each run: the
+	 * offset, the number of values and the distance between two values.
+	 * null means the tuple has no fixed size.
+	 */
+	public static int[] getRuns(int start, int[] widths, int count) {
+		int size = 0, numofruns = 0;
+		for(int width : widths) {
+			if(width < 0) return null;
+			size += width;
+			if(width==8) numofruns++;
+		}
+		int[] result = new int[3 * numofruns];
+		int offset = start, point = 0;
+		for(int width : widths) {
+			if(width==8) {
+				result[point++] = offset;
+				result[point++] = count;
+				result[point++] = size;
+			}
+			offset += width;
+		}
+		return result;
+	}
+
+	/**
+	 * This method is used to encode the page into a frame. When there
+	 * are runs of 8-byte values, the delta codec will be used, otherwise
+	 * the LZ codec will be used. Notice the buffer returned will be
+	 * reused for the next page.
+	 * @param buffer the byte buffer that stores the page.
+	 * @param runs the array of runs, null means there are no runs.
+	 * @return the byte buffer that stores the frame.
+	 */
+	public ByteBuffer encode(ByteBuffer buffer, int[] runs) {
+		byte[] page = buffer.array();
+		int codec = LZ, end = 0;
+		if(runs!=null&&runs.length > 0) {
+			codec = DELTA;
+			int length = transform(buffer, runs);
+			if(frame.length < HEADER_SIZE + 4 + LZCodec.getMaxLength(length))
+				frame = new byte[HEADER_SIZE + 4 + LZCodec.getMaxLength(length)];
+			end = LZCodec.compress(transformed, length, frame, HEADER_SIZE + 4);
+			putInt(frame, HEADER_SIZE, length);
+		}else end = LZCodec.compress(page, pagesize, frame, HEADER_SIZE);
+		/* the page could not be compressed, store it as it is. */
+		if(end - HEADER_SIZE >= pagesize) {
+			codec = RAW;
+			System.arraycopy(page, 0, frame, HEADER_SIZE, pagesize);
+			end = HEADER_SIZE + pagesize;
+		}
+		frame[0] = (byte)codec;
+		putInt(frame, 1, end - HEADER_SIZE);
+		return ByteBuffer.wrap(frame, 0, end);
+	}
+
+	/**
+	 * This method is used to decode the frame into the page.
+	 * @param codec the codec of the frame.
+	 * @param source the array that stores the bytes of the frame without
+	 * the head of the frame.
+	 * @param length the number of bytes of the frame without the head.
+	 * @param page the array that stores the page decoded.
+	 */
+	public void decode(int codec, byte[] source, int length, byte[] page) {
+		if(codec==RAW)
+			System.arraycopy(source, 0, page, 0, pagesize);
+		else if(codec==LZ)
+			LZCodec.decompress(source, 0, length, page);
+		else {
+			int size = getInt(source, 0);
+			if(transformed.length < size)
+				transformed = new byte[size];
+			LZCodec.decompress(source, 4, length, transformed);
+			restore(page);
+		}
+	}
+
+	/**
+	 * This method is used to store the runs in the frame of reference
+	 * form, followed by the page with the runs filled with zeros.
+	 * @param buffer the byte buffer that stores the page.
+	 * @param runs the array of the runs.
+	 * @return the number of bytes of the transformed page.
+	 */
+	private int transform(ByteBuffer buffer, int[] runs) {
+		int numofruns = runs.length / 3, size = 4 + pagesize;
+		int[] widths = new int[numofruns];
+		long[] minimums = new long[numofruns];
+		/* the first round finds the minimum and the width of each run. */
+		for(int i=0;i<numofruns;i++) {
+			int offset = runs[3 * i], count = runs[3 * i + 1];
+			int stride = runs[3 * i + 2];
+			long minimum = Long.MAX_VALUE, maximum = 0;
+			for(int j=1;j<count;j++)
+				minimum = Math.min(minimum, buffer.getLong(offset + j * stride)
+						- buffer.getLong(offset + (j - 1) * stride));
+			/* notice the difference minus the minimum could be larger
+			 * than the largest long, so it is compared as unsigned. */
+			for(int j=1;j<count;j++) {
+				long difference = buffer.getLong(offset + j * stride)
+						- buffer.getLong(offset + (j - 1) * stride) - minimum;
+				if(Long.compareUnsigned(difference, maximum) > 0)
+					maximum = difference;
+			}
+			minimums[i] = minimum;
+			widths[i] = 64 - Long.numberOfLeadingZeros(maximum);
+			size += 29 + (int)(((long)Math.max(count - 1, 0) * widths[i] + 7) / 8);
+		}
+		if(transformed.length < size)
+			transformed = new byte[size];
+		putInt(transformed, 0, numofruns);
+		BitWriter writer = new BitWriter(transformed, 4);
+		for(int i=0;i<numofruns;i++) {
+			int offset = runs[3 * i], count = runs[3 * i + 1];
+			int stride = runs[3 * i + 2];
+			writer.align();
+			writer.write(offset, 32);
+			writer.write(count, 32);
+			writer.write(stride, 32);
+			writer.write(count==0 ? 0 : buffer.getLong(offset), 64);
+			writer.write(minimums[i], 64);
+			writer.write(widths[i], 8);
+			for(int j=1;j<count;j++)
+				writer.write(buffer.getLong(offset + j * stride) - buffer.getLong(
+						offset + (j - 1) * stride) - minimums[i], widths[i]);
+		}
+		int point = writer.align();
+		System.arraycopy(buffer.array(), 0, transformed, point, pagesize);
+		for(int i=0;i<numofruns;i++) {
+			int offset = runs[3 * i], count = runs[3 * i + 1];
+			int stride = runs[3 * i + 2];
+			for(int j=0;j<count;j++)
+				for(int k=0;k<8;k++)
+					transformed[point + offset + j * stride + k] = 0;
+		}
+		return point + pagesize;
+	}
+
+	/**
+	 * This method is used to restore the page from the transformed page.
+	 * @param page the array that stores the page restored.
+	 */
+	private void restore(byte[] page) {
+		int numofruns = getInt(transformed, 0);
+		BitReader reader = new BitReader(transformed, 4);
+		/* the page comes after all the runs, so we need to find it first. */
+		int[] runs = new int[3 * numofruns], widths = new int[numofruns];
+		int[] points = new int[numofruns];
+		long[] firsts = new long[numofruns], minimums = new long[numofruns];
+		for(int i=0;i<numofruns;i++) {
+			reader.align();
+			runs[3 * i] = (int)reader.read(32);
+			runs[3 * i + 1] = (int)reader.read(32);
+			runs[3 * i + 2] = (int)reader.read(32);
+			firsts[i] = reader.read(64);
+			minimums[i] = reader.read(64);
+			widths[i] = (int)reader.read(8);
+			points[i] = reader.align();
+			reader.skip((long)Math.max(runs[3 * i + 1] - 1, 0) * widths[i]);
+		}
+		int start = reader.align();
+		System.arraycopy(transformed, start, page, 0, pagesize);
+		ByteBuffer buffer = ByteBuffer.wrap(page);
+		for(int i=0;i<numofruns;i++) {
+			int offset = runs[3 * i], count = runs[3 * i + 1];
+			int stride = runs[3 * i + 2];
+			if(count==0) continue;
+			reader = new BitReader(transformed, points[i]);
+			long value = firsts[i];
+			buffer.putLong(offset, value);
+			for(int j=1;j<count;j++) {
+				value += reader.read(widths[i]) + minimums[i];
+				buffer.putLong(offset + j * stride, value);
+			}
+		}
+	}
+
+	/**
+	 * This method writes an integer into the array in the big endian form.
+	 * @param array the array that will be written.
+	 * @param index the point of the integer.
+	 * @param value the integer.
+	 */
+	private static void putInt(byte[] array, int index, int value) {
+		array[index] = (byte)(value >>> 24);
+		array[index + 1] = (byte)(value >>> 16);
+		array[index + 2] = (byte)(value >>> 8);
+		array[index + 3] = (byte)value;
+	}
+
+	/**
+	 * This method reads an integer from the array in the big endian form.
+	 * @param array the array that will be read.
+	 * @param index the point of the integer.
+	 * @return the integer.
+	 */
+	static int getInt(byte[] array, int index) {
+		return ((array[index] & 0xff) << 24) | ((array[index + 1] & 0xff) << 16)
+				| ((array[index + 2] & 0xff) << 8) | (array[index + 3] & 0xff);
+	}
+
+	/**
+	 * This class writes the numbers into an array bit by bit, the higher
+	 * bits come first.
+	 */
+	private static class BitWriter {
+
+		private byte[] array; // this is the array that will be written.
+		private int point; // this is the point of the next byte.
+		private long bits; // this stores the bits not written yet.
+		private int numofbits; // this is the number of bits not written.
+
+		/**
+		 * Constructor: this constructor starts writing at the point.
+		 * @param array the array that will be written.
+		 * @param point the point of the first byte.
+		 */
+		BitWriter(byte[] array, int point) {
+			this.array = array;
+			this.point = point;
+		}
+
+		/**
+		 * This method writes the lowest bits of the value.
+		 * @param value the value that will be written.
+		 * @param width the number of bits, no more than 64.
+		 */
+		void write(long value, int width) {
+			if(width > 32) {
+				write(value >>> 32, width - 32);
+				write(value, 32);
+				return;
+			}
+			if(width==0) return;
+			bits = (bits << width) | (value & (-1L >>> (64 - width)));
+			numofbits += width;
+			while(numofbits >= 8) {
+				array[point++] = (byte)(bits >>> (numofbits - 8));
+				numofbits -= 8;
+			}
+		}
+
+		/**
+		 * This method fills the last byte with zeros.
+		 * @return the point of the next byte.
+		 */
+		int align() {
+			if(numofbits > 0)
+				write(0, 8 - numofbits);
+			return point;
+		}
+
+	}
+
+	/**
+	 * This class reads the numbers written by the bit writer.
+	 */
+	private static class BitReader {
+
+		private byte[] array; // this is the array that will be read.
+		private int point; // this is the point of the next byte.
+		private long bits; // this stores the bits not read yet.
+		private int numofbits; // this is the number of bits not read.
+
+		/**
+		 * Constructor: this constructor starts reading at the point.
+		 * @param array the array that will be read.
+		 * @param point the point of the first byte.
+		 */
+		BitReader(byte[] array, int point) {
+			this.array = array;
+			this.point = point;
+		}
+
+		/**
+		 * This method reads a number of the width.
+		 * @param width the number of bits, no more than 64.
+		 * @return the number read.
+		 */
+		long read(int width) {
+			if(width > 32)
+				return (read(width - 32) << 32) | read(32);
+			if(width==0) return 0;
+			while(numofbits < width) {
+				bits = (bits << 8) | (array[point++] & 0xff);
+				numofbits += 8;
+			}
+			numofbits -= width;
+			return (bits >>> numofbits) & (-1L >>> (64 - width));
+		}
+
+		/**
+		 * This method moves over the bits without reading them.
+		 * @param length the number of bits.
+		 */
+		void skip(long length) {
+			if(length <= numofbits) {
+				numofbits -= length;
+				return;
+			}
+			length -= numofbits;
+			numofbits = 0;
+			point += (int)(length / 8);
+			read((int)(length % 8));
+		}
+
+		/**
+		 * This method drops the rest of the bits in the current byte.
+		 * @return the point of the next byte.
+		 */
+		int align() {
+			numofbits = 0;
+			return point;
+		}
+
+	}
+
+}
@@ -0,0 +1,151 @@
+package Storage;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * This class is the top level of the page readers. A page reader hands
+ * out the pages of a binary file one by one from the start to the end,
+ * and every operator that reads pages (the scan operator, the temp
+ * operator) should use it instead of reading the file channel by itself.
+ * Notice the buffer returned by the reader should only be read by using
+ * the absolute get methods, since the position of the buffer is not
+ * guaranteed to be zero.
+ * @author messfish
+ *
+ */
+public abstract class PageReader {
+
+	protected static final int NUM_OF_BYTES = 16384;
+	// this is the number of bytes in a single page.
+	protected File file; // this is the file that will be read.
+	protected int pagesize; // this is the size of a single page.
+
+	/**
+	 * Constructor: this constructor is used to store the file and the
+	 * size of the page into the global variables.
+	 * @param file the file that will be read.
+	 * @param pagesize the number of bytes in a single page.
+	 */
+	public PageReader(File file, int pagesize) {
+		this.file = file;
+		this.pagesize = pagesize;
+	}
+
+	/**
+	 * This method is used to read the next page from the file.
+	 * @return the byte buffer that stores the page, null means there are
+	 * no pages left in the file.
+	 */
+	public abstract ByteBuffer readPage();
+
+	/**
+	 * This method is used to move over the next page without handing it
+	 * out. The readers that could skip the page without reading it from
+	 * the disk should override this method.
+	 */
+	public void skipPage() {
+		readPage();
+	}
+
+	/**
+	 * This method shows whether the reader fills the same buffers again
+	 * with the pages after, so a page that is kept after the next page is
+	 * read needs a copy of its own. The buffers of the pool and the slices
+	 * of the mapped file are never filled again, so by default the buffers
+	 * are not reused.
+	 * @return true if the buffers handed out will be used again.
+	 */
+	public boolean reusesBuffers() {
+		return false;
+	}
+
+	/**
+	 * This method is used to move the reader to the given page, so the
+	 * next page read will be that page. By default the reader is rewound
+	 * and the pages before it are skipped, the readers that could jump to
+	 * the page directly should override this method.
+	 * @param pageno the order of the page in the file, starts from 0.
+	 */
+	public void seek(long pageno) {
+		rewind();
+		for(long i=0;i<pageno;i++)
+			skipPage();
+	}
+
+	/**
+	 * This method is used to count the pages of the file without moving
+	 * the reader. The plain file is counted by its size, the readers whose
+	 * pages take different sizes in the file should override this method.
+	 * @return the number of pages in the file, the header page included.
+	 */
+	public long getPageCount() {
+		return (file.length() + pagesize - 1) / pagesize;
+	}
+
+	/**
+	 * This method is used to move the reader back to the first page of
+	 * the file. Notice the file will not be opened again.
+	 */
+	public abstract void rewind();
+
+	/**
+	 * This method is used to release the resources held by the reader.
+	 */
+	public abstract void close();
+
+	/**
+	 * This is the getter method of the file.
+	 * @return the file that is read by this reader.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * This is the getter method of the page size.
+	 * @return the number of bytes in a single page.
+	 */
+	public int getPageSize() {
+		return pagesize;
+	}
+
+	/**
+	 * This method is used to build the page reader for the file. If the
+	 * mapped flag is set, the file will be mapped into the memory and the
+	 * pages will be handed out as slices of the mapped region. If not,
+	 * every page will be fetched through the shared buffer pool. Notice
+	 * the compressed file is found by the first integer of the file, and
+	 * it will always be read by the compressed reader.
+	 * @param file the file that will be read.
+	 * @param mapped the flag shows whether we use the memory mapped mode.
+	 * @return the page reader of the file.
+	 */
+	public static PageReader open(File file, boolean mapped) {
+		return open(file, mapped, false);
+	}
+
+	/**
+	 * This method is used to build the page reader for the file, and
+	 * wraps it with the prefetch reader if the prefetch flag is set. Notice
+	 * the mapped reader will not be wrapped, since its pages are not copied
+	 * and the system already reads ahead for the mapped file.
+	 * @param file the file that will be read.
+	 * @param mapped the flag shows whether we use the memory mapped mode.
+	 * @param prefetch the flag shows whether the pages will be read ahead
+	 * by a background thread.
+	 * @return the page reader of the file.
+	 */
+	public static PageReader open(File file, boolean mapped, boolean prefetch) {
+		PageReader reader = null;
+		if(PageCodec.isCompressed(file))
+			reader = new CompressedPageReader(file, NUM_OF_BYTES);
+		else if(mapped)
+			return new MappedPageReader(file, NUM_OF_BYTES);
+		else reader = new ChannelPageReader(file, NUM_OF_BYTES);
+		if(prefetch)
+			return new PrefetchPageReader(reader);
+		return reader;
+	}
+
+}
@@ -0,0 +1,113 @@
+package Storage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import BPlusTree.BPlusTree;
+
+/**
+ * This class is used to write the pages into a binary file. Every class
+ * that writes pages (the converter, the external sort, the group by
+ * operator) should use it, since the old pages of the file must be
+ * dropped from the buffer pool before the file is written again.
+ * When the writer is built with the compressed flag, the file starts with
+ * the magic integer and every page is written as a compressed frame.
+ * @author messfish
+ *
+ */
+public class PageWriter {
+
+	private static final int NUM_OF_BYTES = 16384;
+	// this is the number of bytes in a single page.
+	private File file;
+	private FileOutputStream output;
+	private FileChannel fc;
+	private PageCodec codec; // this is null when the file is not compressed.
+
+	/**
+	 * Constructor: this constructor drops the pages of the file from the
+	 * buffer pool, deletes the zone map, the dictionaries and the trees of
+	 * the old file since they will be out of date, and opens the file for
+	 * writing.
+	 * @param file the file that will be written.
+	 * @throws IOException throw this when the file could not be opened.
+	 */
+	public PageWriter(File file) throws IOException {
+		this(file, false);
+	}
+
+	/**
+	 * Constructor: this constructor opens the file for writing, and
+	 * writes the magic integer first when the pages will be compressed.
+	 * @param file the file that will be written.
+	 * @param compressed true means the pages will be compressed.
+	 * @throws IOException throw this when the file could not be opened.
+	 */
+	public PageWriter(File file, boolean compressed) throws IOException {
+		this.file = file;
+		BufferPool.getPool().invalidate(file);
+		ZoneMap.getFile(file).delete();
+		Dictionary.getFile(file).delete();
+		/* only the tables in the row form could have the trees. */
+		if(file.getName().endsWith(".b"))
+			BPlusTree.drop(file);
+		output = new FileOutputStream(file);
+		fc = output.getChannel();
+		if(compressed) {
+			codec = new PageCodec(NUM_OF_BYTES);
+			ByteBuffer magic = ByteBuffer.allocate(4);
+			magic.putInt(0, PageCodec.MAGIC);
+			while(magic.hasRemaining())
+				fc.write(magic);
+		}
+	}
+
+	/**
+	 * This method is used to write the whole byte buffer as a page.
+	 * Notice the position and the limit of the buffer will be ignored.
+	 * @param buffer the byte buffer that stores the page.
+	 * @throws IOException throw this when the page could not be written.
+	 */
+	public void writePage(ByteBuffer buffer) throws IOException {
+		writePage(buffer, null);
+	}
+
+	/**
+	 * This method is used to write the whole byte buffer as a page, the
+	 * runs of the long and double values in the page will be stored in the
+	 * frame of reference form when the file is compressed. The runs will
+	 * be ignored when the file is not compressed.
+	 * @param buffer the byte buffer that stores the page.
+	 * @param runs the array of runs, three integers for each run: the
+	 * offset, the number of values and the distance between two values.
+	 * @throws IOException throw this when the page could not be written.
+	 */
+	public void writePage(ByteBuffer buffer, int[] runs) throws IOException {
+		buffer.limit(buffer.capacity());
+		buffer.position(0);
+		if(codec!=null)
+			buffer = codec.encode(buffer, runs);
+		while(buffer.hasRemaining())
+			fc.write(buffer);
+	}
+
+	/**
+	 * This method is used to close the file.
+	 * @throws IOException throw this when the file could not be closed.
+	 */
+	public void close() throws IOException {
+		output.close();
+	}
+
+	/**
+	 * This is the getter method of the file.
+	 * @return the file that is written.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+}
@@ -0,0 +1,305 @@
+package Storage;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * This class is a page reader that reads ahead of the consumer. It wraps
+ * another page reader and a background thread keeps reading the pages of
+ * that reader into a ring of page buffers, so the disk could work while
+ * the consumer decodes the tuples. The number of pages the thread stays
+ * ahead (the depth) changes with the consumer: each time the consumer has
+ * to wait for a page, the depth is doubled, and each time the consumer
+ * finds the whole depth ready, the depth shrinks by one page.
+ * Rewinding the reader drops the pages read ahead and lets the thread
+ * start over from the first page at once, so an operator that scans the
+ * same file again and again (the inner side of the cartesian operator)
+ * finds the first pages ready. Seeking works in the same way, the thread
+ * starts over from the page asked for. Skipping a page drops it when it
+ * has been read ahead, or moves the thread past it otherwise, and the
+ * thread does not read ahead again until a page is asked for, so the
+ * pages skipped one after another are not read from the disk. Notice the thread stops when it reaches
+ * the end of the file or when the consumer has not asked for a page for
+ * a while, and it will be started again when it is needed, so the reader
+ * that is never closed will not keep a thread around.
+ * @author messfish
+ *
+ */
+public class PrefetchPageReader extends PageReader {
+
+	private static final int MIN_DEPTH = 2;
+	// this is the minimum number of pages read ahead.
+	private static final int MAX_DEPTH = 16;
+	// this is the maximum number of pages read ahead.
+	private static final long IDLE_TIME = 1000;
+	// this is the time in milliseconds the thread waits before it stops.
+	private PageReader source; // this is the reader that is wrapped.
+	private ArrayDeque<ByteBuffer> filled; // the pages read ahead.
+	private ArrayDeque<ByteBuffer> free; // the page buffers not used.
+	private ByteBuffer current; // the page handed out last time.
+	private int depth; // the number of pages the thread stays ahead.
+	private int generation;
+	// this number increases by one every time the reader is rewound.
+	private long startpage;
+	// this is the page the thread starts from after the reader is rewound.
+	private int sourcegeneration;
+	// this is the generation the wrapped reader is positioned for, it is
+	// only used by the thread.
+	private boolean finished;
+	// this flag shows the thread has reached the end of the file.
+	private boolean running; // this flag shows the thread is running.
+	private boolean closed; // this flag shows the reader is closed.
+	private int waits; // the number of times the consumer has waited.
+	private long position; // the order of the next page handed out.
+	private boolean paused;
+	// this flag shows a page is skipped after the last page handed out,
+	// the thread does not read ahead until a page is asked for again.
+
+	/**
+	 * Constructor: this constructor wraps the reader and starts the
+	 * thread that reads the pages ahead.
+	 * @param source the page reader that will be wrapped.
+	 */
+	public PrefetchPageReader(PageReader source) {
+		super(source.getFile(), source.getPageSize());
+		this.source = source;
+		filled = new ArrayDeque<>();
+		free = new ArrayDeque<>();
+		/* one more buffer for the page held by the consumer. */
+		for(int i=0;i<=MAX_DEPTH;i++)
+			free.add(ByteBuffer.allocate(pagesize));
+		depth = MIN_DEPTH;
+		synchronized(this) {
+			start();
+		}
+	}
+
+	/**
+	 * This method hands out the next page read ahead. The page buffer
+	 * handed out last time goes back to the ring.
+	 * @return the byte buffer, null means nothing left to read.
+	 */
+	@Override
+	public synchronized ByteBuffer readPage() {
+		if(current!=null) {
+			free.add(current);
+			current = null;
+		}
+		paused = false;
+		if(filled.isEmpty()&&!finished) {
+			waits++;
+			depth = Math.min(depth * 2, MAX_DEPTH);
+		}else if(filled.size() >= depth&&depth > MIN_DEPTH)
+			depth--;
+		/* the thread may have stopped since nothing was asked for. */
+		if(!finished) start();
+		notifyAll();
+		while(filled.isEmpty()&&!finished) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+				return null;
+			}
+		}
+		if(filled.isEmpty()) return null;
+		current = filled.poll();
+		position++;
+		notifyAll();
+		return current;
+	}
+
+	/**
+	 * This method moves over the next page. The page read ahead already
+	 * is dropped, otherwise the thread will start over from the page after
+	 * it, so the page is never read. The thread waits until the next page
+	 * is asked for.
+	 */
+	@Override
+	public synchronized void skipPage() {
+		if(current!=null) {
+			free.add(current);
+			current = null;
+		}
+		paused = true;
+		if(!filled.isEmpty()) {
+			free.add(filled.poll());
+			position++;
+			return;
+		}
+		/* the end of the file has been reached. */
+		if(finished) return;
+		startpage = ++position;
+		generation++;
+		notifyAll();
+	}
+
+	/**
+	 * This method shows the page buffers go back to the ring and will be
+	 * filled with the pages after.
+	 * @return true since the buffers are reused.
+	 */
+	@Override
+	public boolean reusesBuffers() {
+		return true;
+	}
+
+	/**
+	 * This method moves the reader back to the first page. The pages
+	 * read ahead are dropped and the thread starts over at once.
+	 */
+	@Override
+	public synchronized void rewind() {
+		seek(0);
+	}
+
+	/**
+	 * This method moves the reader to the given page. The pages read
+	 * ahead are dropped and the thread starts over from that page.
+	 * @param pageno the order of the page in the file, starts from 0.
+	 */
+	@Override
+	public synchronized void seek(long pageno) {
+		startpage = pageno;
+		position = pageno;
+		paused = false;
+		generation++;
+		finished = false;
+		free.addAll(filled);
+		filled.clear();
+		if(current!=null) {
+			free.add(current);
+			current = null;
+		}
+		start();
+		notifyAll();
+	}
+
+	/**
+	 * This method counts the pages of the file. The wrapped reader is
+	 * used by the thread, so the compressed file is counted by a reader
+	 * of its own.
+	 * @return the number of pages in the file, the header page included.
+	 */
+	@Override
+	public long getPageCount() {
+		if(!PageCodec.isCompressed(file)) return super.getPageCount();
+		PageReader reader = new CompressedPageReader(file, pagesize);
+		long result = reader.getPageCount();
+		reader.close();
+		return result;
+	}
+
+	/**
+	 * This method stops the thread and closes the wrapped reader.
+	 */
+	@Override
+	public void close() {
+		synchronized(this) {
+			closed = true;
+			notifyAll();
+			while(running) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+					break;
+				}
+			}
+		}
+		source.close();
+	}
+
+	/**
+	 * This is the getter method of the depth.
+	 * @return the number of pages the thread stays ahead.
+	 */
+	public synchronized int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * This is the getter method of the number of waits.
+	 * @return the number of times the consumer waited for a page.
+	 */
+	public synchronized int getWaits() {
+		return waits;
+	}
+
+	/**
+	 * This method starts the thread if it is not running. Notice the
+	 * caller must hold the lock of this reader.
+	 */
+	private void start() {
+		if(running||closed) return;
+		running = true;
+		Thread thread = new Thread(this::fetch, "prefetch " + file.getName());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * This method is run by the thread: it keeps reading the pages of
+	 * the wrapped reader into the free page buffers until the depth is
+	 * reached, and stops when the end of the file is reached or nothing
+	 * has been asked for a while. It does not read while the pages are
+	 * being skipped.
+	 */
+	private void fetch() {
+		while(true) {
+			ByteBuffer slot = null;
+			int target = 0;
+			long from = 0;
+			synchronized(this) {
+				long deadline = System.currentTimeMillis() + IDLE_TIME;
+				while(!closed&&(paused||generation==sourcegeneration&&
+						(finished||filled.size() >= depth))) {
+					long rest = deadline - System.currentTimeMillis();
+					if(finished||rest <= 0) {
+						running = false;
+						notifyAll();
+						return;
+					}
+					try {
+						wait(rest);
+					} catch (InterruptedException e) {
+						running = false;
+						notifyAll();
+						return;
+					}
+				}
+				if(closed) {
+					running = false;
+					notifyAll();
+					return;
+				}
+				target = generation;
+				from = startpage;
+				slot = free.poll();
+			}
+			if(target!=sourcegeneration) {
+				source.seek(from);
+				sourcegeneration = target;
+			}
+			ByteBuffer page = source.readPage();
+			if(page!=null) {
+				ByteBuffer copy = page.duplicate();
+				copy.clear();
+				slot.clear();
+				slot.put(copy);
+				slot.clear();
+			}
+			synchronized(this) {
+				/* the reader is rewound while the page is read. */
+				if(generation!=target)
+					free.add(slot);
+				else if(page==null) {
+					finished = true;
+					free.add(slot);
+				}else filled.add(slot);
+				notifyAll();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,223 @@
+package Storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class stores the zone map of a table file: for every data page
+ * and every attribute, the minimum value, the maximum value and the number
+ * of null values. The zone map is stored in a side file next to the table
+ * file, which has the same name with ".zone" appended. The format of the
+ * side file is like this: an integer of the number of attributes, an
+ * integer of the number of pages, a byte of the type for each attribute.
+ * Then for each page and each attribute, 8 bytes of the minimum value,
+ * 8 bytes of the maximum value and an integer of the null count.
+ * The minimum and the maximum are stored as the bits of a long integer
+ * for the long attributes and the bits of a double value for the date,
+ * the time and the double attributes. The string attributes (including
+ * the encoded ones) are not tracked, so the page will never be skipped
+ * because of them.
+ * Notice whenever the table file is written again by the page writer,
+ * the side file will be deleted, so the zone map could never be stale.
+ * @author messfish
+ *
+ */
+public class ZoneMap {
+
+	private static final String EXTENSION = ".zone";
+	// this is the extension of the side file.
+	private int[] types; // this array stores the type of each attribute.
+	private List<long[]> minlist; // the minimum values of each page.
+	private List<long[]> maxlist; // the maximum values of each page.
+	private List<int[]> nulllist; // the null counts of each page.
+
+	/**
+	 * Constructor: this constructor builds an empty zone map for the
+	 * attributes with the given types.
+	 * @param types the array stores the type of each attribute.
+	 */
+	public ZoneMap(int[] types) {
+		this.types = types;
+		minlist = new ArrayList<>();
+		maxlist = new ArrayList<>();
+		nulllist = new ArrayList<>();
+	}
+
+	/**
+	 * This method is used to get the side file of the table file.
+	 * @param file the table file.
+	 * @return the side file that stores the zone map.
+	 */
+	public static File getFile(File file) {
+		return new File(file.getPath() + EXTENSION);
+	}
+
+	/**
+	 * This method is used to start a new page, all the values added
+	 * after calling this method belong to the new page.
+	 */
+	public void addPage() {
+		long[] min = new long[types.length], max = new long[types.length];
+		for(int i=0;i<types.length;i++) {
+			if(types[i]==1) {
+				min[i] = Long.MAX_VALUE;
+				max[i] = Long.MIN_VALUE;
+			}else {
+				min[i] = Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+				max[i] = Double.doubleToLongBits(Double.NEGATIVE_INFINITY);
+			}
+		}
+		minlist.add(min);
+		maxlist.add(max);
+		nulllist.add(new int[types.length]);
+	}
+
+	/**
+	 * This method is used to add a value of the attribute to the last page.
+	 * @param column the order of the attribute.
+	 * @param bits the bits of the long integer or the double value.
+	 */
+	public void update(int column, long bits) {
+		long[] min = minlist.get(minlist.size() - 1);
+		long[] max = maxlist.get(maxlist.size() - 1);
+		if(types[column]==1) {
+			min[column] = Math.min(min[column], bits);
+			max[column] = Math.max(max[column], bits);
+		}else if(isTracked(types[column])) {
+			double value = Double.longBitsToDouble(bits);
+			if(value < Double.longBitsToDouble(min[column]))
+				min[column] = bits;
+			if(value > Double.longBitsToDouble(max[column]))
+				max[column] = bits;
+		}
+	}
+
+	/**
+	 * This method is used to add a null value of the attribute to the
+	 * last page.
+	 * @param column the order of the attribute.
+	 */
+	public void addNull(int column) {
+		nulllist.get(nulllist.size() - 1)[column]++;
+	}
+
+	/**
+	 * This is the getter method of the number of pages.
+	 * @return the number of pages in the zone map.
+	 */
+	public int getNumOfPages() {
+		return minlist.size();
+	}
+
+	/**
+	 * This is the getter method of the null count.
+	 * @param page the order of the data page.
+	 * @param column the order of the attribute.
+	 * @return the number of null values of the attribute in the page.
+	 */
+	public int getNullCount(int page, int column) {
+		return nulllist.get(page)[column];
+	}
+
+	/**
+	 * This method checks whether the page could contain a tuple that
+	 * satisfies all the predicates. The page that is not in the zone map
+	 * is always considered as a match.
+	 * @param page the order of the data page, starts from 0.
+	 * @param predicates the list of predicates on the attributes.
+	 * @return false if the page could be skipped.
+	 */
+	public boolean mayMatch(int page, List<ZonePredicate> predicates) {
+		if(page >= minlist.size()) return true;
+		long[] min = minlist.get(page), max = maxlist.get(page);
+		for(ZonePredicate predicate : predicates) {
+			int column = predicate.getColumn();
+			if(!isTracked(types[column])) continue;
+			/* a page with no values at all could be skipped directly. */
+			if(types[column]==1 ? min[column] > max[column] :
+				!(Double.longBitsToDouble(min[column])
+						<= Double.longBitsToDouble(max[column])))
+				return false;
+			if(!predicate.mayMatch(types[column], min[column], max[column]))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * This method checks whether the attribute of the type is tracked.
+	 * @param type the type of the attribute.
+	 * @return false if the attribute is a string.
+	 */
+	private boolean isTracked(int type) {
+		return type!=2&&type!=6;
+	}
+
+	/**
+	 * This method is used to write the zone map into the side file of
+	 * the table file. Notice this should be called after the table file
+	 * is closed, since writing the table file deletes the side file.
+	 * @param file the table file.
+	 */
+	public void write(File file) {
+		try {
+			DataOutputStream output = new DataOutputStream(new
+					BufferedOutputStream(new FileOutputStream(getFile(file))));
+			output.writeInt(types.length);
+			output.writeInt(minlist.size());
+			for(int type : types)
+				output.writeByte(type);
+			for(int i=0;i<minlist.size();i++) {
+				for(int j=0;j<types.length;j++) {
+					output.writeLong(minlist.get(i)[j]);
+					output.writeLong(maxlist.get(i)[j]);
+					output.writeInt(nulllist.get(i)[j]);
+				}
+			}
+			output.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * This method is used to read the zone map of the table file.
+	 * @param file the table file.
+	 * @return the zone map, null if the table file has no zone map.
+	 */
+	public static ZoneMap read(File file) {
+		File side = getFile(file);
+		if(!side.exists()) return null;
+		try {
+			DataInputStream input = new DataInputStream(new
+					BufferedInputStream(new FileInputStream(side)));
+			int[] types = new int[input.readInt()];
+			int numofpages = input.readInt();
+			for(int i=0;i<types.length;i++)
+				types[i] = input.readByte();
+			ZoneMap result = new ZoneMap(types);
+			for(int i=0;i<numofpages;i++) {
+				result.addPage();
+				for(int j=0;j<types.length;j++) {
+					result.minlist.get(i)[j] = input.readLong();
+					result.maxlist.get(i)[j] = input.readLong();
+					result.nulllist.get(i)[j] = input.readInt();
+				}
+			}
+			input.close();
+			return result;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+}
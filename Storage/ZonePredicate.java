@@ -0,0 +1,106 @@
+package Storage;
+
+/**
+ * This class stores a single comparison between an attribute and a
+ * constant, such as S.B > 1000. It is used to check whether a page could
+ * contain any tuple that satisfies the comparison by using the minimum
+ * and the maximum value of the attribute in that page.
+ * @author messfish
+ *
+ */
+public class ZonePredicate {
+
+	public static final int EQUALS = 0;
+	public static final int LESS_THAN = 1;
+	public static final int LESS_THAN_OR_EQUALS = 2;
+	public static final int GREATER_THAN = 3;
+	public static final int GREATER_THAN_OR_EQUALS = 4;
+	private int column; // the order of the attribute in the file.
+	private int operator; // the comparison, one of the constants above.
+	private boolean integral;
+	// this flag shows whether the constant is a long integer.
+	private long longvalue; // the constant as a long integer.
+	private double doublevalue; // the constant as a double value.
+
+	/**
+	 * Constructor: this constructor is used for the constant that is
+	 * a long integer.
+	 * @param column the order of the attribute in the file.
+	 * @param operator the comparison between the attribute and the constant.
+	 * @param value the constant.
+	 */
+	public ZonePredicate(int column, int operator, long value) {
+		this.column = column;
+		this.operator = operator;
+		integral = true;
+		longvalue = value;
+		doublevalue = value;
+	}
+
+	/**
+	 * Constructor: this constructor is used for the constant that is
+	 * a double value, which includes the date and the time value.
+	 * @param column the order of the attribute in the file.
+	 * @param operator the comparison between the attribute and the constant.
+	 * @param value the constant.
+	 */
+	public ZonePredicate(int column, int operator, double value) {
+		this.column = column;
+		this.operator = operator;
+		doublevalue = value;
+	}
+
+	/**
+	 * This is the getter method of the column.
+	 * @return the order of the attribute in the file.
+	 */
+	public int getColumn() {
+		return column;
+	}
+
+	/**
+	 * This method is used to get the comparison when the attribute and
+	 * the constant switch their sides. For example, 5 < S.B is the same
+	 * as S.B > 5.
+	 * @param operator the comparison that needs to be flipped.
+	 * @return the comparison after switching the sides.
+	 */
+	public static int flip(int operator) {
+		if(operator==LESS_THAN) return GREATER_THAN;
+		if(operator==LESS_THAN_OR_EQUALS) return GREATER_THAN_OR_EQUALS;
+		if(operator==GREATER_THAN) return LESS_THAN;
+		if(operator==GREATER_THAN_OR_EQUALS) return LESS_THAN_OR_EQUALS;
+		return operator;
+	}
+
+	/**
+	 * This method checks whether there could be a value in the range
+	 * that satisfies the comparison. Notice the minimum and the maximum
+	 * are stored as the bits of a long integer or a double value, which
+	 * depends on the type of the attribute.
+	 * @param type the type of the attribute.
+	 * @param min the minimum value of the attribute in the page.
+	 * @param max the maximum value of the attribute in the page.
+	 * @return false if no value in the range satisfies the comparison.
+	 */
+	public boolean mayMatch(int type, long min, long max) {
+		int lower = 0, upper = 0;
+		/* compare the two bounds with the constant. */
+		if(type==1 && integral) {
+			lower = Long.compare(min, longvalue);
+			upper = Long.compare(max, longvalue);
+		}else if(type==1) {
+			lower = Double.compare((double)min, doublevalue);
+			upper = Double.compare((double)max, doublevalue);
+		}else {
+			lower = Double.compare(Double.longBitsToDouble(min), doublevalue);
+			upper = Double.compare(Double.longBitsToDouble(max), doublevalue);
+		}
+		if(operator==EQUALS) return lower <= 0 && upper >= 0;
+		if(operator==LESS_THAN) return lower < 0;
+		if(operator==LESS_THAN_OR_EQUALS) return lower <= 0;
+		if(operator==GREATER_THAN) return upper > 0;
+		return upper >= 0;
+	}
+
+}
@@ -0,0 +1,220 @@
+package Support;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import PhysicalOperators.ColumnarScanOperator;
+import PhysicalOperators.ScanOperator;
+import TableElement.DataType;
+import TableElement.Tuple;
+
+/**
+ * This class is used to collect the statistics of a table. The table is
+ * scanned once, or only a sample of the data pages are read, and every
+ * value is put into the sketch of its attribute and checked against the
+ * smallest and the largest value. A fixed number of tuples are kept by
+ * the reservoir sampling, the equi-depth histogram and the most common
+ * values are built from them after the scan.
+ * When only a sample of the pages is read, the number of tuples is scaled
+ * by the fraction of the pages read. The number of distinct values is
+ * scaled in the same way only when nearly every value in the sample is
+ * different, since such an attribute is likely to be unique in the table.
+ * The table in the columnar form is always scanned as a whole. Notice the
+ * storage has no null value, so the null fraction is always 0 for now.
+ * @author messfish
+ *
+ */
+public class Analyzer {
+	
+	private static final int BUCKETS = 20;
+	// this is the number of buckets of the histogram.
+	private static final int NUM_OF_COMMON = 10;
+	// this is the largest number of the most common values.
+	private static final int RESERVOIR_SIZE = 30000;
+	// this is the number of tuples kept for the histogram.
+	private static final double UNIQUE = 0.9;
+	// the attribute whose distinct values are more than this fraction
+	// of the sample is taken as unique.
+	private long seed; // this is the seed of the sampling.
+	private long numofrows; // the number of tuples read by the last scan.
+	private Object[][] reservoir; // the tuples kept by the sampling.
+	private int kept; // this is the number of tuples in the reservoir.
+	private DataType[] mins, maxs; // the smallest and the largest values.
+	private HyperLogLog[] sketches; // the sketch of every attribute.
+	
+	/**
+	 * Constructor: this constructor uses the fixed seed for the sampling,
+	 * so the same table always gives the same statistics.
+	 */
+	public Analyzer() {
+		this(42);
+	}
+	
+	/**
+	 * Constructor: this constructor sets the seed of the sampling.
+	 * @param seed the seed of the sampling.
+	 */
+	public Analyzer(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * This method is used to collect the statistics of the table and put
+	 * them into the catalog, which writes them into the statistics file.
+	 * @param table the name of the table.
+	 * @param catalog the catalog of the database.
+	 * @param fraction the fraction of the data pages that will be read,
+	 * 1 or more means the whole table will be scanned.
+	 * @return the statistics of the table, null if the table does not exist.
+	 */
+	public TableStatistics analyze(String table, Catalog catalog, double fraction) {
+		String location = catalog.getFileLocation(table);
+		if(location==null||!new File(location).exists()) return null;
+		File file = new File(location);
+		boolean columnar = catalog.isColumnar(table);
+		ScanOperator scan = columnar ? new ColumnarScanOperator(file,
+				catalog.isMemoryMapped(table), null) :
+				new ScanOperator(file, catalog.isMemoryMapped(table));
+		List<String> attributes = catalog.getAttributesList(table);
+		int[] indexes = new int[attributes.size()];
+		int[] types = new int[attributes.size()];
+		for(int i=0;i<indexes.length;i++) {
+			Mule mule = scan.getSchema().get(table + "." + attributes.get(i));
+			indexes[i] = mule.getIndex();
+			types[i] = mule.getDataType();
+		}
+		long pages = scan.getPageCount();
+		if(!columnar&&fraction < 1)
+			scan.setSample(fraction, seed);
+		collect(scan, indexes);
+		long read = pages - scan.getSkippedPages();
+		/* the sample might miss every page of a small table. */
+		if(read < pages&&numofrows==0) {
+			scan.setSample(1, seed);
+			scan.reset();
+			collect(scan, indexes);
+			read = pages;
+		}
+		scan.close();
+		double scale = read==0 ? 1 : (double)pages / read;
+		TableStatistics result = new TableStatistics(table, numofrows * scale, pages);
+		for(int i=0;i<indexes.length;i++) {
+			ColumnStatistics column = new ColumnStatistics(types[i]);
+			column.setSketch(sketches[i]);
+			double distinct = Math.min(sketches[i].estimate(), numofrows);
+			if(scale > 1&&distinct >= UNIQUE * numofrows)
+				distinct *= scale;
+			column.setDistinct(Math.round(distinct));
+			column.setRange(mins[i], maxs[i]);
+			summarize(column, i);
+			result.putColumn(attributes.get(i), column);
+		}
+		catalog.setStatistics(table, result);
+		return result;
+	}
+	
+	/**
+	 * This method is used to read all the tuples handed out by the scan,
+	 * and put the values into the sketches, the ranges and the reservoir.
+	 * @param scan the scan of the table.
+	 * @param indexes the index in the tuple of every attribute.
+	 */
+	private void collect(ScanOperator scan, int[] indexes) {
+		Random random = new Random(seed);
+		numofrows = 0;
+		kept = 0;
+		reservoir = new Object[indexes.length][RESERVOIR_SIZE];
+		mins = new DataType[indexes.length];
+		maxs = new DataType[indexes.length];
+		sketches = new HyperLogLog[indexes.length];
+		for(int i=0;i<indexes.length;i++)
+			sketches[i] = new HyperLogLog();
+		Tuple tuple = null;
+		while((tuple=scan.getNextTuple())!=null) {
+			numofrows++;
+			/* the tuple replaces a random one when the reservoir is full. */
+			int slot = kept < RESERVOIR_SIZE ? kept++ : -1;
+			if(slot==-1) {
+				long chosen = (long)(random.nextDouble() * numofrows);
+				if(chosen < RESERVOIR_SIZE) slot = (int)chosen;
+			}
+			for(int i=0;i<indexes.length;i++) {
+				int index = indexes[i], type = tuple.getType(index);
+				DataType data = null;
+				Object value = null;
+				if(type==1) {
+					long dummy = tuple.getLong(index);
+					sketches[i].addLong(dummy);
+					data = new DataType(dummy);
+					value = dummy;
+				}else if(type==5) {
+					double dummy = tuple.getDouble(index);
+					sketches[i].addDouble(dummy);
+					data = new DataType(dummy);
+					value = dummy;
+				}else {
+					String dummy = tuple.getString(index);
+					sketches[i].addString(dummy);
+					data = new DataType(dummy);
+					value = dummy;
+				}
+				if(mins[i]==null||data.compare(mins[i]) < 0) mins[i] = data;
+				if(maxs[i]==null||data.compare(maxs[i]) > 0) maxs[i] = data;
+				if(slot!=-1) reservoir[i][slot] = value;
+			}
+		}
+	}
+	
+	/**
+	 * This method is used to build the histogram and the most common
+	 * values of an attribute from the tuples in the reservoir. Only the
+	 * values that show up more than once are taken as the common values.
+	 * @param column the statistics of the attribute.
+	 * @param index the order of the attribute.
+	 */
+	private void summarize(ColumnStatistics column, int index) {
+		if(kept==0) return;
+		Object[] values = Arrays.copyOf(reservoir[index], kept);
+		Arrays.sort(values);
+		int buckets = Math.min(BUCKETS, kept);
+		DataType[] histogram = new DataType[buckets + 1];
+		for(int i=0;i<=buckets;i++)
+			histogram[i] = toData(values[(int)((long)i * (kept - 1) / buckets)]);
+		column.setHistogram(histogram);
+		Map<Object, Integer> counts = new HashMap<>();
+		for(Object value : values)
+			counts.merge(value, 1, Integer::sum);
+		List<Map.Entry<Object, Integer>> entries = new ArrayList<>();
+		for(Map.Entry<Object, Integer> entry : counts.entrySet())
+			if(entry.getValue() > 1) entries.add(entry);
+		entries.sort((a, b) -> b.getValue()!=a.getValue().intValue() ?
+				b.getValue() - a.getValue() : toData(a.getKey()).compare
+				(toData(b.getKey())));
+		int size = Math.min(NUM_OF_COMMON, entries.size());
+		DataType[] common = new DataType[size];
+		double[] frequencies = new double[size];
+		for(int i=0;i<size;i++) {
+			common[i] = toData(entries.get(i).getKey());
+			frequencies[i] = (double)entries.get(i).getValue() / kept;
+		}
+		column.setCommonValues(common, frequencies);
+	}
+	
+	/**
+	 * This method is used to change the value kept in the reservoir into
+	 * the data type.
+	 * @param value the value, a long, a double or a string.
+	 * @return the data type of the value.
+	 */
+	private DataType toData(Object value) {
+		if(value instanceof Long) return new DataType((Long)value);
+		if(value instanceof Double) return new DataType((Double)value);
+		return new DataType((String)value);
+	}
+	
+}
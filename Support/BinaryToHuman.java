@@ -2,14 +2,14 @@ package Support;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
 
 import SmallSQLServer.Main;
+import Storage.Dictionary;
+import Storage.PageReader;
 
 /**
  * As the name suggests, this class is mainly used to deal with converting
@@ -19,14 +19,17 @@ import SmallSQLServer.Main;
  * string variable. for each string variable. Append a number that indicates
  * the length of the string and a slash, followed by the string itself.
  * Also we need to transfer the date and time data into their specific 
- * format, which will be integers.
+ * format, which will be integers. The strings encoded by the dictionary
+ * are written back as the plain strings. The pages are read through the
+ * page reader, so the compressed file could be converted as well.
  * @author messfish
  *
  */
 public class BinaryToHuman {
 
-	private static final int NUM_OF_BYTES = 16384;
 	private TimeConversion convert = new TimeConversion();
+	private Dictionary[] dictionaries;
+	// this array stores the dictionaries of the encoded attributes.
 	
 	/**
 	 * this method is used to convert the binary file into a human readable
@@ -38,13 +41,10 @@ public class BinaryToHuman {
 	 */
 	public File convert(File binary, String title) {
 		File result = new File(Main.getTest() + "/conversiontest/" + title);
-		FileInputStream input = null;
 		List<Integer> list = new ArrayList<>();
 		try {
-			input = new FileInputStream(binary);
-			FileChannel fc = input.getChannel();
-			ByteBuffer buffer = ByteBuffer.allocate(NUM_OF_BYTES);
-			fc.read(buffer);
+			PageReader reader = PageReader.open(binary, false);
+			ByteBuffer buffer = reader.readPage();
 			StringBuilder sb = new StringBuilder();
 			int times = buffer.get(0), index = 1;
 			for(int i=0;i<times;i++) {
@@ -54,7 +54,9 @@ public class BinaryToHuman {
 			int[] typelist = new int[list.size()];
 			for(int i=0;i<typelist.length;i++) 
 				typelist[i] = list.get(i);
-			readPage(fc, sb, typelist);
+			dictionaries = Dictionary.read(binary, list);
+			readPage(reader, sb, typelist);
+			reader.close();
 			BufferedWriter write = new BufferedWriter(new FileWriter(result));
 			write.write(sb.toString());
 			write.close();
@@ -69,17 +71,15 @@ public class BinaryToHuman {
 	 * binary file and store the content into the string builder. Notice 
 	 * the content in the string need to follow the format defined in 
 	 * the declaration of the class above. 
-	 * @param fc the file channel for the list.
+	 * @param reader the page reader of the file.
 	 * @param sb the string builder that stores the tuples.
 	 * @param typelist this is a list of types that store integers.
 	 */
-	private void readPage(FileChannel fc, StringBuilder sb, int[] typelist) {
-		ByteBuffer buffer = ByteBuffer.allocate(NUM_OF_BYTES);
-		int length = 0;
+	private void readPage(PageReader reader, StringBuilder sb, int[] typelist) {
+		ByteBuffer buffer = null;
 		try {
-			/* notice the read() return -1 when there are no bytes left. */
-			while(length!=-1) {
-				length = fc.read(buffer);
+			/* notice the reader returns null when there are no pages left. */
+			while((buffer=reader.readPage())!=null) {
 				/* notice the first 4 bytes stores the number of tuples
 				 * available in the buffer page. */
 				int size = buffer.getInt(0), index = 4;
@@ -87,8 +87,6 @@ public class BinaryToHuman {
 					/* notice there are is a byte to show whether the tuple is 
 					 * valid, so we need to increase the value. */
 					index = writeTuple(buffer, index + 1, sb, typelist);
-				/* do not forget to refresh the byte buffer! */
-				buffer = ByteBuffer.allocate(NUM_OF_BYTES);
 			}
 		}catch(Exception e) {
 			e.printStackTrace();
@@ -132,6 +130,14 @@ public class BinaryToHuman {
 					index++;
 				}
 				sb.append(temp.length()).append("/").append(temp+" ");
+			}else if(typelist[i]==6) {
+				/* notice the code is stored in 2 or 4 bytes. */
+				Dictionary dictionary = dictionaries[i];
+				int code = dictionary.getWidth()==2 ? 
+						buffer.getShort(index) & 0xffff : buffer.getInt(index);
+				String temp = dictionary.getValue(code);
+				sb.append(temp.length()).append("/").append(temp+" ");
+				index += dictionary.getWidth();
 			}else if(typelist[i]==3) {
 				double data = buffer.getDouble(index);
 				String temp = convert.fromNumberToDate(data);
@@ -180,7 +186,8 @@ public class BinaryToHuman {
 			}
 			sb.append(sb1).append(" ");
 			int type = buffer.get(index);
-			sb.append(type).append(" ");
+			/* the encoded string is written as a plain string. */
+			sb.append(type==6 ? 2 : type).append(" ");
 			list.add(type);
 			index++;
 		}
@@ -0,0 +1,318 @@
+package Support;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import SmallSQLServer.Main;
+import Storage.PageCodec;
+import Storage.PageWriter;
+import Storage.ZoneMap;
+
+/**
+ * This class is used to load a CSV file straight into the binary file in
+ * the row form, without writing the human readable file first. The first
+ * line of the CSV file is the schema, in the same form as the human
+ * readable file: the name of each attribute followed by its type. Every
+ * line after that is a tuple with the values split by commas, the tuple
+ * ID is given by the order of the line starting from 1.
+ * The lines are read in batches, and the batches are parsed and encoded
+ * into the bytes of the tuples by a pool of threads at the same time.
+ * The encoded batches are then put into the pages one by one in the order
+ * of the file, in the same way as the converter does, so the binary file
+ * and the zone map are exactly the same as the ones written by the human
+ * modifier and the converter.
+ * @author messfish
+ *
+ */
+public class BulkLoader {
+
+	private static final int NUM_OF_BYTES = 16384;
+	// this is the number of bytes in a single page.
+	private static final int BATCH_SIZE = 4096;
+	// this is the number of lines in a single batch.
+	private int numofthreads; // this is the number of threads for parsing.
+	private boolean compressed;
+	// this flag shows whether the pages will be compressed.
+	private ThreadLocal<TimeConversion> convert =
+			ThreadLocal.withInitial(TimeConversion::new);
+	// the time conversion is not thread safe, so each thread has its own.
+	private int[] types; // this array stores the type of each attribute.
+	private int[] widths;
+	// this array stores the number of bytes of each field of the tuple.
+	private ByteBuffer page; // this is the page that is being filled.
+	private int index, numoftuples; // the point and the tuples in the page.
+	private ZoneMap zonemap; // this is the zone map of the file.
+	private PageWriter out; // this is used to write the pages.
+	private long rows, bytes, time;
+	// the number of rows, the number of bytes of the CSV file and the time
+	// in milliseconds used by the last load.
+
+	/**
+	 * Constructor: this constructor uses a thread for each processor.
+	 */
+	public BulkLoader() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor: this constructor sets the number of threads that
+	 * parse and encode the lines.
+	 * @param numofthreads the number of threads.
+	 */
+	public BulkLoader(int numofthreads) {
+		this.numofthreads = Math.max(1, numofthreads);
+	}
+
+	/**
+	 * This method is used to set whether the pages will be compressed.
+	 * @param compressed true means the pages will be compressed.
+	 */
+	public void setCompressed(boolean compressed) {
+		this.compressed = compressed;
+	}
+
+	/**
+	 * This method loads the CSV file into the binary file in the row form.
+	 * The throughput will be printed out after the file is loaded.
+	 * @param csv the CSV file.
+	 * @param title the name of the table.
+	 * @return the file in the binary form.
+	 */
+	public File load(File csv, String title) {
+		long start = System.currentTimeMillis();
+		File result = new File(Main.getTest() + "/conversiontest/" + title + ".b");
+		ExecutorService pool = Executors.newFixedThreadPool(numofthreads);
+		rows = 0;
+		try {
+			out = new PageWriter(result, compressed);
+			BufferedReader read = new BufferedReader(new FileReader(csv), 1 << 20);
+			List<Integer> typelist = new ArrayList<>();
+			ByteBuffer head = new HumanToBinary().writeHead(
+					read.readLine().split("\\s+"), typelist);
+			out.writePage(head);
+			types = new int[typelist.size()];
+			widths = new int[types.length + 2];
+			/* the valid byte and the tuple ID come first. */
+			widths[0] = 1;
+			widths[1] = 8;
+			for(int i=0;i<types.length;i++) {
+				types[i] = typelist.get(i);
+				widths[i + 2] = types[i]==2 ? -1 : 8;
+			}
+			zonemap = new ZoneMap(types);
+			page = ByteBuffer.allocate(NUM_OF_BYTES);
+			startPage();
+			/* the batches are kept in the order of the file, the number of
+			 * batches on the way is limited so the memory stays small. */
+			ArrayDeque<Future<Batch>> window = new ArrayDeque<>();
+			List<String> lines = new ArrayList<>(BATCH_SIZE);
+			long tupleID = 1;
+			String line = null;
+			while(true) {
+				line = read.readLine();
+				if(line!=null&&line.length()!=0) lines.add(line);
+				if(lines.size()==BATCH_SIZE||(line==null&&lines.size()!=0)) {
+					List<String> batch = lines;
+					long first = tupleID;
+					window.add(pool.submit(() -> encode(batch, first)));
+					tupleID += lines.size();
+					lines = new ArrayList<>(BATCH_SIZE);
+				}
+				while(window.size() > 2 * numofthreads||
+						(line==null&&!window.isEmpty()))
+					write(window.poll().get());
+				if(line==null) break;
+			}
+			read.close();
+			writePage();
+			out.close();
+			zonemap.write(result);
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			pool.shutdown();
+		}
+		bytes = csv.length();
+		time = Math.max(1, System.currentTimeMillis() - start);
+		System.out.println("Loaded " + rows + " rows in " + time + " ms: " +
+				(long)getRowsPerSecond() + " rows/s, " +
+				String.format("%.2f", getMegabytesPerSecond()) + " MB/s.");
+		return result;
+	}
+
+	/**
+	 * This is the getter method of the number of rows loaded last time.
+	 * @return the number of rows.
+	 */
+	public long getRows() {
+		return rows;
+	}
+
+	/**
+	 * This method is used to get the number of rows loaded per second.
+	 * @return the number of rows per second of the last load.
+	 */
+	public double getRowsPerSecond() {
+		return rows * 1000.0 / time;
+	}
+
+	/**
+	 * This method is used to get the number of megabytes of the CSV file
+	 * loaded per second.
+	 * @return the number of megabytes per second of the last load.
+	 */
+	public double getMegabytesPerSecond() {
+		return bytes * 1000.0 / time / (1 << 20);
+	}
+
+	/**
+	 * This method is run by the threads in the pool: it parses the lines
+	 * of the batch and writes the bytes of each tuple one after another.
+	 * @param lines the lines of the batch.
+	 * @param tupleID the tuple ID of the first line.
+	 * @return the batch that stores the bytes of the tuples.
+	 */
+	private Batch encode(List<String> lines, long tupleID) {
+		TimeConversion conversion = convert.get();
+		Batch batch = new Batch(lines.size(), types.length);
+		for(String line : lines) {
+			batch.ensure(9 + 8 * types.length + line.length());
+			batch.put((byte)1);
+			batch.putLong(tupleID++);
+			int start = 0;
+			for(int i=0;i<types.length;i++) {
+				int end = line.indexOf(',', start);
+				if(end < 0) end = line.length();
+				long bits = 0;
+				if(types[i]==1)
+					bits = Long.parseLong(line, start, end, 10);
+				else if(types[i]==2) {
+					batch.put((byte)(end - start));
+					for(int j=start;j<end;j++)
+						batch.put((byte)line.charAt(j));
+				}else {
+					String value = line.substring(start, end);
+					double data = 0;
+					if(types[i]==3) data = conversion.fromDateToNumber(value);
+					else if(types[i]==4) data = conversion.fromTimeToNumber(value);
+					else data = Double.parseDouble(value);
+					bits = Double.doubleToLongBits(data);
+				}
+				if(types[i]!=2) {
+					batch.putLong(bits);
+					batch.values[batch.count * types.length + i] = bits;
+				}
+				start = end + 1;
+			}
+			batch.ends[batch.count++] = batch.size;
+		}
+		return batch;
+	}
+
+	/**
+	 * This method puts the tuples of the batch into the pages. A page is
+	 * written when the next tuple could not fit in it.
+	 * @param batch the batch that stores the bytes of the tuples.
+	 * @throws Exception throw this when the page could not be written.
+	 */
+	private void write(Batch batch) throws Exception {
+		int start = 0;
+		for(int i=0;i<batch.count;i++) {
+			int size = batch.ends[i] - start;
+			if(index + size > NUM_OF_BYTES) {
+				writePage();
+				startPage();
+			}
+			System.arraycopy(batch.data, start, page.array(), index, size);
+			index += size;
+			numoftuples++;
+			for(int j=0;j<types.length;j++) {
+				if(types[j]!=2)
+					zonemap.update(j, batch.values[i * types.length + j]);
+			}
+			start = batch.ends[i];
+		}
+		rows += batch.count;
+	}
+
+	/**
+	 * This method starts a new empty page.
+	 */
+	private void startPage() {
+		Arrays.fill(page.array(), (byte)0);
+		index = 4;
+		numoftuples = 0;
+		zonemap.addPage();
+	}
+
+	/**
+	 * This method writes the page that is being filled.
+	 * @throws Exception throw this when the page could not be written.
+	 */
+	private void writePage() throws Exception {
+		page.putInt(0, numoftuples);
+		out.writePage(page, PageCodec.getRuns(4, widths, numoftuples));
+	}
+
+	/**
+	 * This class stores the bytes of the tuples of a batch one after
+	 * another, the end of each tuple and the values of the attributes
+	 * that will be recorded in the zone map.
+	 */
+	private static class Batch {
+
+		private byte[] data; // this array stores the bytes of the tuples.
+		private int size; // this is the number of bytes used.
+		private int[] ends; // this array stores the end of each tuple.
+		private long[] values; // this array stores the values for the zone map.
+		private int count; // this is the number of tuples in the batch.
+
+		/**
+		 * Constructor: this constructor builds the batch for the lines.
+		 * @param numoflines the number of lines in the batch.
+		 * @param numofattributes the number of attributes of a tuple.
+		 */
+		Batch(int numoflines, int numofattributes) {
+			data = new byte[numoflines * 64];
+			ends = new int[numoflines];
+			values = new long[numoflines * numofattributes];
+		}
+
+		/**
+		 * This method makes sure the array has room for the bytes.
+		 * @param length the number of bytes that will be written.
+		 */
+		void ensure(int length) {
+			if(size + length > data.length)
+				data = Arrays.copyOf(data, Math.max(2 * data.length, size + length));
+		}
+
+		/**
+		 * This method writes a byte.
+		 * @param value the byte.
+		 */
+		void put(byte value) {
+			data[size++] = value;
+		}
+
+		/**
+		 * This method writes a long integer in the big endian form.
+		 * @param value the long integer.
+		 */
+		void putLong(long value) {
+			for(int i=56;i>=0;i-=8)
+				data[size++] = (byte)(value >>> i);
+		}
+
+	}
+
+}
@@ -1,6 +1,7 @@
 package Support;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -8,6 +9,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import BPlusTree.BPlusTree;
 import SmallSQLServer.Main;
 
 /** 
@@ -18,6 +20,14 @@ import SmallSQLServer.Main;
  * The first one is always the name of the table. 
  * The rest stores all the attributes, first it saves the name, and then
  * it tells the data type of the value.
+ * The table could be stored either in the row form (.b) or in the columnar
+ * form (.c) in the data directory, the format is decided by the file found.
+ * The table in the row form could have a tree on an attribute, which is
+ * stored in the directory next to the file of the table.
+ * The size of the table is estimated by the size of the file, which is
+ * used by the planner to choose the order of the joins. When the table
+ * has been analyzed, the statistics stored in the file next to the schema
+ * file are used instead.
  * @author messfish
  *
  */
@@ -27,6 +37,12 @@ public class Catalog {
 	// this is the location of the data directory.
 	private static final String schema = "/db/schema.txt";
 	// this is the location of the schema file.
+	private static final String statistics = "/db/statistics.txt";
+	// this is the location of the statistics file.
+	private static final int NUM_OF_BYTES = 16384;
+	// this is the number of bytes in a single page.
+	private static final int STRING_WIDTH = 16;
+	// this is the estimated number of bytes of a string.
 	private Map<String, Map<String, Mule>> table_schema;
 	// this variable uses the table name as the key and stores 
 	// the schema in the map as the value.
@@ -36,6 +52,16 @@ public class Catalog {
 	private Map<String, List<String>> attributes_map;
 	// this variable uses the table name as the key and stores 
 	// a list of string that is the list of attributes in the table.
+	private Map<String, Boolean> mapped_map;
+	// this variable uses the table name as the key and stores whether
+	// the table should be scanned in the memory mapped mode. The table
+	// that is not in the map follows the global scan mode.
+	private Map<String, Boolean> columnar_map;
+	// this variable uses the table name as the key and stores whether
+	// the table is stored in the columnar form.
+	private Map<String, TableStatistics> statistics_map;
+	// this variable uses the table name as the key and stores the
+	// statistics collected by the analyzer as the value.
 	
 	/**
 	 * Constructor: This constructor sets the schema map which will be
@@ -48,13 +74,21 @@ public class Catalog {
 		table_schema = new HashMap<>();
 		file_map = new HashMap<>();
 		attributes_map = new HashMap<>();
+		mapped_map = new HashMap<>();
+		columnar_map = new HashMap<>();
+		statistics_map = TableStatistics.read(new File(Main.getInput() 
+				+ statistics));
 		try{
 			FileReader fread = new FileReader(Main.getInput() + schema);
 			BufferedReader buff = new BufferedReader(fread);
 			String s = null;
 			while((s = buff.readLine())!=null) {
 				String[] str = s.split("\\s+");
-				file_map.put(str[0], Main.getInput() + base + str[0] + ".b");
+				String location = Main.getInput() + base + str[0];
+				/* use the columnar form when the table is written in it. */
+				boolean columnar = new File(location + ".c").exists();
+				columnar_map.put(str[0], columnar);
+				file_map.put(str[0], location + (columnar ? ".c" : ".b"));
 				/* the map stores the name of the table as the key and
 				 * a uniformed structure as the value. */
 				Map<String, Mule> schema = new HashMap<>();
@@ -106,4 +140,118 @@ public class Catalog {
 		return attributes_map.get(s);
 	}
 	
+	/**
+	 * This method is used to set the scan mode of a single table.
+	 * @param s the table name.
+	 * @param mapped true means the table will be memory mapped.
+	 */
+	public void setMemoryMapped(String s, boolean mapped) {
+		mapped_map.put(s, mapped);
+	}
+	
+	/**
+	 * This method tells whether the table should be scanned in the 
+	 * memory mapped mode. If the table does not set its own mode, 
+	 * use the global scan mode from the main class.
+	 * @param s the table name.
+	 * @return true if the table should be memory mapped.
+	 */
+	public boolean isMemoryMapped(String s) {
+		if(!mapped_map.containsKey(s)) return Main.isMemoryMapped();
+		return mapped_map.get(s);
+	}
+	
+	/**
+	 * This method tells whether the table is stored in the columnar form.
+	 * @param s the table name.
+	 * @return true if the table is stored in the columnar form, false if
+	 * it is stored in the row form or the table does not exist.
+	 */
+	public boolean isColumnar(String s) {
+		if(!columnar_map.containsKey(s)) return false;
+		return columnar_map.get(s);
+	}
+	
+	/**
+	 * This method returns the statistics of the table.
+	 * @param s the table name.
+	 * @return the statistics, null if the table is not analyzed.
+	 */
+	public TableStatistics getStatistics(String s) {
+		if(!statistics_map.containsKey(s)) return null;
+		return statistics_map.get(s);
+	}
+	
+	/**
+	 * This method is used to keep the statistics of the table, and write
+	 * the statistics of all the tables into the statistics file.
+	 * @param s the table name.
+	 * @param stats the statistics of the table.
+	 */
+	public void setStatistics(String s, TableStatistics stats) {
+		statistics_map.put(s, stats);
+		TableStatistics.write(new File(Main.getInput() + statistics), 
+				statistics_map);
+	}
+	
+	/**
+	 * This method returns the number of pages of the table, which is
+	 * taken from the statistics or estimated by the size of the file.
+	 * @param s the table name.
+	 * @return the number of pages, at least 1 when the table exists.
+	 */
+	public long getPageCount(String s) {
+		if(!file_map.containsKey(s)) return 0;
+		if(statistics_map.containsKey(s))
+			return Math.max(1, statistics_map.get(s).getPageCount());
+		return Math.max(1, new File(file_map.get(s)).length() / NUM_OF_BYTES);
+	}
+	
+	/**
+	 * This method returns the estimated number of bytes of a tuple in
+	 * the table: the valid byte, the tuple ID and the attributes, a
+	 * string is counted as a fixed number of bytes.
+	 * @param s the table name.
+	 * @return the number of bytes of a tuple.
+	 */
+	public int getTupleWidth(String s) {
+		int width = 9;
+		if(!table_schema.containsKey(s)) return width;
+		for(Mule mule : table_schema.get(s).values())
+			width += mule.getDataType()==2 ? STRING_WIDTH : 8;
+		return width;
+	}
+	
+	/**
+	 * This method returns the estimated number of tuples in the table.
+	 * When the table is not analyzed, it is the number of bytes of the 
+	 * pages divided by the number of bytes of a tuple. Notice the 
+	 * estimation is rough when the pages are compressed or the strings 
+	 * are encoded.
+	 * @param s the table name.
+	 * @return the estimated number of tuples.
+	 */
+	public double getTupleCount(String s) {
+		if(statistics_map.containsKey(s))
+			return statistics_map.get(s).getRowCount();
+		return (double)getPageCount(s) * NUM_OF_BYTES / getTupleWidth(s);
+	}
+	
+	/**
+	 * This method returns the location of the tree built on the attribute.
+	 * Notice the directory is checked every time, so the tree built after
+	 * the catalog is read could still be found.
+	 * @param s the table name.
+	 * @param attribute the attribute without the table name.
+	 * @return the location of the tree, null if the table is not in the
+	 * row form or there is no tree on the attribute.
+	 */
+	public String getIndex(String s, String attribute) {
+		if(!file_map.containsKey(s)||isColumnar(s)) return null;
+		File directory = BPlusTree.getDirectory(new File(file_map.get(s)),
+				attribute);
+		if(!directory.isDirectory()) return null;
+		return directory.getPath() + "/";
+	}
+	
 }
@@ -0,0 +1,168 @@
+package Support;
+
+import TableElement.DataType;
+
+/**
+ * This class stores the statistics of a single attribute collected by
+ * the analyzer: the smallest and the largest value, the fraction of the
+ * null values, the estimated number of distinct values with the sketch
+ * that gives it, the bounds of the equi-depth histogram and the most
+ * common values with their frequencies.
+ * Every bucket of the histogram holds about the same number of values,
+ * so the bounds are closer where the values are crowded. The frequency
+ * of a common value is the fraction of the tuples that have it.
+ * @author messfish
+ *
+ */
+public class ColumnStatistics {
+	
+	private int type; // the type of the attribute: 1, 2 or 5.
+	private double nullfraction; // the fraction of the null values.
+	private double distinct; // the estimated number of distinct values.
+	private HyperLogLog sketch; // the sketch of the distinct values.
+	private DataType min, max; // the smallest and the largest value.
+	private DataType[] histogram;
+	// this array stores the bounds of the buckets in the ascending order.
+	private DataType[] common; // the most common values.
+	private double[] frequencies;
+	// this array stores the frequency of each common value.
+	
+	/**
+	 * Constructor: this constructor builds the statistics of an attribute
+	 * that has no value yet.
+	 * @param type the type of the attribute.
+	 */
+	public ColumnStatistics(int type) {
+		this.type = type;
+		sketch = new HyperLogLog();
+		histogram = new DataType[0];
+		common = new DataType[0];
+		frequencies = new double[0];
+	}
+	
+	/**
+	 * This is the getter method of the type.
+	 * @return the type of the attribute.
+	 */
+	public int getType() {
+		return type;
+	}
+	
+	/**
+	 * This is the getter method of the null fraction.
+	 * @return the fraction of the null values.
+	 */
+	public double getNullFraction() {
+		return nullfraction;
+	}
+	
+	/**
+	 * This is the setter method of the null fraction.
+	 * @param nullfraction the fraction of the null values.
+	 */
+	public void setNullFraction(double nullfraction) {
+		this.nullfraction = nullfraction;
+	}
+	
+	/**
+	 * This is the getter method of the number of distinct values.
+	 * @return the estimated number of distinct values.
+	 */
+	public double getDistinct() {
+		return distinct;
+	}
+	
+	/**
+	 * This is the setter method of the number of distinct values.
+	 * @param distinct the estimated number of distinct values.
+	 */
+	public void setDistinct(double distinct) {
+		this.distinct = distinct;
+	}
+	
+	/**
+	 * This is the getter method of the sketch.
+	 * @return the sketch of the distinct values.
+	 */
+	public HyperLogLog getSketch() {
+		return sketch;
+	}
+	
+	/**
+	 * This is the setter method of the sketch.
+	 * @param sketch the sketch of the distinct values.
+	 */
+	public void setSketch(HyperLogLog sketch) {
+		this.sketch = sketch;
+	}
+	
+	/**
+	 * This is the getter method of the smallest value.
+	 * @return the smallest value, null if there is no value.
+	 */
+	public DataType getMin() {
+		return min;
+	}
+	
+	/**
+	 * This is the getter method of the largest value.
+	 * @return the largest value, null if there is no value.
+	 */
+	public DataType getMax() {
+		return max;
+	}
+	
+	/**
+	 * This method is used to set the smallest and the largest value.
+	 * @param min the smallest value.
+	 * @param max the largest value.
+	 */
+	public void setRange(DataType min, DataType max) {
+		this.min = min;
+		this.max = max;
+	}
+	
+	/**
+	 * This is the getter method of the histogram.
+	 * @return the bounds of the buckets in the ascending order, there is
+	 * one more bound than the number of buckets.
+	 */
+	public DataType[] getHistogram() {
+		return histogram;
+	}
+	
+	/**
+	 * This is the setter method of the histogram.
+	 * @param histogram the bounds of the buckets in the ascending order.
+	 */
+	public void setHistogram(DataType[] histogram) {
+		this.histogram = histogram;
+	}
+	
+	/**
+	 * This is the getter method of the most common values.
+	 * @return the most common values, the most frequent one comes first.
+	 */
+	public DataType[] getCommonValues() {
+		return common;
+	}
+	
+	/**
+	 * This is the getter method of the frequencies of the common values.
+	 * @return the frequencies in the same order as the common values.
+	 */
+	public double[] getFrequencies() {
+		return frequencies;
+	}
+	
+	/**
+	 * This method is used to set the most common values.
+	 * @param common the most common values.
+	 * @param frequencies the frequency of each common value.
+	 */
+	public void setCommonValues(DataType[] common, double[] frequencies) {
+		this.common = common;
+		this.frequencies = frequencies;
+	}
+	
+}
@@ -2,15 +2,19 @@ package Support;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import SmallSQLServer.Main;
+import Storage.Dictionary;
+import Storage.PageCodec;
+import Storage.PageWriter;
+import Storage.ZoneMap;
 
 /**
  * This class is used to convert the human readable file into
@@ -26,6 +30,20 @@ import SmallSQLServer.Main;
  * of each single table, the first one is the order of that table, followed
  * by the data of that table. Notice there should be a byte indicates the 
  * length of the string if the data type is a string.
+ * The converter could also write the table in the columnar form, which
+ * uses the same header. For each page, the first integer is the number of
+ * tuples, followed by an integer for each column (the tuple ID comes first)
+ * which is the starting point of the mini page of that column. The mini
+ * page stores the values of that column one by one in the same way as 
+ * the row form. Notice there is no valid byte in the columnar form.
+ * For both forms, the minimum and the maximum value of each attribute in
+ * each page are recorded in the zone map, which is written next to the file.
+ * When the dictionary encoding is turned on, the string attributes will
+ * be written with type 6, and the tuple stores the code of the string in
+ * the dictionary, which is written next to the file as well.
+ * When the compression is turned on, the pages will be compressed, and
+ * the long and double attributes are passed to the page writer as runs so
+ * they could be stored in the frame of reference form.
  * @author messfish
  *
  */
@@ -36,6 +54,15 @@ public class HumanToBinary {
 	// to 16KB, so this is the number of bytes for that size.
 	private TimeConversion convert = new TimeConversion();
 	private StringBuilder sb;
+	private List<byte[]> pending;
+	// this is the tuple that could not be written to the former columnar page.
+	private ZoneMap zonemap; // this is the zone map of the file.
+	private boolean encoded;
+	// this flag shows whether the strings will be dictionary encoded.
+	private Dictionary[] dictionaries;
+	// this array stores the dictionary of each encoded attribute.
+	private boolean compressed;
+	// this flag shows whether the pages will be compressed.
 	
 	/**
 	 * This method is the main method that convert the human readable
@@ -46,42 +73,129 @@ public class HumanToBinary {
 	 * @return the file in the binary form.
 	 */
 	public File convert(File file, String title) {
-		File result = new File(Main.getTest()+"/conversiontest/"+title+".b");
+		return convert(file, title, false);
+	}
+	
+	/**
+	 * This method converts the human readable file into either the row
+	 * form (.b) or the columnar form (.c). Notice the format of the file
+	 * should be followed from the definition of the class.
+	 * @param file the human readable file.
+	 * @param title the name of the table that needs to be converted.
+	 * @param columnar true means the file will be written in columnar form.
+	 * @return the file in the binary form.
+	 */
+	public File convert(File file, String title, boolean columnar) {
+		String extension = columnar ? ".c" : ".b";
+		File result = new File(Main.getTest()+"/conversiontest/"+title+extension);
 		List<Integer> typelist = new ArrayList<>();
 		try {
-			FileOutputStream out = new FileOutputStream(result);
-			FileChannel fc = out.getChannel();
+			PageWriter out = new PageWriter(result, compressed);
 			BufferedReader read = new BufferedReader(new FileReader(file));
 			String str = read.readLine();
 			String[] array = str.split("\\s+");
 			ByteBuffer buffer = writeHead(array, typelist);
-			buffer.limit(buffer.capacity());
-			buffer.position(0);
-			fc.write(buffer);
+			out.writePage(buffer);
+			int[] types = new int[typelist.size()];
+			for(int i=0;i<types.length;i++)
+				types[i] = typelist.get(i);
+			zonemap = new ZoneMap(types);
+			if(encoded)
+				buildDictionaries(file, typelist);
 			sb = new StringBuilder();
-			while(true) {
+			pending = null;
+			while(columnar) {
+				buffer = writeColumnPage(read, typelist);
+				out.writePage(buffer, getRuns(buffer, typelist, true));
+				if(pending==null) break;
+			}
+			while(!columnar) {
 				buffer = writePage(read, typelist);
-				buffer.limit(buffer.capacity());
-				buffer.position(0);
-				fc.write(buffer);
+				out.writePage(buffer, getRuns(buffer, typelist, false));
 				if(sb.length()==0) break;
 			}
 			read.close();
 			out.close();
+			zonemap.write(result);
+			if(encoded) {
+				List<Dictionary> list = new ArrayList<>();
+				for(Dictionary dictionary : dictionaries)
+					if(dictionary!=null) list.add(dictionary);
+				Dictionary.write(result, list);
+			}
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 		return result;
 	}
 
+	/**
+	 * This method is used to set whether the string attributes will be
+	 * stored in the dictionary encoded form (type 6). In that form, the 
+	 * tuple stores the code of the string instead of the string itself,
+	 * and the dictionaries are written into the side file.
+	 * @param encoded true means the strings will be encoded.
+	 */
+	public void setDictionaryEncoded(boolean encoded) {
+		this.encoded = encoded;
+	}
+
+	/**
+	 * This method is used to set whether the pages will be compressed.
+	 * @param compressed true means the pages will be compressed.
+	 */
+	public void setCompressed(boolean compressed) {
+		this.compressed = compressed;
+	}
+
+	/**
+	 * This method is used to find the runs of the 8-byte values in the
+	 * page, which will be stored in the frame of reference form when the
+	 * page is compressed. For the columnar form, every mini page of the 
+	 * long and double values is a run. For the row form, the values of an
+	 * attribute form a run only if every tuple has the same size.
+	 * @param buffer the byte buffer that stores the page.
+	 * @param typelist the list that stores the type of the attribute.
+	 * @param columnar true means the page is in the columnar form.
+	 * @return the array of runs, null means there are no runs.
+	 */
+	private int[] getRuns(ByteBuffer buffer, List<Integer> typelist,
+			boolean columnar) {
+		int count = buffer.getInt(0);
+		int[] widths = new int[typelist.size() + 2];
+		/* the valid byte and the tuple ID come first. */
+		widths[0] = 1;
+		widths[1] = 8;
+		for(int i=0;i<typelist.size();i++) {
+			int type = typelist.get(i);
+			if(type==2) widths[i + 2] = -1;
+			else if(type==6) widths[i + 2] = dictionaries[i].getWidth();
+			else widths[i + 2] = 8;
+		}
+		if(!columnar)
+			return PageCodec.getRuns(4, widths, count);
+		List<Integer> list = new ArrayList<>();
+		for(int i=1;i<widths.length;i++) {
+			if(widths[i]!=8) continue;
+			list.add(buffer.getInt(4 * i));
+			list.add(count);
+			list.add(8);
+		}
+		int[] result = new int[list.size()];
+		for(int i=0;i<result.length;i++)
+			result[i] = list.get(i);
+		return result;
+	}
+
 	/**
 	 * This method is used to write the head of the file. Notice it should
-	 * follow the format that is defined in the class.
+	 * follow the format that is defined in the class. The bulk loader uses
+	 * this method as well, so the two files share the same head.
 	 * @param array the array that stores the schema of the table.
 	 * @param typelist a list that stores the type of the data.
 	 * @return the byte buffer which stores the data.
 	 */
-	private ByteBuffer writeHead(String[] array, List<Integer> typelist) {
+	ByteBuffer writeHead(String[] array, List<Integer> typelist) {
 		ByteBuffer result = ByteBuffer.allocate(NUM_OF_BYTES);
 		result.put((byte)1);
 		int index = 1;
@@ -94,6 +208,8 @@ public class HumanToBinary {
 				index++;
 			}
 			int type = Integer.parseInt(array[i+1]);
+			/* the string will be stored as a code in the dictionary. */
+			if(encoded&&type==2) type = 6;
 			result.put(index, (byte)type);
 			typelist.add(type);
 			index++;
@@ -112,26 +228,31 @@ public class HumanToBinary {
 	private ByteBuffer writePage(BufferedReader read, List<Integer> typeList) {
 		ByteBuffer buffer = ByteBuffer.allocate(NUM_OF_BYTES);
 		int numoftuples = 0, index = 4;
+		zonemap.addPage();
 		/* this is the tuple that cannot be written to the former buffer.
 		 * so we need to handle that in advance. */
 		if(sb.length()!=0) {
-			List<Byte> list = writeLine(index, sb.toString(), typeList);
+			List<byte[]> fields = parseLine(sb.toString(), typeList);
+			List<Byte> list = writeLine(index, fields);
 			for(byte data : list) {
 				buffer.put(index, data);
 				index++;
 			}
+			record(fields, typeList);
 			numoftuples++;
 		}
 		String temp = null;
 		try {
 			while((temp=read.readLine())!=null) {
 				sb = new StringBuilder(temp);
-				List<Byte> list = writeLine(index, sb.toString(), typeList);
+				List<byte[]> fields = parseLine(temp, typeList);
+				List<Byte> list = writeLine(index, fields);
 				if(list==null) break;
 				for(byte data : list) {
 					buffer.put(index, data);
 					index++;
 				}
+				record(fields, typeList);
 				numoftuples++;
 			}
 			/* this means no more tuples left, I get the string builder to a 
@@ -145,85 +266,225 @@ public class HumanToBinary {
 		return buffer;
 	}
 	
+	/**
+	 * This method is used for writing the page of the columnar form. The
+	 * tuples are parsed and kept until the page is full, then every column
+	 * is written as a mini page one by one.
+	 * @param read the buffered reader to get lines out from human file.
+	 * @param typelist the list that stores the type of the attribute.
+	 * @return the byte buffer that contains the data written.
+	 */
+	private ByteBuffer writeColumnPage(BufferedReader read, List<Integer> typelist) {
+		ByteBuffer buffer = ByteBuffer.allocate(NUM_OF_BYTES);
+		int numofcolumns = typelist.size() + 1;
+		List<List<byte[]>> tuples = new ArrayList<>();
+		/* the page starts with the number of tuples and the offsets. */
+		int size = 4 + 4 * numofcolumns;
+		zonemap.addPage();
+		if(pending!=null) {
+			record(pending, typelist);
+			tuples.add(pending);
+			size += checkSize(pending);
+			pending = null;
+		}
+		String temp = null;
+		try {
+			while((temp=read.readLine())!=null) {
+				List<byte[]> fields = parseLine(temp, typelist);
+				if(size + checkSize(fields) > NUM_OF_BYTES) {
+					pending = fields;
+					break;
+				}
+				record(fields, typelist);
+				tuples.add(fields);
+				size += checkSize(fields);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		buffer.putInt(0, tuples.size());
+		int index = 4 + 4 * numofcolumns;
+		for(int i=0;i<numofcolumns;i++) {
+			buffer.putInt(4 + 4 * i, index);
+			for(List<byte[]> fields : tuples) {
+				for(byte data : fields.get(i)) {
+					buffer.put(index, data);
+					index++;
+				}
+			}
+		}
+		return buffer;
+	}
+	
+	/**
+	 * This method is used to record the attributes of the parsed tuple in
+	 * the zone map. Notice the first field is the tuple ID, skip it.
+	 * @param fields the list of the parsed fields.
+	 * @param typelist the list that stores the type of the attribute.
+	 */
+	private void record(List<byte[]> fields, List<Integer> typelist) {
+		for(int i=1;i<fields.size();i++) {
+			if(typelist.get(i - 1)!=2&&typelist.get(i - 1)!=6)
+				zonemap.update(i - 1, ByteBuffer.wrap(fields.get(i)).getLong());
+		}
+	}
+	
+	/**
+	 * This method is used to count the number of bytes of a parsed tuple.
+	 * @param fields the list of the parsed fields.
+	 * @return the number of bytes to store the tuple.
+	 */
+	private int checkSize(List<byte[]> fields) {
+		int size = 0;
+		for(byte[] field : fields)
+			size += field.length;
+		return size;
+	}
+	
 	/**
 	 * This method is used to write the line in the buffer page. Notice
 	 * it should follow the method in the class definition. If the 
-	 * byte buffer could not handle that line, return null. Note that the 1
-	 * is the long integer, 2 is the string value, 3 is the date value and
-	 * 4 is the time value, 5 is the double integer.
+	 * byte buffer could not handle that line, return null.
 	 * @param index the starting point of the byte buffer page.
-	 * @param s the string that needs to be parsed.
-	 * @param typeList the array that stores the type of data.
+	 * @param fields the list of the parsed fields of the line.
 	 * @return an array list storing bytes, null means we have an overflow.
 	 */
-	private List<Byte> writeLine(int index, String s, List<Integer> typeList) {
+	private List<Byte> writeLine(int index, List<byte[]> fields) {
 		List<Byte> result = new ArrayList<>();
 		/* this byte is used to check whether the tuple is valid. 
 		 * since it is always valid, we append 1 to it. */
 		result.add((byte)1);
-		int point = 0, attribute = 0;
-		long first = 0;
-		while(s.charAt(point)!=' ') {
-			first = first * 10 + (long)(s.charAt(point) - '0');
-			point++;
+		for(byte[] field : fields) {
+			for(byte data : field)
+				result.add(data);
 		}
-		storeData(first, result);
-		point++;
-		while(point<s.length()) {
-			int nums = 0;
-			while(point<s.length()&&s.charAt(point)!='/') {
-				nums = nums * 10 + (int)(s.charAt(point) - '0');
-				point++;
-			}
-			point++;
-			String fetch = s.substring(point, point+nums);
+		/* this indicates the byte buffer cannot handle the line. */
+		if(index + result.size() > NUM_OF_BYTES)
+			return null;
+		return result;
+	}
+	
+	/**
+	 * This method is used to parse the line into a list of fields, the
+	 * tuple ID comes first and followed by the attributes. Each field
+	 * is stored as the bytes that will be written in the file. Note that 
+	 * the 1 is the long integer, 2 is the string value, 3 is the date value
+	 * and 4 is the time value, 5 is the double integer, 6 is the string
+	 * value encoded by the dictionary.
+	 * @param s the string that needs to be parsed.
+	 * @param typeList the array that stores the type of data.
+	 * @return an array list storing the fields in bytes.
+	 */
+	private List<byte[]> parseLine(String s, List<Integer> typeList) {
+		List<byte[]> result = new ArrayList<>();
+		List<String> values = splitLine(s);
+		result.add(storeData(Long.parseLong(values.get(0))));
+		for(int attribute=0;attribute<values.size()-1;attribute++) {
+			String fetch = values.get(attribute + 1);
 			if(typeList.get(attribute)==1) {
 				long data = Long.parseLong(fetch);
-				storeData(data, result);
+				result.add(storeData(data));
 			}else if(typeList.get(attribute)==2) {
-				result.add((byte)fetch.length());
-				for(char c : fetch.toCharArray())
-					result.add((byte)c);
+				byte[] field = new byte[fetch.length() + 1];
+				field[0] = (byte)fetch.length();
+				for(int i=0;i<fetch.length();i++)
+					field[i + 1] = (byte)fetch.charAt(i);
+				result.add(field);
+			}else if(typeList.get(attribute)==6) {
+				Dictionary dict = dictionaries[attribute];
+				ByteBuffer field = ByteBuffer.allocate(dict.getWidth());
+				if(dict.getWidth()==2)
+					field.putShort((short)dict.getCode(fetch));
+				else field.putInt(dict.getCode(fetch));
+				result.add(field.array());
 			}else if(typeList.get(attribute)==3) {
 				double change = convert.fromDateToNumber(fetch);
 				long lng = Double.doubleToLongBits(change);
-				storeData(lng, result);
+				result.add(storeData(lng));
 			}else if(typeList.get(attribute)==4) {
 				double change = convert.fromTimeToNumber(fetch);
 				long lng = Double.doubleToLongBits(change);
-				storeData(lng, result);
+				result.add(storeData(lng));
 			}else if(typeList.get(attribute)==5) {
 				double data = Double.parseDouble(fetch);
 				long lng = Double.doubleToLongBits(data);
-				storeData(lng, result);
+				result.add(storeData(lng));
 			}
 			/* this is mainly used for debugging. */
 			else {
 				System.out.println("You get an invalid type!");
 			}
+		}
+		return result;
+	}
+	
+	/**
+	 * This method is used to split the line into a list of values, the
+	 * tuple ID comes first and followed by the attributes. Notice every
+	 * attribute starts with its length and a slash.
+	 * @param s the string that needs to be split.
+	 * @return the list of values in the line.
+	 */
+	private List<String> splitLine(String s) {
+		List<String> result = new ArrayList<>();
+		int point = s.indexOf(' ');
+		result.add(s.substring(0, point));
+		point++;
+		while(point<s.length()) {
+			int nums = 0;
+			while(point<s.length()&&s.charAt(point)!='/') {
+				nums = nums * 10 + (int)(s.charAt(point) - '0');
+				point++;
+			}
+			point++;
+			result.add(s.substring(point, point+nums));
 			point += nums + 1;
-			attribute++;
 		}
-		/* this indicates the byte buffer cannot handle the line. */
-		if(index + result.size() > NUM_OF_BYTES)
-			return null;
 		return result;
 	}
 	
 	/**
-	 * This method is used to convert the long integer as bytes and store
-	 * them in the array list of byte integers.
+	 * This method is used to read the whole human readable file and build
+	 * the dictionary for every attribute that will be encoded.
+	 * @param file the human readable file.
+	 * @param typelist the list that stores the type of the attribute.
+	 * @throws IOException throw this when the file could not be read.
+	 */
+	private void buildDictionaries(File file, List<Integer> typelist) 
+			throws IOException {
+		List<Set<String>> distinct = new ArrayList<>();
+		for(int i=0;i<typelist.size();i++)
+			distinct.add(new HashSet<>());
+		BufferedReader read = new BufferedReader(new FileReader(file));
+		/* skip the line of the schema. */
+		String temp = read.readLine();
+		while((temp=read.readLine())!=null) {
+			List<String> values = splitLine(temp);
+			for(int i=0;i<typelist.size();i++) {
+				if(typelist.get(i)==6)
+					distinct.get(i).add(values.get(i + 1));
+			}
+		}
+		read.close();
+		dictionaries = new Dictionary[typelist.size()];
+		for(int i=0;i<typelist.size();i++) {
+			if(typelist.get(i)==6)
+				dictionaries[i] = new Dictionary(distinct.get(i));
+		}
+	}
+	
+	/**
+	 * This method is used to convert the long integer as bytes.
 	 * @param data the number needs to be converted.
-	 * @param result the array list that stores a list of bytes.
+	 * @return the array of 8 bytes, the highest byte comes first.
 	 */
-	private void storeData(long data, List<Byte> result) {
-		long[] temp = new long[8];
+	private byte[] storeData(long data) {
+		byte[] result = new byte[8];
 		for(int i=7;i>=0;i--) {
-			temp[i] = data & 0xff;
+			result[i] = (byte)(data & 0xff);
 			data >>>= 8;
 		}
-		for(int i=0;i<8;i++)
-			result.add((byte)temp[i]);
+		return result;
 	}
 	
 }
@@ -0,0 +1,127 @@
+package Support;
+
+/**
+ * This class is the sketch that estimates the number of distinct values
+ * in a single pass with a fixed amount of memory. Every value is hashed
+ * into 64 bits, the first bits choose a register and the register keeps
+ * the largest position of the first one bit in the rest of the hash. The
+ * estimate is the harmonic mean of the registers, the small estimates are
+ * corrected by counting the registers that are still empty. With 2048
+ * registers the standard error is about 2.3 percent.
+ * The registers could be written as a hexadecimal string, so the sketch
+ * could be stored in the statistics file and read back.
+ * @author messfish
+ *
+ */
+public class HyperLogLog {
+	
+	private static final int BITS = 11;
+	// this is the number of bits of the hash that choose the register.
+	private byte[] registers; // the registers of the sketch.
+	
+	/**
+	 * Constructor: this constructor builds an empty sketch.
+	 */
+	public HyperLogLog() {
+		registers = new byte[1 << BITS];
+	}
+	
+	/**
+	 * Constructor: this constructor reads the sketch from the string
+	 * written by the toString() method.
+	 * @param hex the registers in the hexadecimal form.
+	 */
+	public HyperLogLog(String hex) {
+		this();
+		for(int i=0;i<registers.length&&2*i+1<hex.length();i++)
+			registers[i] = (byte)Integer.parseInt(hex.substring(2*i, 2*i+2), 16);
+	}
+	
+	/**
+	 * This method is used to add a long value into the sketch.
+	 * @param value the long value.
+	 */
+	public void addLong(long value) {
+		add(mix(value));
+	}
+	
+	/**
+	 * This method is used to add a double value into the sketch. The
+	 * negative zero is taken as the same value as the zero.
+	 * @param value the double value.
+	 */
+	public void addDouble(double value) {
+		if(value==0) value = 0.0;
+		add(mix(Double.doubleToLongBits(value)));
+	}
+	
+	/**
+	 * This method is used to add a string into the sketch, the string is
+	 * hashed by the 64 bits FNV-1a hash first.
+	 * @param value the string.
+	 */
+	public void addString(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for(int i=0;i<value.length();i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		add(mix(hash));
+	}
+	
+	/**
+	 * This method is used to put the hash into the register it belongs to.
+	 * @param hash the 64 bits hash of the value.
+	 */
+	private void add(long hash) {
+		int index = (int)(hash >>> (64 - BITS));
+		long rest = hash << BITS;
+		int rank = rest==0 ? 64 - BITS + 1 : Long.numberOfLeadingZeros(rest) + 1;
+		if(rank > registers[index])
+			registers[index] = (byte)rank;
+	}
+	
+	/**
+	 * This method is used to spread the bits of the value over the hash.
+	 * @param value the value.
+	 * @return the hash of the value.
+	 */
+	private static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+		value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+		return value ^ (value >>> 31);
+	}
+	
+	/**
+	 * This method is used to estimate the number of distinct values added.
+	 * @return the estimated number of distinct values.
+	 */
+	public double estimate() {
+		int m = registers.length, zeros = 0;
+		double sum = 0;
+		for(byte register : registers) {
+			sum += Math.pow(2, -register);
+			if(register==0) zeros++;
+		}
+		double result = 0.7213 / (1 + 1.079 / m) * m * m / sum;
+		/* the linear counting is more accurate for the small estimates. */
+		if(result <= 2.5 * m&&zeros > 0)
+			result = m * Math.log((double)m / zeros);
+		return result;
+	}
+	
+	/**
+	 * This method is used to write the registers in the hexadecimal form.
+	 * @return the string of the registers.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for(byte register : registers) {
+			if(register < 16) sb.append('0');
+			sb.append(Integer.toHexString(register));
+		}
+		return sb.toString();
+	}
+	
+}
@@ -0,0 +1,133 @@
+package Support;
+
+import java.util.Arrays;
+
+/**
+ * This class is a hash table that maps the long keys to the rows that
+ * have them, it is mainly used by the hash join. The keys are kept in a
+ * primitive array with the open addressing: a key that meets a slot taken
+ * by another key goes to the next slot. Each slot keeps the first and the
+ * last row of the key, and the rows with the same key are linked together
+ * by their numbers, so the rows of a key could be visited in the order
+ * they were put in. The rows are numbered from 0 by the caller.
+ * @author messfish
+ *
+ */
+public class LongHashTable {
+	
+	private static final int EMPTY = -1;
+	private long[] keys; // the keys in the slots.
+	private int[] first, last; // the first and the last row of each slot.
+	private int[] next; // the next row with the same key of each row.
+	private int mask; // the number of slots minus one.
+	private int size; // the number of keys in the table.
+	
+	/**
+	 * Constructor: this constructor builds the table with the number of
+	 * rows expected. The number of slots is a power of two and at least
+	 * twice the number of rows, so the table is at most half full.
+	 * @param rows the number of rows expected.
+	 */
+	public LongHashTable(int rows) {
+		int capacity = 16;
+		while(capacity < rows * 2) capacity <<= 1;
+		keys = new long[capacity];
+		first = new int[capacity];
+		last = new int[capacity];
+		Arrays.fill(first, EMPTY);
+		next = new int[Math.max(rows, 16)];
+		mask = capacity - 1;
+	}
+	
+	/**
+	 * This method is used to spread the bits of the key, so the keys that
+	 * are close to each other do not take the slots next to each other.
+	 * @param key the key.
+	 * @return the slot the key starts from.
+	 */
+	private int slot(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int)key & mask;
+	}
+	
+	/**
+	 * This method is used to put a row with the key into the table. The
+	 * table grows when it is half full.
+	 * @param key the key of the row.
+	 * @param row the number of the row.
+	 */
+	public void put(long key, int row) {
+		if(row >= next.length)
+			next = Arrays.copyOf(next, Math.max(row + 1, next.length * 2));
+		next[row] = EMPTY;
+		int index = slot(key);
+		while(first[index]!=EMPTY&&keys[index]!=key)
+			index = (index + 1) & mask;
+		if(first[index]==EMPTY) {
+			keys[index] = key;
+			first[index] = row;
+			last[index] = row;
+			if(++size * 2 > keys.length) grow();
+			return;
+		}
+		next[last[index]] = row;
+		last[index] = row;
+	}
+	
+	/**
+	 * This method is used to double the number of slots, the keys are
+	 * put into the new slots, the links of the rows stay the same.
+	 */
+	private void grow() {
+		long[] oldkeys = keys;
+		int[] oldfirst = first, oldlast = last;
+		keys = new long[oldkeys.length * 2];
+		first = new int[keys.length];
+		last = new int[keys.length];
+		Arrays.fill(first, EMPTY);
+		mask = keys.length - 1;
+		for(int i=0;i<oldkeys.length;i++) {
+			if(oldfirst[i]==EMPTY) continue;
+			int index = slot(oldkeys[i]);
+			while(first[index]!=EMPTY)
+				index = (index + 1) & mask;
+			keys[index] = oldkeys[i];
+			first[index] = oldfirst[i];
+			last[index] = oldlast[i];
+		}
+	}
+	
+	/**
+	 * This method is used to get the first row with the key.
+	 * @param key the key.
+	 * @return the number of the first row, -1 if there is none.
+	 */
+	public int get(long key) {
+		int index = slot(key);
+		while(first[index]!=EMPTY) {
+			if(keys[index]==key) return first[index];
+			index = (index + 1) & mask;
+		}
+		return EMPTY;
+	}
+	
+	/**
+	 * This method is used to get the next row with the same key.
+	 * @param row the number of the row.
+	 * @return the number of the next row, -1 if there is none.
+	 */
+	public int next(int row) {
+		return next[row];
+	}
+	
+	/**
+	 * This method is used to get the number of the keys in the table.
+	 * @return the number of the different keys.
+	 */
+	public int size() {
+		return size;
+	}
+	
+}
@@ -40,7 +40,7 @@ public class RandomTable {
 			sb.append("Test.Ta ").append("1 ").append("Test.Tb ")
 			  .append("5 ").append("Test.Tc ").append("3 ")
 			  .append("Test.Td ").append("4 ").append("Test.Te ")
-			  .append("3 ").append("\n");
+			  .append("2 ").append("\n");
 			BufferedWriter write = new BufferedWriter(new FileWriter(result));
 			while(size<limit) {
 				sb.append(size + 1).append(" ");
@@ -0,0 +1,262 @@
+package Support;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import TableElement.DataType;
+
+/**
+ * This class stores the statistics of a table collected by the analyzer:
+ * the number of tuples, the number of data pages and the statistics of
+ * every attribute. The statistics of all the tables are kept in a single
+ * file next to the schema file, and every line of the file is a record
+ * whose elements are separated by a space:
+ * TABLE name rows pages
+ * COLUMN name attribute type nullfraction distinct min max
+ * SKETCH name attribute registers
+ * HISTOGRAM name attribute number bounds...
+ * COMMON name attribute number (value frequency)...
+ * Every value is written in the same form as the human readable file:
+ * the length of the value, a slash and the value itself, so the string
+ * that has spaces could still be read back. The minimum and the maximum
+ * are written as 0/ when the table is empty.
+ * @author messfish
+ *
+ */
+public class TableStatistics {
+	
+	private String name; // this is the name of the table.
+	private double rows; // this is the estimated number of tuples.
+	private long pages; // this is the number of data pages.
+	private Map<String, ColumnStatistics> columns;
+	// this map uses the attribute without the table name as the key and
+	// stores the statistics of the attribute as the value.
+	
+	/**
+	 * Constructor: this constructor builds the statistics of the table
+	 * without any attribute.
+	 * @param name the name of the table.
+	 * @param rows the estimated number of tuples.
+	 * @param pages the number of data pages.
+	 */
+	public TableStatistics(String name, double rows, long pages) {
+		this.name = name;
+		this.rows = rows;
+		this.pages = pages;
+		columns = new LinkedHashMap<>();
+	}
+	
+	/**
+	 * This is the getter method of the name.
+	 * @return the name of the table.
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * This is the getter method of the number of tuples.
+	 * @return the estimated number of tuples.
+	 */
+	public double getRowCount() {
+		return rows;
+	}
+	
+	/**
+	 * This is the getter method of the number of pages.
+	 * @return the number of data pages.
+	 */
+	public long getPageCount() {
+		return pages;
+	}
+	
+	/**
+	 * This method is used to get the statistics of an attribute.
+	 * @param attribute the attribute without the table name.
+	 * @return the statistics, null if the attribute is not analyzed.
+	 */
+	public ColumnStatistics getColumn(String attribute) {
+		return columns.get(attribute);
+	}
+	
+	/**
+	 * This method is used to put the statistics of an attribute.
+	 * @param attribute the attribute without the table name.
+	 * @param column the statistics of the attribute.
+	 */
+	public void putColumn(String attribute, ColumnStatistics column) {
+		columns.put(attribute, column);
+	}
+	
+	/**
+	 * This method is used to read the statistics of all the tables from
+	 * the file. Nothing will be read when the file does not exist.
+	 * @param file the file of the statistics.
+	 * @return the map uses the name of the table as the key and stores
+	 * the statistics as the value.
+	 */
+	public static Map<String, TableStatistics> read(File file) {
+		Map<String, TableStatistics> result = new HashMap<>();
+		if(!file.exists()) return result;
+		try {
+			BufferedReader buff = new BufferedReader(new FileReader(file));
+			String s = null;
+			while((s = buff.readLine())!=null) {
+				String[] str = s.split("\\s+", 4);
+				if(str[0].equals("TABLE")) {
+					result.put(str[1], new TableStatistics(str[1],
+							Double.parseDouble(str[2]), Long.parseLong(str[3])));
+					continue;
+				}
+				TableStatistics table = result.get(str[1]);
+				if(table==null) continue;
+				if(str[0].equals("COLUMN")) {
+					String[] rest = str[3].split(" ", 4);
+					ColumnStatistics column = new ColumnStatistics
+							(Integer.parseInt(rest[0]));
+					column.setNullFraction(Double.parseDouble(rest[1]));
+					column.setDistinct(Double.parseDouble(rest[2]));
+					int[] position = new int[1];
+					DataType min = readValue(rest[3], position, column.getType());
+					DataType max = readValue(rest[3], position, column.getType());
+					column.setRange(min, max);
+					table.putColumn(str[2], column);
+					continue;
+				}
+				ColumnStatistics column = table.getColumn(str[2]);
+				if(column==null) continue;
+				if(str[0].equals("SKETCH"))
+					column.setSketch(new HyperLogLog(str[3]));
+				else if(str[0].equals("HISTOGRAM"))
+					column.setHistogram(readValues(str[3], column.getType(), false));
+				else if(str[0].equals("COMMON")) {
+					DataType[] values = readValues(str[3], column.getType(), true);
+					DataType[] common = new DataType[values.length / 2];
+					double[] frequencies = new double[common.length];
+					for(int i=0;i<common.length;i++) {
+						common[i] = values[2 * i];
+						frequencies[i] = values[2 * i + 1].getDouble();
+					}
+					column.setCommonValues(common, frequencies);
+				}
+			}
+			buff.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return result;
+	}
+	
+	/**
+	 * This method is used to write the statistics of all the tables into
+	 * the file, the file will be written over.
+	 * @param file the file of the statistics.
+	 * @param statistics the map of the statistics of the tables.
+	 */
+	public static void write(File file, Map<String, TableStatistics> statistics) {
+		try {
+			BufferedWriter write = new BufferedWriter(new FileWriter(file));
+			for(TableStatistics table : statistics.values()) {
+				String name = table.getName();
+				write.write("TABLE " + name + " " + table.getRowCount() + " "
+						+ table.getPageCount() + "\n");
+				for(Map.Entry<String, ColumnStatistics> entry :
+						table.columns.entrySet()) {
+					String prefix = name + " " + entry.getKey() + " ";
+					ColumnStatistics column = entry.getValue();
+					write.write("COLUMN " + prefix + column.getType() + " "
+							+ column.getNullFraction() + " " + column.getDistinct()
+							+ " " + writeValue(column.getMin()) + " "
+							+ writeValue(column.getMax()) + "\n");
+					write.write("SKETCH " + prefix + column.getSketch() + "\n");
+					StringBuilder sb = new StringBuilder("HISTOGRAM " + prefix);
+					sb.append(column.getHistogram().length);
+					for(DataType bound : column.getHistogram())
+						sb.append(" ").append(writeValue(bound));
+					write.write(sb.append("\n").toString());
+					sb = new StringBuilder("COMMON " + prefix);
+					sb.append(column.getCommonValues().length);
+					for(int i=0;i<column.getCommonValues().length;i++)
+						sb.append(" ").append(writeValue(column.getCommonValues()[i]))
+						  .append(" ").append(column.getFrequencies()[i]);
+					write.write(sb.append("\n").toString());
+				}
+			}
+			write.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * This method is used to write the value in the form of the length,
+	 * a slash and the value.
+	 * @param data the value, could be null.
+	 * @return the value in the string form.
+	 */
+	private static String writeValue(DataType data) {
+		if(data==null) return "0/";
+		String value = null;
+		if(data.getType()==1) value = String.valueOf(data.getLong());
+		else if(data.getType()==5) value = String.valueOf(data.getDouble());
+		else value = data.getString();
+		return value.length() + "/" + value;
+	}
+	
+	/**
+	 * This method is used to read the next value written by writeValue().
+	 * @param s the string that holds the values.
+	 * @param position the array that holds the start of the next value,
+	 * it is moved to the end of the value.
+	 * @param type the type of the value.
+	 * @return the value, null if the value is empty and not a string.
+	 */
+	private static DataType readValue(String s, int[] position, int type) {
+		int start = position[0];
+		while(s.charAt(start)==' ') start++;
+		int slash = s.indexOf('/', start);
+		int length = Integer.parseInt(s.substring(start, slash));
+		String value = s.substring(slash + 1, slash + 1 + length);
+		position[0] = slash + 1 + length;
+		if(type==1) return length==0 ? null : new DataType(Long.parseLong(value));
+		if(type==5) return length==0 ? null : new DataType(Double.parseDouble(value));
+		return new DataType(value);
+	}
+	
+	/**
+	 * This method is used to read the list of values that starts with the
+	 * number of values.
+	 * @param s the string that holds the number and the values.
+	 * @param type the type of the values.
+	 * @param paired true means every value is followed by a frequency.
+	 * @return the array of the values, the frequencies are put right after
+	 * their values as the double data types.
+	 */
+	private static DataType[] readValues(String s, int type, boolean paired) {
+		String[] head = s.split(" ", 2);
+		int number = Integer.parseInt(head[0]);
+		DataType[] result = new DataType[paired ? 2 * number : number];
+		int[] position = new int[1];
+		for(int i=0;i<number;i++) {
+			if(!paired) {
+				result[i] = readValue(head[1], position, type);
+				continue;
+			}
+			result[2 * i] = readValue(head[1], position, type);
+			int start = position[0] + 1, end = head[1].indexOf(' ', start);
+			if(end==-1) end = head[1].length();
+			result[2 * i + 1] = new DataType(Double.parseDouble
+					(head[1].substring(start, end)));
+			position[0] = end;
+		}
+		return result;
+	}
+	
+}
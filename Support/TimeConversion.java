@@ -1,5 +1,7 @@
 package Support;
 
+import SQLExpression.StringValue;
+
 /**
  * This class is mainly used to deal with the conversion between numeric
  * data to date value and time value.
@@ -92,7 +94,7 @@ public class TimeConversion {
 	 */
 	public double fromDateToNumber(String data) {
 		int period = 400 * 365 + 97;
-		String[] array = data.split("/");
+		String[] array = StringValue.unquote(data).split("/");
 		int[] dummy = new int[3];
 		for(int i=0;i<3;i++)
 			dummy[i] = Integer.parseInt(array[i]);
@@ -117,12 +119,12 @@ public class TimeConversion {
 	 * @return the numeric transformation of the time.
 	 */
 	public double fromTimeToNumber(String data) {
-		String[] array = data.split(":");
+		String[] array = StringValue.unquote(data).split(":");
 		int[] dummy = new int[3];
 		for(int i=0;i<3;i++)
 			dummy[i] = Integer.parseInt(array[i]);
 		int result = dummy[0] * 3600 + dummy[1] * 60 + dummy[2];
 		return result;
 	}
-
+	
 }
@@ -2,11 +2,16 @@ package TableElement;
 
 import java.io.File;
 
+import Storage.Dictionary;
+
 /**
  * As the name suggests, this class stores all kinds of data types
  * that could be available for the tuple. It could be a integer,
  * a double value or a string, or could even be a file which indicates
  * the result of a sub query.
+ * The string value could also be stored as a code in the dictionary, in
+ * that case the string will not be built until it is really needed, and
+ * two strings from the same dictionary will be compared by their codes.
  * @author messfish
  *
  */
@@ -17,6 +22,9 @@ public class DataType {
 	private double doubledata;
 	private String stringdata;
 	private File filedata;
+	private int code; // this is the code of the string in the dictionary.
+	private Dictionary dictionary;
+	// this is the dictionary of the string, null if it is a plain string.
 	
 	/**
 	 * Constructor: this constructor is used to store a long value
@@ -50,6 +58,18 @@ public class DataType {
 		this.stringdata = stringdata;
 	}
 	
+	/**
+	 * Constructor: this constructor is used to store a string value
+	 * that is encoded by the dictionary.
+	 * @param code the code of the string in the dictionary.
+	 * @param dictionary the dictionary of the string.
+	 */
+	public DataType(int code, Dictionary dictionary) {
+		type = 2;
+		this.code = code;
+		this.dictionary = dictionary;
+	}
+	
 	/**
 	 * Constructor: this constructor is used to store a File value
 	 * into the global variable.
@@ -81,9 +101,26 @@ public class DataType {
 	 * @return the string value.
 	 */
 	public String getString() {
+		if(dictionary!=null) return dictionary.getValue(code);
 		return stringdata;
 	}
 	
+	/**
+	 * This method is the getter method of the code of the string.
+	 * @return the code in the dictionary.
+	 */
+	public int getCode() {
+		return code;
+	}
+	
+	/**
+	 * This method is the getter method of the dictionary.
+	 * @return the dictionary, null if this is a plain string.
+	 */
+	public Dictionary getDictionary() {
+		return dictionary;
+	}
+	
 	/**
 	 * This method is the getter method of the file data.
 	 * @return the file value.
@@ -119,8 +156,16 @@ public class DataType {
 		}else if(this.type==5) {
 			if(this.doubledata < that.doubledata) return -1;
 			else if(this.doubledata > that.doubledata) return 1;
-		}else if(this.type==2) 
-			return this.stringdata.compareTo(that.stringdata);
+		}else if(this.type==2) {
+			/* compare the codes when the strings are encoded. */
+			if(this.dictionary!=null&&this.dictionary==that.dictionary)
+				return Integer.compare(this.code, that.code);
+			if(this.dictionary!=null&&that.dictionary==null)
+				return this.dictionary.compare(this.code, that.stringdata);
+			if(this.dictionary==null&&that.dictionary!=null)
+				return -that.dictionary.compare(that.code, this.stringdata);
+			return this.getString().compareTo(that.getString());
+		}
 		return 0;
 	}
 	
@@ -132,7 +177,7 @@ public class DataType {
 		if(type == 1) 
 			System.out.println(longdata);
 		if(type == 2)
-			System.out.println(stringdata);
+			System.out.println(getString());
 		if(type == 5)
 			System.out.println(doubledata);
 	}
@@ -0,0 +1,234 @@
+package TableElement;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import Storage.Dictionary;
+
+/**
+ * This class is the tuple that is backed by the bytes of a page. Instead
+ * of decoding all the fields when the tuple is read, it only keeps the
+ * page and the offset of each field, a field is decoded when it is asked.
+ * The operators that only pass the tuples through, or only look at one
+ * or two of the fields, do not build the strings of the rest.
+ * Notice the page must not be changed after the tuples are built on it,
+ * so the operators copy the page when the reader fills its buffers again
+ * for the pages after. The page could be a slice of the mapped file, which
+ * has no array behind it. The data of the tuple could not be changed, but
+ * the tuple IDs could.
+ * When the fields of the tuple are put one after another in the same way
+ * as the temporary files used by the sorting, the range of those bytes
+ * is kept as well, then the tuple could be written into another page by
+ * a single copy of the bytes.
+ * @author messfish
+ *
+ */
+public class PageTuple extends Tuple {
+	
+	private ByteBuffer page; // this is the page that holds the fields.
+	private int[] offsets; // this array stores the offset of each field.
+	private Dictionary[] dictionaries;
+	// this array stores the dictionary of each field that is encoded, the
+	// array is shared by the tuples and could be null.
+	private int start, length = -1;
+	// the range of the bytes in the form of the temporary file, -1 means
+	// the fields are not put in that form.
+	
+	/**
+	 * Constructor: this constructor builds the tuple on the page.
+	 * @param types the type of each data, it is shared by the tuples.
+	 * @param size the number of tuple IDs.
+	 * @param page the page that holds the fields.
+	 * @param offsets the offset of each field in the page.
+	 * @param dictionaries the dictionary of each encoded field, could be null.
+	 */
+	public PageTuple(byte[] types, int size, ByteBuffer page, int[] offsets,
+			Dictionary[] dictionaries) {
+		super(types, size, true);
+		this.page = page;
+		this.offsets = offsets;
+		this.dictionaries = dictionaries;
+	}
+	
+	/**
+	 * This method is used to set the range of the bytes when the fields
+	 * are put in the same form as the temporary file.
+	 * @param start the offset of the first byte.
+	 * @param length the number of bytes.
+	 */
+	public void setRange(int start, int length) {
+		this.start = start;
+		this.length = length;
+	}
+	
+	/**
+	 * This is the getter method of the number of bytes of the fields in
+	 * the form of the temporary file.
+	 * @return the number of bytes, -1 means the tuple is not in that form.
+	 */
+	public int getLength() {
+		return length;
+	}
+	
+	/**
+	 * This method is used to copy the bytes of the fields into the buffer.
+	 * Notice this only works when the tuple has the range of the bytes.
+	 * @param buffer the byte buffer that the bytes will be put in.
+	 * @param index the index shows the location to put in the byte buffer.
+	 */
+	public void copyTo(ByteBuffer buffer, int index) {
+		if(page.hasArray()) {
+			System.arraycopy(page.array(), start, buffer.array(), index, length);
+			return;
+		}
+		ByteBuffer source = page.duplicate();
+		source.limit(start + length);
+		source.position(start);
+		ByteBuffer target = buffer.duplicate();
+		target.position(index);
+		target.put(source);
+	}
+	
+	/**
+	 * This method is used to get the dictionary of the field.
+	 * @param index the index of the data.
+	 * @return the dictionary, null if the field is not encoded.
+	 */
+	@Override
+	public Dictionary getDictionary(int index) {
+		if(dictionaries==null) return null;
+		return dictionaries[index];
+	}
+	
+	/**
+	 * This method is used to get the long value of the data.
+	 * @param index the index of the data.
+	 * @return the long value.
+	 */
+	@Override
+	public long getLong(int index) {
+		return page.getLong(offsets[index]);
+	}
+	
+	/**
+	 * This method is used to get the double value of the data.
+	 * @param index the index of the data.
+	 * @return the double value.
+	 */
+	@Override
+	public double getDouble(int index) {
+		return page.getDouble(offsets[index]);
+	}
+	
+	/**
+	 * This method is used to get the code of the string data.
+	 * @param index the index of the data.
+	 * @return the code of the string in the dictionary.
+	 */
+	@Override
+	public int getCode(int index) {
+		Dictionary dictionary = dictionaries[index];
+		if(dictionary.getWidth()==2)
+			return page.getShort(offsets[index]) & 0xffff;
+		return page.getInt(offsets[index]);
+	}
+	
+	/**
+	 * This method is used to get the string value of the data. The string
+	 * is built from the bytes every time it is asked.
+	 * @param index the index of the data.
+	 * @return the string value.
+	 */
+	@Override
+	public String getString(int index) {
+		Dictionary dictionary = getDictionary(index);
+		if(dictionary!=null)
+			return dictionary.getValue(getCode(index));
+		int offset = offsets[index];
+		return getString(page, offset + 1, page.get(offset));
+	}
+	
+	/**
+	 * This method is used to build the string from the bytes of the page.
+	 * The page without an array (the slice of the mapped file) is read
+	 * byte by byte.
+	 * @param page the page that holds the string.
+	 * @param offset the offset of the first byte of the string.
+	 * @param length the number of bytes of the string.
+	 * @return the string value.
+	 */
+	public static String getString(ByteBuffer page, int offset, int length) {
+		if(page.hasArray())
+			return new String(page.array(), offset, length,
+					StandardCharsets.ISO_8859_1);
+		byte[] bytes = new byte[length];
+		for(int i=0;i<length;i++)
+			bytes[i] = page.get(offset + i);
+		return new String(bytes, StandardCharsets.ISO_8859_1);
+	}
+	
+	/**
+	 * This method is used to get the file of the data, the page could
+	 * not hold a file so it is always null.
+	 * @param index the index of the data.
+	 * @return null.
+	 */
+	@Override
+	public File getFile(int index) {
+		return null;
+	}
+	
+	/**
+	 * This method is used to get the bits of the data.
+	 * @param index the index of the data.
+	 * @return the bits of the data.
+	 */
+	@Override
+	protected long getBits(int index) {
+		if(getType(index)==2)
+			return getDictionary(index)==null ? 0 : getCode(index);
+		return page.getLong(offsets[index]);
+	}
+	
+	/**
+	 * This method is used to get the object of the data.
+	 * @param index the index of the data.
+	 * @return the dictionary or the string, null for the numbers.
+	 */
+	@Override
+	protected Object getObject(int index) {
+		if(getType(index)!=2) return null;
+		Dictionary dictionary = getDictionary(index);
+		if(dictionary!=null) return dictionary;
+		return getString(index);
+	}
+	
+	/**
+	 * This method is used to compare the data with the data in another
+	 * tuple. Two plain strings in the pages with arrays are compared by
+	 * their bytes, so no string is built.
+	 * @param index the index of the data in this tuple.
+	 * @param that the other tuple.
+	 * @param thatindex the index of the data in the other tuple.
+	 * @return a negative number, zero or a positive number when this data
+	 * is smaller than, equal to or larger than the other one.
+	 */
+	@Override
+	public int compare(int index, Tuple that, int thatindex) {
+		if(that instanceof PageTuple&&getType(index)==2&&
+				that.getType(thatindex)==2&&getDictionary(index)==null&&
+				that.getDictionary(thatindex)==null) {
+			PageTuple other = (PageTuple)that;
+			if(!page.hasArray()||!other.page.hasArray())
+				return super.compare(index, that, thatindex);
+			int offset1 = offsets[index], offset2 = other.offsets[thatindex];
+			return Arrays.compareUnsigned(page.array(), offset1 + 1,
+					offset1 + 1 + page.get(offset1), other.page.array(),
+					offset2 + 1, offset2 + 1 + other.page.get(offset2));
+		}
+		return super.compare(index, that, thatindex);
+	}
+	
+}
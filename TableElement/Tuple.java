@@ -1,44 +1,320 @@
 package TableElement;
 
+import java.io.File;
 import java.util.List;
 
+import Storage.Dictionary;
+
 /**
  * This class is used to define a collection of data types and
  * present some methods and constructors for manipulating it.
+ * The data are not stored as data type objects. Instead, the tuple
+ * keeps three parallel arrays: the type of each data, a long array
+ * that stores the long value, the bits of the double value or the
+ * code of the string in the dictionary, and an object array that stores
+ * the string, the file or the dictionary. The object array is only built
+ * when the first string or file is set, so a tuple of numbers is just
+ * two arrays of primitives.
+ * The types are 0 (no data), 1 (long), 2 (string), 3 (file) and 5
+ * (double), the same as the data type class. The operators that build
+ * tuples of a fixed form (the scan operators) pass the same array of
+ * types to every tuple, the array will be copied only when a data of
+ * another type is set in the tuple.
+ * The tuple could also be backed by a page or a row of a batch, see the
+ * page tuple class and the tuple batch class, so the methods here only use the getter methods to read the data of
+ * another tuple.
  * @author messfish
  *
  */
 public class Tuple {
-
-	private DataType[] datalist; // this array represents a tuple.
+	
+	private byte[] typelist; // this array stores the type of each data.
+	private boolean shared;
+	// this flag shows the type list is shared with other tuples.
+	private long[] valuelist;
+	// this array stores the long value, the bits of the double value
+	// or the code of the string in the dictionary.
+	private Object[] objectlist;
+	// this array stores the string, the file or the dictionary.
 	private long[] tupleIDlist; // this array stores a list of tuple ID.
 	
 	/**
 	 * Constructor: this constructor is used to generate a data list
 	 * which has the length given the argument.
 	 * @param length the length of the data list.
+	 * @param size the number of tuple IDs.
 	 */
 	public Tuple(int length, int size) {
-		datalist = new DataType[length];
+		typelist = new byte[length];
+		valuelist = new long[length];
+		tupleIDlist = new long[size];
+	}
+	
+	/**
+	 * Constructor: this constructor is used to generate a data list
+	 * with the types given. Notice the array of types is shared, it
+	 * should not be changed by the caller after that.
+	 * @param types the type of each data in the tuple.
+	 * @param size the number of tuple IDs.
+	 */
+	public Tuple(byte[] types, int size) {
+		typelist = types;
+		shared = true;
+		valuelist = new long[types.length];
+		tupleIDlist = new long[size];
+	}
+	
+	/**
+	 * Constructor: this constructor is used by the tuple backed by a page
+	 * or a batch. The tuple has no arrays for the data, so the data could
+	 * not be set.
+	 * @param types the type of each data in the tuple.
+	 * @param size the number of tuple IDs.
+	 * @param backed this flag is only used to tell the constructors apart.
+	 */
+	protected Tuple(byte[] types, int size, boolean backed) {
+		typelist = types;
+		shared = true;
 		tupleIDlist = new long[size];
 	}
 	
 	/**
 	 * this method is the getter method of the data from the single index.
+	 * Notice a new data type is built every time, the operators should
+	 * use the getter methods of the primitive values instead.
 	 * @param index the index used to retrieve the data.
-	 * @return the data at the given index.
+	 * @return the data at the given index, null if there is no data.
 	 */
 	public DataType getData(int index) {
-		return datalist[index];
+		int type = getType(index);
+		if(type==1) return new DataType(getLong(index));
+		else if(type==5) return new DataType(getDouble(index));
+		else if(type==3) return new DataType(getFile(index));
+		else if(type==2) {
+			Dictionary dictionary = getDictionary(index);
+			if(dictionary!=null)
+				return new DataType(getCode(index), dictionary);
+			return new DataType(getString(index));
+		}
+		return null;
 	}
 	
 	/**
 	 * This method is the setter method of the data list.
 	 * @param index the index where we set the data.
-	 * @param data the data that will be settled.
+	 * @param data the data that will be settled, could be null.
 	 */
 	public void setData(int index, DataType data) {
-		datalist[index] = data;
+		if(data==null) {
+			setType(index, 0);
+			if(objectlist!=null) objectlist[index] = null;
+		}else if(data.getType()==1) setLong(index, data.getLong());
+		else if(data.getType()==5) setDouble(index, data.getDouble());
+		else if(data.getType()==3) setFile(index, data.getFile());
+		else if(data.getDictionary()!=null)
+			setCode(index, data.getCode(), data.getDictionary());
+		else setString(index, data.getString());
+	}
+	
+	/**
+	 * This method is the getter method of the type of the data.
+	 * @param index the index of the data.
+	 * @return the type of the data, 0 means there is no data.
+	 */
+	public int getType(int index) {
+		return typelist[index];
+	}
+	
+	/**
+	 * This method is the getter method of the long value.
+	 * @param index the index of the data.
+	 * @return the long value.
+	 */
+	public long getLong(int index) {
+		return valuelist[index];
+	}
+	
+	/**
+	 * This method is the getter method of the double value.
+	 * @param index the index of the data.
+	 * @return the double value.
+	 */
+	public double getDouble(int index) {
+		return Double.longBitsToDouble(valuelist[index]);
+	}
+	
+	/**
+	 * This method is the getter method of the string value. The string
+	 * encoded by the dictionary will be looked up.
+	 * @param index the index of the data.
+	 * @return the string value.
+	 */
+	public String getString(int index) {
+		Object data = objectlist[index];
+		if(data instanceof Dictionary)
+			return ((Dictionary)data).getValue((int)valuelist[index]);
+		return (String)data;
+	}
+	
+	/**
+	 * This method is the getter method of the code of the string.
+	 * @param index the index of the data.
+	 * @return the code in the dictionary.
+	 */
+	public int getCode(int index) {
+		return (int)valuelist[index];
+	}
+	
+	/**
+	 * This method is the getter method of the dictionary of the string.
+	 * @param index the index of the data.
+	 * @return the dictionary, null if this is not an encoded string.
+	 */
+	public Dictionary getDictionary(int index) {
+		if(objectlist==null||!(objectlist[index] instanceof Dictionary))
+			return null;
+		return (Dictionary)objectlist[index];
+	}
+	
+	/**
+	 * This method is the getter method of the file value.
+	 * @param index the index of the data.
+	 * @return the file value.
+	 */
+	public File getFile(int index) {
+		return (File)objectlist[index];
+	}
+	
+	/**
+	 * This method is the setter method of the long value.
+	 * @param index the index of the data.
+	 * @param value the long value.
+	 */
+	public void setLong(int index, long value) {
+		setType(index, 1);
+		valuelist[index] = value;
+	}
+	
+	/**
+	 * This method is the setter method of the double value. Notice the
+	 * date and the time values are stored as double values as well.
+	 * @param index the index of the data.
+	 * @param value the double value.
+	 */
+	public void setDouble(int index, double value) {
+		setType(index, 5);
+		valuelist[index] = Double.doubleToRawLongBits(value);
+	}
+	
+	/**
+	 * This method is the setter method of the string value.
+	 * @param index the index of the data.
+	 * @param value the string value.
+	 */
+	public void setString(int index, String value) {
+		setType(index, 2);
+		getObjects()[index] = value;
+	}
+	
+	/**
+	 * This method is the setter method of the string encoded by the
+	 * dictionary. The string will not be built until it is needed.
+	 * @param index the index of the data.
+	 * @param code the code of the string in the dictionary.
+	 * @param dictionary the dictionary of the string.
+	 */
+	public void setCode(int index, int code, Dictionary dictionary) {
+		setType(index, 2);
+		valuelist[index] = code;
+		getObjects()[index] = dictionary;
+	}
+	
+	/**
+	 * This method is the setter method of the file value.
+	 * @param index the index of the data.
+	 * @param value the file value.
+	 */
+	public void setFile(int index, File value) {
+		setType(index, 3);
+		getObjects()[index] = value;
+	}
+	
+	/**
+	 * This method copies a data from the other tuple into this tuple.
+	 * @param index the index of the data in this tuple.
+	 * @param that the tuple that has the data.
+	 * @param thatindex the index of the data in the other tuple.
+	 */
+	public void copyData(int index, Tuple that, int thatindex) {
+		setType(index, that.getType(thatindex));
+		valuelist[index] = that.getBits(thatindex);
+		Object data = that.getObject(thatindex);
+		if(data!=null)
+			getObjects()[index] = data;
+		else if(objectlist!=null)
+			objectlist[index] = null;
+	}
+	
+	/**
+	 * This method is used to get the bits of the data: the long value,
+	 * the bits of the double value or the code of the string.
+	 * @param index the index of the data.
+	 * @return the bits of the data.
+	 */
+	protected long getBits(int index) {
+		return valuelist[index];
+	}
+	
+	/**
+	 * This method is used to get the object of the data: the string, the
+	 * file or the dictionary.
+	 * @param index the index of the data.
+	 * @return the object of the data, null if there is none.
+	 */
+	protected Object getObject(int index) {
+		if(objectlist==null) return null;
+		return objectlist[index];
+	}
+	
+	/**
+	 * this method is used to compare a data in this tuple with a data
+	 * in the other tuple. It follows the compare method of the data type:
+	 * return -1 when this data is smaller than that one, 1 when this data
+	 * is larger and 0 when they are equal. Two strings from the same
+	 * dictionary are compared by their codes.
+	 * @param index the index of the data in this tuple.
+	 * @param that the other tuple.
+	 * @param thatindex the index of the data in the other tuple.
+	 * @return the integer indicates the relative greatness of the data.
+	 * @throws IllegalArgumentException throw this when the type does not match.
+	 */
+	public int compare(int index, Tuple that, int thatindex)
+			throws IllegalArgumentException {
+		int type = this.getType(index);
+		if(type != that.getType(thatindex))
+			throw new IllegalArgumentException
+						("These two data types are not the same type!");
+		if(type==1)
+			return Long.compare(this.getLong(index), that.getLong(thatindex));
+		else if(type==5) {
+			double data1 = this.getDouble(index), data2 = that.getDouble(thatindex);
+			if(data1 < data2) return -1;
+			else if(data1 > data2) return 1;
+		}else if(type==2) {
+			Dictionary dictionary1 = this.getDictionary(index);
+			Dictionary dictionary2 = that.getDictionary(thatindex);
+			/* compare the codes when the strings are encoded. */
+			if(dictionary1!=null&&dictionary1==dictionary2)
+				return Integer.compare(this.getCode(index), that.getCode(thatindex));
+			if(dictionary1!=null&&dictionary2==null)
+				return dictionary1.compare(this.getCode(index),
+						that.getString(thatindex));
+			if(dictionary1==null&&dictionary2!=null)
+				return -dictionary2.compare(that.getCode(thatindex),
+						this.getString(index));
+			return this.getString(index).compareTo(that.getString(thatindex));
+		}
+		return 0;
 	}
 	
 	/**
@@ -64,7 +340,15 @@ public class Tuple {
 	 * @return the length of the data list.
 	 */
 	public int datasize() {
-		return datalist.length;
+		return typelist.length;
+	}
+	
+	/**
+	 * this method returns the length of the tuple ID list.
+	 * @return the length of the tuple ID list.
+	 */
+	public int tupleIDsize() {
+		return tupleIDlist.length;
 	}
 	
 	/**
@@ -83,12 +367,10 @@ public class Tuple {
 	 * @return the boolean value shows whether they are equal or not.
 	 */
 	public boolean isEqual(Tuple that) {
-		if(this.datalist.length!=that.datalist.length)
+		if(this.datasize()!=that.datasize())
 			return false;
 		for(int i=0;i<this.datasize();i++) {
-			DataType data1 = this.getData(i);
-			DataType data2 = that.getData(i);
-			if(data1.compare(data2)!=0) 
+			if(compare(i, that, i)!=0)
 				return false;
 		}
 		return true;
@@ -96,24 +378,49 @@ public class Tuple {
 	
 	/**
 	 * This method is used to check whether two tuples are equal, based
-	 * on the attributes in the array list. Notice the tuple in the 
+	 * on the attributes in the array list. Notice the tuple in the
 	 * parameter could not be null.
 	 * @param that the tuple that is used for checking equality.
 	 * @param list the list that stores the index of attributes to be checked.
 	 * @return the boolean value shows whether that they are equal or not.
 	 */
 	public boolean isEqual(Tuple that, List<Integer> list) {
-		if(this.datalist.length!=that.datalist.length)
+		if(this.datasize()!=that.datasize())
 			return false;
-		for(int i=0;i<this.datasize();i++) {
-			if(list.indexOf(i)!=-1) {
-				DataType data1 = this.getData(i);
-				DataType data2 = that.getData(i);
-				if(data1.compare(data2)!=0) 
-					return false;
-			}
+		for(int i : list) {
+			if(compare(i, that, i)!=0)
+				return false;
 		}
 		return true;
 	}
 	
+	/**
+	 * This method is used to set the type of the data. The type list
+	 * will be copied first when it is shared and the type changes.
+	 * @param index the index of the data.
+	 * @param type the type of the data.
+	 */
+	private void setType(int index, int type) {
+		if(valuelist==null)
+			throw new UnsupportedOperationException
+						("The data of the tuple in a page could not be changed!");
+		if(typelist[index]==type) return;
+		if(shared) {
+			typelist = typelist.clone();
+			shared = false;
+		}
+		typelist[index] = (byte)type;
+	}
+	
+	/**
+	 * This method is used to get the object array, it will be built
+	 * when it is used the first time.
+	 * @return the object array.
+	 */
+	private Object[] getObjects() {
+		if(objectlist==null)
+			objectlist = new Object[typelist.length];
+		return objectlist;
+	}
+	
 }
@@ -0,0 +1,400 @@
+package TableElement;
+
+import java.io.File;
+
+import Storage.Dictionary;
+
+/**
+ * This class is a batch of tuples stored by the columns, it is used by
+ * the operators that work on the batches instead of a single tuple at a
+ * time. Each column is a vector in the same form as the data of a tuple:
+ * a long array stores the long values, the bits of the double values or
+ * the codes of the strings, and an object array that is only built for
+ * the string columns stores the strings or the dictionaries. The tuple
+ * IDs of each table are stored in the same way.
+ * The batch has a selection vector: the rows of the batch that are still
+ * in the result. A select operator only takes the rows out of the
+ * selection vector, so the columns are never copied.
+ * The rows could be handed out as the tuples that are backed by the
+ * batch, this is used for the operators that still work on the tuples.
+ * Notice a batch is never filled again after it is handed out, so the
+ * tuples backed by it stay valid.
+ * @author messfish
+ *
+ */
+public class TupleBatch {
+	
+	public static final int BATCH_SIZE = 1024;
+	// this is the number of rows in a full batch.
+	private byte[] types; // this array stores the type of each column.
+	private long[][] values;
+	// this array stores the long values, the bits of the double values or
+	// the codes of the strings of each column.
+	private Object[][] objects;
+	// this array stores the strings or the dictionaries of each column, it
+	// is null for the columns of numbers.
+	private long[][] tupleIDs; // this array stores the tuple IDs of each table.
+	private int size; // this is the number of rows in the batch.
+	private int[] selection; // this array stores the rows that are selected.
+	private int count; // this is the number of rows selected.
+	
+	/**
+	 * Constructor: this constructor builds an empty batch.
+	 * @param types the type of each column, the same as the tuple.
+	 * @param numoftables the number of tuple IDs of each row.
+	 */
+	public TupleBatch(byte[] types, int numoftables) {
+		this.types = types;
+		values = new long[types.length][BATCH_SIZE];
+		objects = new Object[types.length][];
+		for(int i=0;i<types.length;i++) {
+			if(types[i]==2)
+				objects[i] = new Object[BATCH_SIZE];
+		}
+		tupleIDs = new long[numoftables][BATCH_SIZE];
+		selection = new int[BATCH_SIZE];
+	}
+	
+	/**
+	 * This method is used to add an empty row at the end of the batch,
+	 * the row is selected.
+	 * @return the index of the row.
+	 */
+	public int addRow() {
+		selection[count++] = size;
+		return size++;
+	}
+	
+	/**
+	 * This method is used to add the data of the tuple as a row at the
+	 * end of the batch. The numbers are changed into the type of the
+	 * column when they do not match.
+	 * @param tuple the tuple that will be added.
+	 */
+	public void add(Tuple tuple) {
+		int row = addRow();
+		for(int i=0;i<tupleIDs.length&&i<tuple.tupleIDsize();i++)
+			tupleIDs[i][row] = tuple.getTupleID(i);
+		for(int i=0;i<types.length;i++) {
+			int type = tuple.getType(i);
+			if(types[i]==2) {
+				values[i][row] = tuple.getBits(i);
+				objects[i][row] = tuple.getObject(i);
+			}else if(types[i]==1)
+				values[i][row] = type==5 ? (long)tuple.getDouble(i) : tuple.getBits(i);
+			else if(type==1)
+				values[i][row] = Double.doubleToLongBits(tuple.getLong(i));
+			else values[i][row] = tuple.getBits(i);
+		}
+	}
+	
+	/**
+	 * This method is used to check whether the batch could take no more rows.
+	 * @return true if the batch is full.
+	 */
+	public boolean isFull() {
+		return size==BATCH_SIZE;
+	}
+	
+	/**
+	 * This method returns the number of rows in the batch.
+	 * @return the number of rows.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * This method returns the number of rows selected.
+	 * @return the number of rows selected.
+	 */
+	public int getCount() {
+		return count;
+	}
+	
+	/**
+	 * This method is used to set the number of rows selected, it is used
+	 * after the selection vector is changed.
+	 * @param count the number of rows selected.
+	 */
+	public void setCount(int count) {
+		this.count = count;
+	}
+	
+	/**
+	 * This is the getter method of the selection vector. The first rows
+	 * of the number of rows selected are in the result.
+	 * @return the selection vector.
+	 */
+	public int[] getSelection() {
+		return selection;
+	}
+	
+	/**
+	 * This method returns the row that is selected at the given order.
+	 * @param index the order of the row among the rows selected.
+	 * @return the index of the row.
+	 */
+	public int getSelected(int index) {
+		return selection[index];
+	}
+	
+	/**
+	 * This method returns the type of the column.
+	 * @param column the index of the column.
+	 * @return the type of the column.
+	 */
+	public int getType(int column) {
+		return types[column];
+	}
+	
+	/**
+	 * This method returns the vector of the column: the long values, the
+	 * bits of the double values or the codes of the strings of all the
+	 * rows. It is used by the filters that work on a whole column, the
+	 * vector should not be changed by the caller.
+	 * @param column the index of the column.
+	 * @return the vector of the column.
+	 */
+	public long[] getColumn(int column) {
+		return values[column];
+	}
+	
+	/**
+	 * This method returns the long value in the column.
+	 * @param column the index of the column.
+	 * @param row the index of the row.
+	 * @return the long value.
+	 */
+	public long getLong(int column, int row) {
+		return values[column][row];
+	}
+	
+	/**
+	 * This method returns the double value in the column.
+	 * @param column the index of the column.
+	 * @param row the index of the row.
+	 * @return the double value.
+	 */
+	public double getDouble(int column, int row) {
+		return Double.longBitsToDouble(values[column][row]);
+	}
+	
+	/**
+	 * This method returns the string value in the column. The string
+	 * encoded by the dictionary will be looked up.
+	 * @param column the index of the column.
+	 * @param row the index of the row.
+	 * @return the string value.
+	 */
+	public String getString(int column, int row) {
+		Object data = objects[column][row];
+		if(data instanceof Dictionary)
+			return ((Dictionary)data).getValue((int)values[column][row]);
+		return (String)data;
+	}
+	
+	/**
+	 * This method returns the dictionary of the string in the column.
+	 * @param column the index of the column.
+	 * @param row the index of the row.
+	 * @return the dictionary, null if this is not an encoded string.
+	 */
+	public Dictionary getDictionary(int column, int row) {
+		if(objects[column]==null||!(objects[column][row] instanceof Dictionary))
+			return null;
+		return (Dictionary)objects[column][row];
+	}
+	
+	/**
+	 * This method is the setter method of the long value in the column.
+	 * @param column the index of the column.
+	 * @param row the index of the row.
+	 * @param value the long value.
+	 */
+	public void setLong(int column, int row, long value) {
+		values[column][row] = value;
+	}
+	
+	/**
+	 * This method is the setter method of the double value in the column.
+	 * @param column the index of the column.
+	 * @param row the index of the row.
+	 * @param value the double value.
+	 */
+	public void setDouble(int column, int row, double value) {
+		values[column][row] = Double.doubleToLongBits(value);
+	}
+	
+	/**
+	 * This method is the setter method of the string value in the column.
+	 * @param column the index of the column.
+	 * @param row the index of the row.
+	 * @param value the string value.
+	 */
+	public void setString(int column, int row, String value) {
+		objects[column][row] = value;
+	}
+	
+	/**
+	 * This method is the setter method of the string encoded by the
+	 * dictionary in the column.
+	 * @param column the index of the column.
+	 * @param row the index of the row.
+	 * @param code the code of the string.
+	 * @param dictionary the dictionary of the string.
+	 */
+	public void setCode(int column, int row, int code, Dictionary dictionary) {
+		values[column][row] = code;
+		objects[column][row] = dictionary;
+	}
+	
+	/**
+	 * This method returns the tuple ID of the table.
+	 * @param table the index of the table.
+	 * @param row the index of the row.
+	 * @return the tuple ID.
+	 */
+	public long getTupleID(int table, int row) {
+		return tupleIDs[table][row];
+	}
+	
+	/**
+	 * This method is the setter method of the tuple ID of the table.
+	 * @param table the index of the table.
+	 * @param row the index of the row.
+	 * @param tupleID the tuple ID.
+	 */
+	public void setTupleID(int table, int row, long tupleID) {
+		tupleIDs[table][row] = tupleID;
+	}
+	
+	/**
+	 * This method is used to combine the tuple IDs of each row selected
+	 * into one ID, the IDs are given in the order of the selection.
+	 * @param tupleID the tuple ID of the first row selected.
+	 * @return the tuple ID after the last row selected.
+	 */
+	public long resetTupleIDs(long tupleID) {
+		tupleIDs = new long[1][BATCH_SIZE];
+		for(int i=0;i<count;i++)
+			tupleIDs[0][selection[i]] = tupleID++;
+		return tupleID;
+	}
+	
+	/**
+	 * This method is used to get the row as a tuple. The tuple is backed
+	 * by the batch, its data could not be changed.
+	 * @param row the index of the row.
+	 * @return the tuple of the row.
+	 */
+	public Tuple getTuple(int row) {
+		return new RowTuple(this, row);
+	}
+	
+	/**
+	 * This class is the tuple that is backed by a row of the batch, only
+	 * the tuple IDs are copied.
+	 */
+	private static class RowTuple extends Tuple {
+	
+		private TupleBatch batch; // this is the batch of the row.
+		private int row; // this is the index of the row.
+	
+		/**
+		 * Constructor: this constructor builds the tuple of the row.
+		 * @param batch the batch of the row.
+		 * @param row the index of the row.
+		 */
+		RowTuple(TupleBatch batch, int row) {
+			super(batch.types, batch.tupleIDs.length, true);
+			this.batch = batch;
+			this.row = row;
+			for(int i=0;i<batch.tupleIDs.length;i++)
+				setTupleID(i, batch.tupleIDs[i][row]);
+		}
+	
+		/**
+		 * This method is used to get the long value of the data.
+		 * @param index the index of the data.
+		 * @return the long value.
+		 */
+		@Override
+		public long getLong(int index) {
+			return batch.values[index][row];
+		}
+	
+		/**
+		 * This method is used to get the double value of the data.
+		 * @param index the index of the data.
+		 * @return the double value.
+		 */
+		@Override
+		public double getDouble(int index) {
+			return batch.getDouble(index, row);
+		}
+	
+		/**
+		 * This method is used to get the string value of the data.
+		 * @param index the index of the data.
+		 * @return the string value.
+		 */
+		@Override
+		public String getString(int index) {
+			return batch.getString(index, row);
+		}
+	
+		/**
+		 * This method is used to get the code of the string data.
+		 * @param index the index of the data.
+		 * @return the code of the string.
+		 */
+		@Override
+		public int getCode(int index) {
+			return (int)batch.values[index][row];
+		}
+	
+		/**
+		 * This method is used to get the dictionary of the string data.
+		 * @param index the index of the data.
+		 * @return the dictionary, null if the string is not encoded.
+		 */
+		@Override
+		public Dictionary getDictionary(int index) {
+			return batch.getDictionary(index, row);
+		}
+	
+		/**
+		 * This method is used to get the file of the data, a batch could not hold a file.
+		 * @param index the index of the data.
+		 * @return null.
+		 */
+		@Override
+		public File getFile(int index) {
+			return null;
+		}
+	
+		/**
+		 * This method is used to get the bits of the data.
+		 * @param index the index of the data.
+		 * @return the bits of the data.
+		 */
+		@Override
+		protected long getBits(int index) {
+			return batch.values[index][row];
+		}
+	
+		/**
+		 * This method is used to get the object of the data.
+		 * @param index the index of the data.
+		 * @return the string or the dictionary, null for the numbers.
+		 */
+		@Override
+		protected Object getObject(int index) {
+			if(batch.objects[index]==null) return null;
+			return batch.objects[index][row];
+		}
+	
+	}
+	
+}
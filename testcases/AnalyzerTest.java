@@ -0,0 +1,149 @@
+package testcases;
+
+import static org.junit.Assert.*;
+import static testcases.JoinTestHelper.*;
+
+import java.io.File;
+import java.util.Random;
+
+import org.junit.Test;
+
+import SmallSQLServer.Main;
+import Support.Analyzer;
+import Support.Catalog;
+import Support.ColumnStatistics;
+import Support.HyperLogLog;
+import Support.TableStatistics;
+import TableElement.DataType;
+
+/**
+ * This class handles the test cases of the analyzer. The statistics of
+ * the table scanned as a whole should match the values written, the
+ * statistics read back by the catalog should be the same as the ones
+ * written, and the sample of the pages should give a close estimate.
+ * @author messfish
+ *
+ */
+public class AnalyzerTest {
+
+	/**
+	 * This method writes a table into the data directory of the catalog,
+	 * and writes the schema file. The attribute A is unique, the attribute
+	 * B has 30 values, and the attribute C has the value s0 in half of the
+	 * tuples.
+	 * @param name the name of the table.
+	 * @param size the number of tuples in the table.
+	 * @return the catalog of the table.
+	 */
+	private Catalog catalog(String name, int size) {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		Main.setInput(Main.getTest() + "/analyzertest");
+		new File(Main.getInput() + "/db/statistics.txt").delete();
+		Random random = new Random(size);
+		moveIntoData(generate(name, size, new int[]{1, 5, 2},
+				i -> String.valueOf(i),
+				i -> String.valueOf(random.nextInt(30) * 0.5),
+				i -> i % 2==0 ? "s0" : "s" + random.nextInt(1000)),
+				Main.getInput());
+		writeSchema(Main.getInput(), "A 1 B 5 C 2", name);
+		return new Catalog();
+	}
+
+	/**
+	 * This case checks the estimate of the sketch is close to the number
+	 * of distinct values, and the sketch read back gives the same estimate.
+	 */
+	@Test
+	public void testSketch() {
+		HyperLogLog sketch = new HyperLogLog();
+		for(int i=0;i<200000;i++)
+			sketch.addLong(i % 100000);
+		assertEquals(100000, sketch.estimate(), 5000);
+		assertEquals(sketch.estimate(),
+				new HyperLogLog(sketch.toString()).estimate(), 0.0001);
+		HyperLogLog small = new HyperLogLog();
+		for(int i=0;i<50;i++)
+			small.addString("s" + i);
+		assertEquals(50, small.estimate(), 2);
+	}
+
+	/**
+	 * This case checks the statistics of the table scanned as a whole,
+	 * and the statistics read back by the catalog.
+	 */
+	@Test
+	public void testAnalyze() {
+		Catalog catalog = catalog("AT", 20000);
+		double estimate = catalog.getTupleCount("AT");
+		TableStatistics stats = new Analyzer().analyze("AT", catalog, 1);
+		assertEquals(20000, stats.getRowCount(), 0);
+		assertEquals(20000, catalog.getTupleCount("AT"), 0);
+		assertTrue(estimate!=20000);
+		ColumnStatistics a = stats.getColumn("A");
+		assertEquals(0, a.getMin().getLong());
+		assertEquals(19999, a.getMax().getLong());
+		assertEquals(20000, a.getDistinct(), 1000);
+		assertEquals(0, a.getCommonValues().length);
+		DataType[] histogram = a.getHistogram();
+		assertEquals(21, histogram.length);
+		assertEquals(0, histogram[0].getLong());
+		assertEquals(19999, histogram[20].getLong());
+		/* every bucket holds about the same number of values. */
+		for(int i=1;i<histogram.length;i++)
+			assertEquals(1000, histogram[i].getLong() -
+					histogram[i - 1].getLong(), 10);
+		ColumnStatistics b = stats.getColumn("B");
+		assertEquals(30, b.getDistinct(), 1);
+		assertEquals(0.0, b.getMin().getDouble(), 0);
+		assertEquals(14.5, b.getMax().getDouble(), 0);
+		assertEquals(10, b.getCommonValues().length);
+		ColumnStatistics c = stats.getColumn("C");
+		assertEquals("s0", c.getCommonValues()[0].getString());
+		assertEquals(0.5, c.getFrequencies()[0], 0.001);
+		assertEquals(0, c.getNullFraction(), 0);
+		/* the catalog reads the statistics back from the file. */
+		Catalog another = new Catalog();
+		TableStatistics read = another.getStatistics("AT");
+		assertNotNull(read);
+		assertEquals(stats.getRowCount(), read.getRowCount(), 0);
+		assertEquals(stats.getPageCount(), another.getPageCount("AT"));
+		ColumnStatistics readc = read.getColumn("C");
+		assertEquals(c.getDistinct(), readc.getDistinct(), 0);
+		assertEquals(c.getMin().getString(), readc.getMin().getString());
+		assertEquals(c.getMax().getString(), readc.getMax().getString());
+		assertEquals(c.getSketch().estimate(), readc.getSketch().estimate(), 0.0001);
+		assertEquals(c.getHistogram().length, readc.getHistogram().length);
+		for(int i=0;i<c.getHistogram().length;i++)
+			assertEquals(c.getHistogram()[i].getString(),
+					readc.getHistogram()[i].getString());
+		assertEquals(c.getCommonValues().length, readc.getCommonValues().length);
+		for(int i=0;i<c.getCommonValues().length;i++) {
+			assertEquals(c.getCommonValues()[i].getString(),
+					readc.getCommonValues()[i].getString());
+			assertEquals(c.getFrequencies()[i], readc.getFrequencies()[i], 0);
+		}
+		ColumnStatistics readb = read.getColumn("B");
+		assertEquals(b.getMax().getDouble(), readb.getMax().getDouble(), 0);
+		assertEquals(b.getFrequencies()[0], readb.getFrequencies()[0], 0);
+	}
+
+	/**
+	 * This case checks the statistics of a sample of the pages are close
+	 * to the statistics of the whole table.
+	 */
+	@Test
+	public void testSample() {
+		Catalog catalog = catalog("AS", 100000);
+		TableStatistics stats = new Analyzer().analyze("AS", catalog, 0.3);
+		assertEquals(100000, stats.getRowCount(), 10000);
+		/* the unique attribute is scaled to the whole table. */
+		assertEquals(100000, stats.getColumn("A").getDistinct(), 15000);
+		assertEquals(30, stats.getColumn("B").getDistinct(), 1);
+		assertEquals(0.5, stats.getColumn("C").getFrequencies()[0], 0.02);
+		/* the sample of a table that has a single page still reads it. */
+		catalog = catalog("AO", 10);
+		stats = new Analyzer(7).analyze("AO", catalog, 0.01);
+		assertEquals(10, stats.getRowCount(), 0);
+	}
+
+}
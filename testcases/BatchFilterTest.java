@@ -0,0 +1,126 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import Evaluator.BatchFilter;
+import PhysicalOperators.ColumnarScanOperator;
+import PhysicalOperators.Operator;
+import PhysicalOperators.ScanOperator;
+import PhysicalOperators.SelectOperator;
+import SQLExpression.Expression;
+import SQLExpression.MultiAndOperator;
+import SQLExpression.MultiOrOperator;
+import SQLParser.LogicalExpressionParser;
+import SmallSQLServer.Main;
+import Support.HumanToBinary;
+import Support.RandomTable;
+import TableElement.Tuple;
+import TableElement.TupleBatch;
+
+/**
+ * This class is used for testing the filter that works on the vectors of
+ * the batches. The batches of the columnar scan operator are filtered by
+ * the select operator, the rows selected should be the same as the tuples
+ * selected one by one from the table in the row form.
+ * @author messfish
+ *
+ */
+public class BatchFilterTest {
+
+	/**
+	 * This method checks the rows of the batches from the first operator
+	 * are the same as the tuples from the second operator.
+	 * @param batches the operator that will be read by batches.
+	 * @param tuples the operator that will be read by tuples.
+	 * @return the number of tuples.
+	 */
+	private int compare(Operator batches, Operator tuples) {
+		TupleBatch batch = null;
+		int size = 0;
+		while((batch=batches.getNextBatch())!=null) {
+			assertTrue(batch.getCount() > 0);
+			for(int i=0;i<batch.getCount();i++) {
+				Tuple tuple1 = batch.getTuple(batch.getSelected(i));
+				Tuple tuple2 = tuples.getNextTuple();
+				assertNotNull(tuple2);
+				assertEquals(tuple2.getTupleID(0), tuple1.getTupleID(0));
+				assertEquals(tuple2.getLong(0), tuple1.getLong(0));
+				assertEquals(tuple2.getDouble(1), tuple1.getDouble(1), 0.0);
+				assertEquals(tuple2.getString(4), tuple1.getString(4));
+				size++;
+			}
+		}
+		assertNull(tuples.getNextTuple());
+		return size;
+	}
+
+	/**
+	 * This method parses the expression.
+	 * @param exp the expression separated by spaces.
+	 * @return the root of the expression tree.
+	 */
+	private Expression parse(String exp) {
+		return new LogicalExpressionParser(exp.split("\\s+")).parse();
+	}
+
+	/**
+	 * This method checks the batches of the columnar scan operator are
+	 * the same as the tuples of it.
+	 */
+	@Test
+	public void testColumnarBatches() {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		RandomTable random = new RandomTable(5000);
+		File column = new HumanToBinary().convert(random.generate(10),
+				"Filter", true);
+		assertEquals(5000, compare(new ColumnarScanOperator(column, false, null),
+				new ColumnarScanOperator(column, false, null)));
+	}
+
+	/**
+	 * This method checks the filter on the vectors gives the same result
+	 * as the evaluator, the part of the expression that could not be done
+	 * on the vectors is left to the evaluator.
+	 */
+	@Test
+	public void testFilter() {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		RandomTable random = new RandomTable(20000);
+		File file = random.generate(11);
+		HumanToBinary human = new HumanToBinary();
+		File row = human.convert(file, "Filter");
+		File column = human.convert(file, "Filter", true);
+		List<Expression> expressions = new ArrayList<>();
+		expressions.add(parse("Test.Ta > 500000 AND Test.Tb < 300000.5"));
+		expressions.add(parse("Test.Ta < 100000 OR Test.Tb >= 900000 "
+				+ "OR NOT ( 250000 < Test.Ta )"));
+		expressions.add(parse("Test.Ta >= 400000.5 AND Test.Tb <> 3"));
+		List<Expression> list = new ArrayList<>();
+		list.add(parse("Test.Ta <= 700000"));
+		list.add(parse("Test.Tb > 200000"));
+		list.add(new MultiOrOperator(new ArrayList<>(list)));
+		expressions.add(new MultiAndOperator(list));
+		int vectorized = expressions.size();
+		expressions.add(parse("Test.Ta * 2 > 1000000 AND Test.Tb < 500000.0"));
+		expressions.add(parse("Test.Te < \"m\" OR Test.Ta = Test.Ta + 1"));
+		ScanOperator scan = new ColumnarScanOperator(column, false, null);
+		for(int i=0;i<expressions.size();i++) {
+			Expression express = expressions.get(i);
+			BatchFilter filter = new BatchFilter(express, scan.getSchema());
+			assertEquals(i < vectorized, filter.isVectorized());
+			Operator select1 = new SelectOperator(
+					new ColumnarScanOperator(column, false, null), express);
+			Operator select2 = new SelectOperator(
+					new ScanOperator(row, false), express);
+			int size = compare(select1, select2);
+			assertTrue(size > 0&&size < 20000);
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+package testcases;
+
+import static org.junit.Assert.*;
+import static testcases.JoinTestHelper.*;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Test;
+
+import PhysicalOperators.BlockNestedLoopJoinOperator;
+import PhysicalOperators.CountingOperator;
+import PhysicalOperators.JoinOperator;
+import PhysicalOperators.Operator;
+import PhysicalOperators.ScanOperator;
+import SQLExpression.Expression;
+import SmallSQLServer.Main;
+
+/**
+ * This class handles the test cases of the block nested loops join. The
+ * tuples should be the same as the tuples of the nested loops join that
+ * reads the right side once for each tuple, only the order is different.
+ * The memory is set to one page so the left side is read in many blocks.
+ * @author messfish
+ *
+ */
+public class BlockNestedLoopJoinTest {
+
+	/**
+	 * This case checks the block nested loops join gives the same tuples
+	 * as the nested loops join, with a condition and without one.
+	 */
+	@Test
+	public void testJoin() {
+		File file1 = generate("BL", 3000, 1, 1000, 0, 0.0);
+		File file2 = generate("BR", 200, 2, 1000, 0, 0.0);
+		Main.setJoinPages(1);
+		try {
+			String[] conditions = {"BL.A < BR.B - 5 OR BL.C = BR.C", null};
+			for(String exp : conditions) {
+				Expression express = exp==null ? null : parse(exp);
+				Operator block = new BlockNestedLoopJoinOperator(
+						new ScanOperator(file1), new ScanOperator(file2), express);
+				List<String> expected = readAll(new JoinOperator(
+						new ScanOperator(file1), new ScanOperator(file2), express));
+				assertTrue(expected.size() > 0);
+				assertEquals(expected, readAll(block));
+				assertNull(block.getNextTuple());
+				block.reset();
+				assertEquals(expected, readAll(block));
+			}
+		} finally {
+			Main.setJoinPages(4096);
+		}
+	}
+
+	/**
+	 * This case checks the left side is read for the first block only
+	 * when the right side has no tuples.
+	 */
+	@Test
+	public void testEmptyRight() {
+		File file1 = generate("BL", 3000, 1, 1000, 0, 0.0);
+		File file2 = generate("BR", 0, 2, 1000, 0, 0.0);
+		Main.setJoinPages(1);
+		try {
+			CountingOperator left = new CountingOperator(new ScanOperator(file1));
+			Operator block = new BlockNestedLoopJoinOperator(left,
+					new ScanOperator(file2), null);
+			assertEquals(0, readAll(block).size());
+			assertTrue(left.getRows() > 0&&left.getRows() < 3000);
+			block.reset();
+			assertNull(block.getNextTuple());
+			assertTrue(left.getRows() < 6000);
+		} finally {
+			Main.setJoinPages(4096);
+		}
+	}
+
+}
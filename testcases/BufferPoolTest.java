@@ -0,0 +1,117 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.junit.Test;
+
+import Storage.BufferPool;
+import Storage.PageWriter;
+
+/**
+ * This class is used for testing the buffer pool: the counters of the
+ * hits, misses and evictions, and whether a large sequential scan could
+ * flush the pages that are read again and again.
+ * @author messfish
+ *
+ */
+public class BufferPoolTest {
+
+	private static final int PAGE_SIZE = 4096;
+
+	/**
+	 * This method is used to write a file with the given number of pages.
+	 * The first integer of every page is the page number.
+	 * @param numofpages the number of pages in the file.
+	 * @return the file that has been written.
+	 */
+	private File writeFile(int numofpages) throws Exception {
+		File file = File.createTempFile("pool", ".b");
+		file.deleteOnExit();
+		PageWriter writer = new PageWriter(file);
+		for(int i=0;i<numofpages;i++) {
+			ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+			buffer.putInt(0, i);
+			writer.writePage(buffer);
+		}
+		writer.close();
+		return file;
+	}
+
+	/**
+	 * This method tests the counters of the pool and the content of
+	 * the pages handed out.
+	 */
+	@Test
+	public void testCounters() throws Exception {
+		File file = writeFile(4);
+		BufferPool pool = new BufferPool(2 * PAGE_SIZE);
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		FileChannel fc = input.getChannel();
+		String key = file.getAbsolutePath();
+		for(int i=0;i<2;i++) {
+			assertEquals(i, pool.pin(key, i, PAGE_SIZE, fc).getInt(0));
+			pool.unpin(key, i, PAGE_SIZE);
+		}
+		assertEquals(0, pool.pin(key, 0, PAGE_SIZE, fc).getInt(0));
+		pool.unpin(key, 0, PAGE_SIZE);
+		assertEquals(1, pool.getHits());
+		assertEquals(2, pool.getMisses());
+		/* page 1 is only touched once, so it should be evicted first. */
+		assertEquals(2, pool.pin(key, 2, PAGE_SIZE, fc).getInt(0));
+		pool.unpin(key, 2, PAGE_SIZE);
+		assertEquals(1, pool.getEvictions());
+		assertEquals(0, pool.pin(key, 0, PAGE_SIZE, fc).getInt(0));
+		pool.unpin(key, 0, PAGE_SIZE);
+		assertEquals(2, pool.getHits());
+		assertNull(pool.pin(key, 4, PAGE_SIZE, fc));
+		input.close();
+	}
+
+	/**
+	 * This method tests a hot page survives a sequential scan that is
+	 * much larger than the pool.
+	 */
+	@Test
+	public void testScanResistance() throws Exception {
+		File file = writeFile(64);
+		BufferPool pool = new BufferPool(8 * PAGE_SIZE);
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		FileChannel fc = input.getChannel();
+		String key = file.getAbsolutePath();
+		for(int i=0;i<3;i++) {
+			pool.pin(key, 0, PAGE_SIZE, fc);
+			pool.unpin(key, 0, PAGE_SIZE);
+		}
+		for(int i=1;i<64;i++) {
+			pool.pin(key, i, PAGE_SIZE, fc);
+			pool.unpin(key, i, PAGE_SIZE);
+		}
+		long misses = pool.getMisses();
+		pool.pin(key, 0, PAGE_SIZE, fc);
+		assertEquals(misses, pool.getMisses());
+		input.close();
+	}
+
+	/**
+	 * This method tests the pinned pages are never evicted.
+	 */
+	@Test
+	public void testPinned() throws Exception {
+		File file = writeFile(4);
+		BufferPool pool = new BufferPool(PAGE_SIZE);
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		FileChannel fc = input.getChannel();
+		String key = file.getAbsolutePath();
+		pool.pin(key, 0, PAGE_SIZE, fc);
+		assertEquals(1, pool.pin(key, 1, PAGE_SIZE, fc).getInt(0));
+		assertEquals(0, pool.getEvictions());
+		assertEquals(PAGE_SIZE, pool.getUsed());
+		input.close();
+	}
+
+}
@@ -0,0 +1,95 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.Test;
+
+import SmallSQLServer.Main;
+import Support.BulkLoader;
+import Support.HumanModify;
+import Support.HumanToBinary;
+
+/**
+ * This class is used for testing the bulk loader: the binary file and the
+ * zone map it writes should be exactly the same as the ones written by the
+ * human modifier and the converter.
+ * @author messfish
+ *
+ */
+public class BulkLoaderTest {
+
+	/**
+	 * This method writes a CSV file with the attributes of every type.
+	 * @param numofrows the number of rows in the file.
+	 * @return the CSV file.
+	 */
+	private File build(int numofrows) throws Exception {
+		File file = File.createTempFile("bulk", ".csv");
+		file.deleteOnExit();
+		Random random = new Random(numofrows);
+		BufferedWriter write = new BufferedWriter(new FileWriter(file));
+		write.write("Bulk.A 1 Bulk.B 2 Bulk.C 5 Bulk.D 3 Bulk.E 4\n");
+		for(int i=0;i<numofrows;i++) {
+			write.write((random.nextInt(20000) - 10000) + ",");
+			write.write("name" + random.nextInt(1000) + ",");
+			write.write(random.nextInt(100000) / 100.0 + ",");
+			write.write((1990 + random.nextInt(30)) + "/0" + (1 + random.nextInt(9))
+					+ "/1" + random.nextInt(10) + ",");
+			write.write(random.nextInt(24) + ":1" + random.nextInt(10) + ":30\n");
+		}
+		write.close();
+		return file;
+	}
+
+	/**
+	 * This method loads the CSV file in both ways and compares the files.
+	 * @param numofrows the number of rows in the file.
+	 * @param compressed true means the pages will be compressed.
+	 */
+	private void compare(int numofrows, boolean compressed) throws Exception {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		File csv = build(numofrows);
+		File human = new HumanModify().convert(csv,
+				Main.getTest() + "/conversiontest/BulkHuman");
+		HumanToBinary convert = new HumanToBinary();
+		convert.setCompressed(compressed);
+		File expected = convert.convert(human, "BulkExpected", false);
+		BulkLoader loader = new BulkLoader(4);
+		loader.setCompressed(compressed);
+		File actual = loader.load(csv, "BulkActual");
+		assertEquals(numofrows, loader.getRows());
+		assertTrue(loader.getRowsPerSecond() >= 0);
+		assertArrayEquals(Files.readAllBytes(expected.toPath()),
+				Files.readAllBytes(actual.toPath()));
+		assertArrayEquals(
+				Files.readAllBytes(new File(expected.getPath() + ".zone").toPath()),
+				Files.readAllBytes(new File(actual.getPath() + ".zone").toPath()));
+	}
+
+	/**
+	 * This method tests a file of many pages, in both the plain pages and
+	 * the compressed pages.
+	 */
+	@Test
+	public void testLoad() throws Exception {
+		compare(30000, false);
+		compare(30000, true);
+	}
+
+	/**
+	 * This method tests the file with no tuples and the file with a
+	 * single tuple.
+	 */
+	@Test
+	public void testSmallFile() throws Exception {
+		compare(0, false);
+		compare(1, false);
+	}
+
+}
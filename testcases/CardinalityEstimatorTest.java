@@ -0,0 +1,151 @@
+package testcases;
+
+import static org.junit.Assert.*;
+import static testcases.JoinTestHelper.*;
+
+import java.io.File;
+import java.util.Random;
+
+import org.junit.Test;
+
+import LogicalOperators.Operators;
+import SQLParser.PlainSelect;
+import SmallSQLServer.CardinalityEstimator;
+import SmallSQLServer.Main;
+import SmallSQLServer.QueryHandler;
+import Support.Analyzer;
+import Support.Catalog;
+
+/**
+ * This class handles the test cases of the cardinality estimator. The
+ * estimates given by the statistics should be close to the actual number
+ * of tuples for the comparisons, the equalities, the joins and the groups,
+ * and the explain should show both numbers for every operator.
+ * @author messfish
+ *
+ */
+public class CardinalityEstimatorTest {
+
+	/**
+	 * This method writes a table into the data directory of the catalog.
+	 * The attribute A is unique, the attribute B has 50 values, and the
+	 * attribute C has the value s0 in half of the tuples.
+	 * @param name the name of the table.
+	 * @param size the number of tuples in the table.
+	 */
+	private void install(String name, int size) {
+		Random random = new Random(size);
+		moveIntoData(generate(name, size, new int[]{1, 1, 2},
+				i -> String.valueOf(i), i -> String.valueOf(i % 50),
+				i -> i % 2==0 ? "s0" : "s" + random.nextInt(1000)),
+				Main.getInput());
+	}
+
+	/**
+	 * This method builds the catalog of the two tables.
+	 * @param analyze true means the statistics of the tables are collected.
+	 * @return the catalog.
+	 */
+	private Catalog catalog(boolean analyze) {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		Main.setInput(Main.getTest() + "/estimatortest");
+		new File(Main.getInput() + "/db/statistics.txt").delete();
+		install("CB", 20000);
+		install("CS", 200);
+		writeSchema(Main.getInput(), "A 1 B 1 C 2", "CB", "CS");
+		Catalog catalog = new Catalog();
+		if(analyze) {
+			new Analyzer().analyze("CB", catalog, 1);
+			new Analyzer().analyze("CS", catalog, 1);
+		}
+		return catalog;
+	}
+
+	/**
+	 * This method estimates the number of tuples of the query.
+	 * @param query the query.
+	 * @param catalog the catalog.
+	 * @return the estimated number of tuples.
+	 */
+	private double estimate(String query, Catalog catalog) {
+		PlainSelect plain = new PlainSelect(query);
+		Operators root = QueryHandler.BuildQueryPlan(plain, catalog);
+		return new CardinalityEstimator(plain, catalog).estimate(root);
+	}
+
+	/**
+	 * This case checks the estimates of the comparisons and the equalities
+	 * with a constant, and the ones put together by AND, OR and NOT.
+	 */
+	@Test
+	public void testSelectivity() {
+		Catalog catalog = catalog(true);
+		assertEquals(20000, estimate("SELECT * FROM CB", catalog), 0);
+		assertEquals(5000, estimate("SELECT * FROM CB WHERE CB.A < 5000",
+				catalog), 250);
+		assertEquals(15000, estimate("SELECT * FROM CB WHERE CB.A >= 5000",
+				catalog), 250);
+		assertEquals(5000, estimate("SELECT * FROM CB WHERE NOT ( CB.A >= 5000 )",
+				catalog), 250);
+		assertEquals(10000, estimate("SELECT * FROM CB WHERE CB.C = \"s0\"",
+				catalog), 500);
+		assertEquals(400, estimate("SELECT * FROM CB WHERE CB.B = 7",
+				catalog), 40);
+		/* the value out of the range is never found. */
+		assertEquals(0, estimate("SELECT * FROM CB WHERE CB.A = 30000",
+				catalog), 0);
+		assertEquals(2000, estimate("SELECT * FROM CB WHERE CB.A < 1000 OR "
+				+ "CB.A >= 19000", catalog), 200);
+		assertEquals(1000, estimate("SELECT * FROM CB WHERE CB.A >= 1000 AND "
+				+ "CB.A < 2000", catalog), 100);
+	}
+
+	/**
+	 * This case checks the estimates of the join, the group by and the
+	 * distinct, which use the number of distinct values.
+	 */
+	@Test
+	public void testDistinct() {
+		Catalog catalog = catalog(true);
+		/* every tuple of CB finds a single tuple of CS. */
+		assertEquals(20000, estimate("SELECT * FROM CB , CS WHERE CB.B = CS.A",
+				catalog), 1000);
+		assertEquals(50, estimate("SELECT CB.B FROM CB GROUP BY CB.B",
+				catalog), 2);
+		assertEquals(50, estimate("SELECT DISTINCT CB.B FROM CB", catalog), 2);
+		assertEquals(200, estimate("SELECT DISTINCT CS.A FROM CS", catalog), 5);
+		/* without the statistics, every value is taken as distinct. */
+		catalog = catalog(false);
+		assertTrue(estimate("SELECT * FROM CB , CS WHERE CB.B = CS.A",
+				catalog) < 1000);
+	}
+
+	/**
+	 * This case checks the explain shows the estimated and the actual
+	 * number of tuples of every operator, and they are close.
+	 */
+	@Test
+	public void testExplain() {
+		Catalog catalog = catalog(true);
+		String result = QueryHandler.explain(new PlainSelect("SELECT * FROM "
+				+ "CB , CS WHERE CB.B = CS.A AND CS.A < 20 AND CB.A < 10000"),
+				catalog, true);
+		String[] lines = result.split("\n");
+		assertEquals(6, lines.length);
+		assertTrue(lines[0].startsWith("Project: (estimated"));
+		assertTrue(lines[1].startsWith("-Join ("));
+		for(String line : lines) {
+			String numbers = line.substring(line.lastIndexOf("(estimated"));
+			String[] words = numbers.split("[^0-9]+");
+			double estimated = Double.parseDouble(words[1]);
+			double actual = Double.parseDouble(words[2]);
+			assertTrue(line, actual > 0);
+			assertTrue(line, estimated / actual < 1.2&&actual / estimated < 1.2);
+		}
+		result = QueryHandler.explain(new PlainSelect("SELECT * FROM CB"),
+				catalog, false);
+		assertEquals("Project: (estimated 20000 rows)\n"
+				+ "-Scan: CB (estimated 20000 rows)\n", result);
+	}
+
+}
@@ -0,0 +1,94 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import PhysicalOperators.ColumnarScanOperator;
+import PhysicalOperators.ScanOperator;
+import SmallSQLServer.Main;
+import Support.HumanToBinary;
+import Support.RandomTable;
+import TableElement.Tuple;
+
+/**
+ * This class is used for testing the columnar form of the table. The
+ * same table is written in both the row form and the columnar form, the
+ * columnar scan operator should return the same tuples as the plain
+ * scan operator, and only the columns asked should be read.
+ * @author messfish
+ *
+ */
+public class ColumnarTest {
+
+	/**
+	 * This method checks the columnar scan returns the same tuples as
+	 * the row scan when every column is read.
+	 */
+	@Test
+	public void testSameTuples() {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		RandomTable random = new RandomTable(50000);
+		File file = random.generate(2);
+		HumanToBinary human = new HumanToBinary();
+		File row = human.convert(file, "Columnar");
+		File column = human.convert(file, "Columnar", true);
+		ScanOperator scan = new ScanOperator(row);
+		ScanOperator columnar = new ColumnarScanOperator(column, false, null);
+		assertEquals(scan.getSchema().size(), columnar.getSchema().size());
+		Tuple tuple1 = null, tuple2 = null;
+		int size = 0;
+		while((tuple1=scan.getNextTuple())!=null) {
+			tuple2 = columnar.getNextTuple();
+			assertEquals(tuple1.getTupleID(0), tuple2.getTupleID(0));
+			assertEquals(tuple1.getData(0).getLong(), tuple2.getData(0).getLong());
+			assertEquals(tuple1.getData(1).getDouble(),
+					tuple2.getData(1).getDouble(), 0.0);
+			assertEquals(tuple1.getData(4).getString(),
+					tuple2.getData(4).getString());
+			size++;
+		}
+		assertNull(columnar.getNextTuple());
+		assertEquals(50000, size);
+		scan.close();
+		columnar.close();
+	}
+
+	/**
+	 * This method checks only the columns asked will be in the schema
+	 * and in the tuples, also the operator could be reset.
+	 */
+	@Test
+	public void testNarrowSchema() {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		RandomTable random = new RandomTable(10000);
+		File file = random.generate(3);
+		HumanToBinary human = new HumanToBinary();
+		File column = human.convert(file, "Narrow", true);
+		Set<String> attributes = new HashSet<>();
+		attributes.add("Te");
+		attributes.add("Tb");
+		ColumnarScanOperator columnar =
+				new ColumnarScanOperator(column, false, attributes);
+		assertEquals(2, columnar.getSchema().size());
+		assertEquals(0, columnar.getSchema().get("Test.Tb").getIndex());
+		assertEquals(1, columnar.getSchema().get("Test.Te").getIndex());
+		for(int i=0;i<2;i++) {
+			Tuple tuple = null;
+			int size = 0;
+			while((tuple=columnar.getNextTuple())!=null) {
+				assertEquals(2, tuple.datasize());
+				assertNotNull(tuple.getData(1).getString());
+				size++;
+			}
+			assertEquals(10000, size);
+			columnar.reset();
+		}
+		columnar.close();
+	}
+
+}
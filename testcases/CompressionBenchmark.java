@@ -0,0 +1,99 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import PhysicalOperators.ColumnarScanOperator;
+import PhysicalOperators.ScanOperator;
+import SmallSQLServer.Main;
+import Support.HumanToBinary;
+import Support.RandomTable;
+import TableElement.Tuple;
+
+/**
+ * This class is mainly used for comparing the plain pages with the
+ * compressed pages. The same random table is written in both ways, in
+ * both the row form and the columnar form. For each of them, the number
+ * of bytes read by a full scan and the time used by the scan will be
+ * printed out, so we could see how much disk traffic is saved and how
+ * much CPU is spent on the decompression.
+ * @author messfish
+ *
+ */
+public class CompressionBenchmark {
+
+	private static final int NUM_OF_TIMES = 5;
+
+	/**
+	 * This method scans the whole file and returns the number of tuples
+	 * in it. Notice we touch every attribute of every tuple so the
+	 * decoding could not be left out.
+	 * @param scan the scan operator used for scanning.
+	 * @return the number of tuples in the file.
+	 */
+	private int scanAll(ScanOperator scan) {
+		int size = 0;
+		long checksum = 0;
+		Tuple tuple = null;
+		while((tuple=scan.getNextTuple())!=null) {
+			checksum += tuple.getLong(0);
+			checksum += (long)tuple.getDouble(1);
+			checksum += tuple.getString(4).length();
+			size++;
+		}
+		assertTrue(checksum >= 0);
+		return size;
+	}
+
+	/**
+	 * This method scans the file several times and prints the average time.
+	 * @param binary the file that will be scanned.
+	 * @param columnar true means the file is in the columnar form.
+	 * @param title the title that will be printed.
+	 * @return the number of tuples in the file.
+	 */
+	private int measure(File binary, boolean columnar, String title) {
+		int size = 0;
+		long time = 0;
+		for(int i=0;i<NUM_OF_TIMES;i++) {
+			long start = System.currentTimeMillis();
+			ScanOperator scan = columnar ?
+					new ColumnarScanOperator(binary, false, null) :
+					new ScanOperator(binary, false);
+			size = scanAll(scan);
+			scan.close();
+			time += System.currentTimeMillis() - start;
+		}
+		System.out.println(title + ": " + binary.length() + " bytes read, "
+				+ time / NUM_OF_TIMES + " ms.");
+		return size;
+	}
+
+	/**
+	 * This method is used to compare the plain pages with the compressed
+	 * pages on a large random table.
+	 */
+	@Test
+	public void testCompression() {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		RandomTable random = new RandomTable(1000000);
+		File file = random.generate(1);
+		for(boolean columnar : new boolean[]{false, true}) {
+			HumanToBinary plain = new HumanToBinary();
+			File binary = plain.convert(file, "Plain", columnar);
+			HumanToBinary compressed = new HumanToBinary();
+			compressed.setCompressed(true);
+			File packed = compressed.convert(file, "Compressed", columnar);
+			String form = columnar ? "Columnar" : "Row";
+			int plainsize = measure(binary, columnar, form + " plain scan");
+			int packedsize = measure(packed, columnar, form + " compressed scan");
+			assertEquals(1000000, plainsize);
+			assertEquals(plainsize, packedsize);
+			assertTrue(packed.length() < binary.length());
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import Evaluator.ExpressionBinder;
+import Evaluator.ExpressionCompiler;
+import SQLExpression.Expression;
+import SQLParser.LogicalExpressionParser;
+import Storage.Dictionary;
+import Support.Mule;
+import TableElement.DataType;
+import TableElement.Tuple;
+
+/**
+ * This class is used for testing the dictionary of the encoded string
+ * attributes: the codes keep the order of the strings, the comparisons
+ * without decoding, and the side file.
+ * @author messfish
+ *
+ */
+public class DictionaryTest {
+
+	/**
+	 * This method tests the codes follow the order of the values.
+	 */
+	@Test
+	public void testCode() {
+		Dictionary dictionary = new Dictionary(
+				Arrays.asList("pear", "apple", "fig"));
+		assertEquals(3, dictionary.size());
+		assertEquals(2, dictionary.getWidth());
+		assertEquals(0, dictionary.getCode("apple"));
+		assertEquals(1, dictionary.getCode("fig"));
+		assertEquals("pear", dictionary.getValue(2));
+		assertTrue(dictionary.getCode("banana") < 0);
+		assertTrue(dictionary.compare(1, "fig")==0);
+		assertTrue(dictionary.compare(1, "banana") > 0);
+		assertTrue(dictionary.compare(0, "banana") < 0);
+		assertTrue(dictionary.compare(2, "zoo") < 0);
+	}
+
+	/**
+	 * This method tests the data types that hold the codes could be
+	 * compared with each other and with the plain strings.
+	 */
+	@Test
+	public void testDataType() {
+		Dictionary dictionary = new Dictionary(
+				Arrays.asList("pear", "apple", "fig"));
+		DataType apple = new DataType(0, dictionary);
+		DataType pear = new DataType(2, dictionary);
+		assertEquals("apple", apple.getString());
+		assertTrue(apple.compare(pear) < 0);
+		assertTrue(pear.compare(new DataType("pear"))==0);
+		assertTrue(new DataType("banana").compare(apple) > 0);
+		assertTrue(new DataType("fig").compare(pear) < 0);
+	}
+
+	/**
+	 * This method tests the compiled IN list on the encoded strings from
+	 * two dictionaries, each constant is looked up in both of them.
+	 */
+	@Test
+	public void testCompiled() {
+		Dictionary dictionary1 = new Dictionary(
+				Arrays.asList("pear", "apple", "fig"));
+		Dictionary dictionary2 = new Dictionary(
+				Arrays.asList("fig", "kiwi", "apple", "lime"));
+		Map<String, Mule> schema = new HashMap<>();
+		schema.put("S.C", new Mule(0, 2));
+		String exp = "S.C IN ( \"apple\" , \"kiwi\" , \"plum\" )";
+		Expression express = new LogicalExpressionParser(exp.split("\\s+")).parse();
+		ExpressionCompiler compiler = new ExpressionCompiler();
+		assertTrue(compiler.compile(new ExpressionBinder(schema).bind(express)));
+		Predicate<Tuple> predicate = compiler.getPredicate();
+		for(int i=0;i<12;i++) {
+			Dictionary dictionary = i % 2==0 ? dictionary1 : dictionary2;
+			Tuple tuple = new Tuple(1, 1);
+			tuple.setCode(0, i % dictionary.size(), dictionary);
+			String value = tuple.getString(0);
+			assertEquals(value, value.equals("apple")||value.equals("kiwi"),
+					predicate.test(tuple));
+		}
+	}
+
+	/**
+	 * This method tests the dictionaries could be written into the side
+	 * file and read back at the places of the encoded attributes.
+	 */
+	@Test
+	public void testSideFile() throws Exception {
+		File file = File.createTempFile("dict", ".b");
+		file.deleteOnExit();
+		Dictionary.getFile(file).deleteOnExit();
+		List<Dictionary> list = new ArrayList<>();
+		list.add(new Dictionary(Arrays.asList("b", "a")));
+		list.add(new Dictionary(Arrays.asList("x", "y", "z")));
+		Dictionary.write(file, list);
+		Dictionary[] result = Dictionary.read(file,
+				Arrays.asList(-1, 1, 6, 5, 6));
+		assertNull(result[1]);
+		assertEquals("a", result[2].getValue(0));
+		assertEquals(3, result[4].size());
+		assertNull(Dictionary.read(file, Arrays.asList(-1, 1, 2)));
+	}
+
+}
@@ -0,0 +1,205 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import Evaluator.Evaluator;
+import Evaluator.ExpressionBinder;
+import Evaluator.ExpressionCompiler;
+import SQLExpression.ColumnNode;
+import SQLExpression.Expression;
+import SQLExpression.LikeOperator;
+import SQLExpression.MultiAndOperator;
+import SQLExpression.StringValue;
+import SQLParser.CalculationParser;
+import SQLParser.LogicalExpressionParser;
+import Support.Mule;
+import TableElement.Tuple;
+
+/**
+ * This class is mainly used for comparing the compiled expressions with
+ * the evaluator that interprets the expression tree. The expressions are
+ * in the same form as the ones in the tests of the logical expressions
+ * and the CNF converter. Each of them is checked on the same rows by the
+ * evaluator built for every tuple, the evaluator that interprets the
+ * bound tree and the compiled one. The results should be the same and
+ * the time used by each of them will be printed out.
+ * @author messfish
+ *
+ */
+public class ExpressionBenchmark {
+
+	private static final int NUM_OF_ROWS = 200000;
+	private static final int NUM_OF_TIMES = 5;
+	private static final byte[] TYPES = {1, 5, 2, 5};
+
+	/**
+	 * This method builds the schema of the test: a long, a double, a
+	 * string and a date attribute.
+	 * @return the schema.
+	 */
+	private Map<String, Mule> buildSchema() {
+		Map<String, Mule> schema = new HashMap<>();
+		schema.put("S.A", new Mule(0, 1));
+		schema.put("S.B", new Mule(1, 5));
+		schema.put("S.C", new Mule(2, 2));
+		schema.put("S.D", new Mule(3, 3));
+		return schema;
+	}
+
+	/**
+	 * This method builds the rows of the test.
+	 * @return the list of rows.
+	 */
+	private List<Tuple> buildTuples() {
+		Random random = new Random(1);
+		List<Tuple> list = new ArrayList<>(NUM_OF_ROWS);
+		for(int i=0;i<NUM_OF_ROWS;i++) {
+			Tuple tuple = new Tuple(TYPES, 1);
+			tuple.setLong(0, random.nextInt(1000));
+			tuple.setDouble(1, random.nextDouble() * 1000);
+			tuple.setString(2, "name" + random.nextInt(10));
+			tuple.setDouble(3, 736000 + random.nextInt(1000));
+			list.add(tuple);
+		}
+		return list;
+	}
+
+	/**
+	 * This method is used to compare the compiled predicates with the
+	 * evaluators that interpret the tree.
+	 */
+	@Test
+	public void testPredicates() {
+		String[] expressions = {
+			"S.A < 500 AND S.B > 100.5",
+			"S.A <= 12 * ( 3 + 4 ) AND ( S.B >= 16.0 OR S.A <> 12 / ( 6 - 4 ) )",
+			"S.A * 2 - S.B >= 10 OR S.C = \"name3\"",
+			"NOT ( S.C < \"name5\" ) AND S.A / 2 + 1 <> 7",
+			"S.D > 736500.0 OR - S.A < -900 AND S.C <> \"name1\""
+		};
+		Map<String, Mule> schema = buildSchema();
+		List<Tuple> tuples = buildTuples();
+		long[] times = new long[3];
+		for(String exp : expressions) {
+			Expression express =
+					new LogicalExpressionParser(exp.split("\\s+")).parse();
+			Expression bound = new ExpressionBinder(schema).bind(express);
+			ExpressionCompiler compiler = new ExpressionCompiler();
+			assertTrue(compiler.compile(bound));
+			assertNotNull(compiler.getPredicate());
+			assertNull(compiler.getCalculation());
+			/* the evaluator built with the bound tree interprets it. */
+			Evaluator interpreted = new Evaluator(null, bound, schema);
+			Evaluator compiled = new Evaluator(express, schema);
+			boolean[] expected = new boolean[NUM_OF_ROWS];
+			long[] counts = new long[3];
+			for(int time=0;time<NUM_OF_TIMES;time++) {
+				long start = System.nanoTime();
+				for(int i=0;i<NUM_OF_ROWS;i++) {
+					expected[i] = new Evaluator(tuples.get(i), express,
+							schema).checkValid();
+					if(expected[i]) counts[0]++;
+				}
+				times[0] += System.nanoTime() - start;
+				start = System.nanoTime();
+				for(int i=0;i<NUM_OF_ROWS;i++) {
+					boolean valid = interpreted.checkValid(tuples.get(i));
+					assertEquals(expected[i], valid);
+					if(valid) counts[1]++;
+				}
+				times[1] += System.nanoTime() - start;
+				start = System.nanoTime();
+				for(int i=0;i<NUM_OF_ROWS;i++) {
+					boolean valid = compiled.checkValid(tuples.get(i));
+					assertEquals(expected[i], valid);
+					if(valid) counts[2]++;
+				}
+				times[2] += System.nanoTime() - start;
+			}
+			assertEquals(counts[0], counts[2]);
+			assertTrue(counts[0] > 0&&counts[0] < (long)NUM_OF_ROWS * NUM_OF_TIMES);
+		}
+		System.out.println("predicates: evaluator per tuple " + times[0] /
+				NUM_OF_TIMES / 1000000 + " ms, interpreted " + times[1] /
+				NUM_OF_TIMES / 1000000 + " ms, compiled " + times[2] /
+				NUM_OF_TIMES / 1000000 + " ms.");
+	}
+
+	/**
+	 * This method is used to compare the compiled calculations with the
+	 * evaluators that interpret the tree.
+	 */
+	@Test
+	public void testCalculations() {
+		String[] calculations = {"S.A * 2 - S.B", "( S.A + 1 ) / 2",
+				"S.C", "- S.B * ( 12.0 / ( 6.0 - 4.0 ) )", "S.D + 1"};
+		Map<String, Mule> schema = buildSchema();
+		List<Tuple> tuples = buildTuples();
+		Tuple result1 = new Tuple(1, 0), result2 = new Tuple(1, 0);
+		long[] times = new long[2];
+		for(String exp : calculations) {
+			Expression express =
+					new CalculationParser(exp.split("\\s+")).parse();
+			Evaluator interpreted = new Evaluator(null,
+					new ExpressionBinder(schema).bind(express), schema);
+			Evaluator compiled = new Evaluator(express, schema);
+			for(int time=0;time<NUM_OF_TIMES;time++) {
+				long start = System.nanoTime();
+				for(int i=0;i<NUM_OF_ROWS;i++)
+					interpreted.writeData(tuples.get(i), result1, 0);
+				times[0] += System.nanoTime() - start;
+				start = System.nanoTime();
+				for(int i=0;i<NUM_OF_ROWS;i++)
+					compiled.writeData(tuples.get(i), result2, 0);
+				times[1] += System.nanoTime() - start;
+			}
+			for(int i=0;i<NUM_OF_ROWS;i+=97) {
+				interpreted.writeData(tuples.get(i), result1, 0);
+				compiled.writeData(tuples.get(i), result2, 0);
+				assertEquals(result1.getType(0), result2.getType(0));
+				assertEquals(0, result1.compare(0, result2, 0));
+			}
+		}
+		System.out.println("calculations: interpreted " + times[0] /
+				NUM_OF_TIMES / 1000000 + " ms, compiled " + times[1] /
+				NUM_OF_TIMES / 1000000 + " ms.");
+	}
+
+	/**
+	 * This method checks the expressions that could not be compiled are
+	 * left to the evaluator.
+	 */
+	@Test
+	public void testFallback() {
+		Map<String, Mule> schema = buildSchema();
+		ExpressionCompiler compiler = new ExpressionCompiler();
+		Expression like = new LikeOperator(new ColumnNode("S.C"),
+				new StringValue("\"name%\""));
+		assertFalse(compiler.compile(new ExpressionBinder(schema).bind(like)));
+		Expression unbound = new LogicalExpressionParser(
+				"S.A < 500 AND X.E > 3".split("\\s+")).parse();
+		assertFalse(compiler.compile(new ExpressionBinder(schema).bind(unbound)));
+		Expression mismatch = new LogicalExpressionParser(
+				"S.C < 500".split("\\s+")).parse();
+		assertFalse(compiler.compile(new ExpressionBinder(schema).bind(mismatch)));
+		/* the multiple and operator is compiled as a conjunction. */
+		List<Expression> list = new ArrayList<>();
+		list.add(new LogicalExpressionParser("S.A < 500".split("\\s+")).parse());
+		list.add(new LogicalExpressionParser("S.B > 100.5".split("\\s+")).parse());
+		Expression and = new MultiAndOperator(list);
+		Evaluator interpreted = new Evaluator(null,
+				new ExpressionBinder(schema).bind(and), schema);
+		Evaluator compiled = new Evaluator(and, schema);
+		for(Tuple tuple : buildTuples())
+			assertEquals(interpreted.checkValid(tuple), compiled.checkValid(tuple));
+	}
+
+}
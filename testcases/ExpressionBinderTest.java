@@ -0,0 +1,111 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import Evaluator.Evaluator;
+import Evaluator.ExpressionBinder;
+import SQLExpression.Expression;
+import SQLParser.CalculationParser;
+import SQLParser.LogicalExpressionParser;
+import Support.Mule;
+import TableElement.Tuple;
+
+/**
+ * This class is used for testing the expressions bound to the schema:
+ * the columns in the schema should be turned into their indexes, and the
+ * evaluator that is built once should give the same results as the one
+ * that is built for every tuple.
+ * @author messfish
+ *
+ */
+public class ExpressionBinderTest {
+
+	/**
+	 * This method builds the schema of the test: a long, a double and a
+	 * string attribute.
+	 * @return the schema.
+	 */
+	private Map<String, Mule> buildSchema() {
+		Map<String, Mule> schema = new HashMap<>();
+		schema.put("S.A", new Mule(0, 1));
+		schema.put("S.B", new Mule(1, 5));
+		schema.put("S.C", new Mule(2, 2));
+		return schema;
+	}
+
+	/**
+	 * This method checks the structure of the bound tree, the column that
+	 * is not in the schema is left as it is.
+	 */
+	@Test
+	public void testBind() {
+		String exp = "S.A < 3.2 AND ( S.B > 12.0 + S.A OR X.D = 4 )";
+		Expression express = new LogicalExpressionParser(exp.split("\\s+")).parse();
+		Expression bound = new ExpressionBinder(buildSchema()).bind(express);
+		String expected = "[AND]" + "\n" +
+		                  "-[<]" + "\n" +
+		                  "--[Column: S.A #0]" + "\n" +
+		                  "--[Double: 3.2]" + "\n" +
+		                  "-[()]" + "\n" +
+		                  "--[OR]" + "\n" +
+		                  "---[>]" + "\n" +
+		                  "----[Column: S.B #1]" + "\n" +
+		                  "----[+]" + "\n" +
+		                  "-----[Double: 12.0]" + "\n" +
+		                  "-----[Column: S.A #0]" + "\n" +
+		                  "---[=]" + "\n" +
+		                  "----[Column: X.D]" + "\n" +
+		                  "----[Long: 4]" + "\n";
+		StringBuilder sb = new StringBuilder();
+		bound.print("", sb);
+		assertEquals(expected, sb.toString());
+		StringBuilder sb2 = new StringBuilder();
+		bound.toString(sb2);
+		sb2.deleteCharAt(sb2.length() - 1);
+		assertEquals(exp, sb2.toString());
+	}
+
+	/**
+	 * This method checks the evaluator built once gives the same results
+	 * as the evaluators built for every tuple.
+	 */
+	@Test
+	public void testEvaluate() {
+		Map<String, Mule> schema = buildSchema();
+		String[] expressions = {
+			"S.A < 500 AND S.B > 100.5",
+			"S.A * 2 - S.B >= 10 OR S.C = \"name3\"",
+			"NOT ( S.C < \"name5\" ) AND S.A / 2 + 1 <> 7"
+		};
+		String[] calculations = {"S.A * 2 - S.B", "( S.A + 1 ) / 2", "S.C"};
+		Random random = new Random(1);
+		for(int j=0;j<expressions.length;j++) {
+			Expression express = new LogicalExpressionParser(
+					expressions[j].split("\\s+")).parse();
+			Expression calculate = new CalculationParser(
+					calculations[j].split("\\s+")).parse();
+			Evaluator bound1 = new Evaluator(express, schema);
+			Evaluator bound2 = new Evaluator(calculate, schema);
+			Tuple result1 = new Tuple(1, 0), result2 = new Tuple(1, 0);
+			for(int i=0;i<1000;i++) {
+				Tuple tuple = new Tuple(3, 1);
+				tuple.setLong(0, random.nextInt(1000));
+				tuple.setDouble(1, random.nextDouble() * 1000);
+				tuple.setString(2, "name" + random.nextInt(10));
+				assertEquals(new Evaluator(tuple, express, schema).checkValid(),
+						bound1.checkValid(tuple));
+				new Evaluator(tuple, calculate, schema).writeData(result1, 0);
+				bound2.writeData(tuple, result2, 0);
+				assertEquals(result1.getType(0), result2.getType(0));
+				assertEquals(0, result1.compare(0, result2, 0));
+			}
+		}
+	}
+
+}
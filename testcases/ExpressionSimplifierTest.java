@@ -0,0 +1,178 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import Evaluator.Evaluator;
+import SQLExpression.Expression;
+import SQLParser.CalculationParser;
+import SQLParser.ExpressionSimplifier;
+import SQLParser.LogicalExpressionParser;
+import Support.Mule;
+import TableElement.Tuple;
+
+/**
+ * This class handles the test cases of the expression simplifier. The
+ * simplified trees are checked in the pre-order form, the conditions
+ * that are always true or always false are checked by the result and the
+ * contradiction flag. At last the simplified trees are evaluated on the
+ * random rows to make sure they give the same answer as the original ones.
+ * @author messfish
+ *
+ */
+public class ExpressionSimplifierTest {
+
+	/**
+	 * This method simplifies the expression and returns the tree in the
+	 * pre-order form.
+	 * @param express the expression that will be simplified.
+	 * @return the simplified tree in the pre-order form.
+	 */
+	private String simplify(Expression express) {
+		StringBuilder sb = new StringBuilder();
+		new ExpressionSimplifier().simplify(express).print("", sb);
+		return sb.toString();
+	}
+
+	/**
+	 * This method parses the logical expression.
+	 * @param exp the expression separated by spaces.
+	 * @return the root of the expression tree.
+	 */
+	private Expression parse(String exp) {
+		return new LogicalExpressionParser(exp.split("\\s+")).parse();
+	}
+
+	/** this case tests the calculations of the constants. */
+	@Test
+	public void testFolding() {
+		Expression express = new CalculationParser(
+				"1 + 2 * 3".split("\\s+")).parse();
+		assertEquals("[Long: 7]\n", simplify(express));
+		express = new CalculationParser(
+				"S.A * ( 2 + 3 ) - - 4".split("\\s+")).parse();
+		String expected = "[-]" + "\n" +
+				          "-[*]" + "\n" +
+				          "--[Column: S.A]" + "\n" +
+				          "--[Long: 5]" + "\n" +
+				          "-[Long: -4]" + "\n";
+		assertEquals(expected, simplify(express));
+		express = new CalculationParser(
+				"S.B / ( 6.0 - 4 )".split("\\s+")).parse();
+		expected = "[/]" + "\n" +
+				   "-[Column: S.B]" + "\n" +
+				   "-[Double: 2.0]" + "\n";
+		assertEquals(expected, simplify(express));
+		/* the division by zero is left to the evaluator. */
+		express = new CalculationParser(
+				"S.A / ( 3 - 3 ) + 2 / 0".split("\\s+")).parse();
+		expected = "[+]" + "\n" +
+				   "-[/]" + "\n" +
+				   "--[Column: S.A]" + "\n" +
+				   "--[Long: 0]" + "\n" +
+				   "-[/]" + "\n" +
+				   "--[Long: 2]" + "\n" +
+				   "--[Long: 0]" + "\n";
+		assertEquals(expected, simplify(express));
+	}
+
+	/** this case tests the logical operators and the dates. */
+	@Test
+	public void testLogical() {
+		Expression express = parse("S.D > \"2017/03/25\" + 7 AND "
+				+ "NOT NOT S.A < 5 OR NOT ( S.B >= 2.5 )");
+		String expected = "[OR]" + "\n" +
+				          "-[AND]" + "\n" +
+				          "--[>]" + "\n" +
+				          "---[Column: S.D]" + "\n" +
+				          "---[Double: 736785.0]" + "\n" +
+				          "--[<]" + "\n" +
+				          "---[Column: S.A]" + "\n" +
+				          "---[Long: 5]" + "\n" +
+				          "-[<]" + "\n" +
+				          "--[Column: S.B]" + "\n" +
+				          "--[Double: 2.5]" + "\n";
+		assertEquals(expected, simplify(express));
+		express = parse("S.A = S.A AND S.B > 3 AND 2 < 3");
+		expected = "[>]" + "\n" +
+				   "-[Column: S.B]" + "\n" +
+				   "-[Long: 3]" + "\n";
+		assertEquals(expected, simplify(express));
+		express = parse("1 > 2 OR S.C < \"b\" OR \"b\" < \"a\"");
+		expected = "[<]" + "\n" +
+				   "-[Column: S.C]" + "\n" +
+				   "-[String: \"b\"]" + "\n";
+		assertEquals(expected, simplify(express));
+	}
+
+	/** this case tests the conditions that are always true or false. */
+	@Test
+	public void testContradiction() {
+		String[] truelist = {"S.A > 5 OR 1 = 1", "S.A <= S.A",
+				"NOT ( S.A < 5 ) OR S.B = S.B", "\"a\" < \"b\" AND 2.5 > 2"};
+		String[] falselist = {"S.A > 5 AND S.A < 3", "1 > 2 AND S.B < 3",
+				"S.A >= 5 AND S.B < 2 AND 5 > S.A", "S.A = 3 AND S.A <> 3",
+				"S.A <> S.A OR NOT S.B = S.B", "S.A = 3 AND S.A = 4.5"};
+		String[] validlist = {"S.A > 5 AND S.A <= 6", "S.A > 5 OR S.A < 3",
+				"S.A >= 5 AND S.A <= 5", "S.A > 5 AND S.B < 3"};
+		ExpressionSimplifier simplifier = new ExpressionSimplifier();
+		for(String exp : truelist) {
+			assertNull(simplifier.simplify(parse(exp)));
+			assertFalse(simplifier.isContradiction());
+		}
+		for(String exp : falselist) {
+			assertNull(simplifier.simplify(parse(exp)));
+			assertTrue(simplifier.isContradiction());
+		}
+		for(String exp : validlist) {
+			assertNotNull(simplifier.simplify(parse(exp)));
+			assertFalse(simplifier.isContradiction());
+		}
+	}
+
+	/**
+	 * This case checks the simplified trees give the same answer as the
+	 * original ones on the random rows.
+	 */
+	@Test
+	public void testEvaluate() {
+		String[] expressions = {
+			"S.A <= 12 * ( 3 + 4 ) AND NOT ( S.B >= 160.0 AND S.A <> 12 / ( 6 - 4 ) )",
+			"S.C = \"name3\" AND 3 < 2 OR NOT NOT S.A * ( 2 - 1 ) > 500",
+			"S.D > \"2017/03/25\" - 100 AND S.A >= S.A AND S.B <= 500.5",
+			"S.A > 100 AND S.A < 300 AND S.A <> 200 OR - ( 2 * 3 ) > S.B - 100"
+		};
+		Map<String, Mule> schema = new HashMap<>();
+		schema.put("S.A", new Mule(0, 1));
+		schema.put("S.B", new Mule(1, 5));
+		schema.put("S.C", new Mule(2, 2));
+		schema.put("S.D", new Mule(3, 3));
+		byte[] types = {1, 5, 2, 5};
+		Random random = new Random(2);
+		ExpressionSimplifier simplifier = new ExpressionSimplifier();
+		for(String exp : expressions) {
+			Expression express = parse(exp);
+			Expression simplified = simplifier.simplify(express);
+			assertNotNull(simplified);
+			int count = 0;
+			for(int i=0;i<5000;i++) {
+				Tuple tuple = new Tuple(types, 1);
+				tuple.setLong(0, random.nextInt(1000));
+				tuple.setDouble(1, random.nextDouble() * 1000);
+				tuple.setString(2, "name" + random.nextInt(10));
+				tuple.setDouble(3, 736600 + random.nextInt(200));
+				boolean valid = new Evaluator(tuple, express, schema).checkValid();
+				assertEquals(valid,
+						new Evaluator(tuple, simplified, schema).checkValid());
+				if(valid) count++;
+			}
+			assertTrue(count > 0&&count < 5000);
+		}
+	}
+
+}
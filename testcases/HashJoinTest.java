@@ -0,0 +1,148 @@
+package testcases;
+
+import static org.junit.Assert.*;
+import static testcases.JoinTestHelper.*;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Test;
+
+import PhysicalOperators.HashJoinOperator;
+import PhysicalOperators.JoinOperator;
+import PhysicalOperators.Operator;
+import PhysicalOperators.ScanOperator;
+import SQLExpression.Expression;
+import SmallSQLServer.Main;
+import Support.LongHashTable;
+
+/**
+ * This class handles the test cases of the hash join. The tuples of the
+ * hash join should be the same as the tuples of the nested loops join
+ * with the same condition, the order is not checked since the hash join
+ * might keep the left side in the hash table.
+ * @author messfish
+ *
+ */
+public class HashJoinTest {
+
+	/**
+	 * This case checks the hash join gives the same tuples as the nested
+	 * loops join on the keys of each type, with and without the extra
+	 * conditions, and the left or the right side as the smaller one.
+	 */
+	@Test
+	public void testJoin() {
+		File large = generate("HL", 600, 1, 40, 0, 0.0);
+		File small = generate("HR", 150, 2, 40, 0, 0.0);
+		String[] conditions = {"HL.A = HR.A", "HR.C = HL.C",
+				"HL.B = HR.B AND HL.A < HR.A",
+				"HL.A > 10 AND HR.A = HL.A AND HL.C <> HR.C"};
+		File[][] pairs = {{large, small}, {small, large}};
+		for(File[] pair : pairs) {
+			for(String exp : conditions) {
+				Expression express = parse(exp);
+				Operator left = new ScanOperator(pair[0]);
+				Operator right = new ScanOperator(pair[1]);
+				String[] keys = HashJoinOperator.findKeys(express,
+						left.getSchema(), right.getSchema());
+				assertNotNull(keys);
+				assertTrue(left.getSchema().containsKey(keys[0]));
+				assertTrue(right.getSchema().containsKey(keys[1]));
+				Operator hash = new HashJoinOperator(left, right, express,
+						keys[0], keys[1]);
+				List<String> expected = readAll(new JoinOperator(
+						new ScanOperator(pair[0]), new ScanOperator(pair[1]),
+						express));
+				assertTrue(expected.size() > 0);
+				assertEquals(expected, readAll(hash));
+				hash.reset();
+				assertEquals(expected, readAll(hash));
+			}
+		}
+	}
+
+	/**
+	 * This case checks the hash join that writes both sides into the
+	 * temporary files, the memory is only one page so the part with the
+	 * skewed key has to be split again. The temporary files are deleted
+	 * when the join is closed.
+	 */
+	@Test
+	public void testSpill() {
+		File large = generate("HL", 400, 5, 40, 120, 0.4);
+		File small = generate("HR", 300, 6, 40, 120, 0.4);
+		Main.setJoinPages(1);
+		String[] conditions = {"HL.A = HR.A", "HR.C = HL.C",
+				"HL.B = HR.B AND HL.A < HR.A"};
+		for(String name : tempFiles("join "))
+			new File(Main.getTemp() + "/" + name).delete();
+		try {
+			for(String exp : conditions) {
+				Expression express = parse(exp);
+				Operator left = new ScanOperator(large);
+				Operator right = new ScanOperator(small);
+				String[] keys = HashJoinOperator.findKeys(express,
+						left.getSchema(), right.getSchema());
+				Operator hash = new HashJoinOperator(left, right, express,
+						keys[0], keys[1]);
+				List<String> expected = readAll(new JoinOperator(
+						new ScanOperator(large), new ScanOperator(small),
+						express));
+				assertTrue(expected.size() > 0);
+				assertEquals(expected, readAll(hash));
+				hash.reset();
+				assertEquals(expected, readAll(hash));
+				assertTrue(tempFiles("join ").size() > 0);
+				hash.close();
+				assertEquals(0, tempFiles("join ").size());
+			}
+		} finally {
+			Main.setJoinPages(4096);
+		}
+	}
+
+	/**
+	 * This case checks the conditions that could not be used by the hash
+	 * join, there should be an equality of a column from each side.
+	 */
+	@Test
+	public void testFindKeys() {
+		Operator left = new ScanOperator(generate("HL", 10, 3, 40, 0, 0.0));
+		Operator right = new ScanOperator(generate("HR", 10, 4, 40, 0, 0.0));
+		String[] conditions = {"HL.A < HR.A", "HL.A = HL.B", "HL.A = 3",
+				"HL.A = HR.A OR HL.B = HR.B", "HL.A = HR.C"};
+		for(String exp : conditions)
+			assertNull(HashJoinOperator.findKeys(parse(exp),
+					left.getSchema(), right.getSchema()));
+		assertNull(HashJoinOperator.findKeys(null,
+				left.getSchema(), right.getSchema()));
+		String[] keys = HashJoinOperator.findKeys(parse("HR.B = HL.B"),
+				left.getSchema(), right.getSchema());
+		assertArrayEquals(new String[]{"HL.B", "HR.B"}, keys);
+	}
+
+	/**
+	 * This case checks the hash table keeps the rows of the same key in
+	 * the order they are put, also when the table grows.
+	 */
+	@Test
+	public void testHashTable() {
+		LongHashTable table = new LongHashTable(4);
+		for(int i=0;i<1000;i++)
+			table.put(i % 7 == 0 ? Long.MIN_VALUE : i * 31L, i);
+		assertEquals(858, table.size());
+		int count = 0, previous = -1;
+		for(int row=table.get(Long.MIN_VALUE);row!=-1;row=table.next(row)) {
+			assertEquals(0, row % 7);
+			assertTrue(row > previous);
+			previous = row;
+			count++;
+		}
+		assertEquals(143, count);
+		assertEquals(62, table.get(62 * 31L));
+		assertEquals(-1, table.next(62));
+		assertEquals(-1, table.get(5));
+	}
+
+}
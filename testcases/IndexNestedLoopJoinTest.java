@@ -0,0 +1,159 @@
+package testcases;
+
+import static org.junit.Assert.*;
+import static testcases.JoinTestHelper.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import BPlusTree.BPlusTree;
+import PhysicalOperators.CartesianOperator;
+import PhysicalOperators.IndexNestedLoopJoinOperator;
+import PhysicalOperators.JoinOperator;
+import PhysicalOperators.Operator;
+import PhysicalOperators.ScanOperator;
+import PhysicalOperators.SelectOperator;
+import SQLExpression.Expression;
+import SmallSQLServer.Main;
+import Support.Catalog;
+import Support.HumanToBinary;
+import TableElement.DataType;
+import TableElement.Table;
+import TableElement.Tuple;
+
+/**
+ * This class handles the test cases of the tree and the index nested
+ * loops join. The pointers found by the tree should be the same as the
+ * pointers found by scanning the table, and the tuples of the join should
+ * be the same as the tuples of the nested loops join.
+ * @author messfish
+ *
+ */
+public class IndexNestedLoopJoinTest {
+
+	/**
+	 * This method writes a table by the join test helper and moves it into
+	 * the data directory of the catalog.
+	 * @param name the name of the table.
+	 * @param size the number of tuples in the table.
+	 * @param seed the seed of the random values.
+	 * @param range the number of different long values, 0 means every
+	 * tuple has a different long value except the ones that have 7.
+	 * @return the table in the binary form.
+	 */
+	private File install(String name, int size, int seed, int range) {
+		File converted = generate(name, size, seed, range, 0, 0.0);
+		Main.setInput(Main.getTest() + "/indextest");
+		return moveIntoData(converted, Main.getInput());
+	}
+
+	/**
+	 * This method builds the operator that reads the table of the catalog.
+	 * @param name the name of the table.
+	 * @param catalog the catalog that will be used.
+	 * @return the operator of the table.
+	 */
+	private CartesianOperator table(String name, Catalog catalog) {
+		Map<String, Table> map = new HashMap<>();
+		map.put(name, new Table(name));
+		return new CartesianOperator(map, catalog);
+	}
+
+	/**
+	 * This case checks the pointers found by the tree with the pointers
+	 * found by scanning the table. The table has more than one level of
+	 * index nodes, and a key that has too many tuples for a single page.
+	 */
+	@Test
+	public void testSearch() {
+		File file = install("IT", 45000, 3, 0);
+		Map<Long, List<String>> expected = new HashMap<>();
+		ScanOperator scan = new ScanOperator(file);
+		Tuple tuple = null;
+		while((tuple=scan.getNextTuple())!=null) {
+			int[] pointer = scan.getPointer();
+			expected.computeIfAbsent(tuple.getLong(0), k -> new ArrayList<>())
+					.add(pointer[0] + " " + pointer[1]);
+		}
+		File directory = BPlusTree.build(file, "A");
+		assertTrue(new File(directory, "0/0/keylist").exists());
+		BPlusTree tree = new BPlusTree(directory.getPath() + "/");
+		for(long key=-1;key<=45000;key++) {
+			List<String> found = new ArrayList<>();
+			for(int[] pointer : tree.search(new DataType(key))) {
+				found.add(pointer[0] + " " + pointer[1]);
+				Tuple fetched = scan.getTuple(pointer[0], pointer[1]);
+				assertEquals(key, fetched.getLong(0));
+			}
+			assertEquals(expected.getOrDefault(key, new ArrayList<>()), found);
+		}
+		/* one in every 30 tuples and the tuple with the value 7. */
+		assertEquals(1501, tree.search(new DataType(7L)).size());
+		scan.close();
+	}
+
+	/**
+	 * This case checks the index nested loops join gives the same tuples
+	 * as the nested loops join, with the key of the long value and the
+	 * key of the string, and with the where clause of the right side.
+	 */
+	@Test
+	public void testJoin() {
+		File leftfile = install("IL", 400, 5, 1000);
+		File rightfile = install("IR", 3000, 6, 1000);
+		writeSchema(Main.getInput(), "A 1 B 5 C 2", "IL", "IR");
+		Catalog catalog = new Catalog();
+		assertNull(catalog.getIndex("IR", "A"));
+		BPlusTree.build(rightfile, "A");
+		BPlusTree.build(rightfile, "C");
+		String[] conditions = {"IL.A = IR.A", "IL.A = IR.A AND IL.B < IR.B",
+				"IL.C = IR.C AND IL.B = IR.B"};
+		String[] keys = {"A", "A", "C"};
+		String[] wheres = {null, "IR.B < 7.5", null};
+		for(int i=0;i<conditions.length;i++) {
+			Expression condition = parse(conditions[i]);
+			Expression where = wheres[i]==null ? null : parse(wheres[i]);
+			String index = catalog.getIndex("IR", keys[i]);
+			assertNotNull(index);
+			Operator right = table("IR", catalog);
+			if(where!=null)
+				right = new SelectOperator(right, where);
+			JoinOperator nested = new JoinOperator(new ScanOperator(leftfile),
+					right, condition);
+			IndexNestedLoopJoinOperator join = new IndexNestedLoopJoinOperator
+					(new ScanOperator(leftfile), table("IR", catalog),
+					condition, "IL." + keys[i], new BPlusTree(index), where);
+			List<String> expected = readAll(nested);
+			assertTrue(expected.size() > 0);
+			assertEquals(expected, readAll(join));
+			join.reset();
+			assertEquals(expected, readAll(join));
+		}
+	}
+
+	/**
+	 * This case checks the trees of the table are dropped when the table
+	 * is written again.
+	 */
+	@Test
+	public void testDrop() {
+		File file = install("ID", 500, 7, 100);
+		writeSchema(Main.getInput(), "A 1 B 5 C 2", "ID");
+		Catalog catalog = new Catalog();
+		BPlusTree.build(file, "A");
+		assertNotNull(catalog.getIndex("ID", "A"));
+		assertNull(catalog.getIndex("ID", "B"));
+		File human = new File(Main.getTest() + "/conversiontest/ID");
+		File converted = new HumanToBinary().convert(human, "ID");
+		File directory = BPlusTree.build(converted, "B");
+		assertTrue(directory.isDirectory());
+		new HumanToBinary().convert(human, "ID");
+		assertFalse(directory.exists());
+	}
+
+}
@@ -0,0 +1,179 @@
+package testcases;
+
+import static org.junit.Assert.*;
+import static testcases.JoinTestHelper.*;
+
+import java.io.File;
+import java.util.Random;
+
+import org.junit.Test;
+
+import BPlusTree.BPlusTree;
+import LogicalOperators.JoinOperators;
+import LogicalOperators.Operators;
+import LogicalOperators.ProjectOperators;
+import SQLParser.PlainSelect;
+import SmallSQLServer.Main;
+import SmallSQLServer.QueryHandler;
+import Support.Analyzer;
+import Support.Catalog;
+
+/**
+ * This class handles the test cases of the join enumerator. The plan
+ * should never join two tables that have no conjunct between them when
+ * there is another way, every conjunct should be checked by exactly one
+ * join, and the index nested loops should be chosen when only a few
+ * tuples search the tree of a large table.
+ * @author messfish
+ *
+ */
+public class JoinEnumeratorTest {
+
+	/**
+	 * This method writes a table into the data directory of the catalog.
+	 * The attribute A has 5000 values, the attribute B has 30 values and
+	 * the attribute C has 50 values.
+	 * @param name the name of the table.
+	 * @param size the number of tuples in the table.
+	 */
+	private void install(String name, int size) {
+		Random random = new Random(size);
+		moveIntoData(generate(name, size, new int[]{1, 5, 2},
+				i -> String.valueOf(i % 5000),
+				i -> String.valueOf(random.nextInt(30) * 0.5),
+				i -> "s" + random.nextInt(50)), Main.getInput());
+	}
+
+	/**
+	 * This method builds the catalog of the three tables.
+	 * @return the catalog.
+	 */
+	private Catalog catalog() {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		Main.setInput(Main.getTest() + "/enumeratortest");
+		new File(Main.getInput() + "/db/statistics.txt").delete();
+		install("JB", 60000);
+		install("JM", 3000);
+		install("JS", 20);
+		writeSchema(Main.getInput(), "A 1 B 5 C 2", "JB", "JM", "JS");
+		return new Catalog();
+	}
+
+	/**
+	 * This method builds the logical plan of the query and returns the
+	 * plan in the pre-order form.
+	 * @param query the query.
+	 * @param catalog the catalog.
+	 * @return the plan in the pre-order form.
+	 */
+	private String plan(String query, Catalog catalog) {
+		Operators root = QueryHandler.BuildQueryPlan(new PlainSelect(query),
+				catalog);
+		StringBuilder sb = new StringBuilder();
+		root.print("", sb);
+		return sb.toString();
+	}
+
+	/**
+	 * This method counts the times the part shows in the string.
+	 * @param s the string.
+	 * @param part the part that will be counted.
+	 * @return the number of times.
+	 */
+	private int count(String s, String part) {
+		int result = 0, index = 0;
+		while((index = s.indexOf(part, index))!=-1) {
+			result++;
+			index += part.length();
+		}
+		return result;
+	}
+
+	/**
+	 * This case checks the plan of a chain of three tables: both of the
+	 * conjuncts are checked by a join, and the two tables that have no
+	 * conjunct are never joined by themselves.
+	 */
+	@Test
+	public void testChain() {
+		Catalog catalog = catalog();
+		String result = plan("SELECT * FROM JB , JS , JM WHERE "
+				+ "JB.A = JM.A AND JM.C = JS.C", catalog);
+		assertEquals(2, count(result, "Join ("));
+		assertEquals(1, count(result, "JB.A = JM.A"));
+		assertEquals(1, count(result, "JM.C = JS.C"));
+		assertEquals(0, count(result, "Join (nested loop)"));
+		/* without the catalog, the tables are joined in the from list. */
+		result = plan("SELECT * FROM JB , JS , JM WHERE "
+				+ "JB.A = JM.A AND JM.C = JS.C", null);
+		assertEquals(0, count(result, "Join ("));
+	}
+
+	/**
+	 * This case checks the index nested loops are chosen when a few tuples
+	 * of the small table search the tree of the large table, and the hash
+	 * join is chosen when there is no tree.
+	 */
+	@Test
+	public void testIndex() {
+		Catalog catalog = catalog();
+		String query = "SELECT * FROM JB , JS WHERE JS.A = JB.A AND "
+				+ "JS.B = 3.0 AND JS.B < 9.0";
+		assertEquals(1, count(plan(query, catalog), "Join (hash)"));
+		BPlusTree.build(new File(catalog.getFileLocation("JB")), "A");
+		String expected = "Project:" + "\n" +
+				          "-Join (index): JS.A = JB.A" + "\n" +
+				          "--Select: JS.B = 3.0 AND JS.B < 9.0" + "\n" +
+				          "---Scan: JS" + "\n" +
+				          "--Scan: JB" + "\n";
+		assertEquals(expected, plan(query, catalog));
+	}
+
+	/**
+	 * This case checks the merge join is chosen for the sorting it saves
+	 * only when it joins all the tables right below the order by, and the
+	 * order by has the key as its only column.
+	 */
+	@Test
+	public void testOrder() {
+		Catalog catalog = catalog();
+		for(String name : new String[]{"JB", "JM", "JS"})
+			new Analyzer().analyze(name, catalog, 1);
+		String query = "SELECT * FROM JB , JM WHERE JB.B = JM.B";
+		assertEquals(1, count(plan(query, catalog), "Join (hash)"));
+		assertEquals(1, count(plan(query + " ORDER BY JB.B", catalog),
+				"Join (sort merge)"));
+		assertEquals(1, count(plan(query + " ORDER BY JB.B , JB.A", catalog),
+				"Join (hash)"));
+		/* the join of the tables below the top join saves nothing. */
+		String result = plan("SELECT * FROM JB , JM , JS WHERE JB.B = JM.B "
+				+ "AND JM.A = JS.A ORDER BY JB.B", catalog);
+		assertEquals(0, count(result, "Join (sort merge)"));
+	}
+
+	/**
+	 * This case checks the greedy way is used for a chain of twelve
+	 * tables, every conjunct is still checked by exactly one join.
+	 */
+	@Test
+	public void testGreedy() {
+		Catalog catalog = catalog();
+		StringBuilder sb = new StringBuilder("SELECT * FROM ");
+		for(int i=0;i<12;i++)
+			sb.append(i==0 ? "" : " , ").append("JS AS T" + i);
+		sb.append(" WHERE T0.A = T1.A");
+		for(int i=1;i<11;i++)
+			sb.append(" AND T" + i + ".A = T" + (i + 1) + ".A");
+		Operators root = QueryHandler.BuildQueryPlan
+				(new PlainSelect(sb.toString()), catalog);
+		assertTrue(root instanceof ProjectOperators);
+		StringBuilder result = new StringBuilder();
+		root.print("", result);
+		assertEquals(11, count(result.toString(), "Join (hash)"));
+		for(int i=0;i<11;i++)
+			assertEquals(1, count(result.toString(),
+					"T" + i + ".A = T" + (i + 1) + ".A"));
+		assertTrue(((ProjectOperators)root).getChild() instanceof JoinOperators);
+	}
+
+}
@@ -0,0 +1,235 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import BPlusTree.BPlusTree;
+import PhysicalOperators.Operator;
+import SQLExpression.Expression;
+import SQLParser.LogicalExpressionParser;
+import SmallSQLServer.Main;
+import Support.HumanToBinary;
+import TableElement.Tuple;
+
+/**
+ * This class holds the methods shared by the test cases of the joins and
+ * the catalog: it writes the tables, moves them into the data directory
+ * of the catalog, reads the tuples of the joins in a form that could be
+ * compared and parses the conditions. The tables of the joins have a long
+ * column A, a double column B and a string column C.
+ * @author messfish
+ *
+ */
+class JoinTestHelper {
+
+	/**
+	 * This method writes a table in the human readable form and converts
+	 * it into the binary form. The double column and the string column
+	 * have only a few values so there are many matches of each key.
+	 * @param name the name of the table.
+	 * @param size the number of tuples in the table.
+	 * @param seed the seed of the random values.
+	 * @param range the number of different long values, 0 means every
+	 * tuple has a different long value except one in every 30 has 7.
+	 * @param width the length the strings are filled to.
+	 * @param skew the part of the tuples that have 7 as the long value.
+	 * @return the table in the binary form.
+	 */
+	static File generate(String name, int size, int seed, int range,
+			int width, double skew) {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		Main.setTemp("/Users/messfish/Desktop/SQLdatabase/temp");
+		Random random = new Random(seed);
+		StringBuilder sb = new StringBuilder();
+		sb.append(name + ".A 1 " + name + ".B 5 " + name + ".C 2 \n");
+		for(int i=0;i<size;i++) {
+			long value = range==0 ? (i % 30==0 ? 7 : i) : random.nextInt(range);
+			String[] values = {String.valueOf(value),
+					String.valueOf(random.nextInt(30) * 0.5),
+					"s" + random.nextInt(20)};
+			if(random.nextDouble() < skew) values[0] = "7";
+			while(values[2].length() < width) values[2] += "x";
+			append(sb, i, values);
+		}
+		return convert(name, sb);
+	}
+
+	/**
+	 * This method writes a table in the human readable form and converts
+	 * it into the binary form. The value of each column is given by its
+	 * generator, which takes the order of the tuple. The columns are named
+	 * from A, the generators are called from the first column to the last
+	 * for each tuple, so they could share the random values.
+	 * @param name the name of the table.
+	 * @param size the number of tuples in the table.
+	 * @param types the type of each column.
+	 * @param columns the generator of each column.
+	 * @return the table in the binary form.
+	 */
+	@SafeVarargs
+	static File generate(String name, int size, int[] types,
+			IntFunction<String>... columns) {
+		StringBuilder sb = new StringBuilder();
+		for(int i=0;i<columns.length;i++)
+			sb.append(name + "." + (char)('A' + i) + " " + types[i] + " ");
+		sb.append("\n");
+		for(int i=0;i<size;i++) {
+			String[] values = new String[columns.length];
+			for(int j=0;j<columns.length;j++)
+				values[j] = columns[j].apply(i);
+			append(sb, i, values);
+		}
+		return convert(name, sb);
+	}
+
+	/**
+	 * This method appends a tuple in the human readable form.
+	 * @param sb the string builder of the table.
+	 * @param row the order of the tuple, starts from 0.
+	 * @param values the values of the tuple.
+	 */
+	private static void append(StringBuilder sb, int row, String[] values) {
+		sb.append(row + 1).append(" ");
+		for(String data : values)
+			sb.append(data.length()).append("/").append(data + " ");
+		sb.append("\n");
+	}
+
+	/**
+	 * This method writes the table in the human readable form into the
+	 * directory of the conversion test and converts it.
+	 * @param name the name of the table.
+	 * @param sb the table in the human readable form.
+	 * @return the table in the binary form.
+	 */
+	private static File convert(String name, StringBuilder sb) {
+		File file = new File(Main.getTest() + "/conversiontest/" + name);
+		try {
+			BufferedWriter write = new BufferedWriter(new FileWriter(file));
+			write.write(sb.toString());
+			write.close();
+		} catch (IOException e) {
+			fail("Cannot write the table!");
+		}
+		return new HumanToBinary().convert(file, name);
+	}
+
+	/**
+	 * This method moves the table in the binary form into the data
+	 * directory of the database. The trees left on the old table by the
+	 * earlier runs are dropped, since the file is moved instead of being
+	 * written.
+	 * @param converted the table in the binary form.
+	 * @param directory the directory of the database.
+	 * @return the table in the data directory.
+	 */
+	static File moveIntoData(File converted, String directory) {
+		new File(directory + "/db/data").mkdirs();
+		File result = new File(directory + "/db/data/" + converted.getName());
+		BPlusTree.drop(result);
+		result.delete();
+		assertTrue(converted.renameTo(result));
+		return result;
+	}
+
+	/**
+	 * This method writes the schema file of the database, every table has
+	 * the same columns.
+	 * @param directory the directory of the database.
+	 * @param columns the columns with their types, such as "A 1 B 5".
+	 * @param names the names of the tables.
+	 */
+	static void writeSchema(String directory, String columns, String... names) {
+		try {
+			BufferedWriter write = new BufferedWriter(new FileWriter
+					(directory + "/db/schema.txt"));
+			for(String name : names)
+				write.write(name + " " + columns + "\n");
+			write.close();
+		} catch (IOException e) {
+			fail("Cannot write the schema!");
+		}
+	}
+
+	/**
+	 * This method reads all the tuples of the join of two tables with
+	 * their tuple IDs.
+	 * @param op the operator that will be read.
+	 * @return the sorted list of the tuples in the string form.
+	 */
+	static List<String> readAll(Operator op) {
+		List<String> result = new ArrayList<>();
+		Tuple tuple = null;
+		while((tuple=op.getNextTuple())!=null) {
+			StringBuilder sb = new StringBuilder();
+			sb.append(tuple.getTupleID(0)).append(" ")
+			  .append(tuple.getTupleID(1)).append(" ")
+			  .append(tuple.getLong(0)).append(" ")
+			  .append(tuple.getDouble(4)).append(" ")
+			  .append(tuple.getString(5));
+			result.add(sb.toString());
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	/**
+	 * This method reads all the data of the tuples from the operator
+	 * without the tuple IDs, the tuples should be sorted by the data at
+	 * the index if it is not negative.
+	 * @param op the operator that will be read.
+	 * @param index the index of the key, -1 means the order is not checked.
+	 * @return the sorted list of the tuples in the string form.
+	 */
+	static List<String> readData(Operator op, int index) {
+		List<String> result = new ArrayList<>();
+		Tuple tuple = null, previous = null;
+		while((tuple=op.getNextTuple())!=null) {
+			if(index >= 0&&previous!=null)
+				assertTrue(previous.compare(index, tuple, index) <= 0);
+			previous = tuple;
+			StringBuilder sb = new StringBuilder();
+			for(int i=0;i<tuple.datasize();i++) {
+				if(tuple.getType(i)==1) sb.append(tuple.getLong(i));
+				else if(tuple.getType(i)==5) sb.append(tuple.getDouble(i));
+				else sb.append(tuple.getString(i));
+				sb.append(" ");
+			}
+			result.add(sb.toString());
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	/**
+	 * This method lists the temporary files whose names start with the
+	 * prefix given.
+	 * @param prefix the start of the names.
+	 * @return the names of the temporary files.
+	 */
+	static List<String> tempFiles(String prefix) {
+		List<String> result = new ArrayList<>();
+		for(String name : new File(Main.getTemp()).list())
+			if(name.startsWith(prefix)) result.add(name);
+		return result;
+	}
+
+	/**
+	 * This method parses the logical expression.
+	 * @param exp the expression separated by spaces.
+	 * @return the root of the expression tree.
+	 */
+	static Expression parse(String exp) {
+		return new LogicalExpressionParser(exp.split("\\s+")).parse();
+	}
+
+}
@@ -0,0 +1,122 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import Storage.LZCodec;
+import Storage.PageCodec;
+import Storage.PageReader;
+import Storage.PageWriter;
+
+/**
+ * This class is used for testing the compression of the pages: the LZ
+ * codec, the frame of reference form of the runs, and the compressed file
+ * written by the page writer and read by the page reader.
+ * @author messfish
+ *
+ */
+public class PageCodecTest {
+
+	private static final int NUM_OF_BYTES = 16384;
+
+	/**
+	 * This method builds a page that stores the tuples of a long value
+	 * and a double value one after another, followed by some text.
+	 * @param seed the seed of the random values.
+	 * @return the byte buffer that stores the page.
+	 */
+	private ByteBuffer build(int seed) {
+		Random random = new Random(seed);
+		ByteBuffer buffer = ByteBuffer.allocate(NUM_OF_BYTES);
+		buffer.putInt(0, 500);
+		for(int i=0;i<500;i++) {
+			buffer.putLong(4 + 16 * i, seed * 1000L + i * 3);
+			buffer.putDouble(12 + 16 * i, random.nextDouble() * 100);
+		}
+		for(int i=8004;i<NUM_OF_BYTES;i++)
+			buffer.put(i, (byte)("abcdefg".charAt(i % 7)));
+		return buffer;
+	}
+
+	/**
+	 * This method tests the LZ codec gives back the same bytes.
+	 */
+	@Test
+	public void testLZCodec() {
+		Random random = new Random(1);
+		byte[] source = new byte[NUM_OF_BYTES];
+		for(int i=0;i<source.length;i++)
+			source[i] = (byte)(i < 8000 ? random.nextInt(256) : i % 13);
+		byte[] target = new byte[LZCodec.getMaxLength(source.length)];
+		int end = LZCodec.compress(source, source.length, target, 0);
+		assertTrue(end < source.length);
+		byte[] result = new byte[source.length];
+		assertEquals(source.length, LZCodec.decompress(target, 0, end, result));
+		assertArrayEquals(source, result);
+	}
+
+	/**
+	 * This method tests the runs are stored in the frame of reference
+	 * form and restored, including the values at both ends of the long.
+	 */
+	@Test
+	public void testRuns() {
+		ByteBuffer buffer = build(7);
+		buffer.putLong(4, Long.MIN_VALUE);
+		buffer.putLong(20, Long.MAX_VALUE);
+		byte[] page = buffer.array().clone();
+		int[] runs = PageCodec.getRuns(4, new int[]{8, 8}, 500);
+		assertArrayEquals(new int[]{4, 500, 16, 12, 500, 16}, runs);
+		assertNull(PageCodec.getRuns(4, new int[]{8, -1}, 500));
+		PageCodec codec = new PageCodec(NUM_OF_BYTES);
+		ByteBuffer frame = codec.encode(buffer, runs);
+		assertEquals(PageCodec.DELTA, frame.get(0));
+		int length = frame.getInt(1);
+		assertTrue(length < NUM_OF_BYTES / 2);
+		byte[] source = new byte[length];
+		System.arraycopy(frame.array(), PageCodec.HEADER_SIZE, source, 0, length);
+		byte[] result = new byte[NUM_OF_BYTES];
+		new PageCodec(NUM_OF_BYTES).decode(PageCodec.DELTA, source, length, result);
+		assertArrayEquals(page, result);
+	}
+
+	/**
+	 * This method tests the compressed file could be read by the page
+	 * reader, including skipping and rewinding.
+	 */
+	@Test
+	public void testCompressedFile() throws Exception {
+		File file = File.createTempFile("codec", ".b");
+		file.deleteOnExit();
+		PageWriter writer = new PageWriter(file, true);
+		for(int i=0;i<5;i++)
+			writer.writePage(build(i),
+					PageCodec.getRuns(4, new int[]{8, 8}, 500));
+		/* a page of random bytes could not be compressed at all. */
+		ByteBuffer random = ByteBuffer.allocate(NUM_OF_BYTES);
+		new Random(3).nextBytes(random.array());
+		writer.writePage(random);
+		writer.close();
+		assertTrue(PageCodec.isCompressed(file));
+		assertTrue(file.length() < 4 * NUM_OF_BYTES);
+		for(boolean mapped : new boolean[]{false, true}) {
+			PageReader reader = PageReader.open(file, mapped);
+			assertEquals(0L, reader.readPage().getLong(4));
+			reader.skipPage();
+			assertEquals(2003L, reader.readPage().getLong(20));
+			reader.skipPage();
+			reader.skipPage();
+			assertArrayEquals(random.array(), reader.readPage().array());
+			assertNull(reader.readPage());
+			reader.rewind();
+			assertEquals(0L, reader.readPage().getLong(4));
+			reader.close();
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import PhysicalOperators.ScanOperator;
+import SmallSQLServer.Main;
+import Support.HumanToBinary;
+import Support.RandomTable;
+import TableElement.PageTuple;
+import TableElement.Tuple;
+
+/**
+ * This class is used for testing the tuples that are backed by the pages:
+ * the bytes copied in a single step should be the same as the bytes
+ * written field by field, and the data should be the same as the data
+ * copied into a tuple of its own.
+ * @author messfish
+ *
+ */
+public class PageTupleTest {
+
+	/**
+	 * This method is used to copy the tuple into a tuple of its own.
+	 * @param tuple the tuple that will be copied.
+	 * @return the copy of the tuple.
+	 */
+	private Tuple copy(Tuple tuple) {
+		Tuple result = new Tuple(tuple.datasize(), 1);
+		for(int i=0;i<tuple.datasize();i++)
+			result.copyData(i, tuple, i);
+		return result;
+	}
+
+	/**
+	 * This method checks the tuple of the full scan is written by the
+	 * single copy of the bytes in the same way as the fields are written
+	 * one by one.
+	 */
+	@Test
+	public void testBulkCopy() {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		RandomTable random = new RandomTable(5000);
+		File row = new HumanToBinary().convert(random.generate(6), "PageTuple");
+		ScanOperator scan = new ScanOperator(row, false);
+		ByteBuffer buffer1 = ByteBuffer.allocate(16384);
+		ByteBuffer buffer2 = ByteBuffer.allocate(16384);
+		Tuple tuple = null, last = null, lastcopy = null;
+		int size = 0;
+		while((tuple=scan.getNextTuple())!=null) {
+			assertTrue(tuple instanceof PageTuple);
+			assertNotEquals(-1, ((PageTuple)tuple).getLength());
+			Tuple plain = copy(tuple);
+			assertEquals(scan.checkSize(plain), scan.checkSize(tuple));
+			scan.writeTuple(buffer1, tuple, 0);
+			scan.writeTuple(buffer2, plain, 0);
+			assertEquals(buffer2, buffer1);
+			if(last!=null) {
+				for(int i=0;i<tuple.datasize();i++)
+					assertEquals(Integer.signum(lastcopy.compare(i, plain, i)),
+							Integer.signum(last.compare(i, tuple, i)));
+			}
+			last = tuple;
+			lastcopy = plain;
+			size++;
+		}
+		assertEquals(5000, size);
+		scan.close();
+	}
+
+	/**
+	 * This method checks the tuple of the narrowed scan does not have the
+	 * range of the bytes, so it is written field by field.
+	 */
+	@Test
+	public void testNarrowScan() {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		RandomTable random = new RandomTable(100);
+		File row = new HumanToBinary().convert(random.generate(7), "PageTuple");
+		Set<String> attributes = new HashSet<>();
+		attributes.add("Tb");
+		ScanOperator scan = new ScanOperator(row, false, attributes);
+		Tuple tuple = scan.getNextTuple();
+		assertEquals(-1, ((PageTuple)tuple).getLength());
+		ByteBuffer buffer1 = ByteBuffer.allocate(16384);
+		ByteBuffer buffer2 = ByteBuffer.allocate(16384);
+		scan.writeTuple(buffer1, tuple, 0);
+		scan.writeTuple(buffer2, copy(tuple), 0);
+		assertEquals(buffer2, buffer1);
+		scan.close();
+	}
+
+}
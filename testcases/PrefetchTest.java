@@ -0,0 +1,161 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import Storage.PageReader;
+import Storage.PageWriter;
+import Storage.PrefetchPageReader;
+
+/**
+ * This class is used for testing the reader that reads the pages ahead:
+ * the pages should come in the same order as the plain reader, and the
+ * reader could be rewound in the middle of the file.
+ * @author messfish
+ *
+ */
+public class PrefetchTest {
+
+	private static final int NUM_OF_BYTES = 16384;
+
+	/**
+	 * This class wraps a page reader and keeps the order of every page
+	 * read from it, the pages skipped are not kept.
+	 */
+	private static class RecordingReader extends PageReader {
+
+		private PageReader source; // this is the reader that is wrapped.
+		private long pageno; // the order of the next page.
+		private Set<Long> read; // the order of the pages read.
+
+		private RecordingReader(PageReader source) {
+			super(source.getFile(), source.getPageSize());
+			this.source = source;
+			read = Collections.synchronizedSet(new HashSet<>());
+		}
+
+		@Override
+		public ByteBuffer readPage() {
+			ByteBuffer buffer = source.readPage();
+			if(buffer!=null) read.add(pageno++);
+			return buffer;
+		}
+
+		@Override
+		public void skipPage() {
+			source.skipPage();
+			pageno++;
+		}
+
+		@Override
+		public void seek(long pageno) {
+			source.seek(pageno);
+			this.pageno = pageno;
+		}
+
+		@Override
+		public void rewind() {
+			seek(0);
+		}
+
+		@Override
+		public void close() {
+			source.close();
+		}
+
+	}
+
+	/**
+	 * This method writes a file of pages, each page stores its order
+	 * in the first integer and the last integer.
+	 * @param numofpages the number of pages in the file.
+	 * @return the file written.
+	 */
+	private File build(int numofpages) throws Exception {
+		File file = File.createTempFile("prefetch", ".b");
+		file.deleteOnExit();
+		PageWriter writer = new PageWriter(file);
+		for(int i=0;i<numofpages;i++) {
+			ByteBuffer buffer = ByteBuffer.allocate(NUM_OF_BYTES);
+			buffer.putInt(0, i);
+			buffer.putInt(NUM_OF_BYTES - 4, i);
+			writer.writePage(buffer);
+		}
+		writer.close();
+		return file;
+	}
+
+	/**
+	 * This method tests the pages come in the order of the file.
+	 */
+	@Test
+	public void testOrder() throws Exception {
+		PageReader reader = PageReader.open(build(100), false, true);
+		assertTrue(reader instanceof PrefetchPageReader);
+		for(int i=0;i<100;i++) {
+			ByteBuffer buffer = reader.readPage();
+			assertEquals(i, buffer.getInt(0));
+			assertEquals(i, buffer.getInt(NUM_OF_BYTES - 4));
+		}
+		assertNull(reader.readPage());
+		assertNull(reader.readPage());
+		reader.close();
+	}
+
+	/**
+	 * This method tests the pages skipped one after another are never read
+	 * from the disk. Only the pages read ahead before the first skip could
+	 * be read, and there are no more than 17 of them.
+	 */
+	@Test
+	public void testSkip() throws Exception {
+		RecordingReader source = new RecordingReader(
+				PageReader.open(build(60), false));
+		PageReader reader = new PrefetchPageReader(source);
+		assertEquals(0, reader.readPage().getInt(0));
+		for(int i=1;i<=40;i++)
+			reader.skipPage();
+		assertEquals(41, reader.readPage().getInt(0));
+		assertEquals(42, reader.readPage().getInt(0));
+		for(long i=20;i<=40;i++)
+			assertFalse(source.read.contains(i));
+		assertTrue(source.read.contains(41L));
+		/* the skips after the end of the file are ignored. */
+		for(int i=43;i<70;i++)
+			reader.skipPage();
+		assertNull(reader.readPage());
+		reader.rewind();
+		assertEquals(0, reader.readPage().getInt(0));
+		reader.close();
+	}
+
+	/**
+	 * This method tests the reader could be rewound and skip pages in
+	 * the middle of the file, like the inner side of the cartesian.
+	 */
+	@Test
+	public void testRewind() throws Exception {
+		PageReader reader = PageReader.open(build(40), false, true);
+		for(int time=0;time<10;time++) {
+			for(int i=0;i<time;i++)
+				assertEquals(i, reader.readPage().getInt(0));
+			reader.skipPage();
+			assertEquals(time + 1, reader.readPage().getInt(0));
+			reader.rewind();
+		}
+		assertEquals(0, reader.readPage().getInt(0));
+		reader.close();
+		/* the mapped reader is not wrapped. */
+		reader = PageReader.open(build(1), true, true);
+		assertFalse(reader instanceof PrefetchPageReader);
+		reader.close();
+	}
+
+}
@@ -0,0 +1,98 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import PhysicalOperators.ProjectOperator;
+import PhysicalOperators.ScanOperator;
+import SQLExpression.ColumnNode;
+import SQLExpression.Expression;
+import SmallSQLServer.Main;
+import Support.HumanToBinary;
+import Support.RandomTable;
+import TableElement.Tuple;
+
+/**
+ * This class is used for testing the scan operator in the row form that
+ * only reads the attributes used by the query: the tuples should have
+ * the same values as the full scan for those attributes, and the schema
+ * of the child operator should stay the same after the projection.
+ * @author messfish
+ *
+ */
+public class ProjectionTest {
+
+	/**
+	 * This method checks the narrowed scan hands out the same values as
+	 * the full scan for the attributes asked, also after a reset.
+	 */
+	@Test
+	public void testNarrowScan() {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		RandomTable random = new RandomTable(20000);
+		File file = random.generate(4);
+		File row = new HumanToBinary().convert(file, "Projection");
+		Set<String> attributes = new HashSet<>();
+		attributes.add("Tb");
+		attributes.add("Te");
+		ScanOperator full = new ScanOperator(row, false);
+		ScanOperator narrow = new ScanOperator(row, false, attributes);
+		assertEquals(2, narrow.getSchema().size());
+		int b = full.getSchema().get("Test.Tb").getIndex();
+		int e = full.getSchema().get("Test.Te").getIndex();
+		assertEquals(0, narrow.getSchema().get("Test.Tb").getIndex());
+		assertEquals(1, narrow.getSchema().get("Test.Te").getIndex());
+		for(int time=0;time<2;time++) {
+			Tuple tuple1 = null, tuple2 = null;
+			int size = 0;
+			while((tuple1=full.getNextTuple())!=null) {
+				tuple2 = narrow.getNextTuple();
+				assertEquals(2, tuple2.datasize());
+				assertEquals(tuple1.getTupleID(0), tuple2.getTupleID(0));
+				assertEquals(tuple1.getData(b).getDouble(),
+						tuple2.getData(0).getDouble(), 0.0);
+				assertEquals(tuple1.getData(e).getString(),
+						tuple2.getData(1).getString());
+				size++;
+			}
+			assertNull(narrow.getNextTuple());
+			assertEquals(20000, size);
+			full.reset();
+			narrow.reset();
+		}
+		full.close();
+		narrow.close();
+	}
+
+	/**
+	 * This method checks the projection does not change the indexes in
+	 * the schema of its child operator.
+	 */
+	@Test
+	public void testChildSchema() {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		RandomTable random = new RandomTable(100);
+		File row = new HumanToBinary().convert(random.generate(5), "Projection");
+		ScanOperator scan = new ScanOperator(row, false);
+		int index = scan.getSchema().get("Test.Te").getIndex();
+		List<Expression> list = new ArrayList<>();
+		list.add(new ColumnNode("Test.Te"));
+		List<String> alias = new ArrayList<>();
+		alias.add("");
+		ProjectOperator project = new ProjectOperator(scan, list, alias);
+		assertEquals(0, project.getSchema().get("Test.Te").getIndex());
+		assertEquals(index, scan.getSchema().get("Test.Te").getIndex());
+		Tuple tuple = project.getNextTuple();
+		assertEquals(scan.getCurrentTuple().getData(index).getString(),
+				tuple.getData(0).getString());
+		scan.close();
+	}
+
+}
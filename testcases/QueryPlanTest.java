@@ -0,0 +1,78 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import LogicalOperators.Operators;
+import SQLParser.PlainSelect;
+import SmallSQLServer.QueryHandler;
+
+/**
+ * This class handles the test cases of the logical query plan. The plan
+ * is checked in the pre-order form: the conjuncts of the where expression
+ * that use a single table should be right above the scan of that table,
+ * the ones that use several tables should be checked by the first join
+ * that has all of them.
+ * @author messfish
+ *
+ */
+public class QueryPlanTest {
+
+	/**
+	 * This method builds the logical plan of the query and returns the
+	 * plan in the pre-order form.
+	 * @param query the query.
+	 * @return the plan in the pre-order form.
+	 */
+	private String plan(String query) {
+		Operators root = QueryHandler.BuildQueryPlan(new PlainSelect(query));
+		StringBuilder sb = new StringBuilder();
+		root.print("", sb);
+		return sb.toString();
+	}
+
+	/** this case tests the query on a single table. */
+	@Test
+	public void testSingleTable() {
+		String query = "SELECT S.A FROM Sailors AS S WHERE S.A > 5 "
+				+ "AND ( S.B < 3 OR S.C = 2 )";
+		String expected = "Project:" + "\n" +
+				          "-Select: S.A > 5 AND ( S.B < 3 OR S.C = 2 )" + "\n" +
+				          "--Scan: S" + "\n";
+		assertEquals(expected, plan(query));
+	}
+
+	/** this case tests the conjuncts pushed down in a three way join. */
+	@Test
+	public void testPushDown() {
+		String query = "SELECT S.A FROM Sailors AS S , Reserves AS R , "
+				+ "Boats AS B WHERE S.A = R.G AND R.H = B.D AND S.B < 3 "
+				+ "AND NOT ( B.E >= 2 ) AND R.G > 1 + 2 AND 1 = 1";
+		/* the tables are joined in the order of the from list. */
+		String expected = "Project:" + "\n" +
+				          "-Join: S.A = R.G" + "\n" +
+				          "--Join: R.H = B.D" + "\n" +
+				          "---Select: R.G > 3" + "\n" +
+				          "----Scan: R" + "\n" +
+				          "---Select: B.E < 2" + "\n" +
+				          "----Scan: B" + "\n" +
+				          "--Select: S.B < 3" + "\n" +
+				          "---Scan: S" + "\n";
+		assertEquals(expected, plan(query));
+	}
+
+	/** this case tests the conjuncts that could not be pushed down. */
+	@Test
+	public void testRest() {
+		String query = "SELECT * FROM Sailors AS S , Reserves AS R "
+				+ "WHERE S.A = R.G OR S.B < 3 AND X.E = 2";
+		String expected = "Project:" + "\n" +
+				          "-Select: X.E = 2" + "\n" +
+				          "--Join: S.A = R.G OR S.B < 3" + "\n" +
+				          "---Scan: R" + "\n" +
+				          "---Scan: S" + "\n";
+		assertEquals(expected, plan(query));
+	}
+
+}
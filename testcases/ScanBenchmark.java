@@ -0,0 +1,79 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import PhysicalOperators.ScanOperator;
+import SmallSQLServer.Main;
+import Support.HumanToBinary;
+import Support.RandomTable;
+import TableElement.Tuple;
+
+/**
+ * This class is mainly used for comparing the two scan modes of the
+ * scan operator: the heap buffer mode which copies every page into a
+ * newly allocated buffer, and the memory mapped mode which decodes the
+ * tuples straight from the mapped file. Both modes should return the
+ * same tuples, and the time used by each mode will be printed out.
+ * @author messfish
+ *
+ */
+public class ScanBenchmark {
+
+	private static final int NUM_OF_TIMES = 5;
+
+	/**
+	 * This method scans the whole file and returns the number of
+	 * tuples in it. Notice we touch the first attribute of every tuple
+	 * so the decoding could not be left out.
+	 * @param scan the scan operator used for scanning.
+	 * @return the number of tuples in the file.
+	 */
+	private int scanAll(ScanOperator scan) {
+		int size = 0;
+		long checksum = 0;
+		Tuple tuple = null;
+		while((tuple=scan.getNextTuple())!=null) {
+			checksum += tuple.getLong(0);
+			size++;
+		}
+		assertTrue(checksum >= 0);
+		return size;
+	}
+
+	/**
+	 * This method is used to compare the two scan modes on a large file.
+	 * The file is scanned several times by both modes so the warming up
+	 * of the JIT compiler will not affect the result too much.
+	 */
+	@Test
+	public void testScanModes() {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		RandomTable random = new RandomTable(1000000);
+		File file = random.generate(1);
+		HumanToBinary human = new HumanToBinary();
+		File binary = human.convert(file, "Benchmark");
+		long heaptime = 0, mappedtime = 0;
+		for(int i=0;i<NUM_OF_TIMES;i++) {
+			long start = System.currentTimeMillis();
+			ScanOperator heap = new ScanOperator(binary, false);
+			int heapsize = scanAll(heap);
+			heap.close();
+			long middle = System.currentTimeMillis();
+			ScanOperator mapped = new ScanOperator(binary, true);
+			int mappedsize = scanAll(mapped);
+			mapped.close();
+			long end = System.currentTimeMillis();
+			assertEquals(1000000, heapsize);
+			assertEquals(heapsize, mappedsize);
+			heaptime += middle - start;
+			mappedtime += end - middle;
+		}
+		System.out.println("Heap buffer scan: " + heaptime / NUM_OF_TIMES + " ms.");
+		System.out.println("Memory mapped scan: " + mappedtime / NUM_OF_TIMES + " ms.");
+	}
+
+}
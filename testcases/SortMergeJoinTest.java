@@ -0,0 +1,110 @@
+package testcases;
+
+import static org.junit.Assert.*;
+import static testcases.JoinTestHelper.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import PhysicalOperators.JoinOperator;
+import PhysicalOperators.Operator;
+import PhysicalOperators.ScanOperator;
+import PhysicalOperators.SortMergeJoinOperator;
+import PhysicalOperators.SortOperator;
+import SQLExpression.ColumnNode;
+import SQLExpression.Expression;
+import SmallSQLServer.Main;
+
+/**
+ * This class handles the test cases of the sort merge join. The tuples of
+ * the merge join should be the same as the tuples of the nested loops join
+ * with the same condition, and they should come out sorted by the key.
+ * The tuple IDs are not checked since the external sort drops them.
+ * @author messfish
+ *
+ */
+public class SortMergeJoinTest {
+
+	/**
+	 * This case checks the merge join gives the same tuples as the nested
+	 * loops join on the keys of each type, with and without the extra
+	 * conditions, and the tuples are sorted by the key. The sorted files
+	 * are deleted when the join is closed.
+	 */
+	@Test
+	public void testMerge() {
+		File file1 = generate("ML", 600, 1, 40, 0, 0.0);
+		File file2 = generate("MR", 150, 2, 40, 0, 0.0);
+		String[][] conditions = {{"ML.A = MR.A", "ML.A", "MR.A"},
+				{"MR.C = ML.C", "ML.C", "MR.C"},
+				{"ML.B = MR.B AND ML.A < MR.A", "ML.B", "MR.B"}};
+		for(String name : tempFiles("-"))
+			new File(Main.getTemp() + "/" + name).delete();
+		for(String[] condition : conditions) {
+			Expression express = parse(condition[0]);
+			Operator left = new ScanOperator(file1);
+			Operator right = new ScanOperator(file2);
+			int index = left.getSchema().get(condition[1]).getIndex();
+			SortMergeJoinOperator merge = new SortMergeJoinOperator(left, right,
+					express, condition[1], condition[2], false, false);
+			assertTrue(merge.isSortedOn(condition[2]));
+			List<String> expected = readData(new JoinOperator(
+					new ScanOperator(file1), new ScanOperator(file2), express), -1);
+			assertTrue(expected.size() > 0);
+			assertEquals(expected, readData(merge, index));
+			merge.reset();
+			assertEquals(expected, readData(merge, index));
+			assertTrue(tempFiles("-").size() > 0);
+			merge.close();
+			assertEquals(0, tempFiles("-").size());
+		}
+	}
+
+	/**
+	 * This case checks the side that is sorted already is not sorted again,
+	 * the left side is sorted by the sort operator first.
+	 */
+	@Test
+	public void testSorted() {
+		File file1 = generate("ML", 300, 3, 40, 0, 0.0);
+		File file2 = generate("MR", 200, 4, 40, 0, 0.0);
+		Expression express = parse("ML.A = MR.A");
+		List<Expression> orderlist = new ArrayList<>();
+		orderlist.add(new ColumnNode("ML.A"));
+		Operator left = new SortOperator(new ScanOperator(file1), orderlist,
+				new int[]{1});
+		Operator merge = new SortMergeJoinOperator(left, new ScanOperator(file2),
+				express, "ML.A", "MR.A", true, false);
+		List<String> expected = readData(new JoinOperator(
+				new ScanOperator(file1), new ScanOperator(file2), express), -1);
+		assertEquals(expected, readData(merge, 0));
+	}
+
+	/**
+	 * This case checks the group of the skewed key that is larger than the
+	 * memory, a part of the group is written into the temporary file.
+	 */
+	@Test
+	public void testSpill() {
+		File file1 = generate("ML", 200, 5, 40, 120, 0.5);
+		File file2 = generate("MR", 300, 6, 40, 120, 0.5);
+		Main.setJoinPages(1);
+		try {
+			Expression express = parse("ML.A = MR.A AND ML.B <= MR.B");
+			Operator merge = new SortMergeJoinOperator(new ScanOperator(file1),
+					new ScanOperator(file2), express, "ML.A", "MR.A", false, false);
+			List<String> expected = readData(new JoinOperator(
+					new ScanOperator(file1), new ScanOperator(file2), express), -1);
+			assertTrue(expected.size() > 0);
+			assertEquals(expected, readData(merge, 0));
+			merge.reset();
+			assertEquals(expected, readData(merge, 0));
+		} finally {
+			Main.setJoinPages(4096);
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import PhysicalOperators.Operator;
+import PhysicalOperators.ProjectOperator;
+import PhysicalOperators.ScanOperator;
+import PhysicalOperators.SelectOperator;
+import SQLExpression.ColumnNode;
+import SQLExpression.Expression;
+import SQLExpression.GreaterThan;
+import SQLExpression.LongValue;
+import SmallSQLServer.Main;
+import Support.HumanToBinary;
+import Support.RandomTable;
+import TableElement.Tuple;
+import TableElement.TupleBatch;
+
+/**
+ * This class is used for testing the operators that hand out the tuples
+ * in batches: the rows selected in the batches should be the same as the
+ * tuples handed out one by one, for the operators that work on the
+ * batches and for the operators that build the batches from the tuples.
+ * @author messfish
+ *
+ */
+public class TupleBatchTest {
+
+	/**
+	 * This method checks the rows of the batches from the first operator
+	 * are the same as the tuples from the second operator.
+	 * @param batches the operator that will be read by batches.
+	 * @param tuples the operator that will be read by tuples.
+	 * @return the number of tuples.
+	 */
+	private int compare(Operator batches, Operator tuples) {
+		TupleBatch batch = null;
+		int size = 0;
+		while((batch=batches.getNextBatch())!=null) {
+			assertTrue(batch.getCount() > 0);
+			assertTrue(batch.getCount() <= TupleBatch.BATCH_SIZE);
+			for(int i=0;i<batch.getCount();i++) {
+				Tuple tuple1 = batch.getTuple(batch.getSelected(i));
+				Tuple tuple2 = tuples.getNextTuple();
+				assertNotNull(tuple2);
+				assertEquals(tuple2.getTupleID(0), tuple1.getTupleID(0));
+				assertTrue(tuple2.isEqual(tuple1));
+				size++;
+			}
+		}
+		assertNull(tuples.getNextTuple());
+		return size;
+	}
+
+	/**
+	 * This method checks the scan operator and the select operator that
+	 * work on the batches.
+	 */
+	@Test
+	public void testSelect() {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		RandomTable random = new RandomTable(5000);
+		File row = new HumanToBinary().convert(random.generate(8), "Batch");
+		assertEquals(5000, compare(new ScanOperator(row, false),
+				new ScanOperator(row, false)));
+		Expression express = new GreaterThan(new ColumnNode("Test.Ta"),
+				new LongValue(500000));
+		Operator select1 = new SelectOperator(new ScanOperator(row, false), express);
+		Operator select2 = new SelectOperator(new ScanOperator(row, false), express);
+		int size = compare(select1, select2);
+		assertTrue(size > 0&&size < 5000);
+	}
+
+	/**
+	 * This method checks the project operator that works on the batches,
+	 * the child operator is the one that builds the batches from the tuples.
+	 */
+	@Test
+	public void testProject() {
+		Main.setTest("/Users/messfish/Desktop/SQLdatabase/test");
+		RandomTable random = new RandomTable(3000);
+		File row = new HumanToBinary().convert(random.generate(9), "Batch");
+		List<Expression> list = new ArrayList<>();
+		list.add(new ColumnNode("Test.Te"));
+		list.add(new ColumnNode("Test.Tb"));
+		List<String> alias = new ArrayList<>();
+		alias.add("");
+		alias.add("");
+		Operator project1 = new ProjectOperator(new ScanOperator(row, true, null) {
+			@Override
+			public TupleBatch getNextBatch() {
+				return collectBatch();
+			}
+		}, list, alias);
+		Operator project2 = new ProjectOperator(new ScanOperator(row, false),
+				list, alias);
+		assertEquals(3000, compare(project1, project2));
+		assertNull(project1.getNextBatch());
+	}
+
+}
@@ -0,0 +1,139 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import TableElement.DataType;
+import TableElement.Tuple;
+
+/**
+ * This class is mainly used for comparing the tuple that stores its data
+ * in arrays of primitives with the old form, which is an array of data
+ * type objects. The same rows of a long, a double and a string are built
+ * in both forms, summed up and sorted. The time used by each step and the
+ * memory used by the rows will be printed out.
+ * @author messfish
+ *
+ */
+public class TupleBenchmark {
+
+	private static final int NUM_OF_ROWS = 1000000;
+	private static final int NUM_OF_TIMES = 5;
+	private static final byte[] TYPES = {1, 5, 2};
+
+	/**
+	 * This method is used to get the memory used by the heap.
+	 * @return the number of bytes used.
+	 */
+	private long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for(int i=0;i<3;i++) System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * This method builds the rows in the old form.
+	 * @param strings the strings used by the rows.
+	 * @return the list of rows.
+	 */
+	private List<DataType[]> buildObjects(String[] strings) {
+		Random random = new Random(1);
+		List<DataType[]> list = new ArrayList<>(NUM_OF_ROWS);
+		for(int i=0;i<NUM_OF_ROWS;i++) {
+			DataType[] row = new DataType[3];
+			row[0] = new DataType((long)random.nextInt(1000));
+			row[1] = new DataType(random.nextDouble());
+			row[2] = new DataType(strings[i % strings.length]);
+			list.add(row);
+		}
+		return list;
+	}
+
+	/**
+	 * This method builds the rows in the form of primitives.
+	 * @param strings the strings used by the rows.
+	 * @return the list of rows.
+	 */
+	private List<Tuple> buildTuples(String[] strings) {
+		Random random = new Random(1);
+		List<Tuple> list = new ArrayList<>(NUM_OF_ROWS);
+		for(int i=0;i<NUM_OF_ROWS;i++) {
+			Tuple tuple = new Tuple(TYPES, 1);
+			tuple.setLong(0, random.nextInt(1000));
+			tuple.setDouble(1, random.nextDouble());
+			tuple.setString(2, strings[i % strings.length]);
+			list.add(tuple);
+		}
+		return list;
+	}
+
+	/**
+	 * This method is used to compare the two forms of the rows.
+	 */
+	@Test
+	public void testTupleForms() {
+		String[] strings = new String[1000];
+		for(int i=0;i<strings.length;i++)
+			strings[i] = "name" + i;
+		long[] objecttime = new long[3], tupletime = new long[3];
+		long objectmemory = 0, tuplememory = 0;
+		double objectsum = 0, tuplesum = 0;
+		for(int time=0;time<NUM_OF_TIMES;time++) {
+			long base = usedMemory();
+			long start = System.nanoTime();
+			List<DataType[]> objects = buildObjects(strings);
+			objecttime[0] += System.nanoTime() - start;
+			objectmemory = usedMemory() - base;
+			start = System.nanoTime();
+			objectsum = 0;
+			for(DataType[] row : objects)
+				objectsum += row[0].getLong() + row[1].getDouble();
+			objecttime[1] += System.nanoTime() - start;
+			start = System.nanoTime();
+			Collections.sort(objects, (row1, row2) -> {
+				for(int i=0;i<3;i++) {
+					int result = row1[i].compare(row2[i]);
+					if(result!=0) return result;
+				}
+				return 0;
+			});
+			objecttime[2] += System.nanoTime() - start;
+			objects = null;
+			base = usedMemory();
+			start = System.nanoTime();
+			List<Tuple> tuples = buildTuples(strings);
+			tupletime[0] += System.nanoTime() - start;
+			tuplememory = usedMemory() - base;
+			start = System.nanoTime();
+			tuplesum = 0;
+			for(Tuple tuple : tuples)
+				tuplesum += tuple.getLong(0) + tuple.getDouble(1);
+			tupletime[1] += System.nanoTime() - start;
+			start = System.nanoTime();
+			Collections.sort(tuples, (tuple1, tuple2) -> {
+				for(int i=0;i<3;i++) {
+					int result = tuple1.compare(i, tuple2, i);
+					if(result!=0) return result;
+				}
+				return 0;
+			});
+			tupletime[2] += System.nanoTime() - start;
+			assertEquals(objectsum, tuplesum, 1e-6);
+		}
+		String[] steps = {"build", "sum", "sort"};
+		for(int i=0;i<3;i++)
+			System.out.println(steps[i] + ": data types " + objecttime[i] /
+				NUM_OF_TIMES / 1000000 + " ms, primitives " + tupletime[i] /
+				NUM_OF_TIMES / 1000000 + " ms.");
+		System.out.println("memory: data types " + objectmemory / 1048576 +
+				" MB, primitives " + tuplememory / 1048576 + " MB.");
+		assertTrue(tuplememory < objectmemory);
+	}
+
+}
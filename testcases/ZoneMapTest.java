@@ -0,0 +1,87 @@
+package testcases;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import Storage.ZoneMap;
+import Storage.ZonePredicate;
+
+/**
+ * This class is used for testing the zone map: the minimum and the
+ * maximum values recorded for each page, the side file, and whether the
+ * pages are ruled out correctly by the comparisons.
+ * @author messfish
+ *
+ */
+public class ZoneMapTest {
+
+	/**
+	 * This method builds a zone map of two pages with a long attribute,
+	 * a string attribute and a double attribute. The first page stores
+	 * the values from 0 to 99 and the second one from 100 to 199.
+	 * @return the zone map built.
+	 */
+	private ZoneMap build() {
+		ZoneMap zonemap = new ZoneMap(new int[]{1, 2, 5});
+		for(int i=0;i<200;i++) {
+			if(i%100==0) zonemap.addPage();
+			zonemap.update(0, i);
+			zonemap.update(2, Double.doubleToLongBits(i / 2.0));
+		}
+		return zonemap;
+	}
+
+	/**
+	 * This method tests the pages are ruled out by the comparisons.
+	 */
+	@Test
+	public void testMayMatch() {
+		ZoneMap zonemap = build();
+		List<ZonePredicate> list = new ArrayList<>();
+		list.add(new ZonePredicate(0, ZonePredicate.GREATER_THAN, 99L));
+		assertFalse(zonemap.mayMatch(0, list));
+		assertTrue(zonemap.mayMatch(1, list));
+		list.clear();
+		list.add(new ZonePredicate(0, ZonePredicate.EQUALS, 100L));
+		assertFalse(zonemap.mayMatch(0, list));
+		assertTrue(zonemap.mayMatch(1, list));
+		list.clear();
+		list.add(new ZonePredicate(2, ZonePredicate.LESS_THAN_OR_EQUALS, 49.5));
+		assertTrue(zonemap.mayMatch(0, list));
+		assertFalse(zonemap.mayMatch(1, list));
+		list.add(new ZonePredicate(0, ZonePredicate.GREATER_THAN_OR_EQUALS, 99.5));
+		assertFalse(zonemap.mayMatch(0, list));
+		/* the page that is not in the zone map could never be skipped. */
+		assertTrue(zonemap.mayMatch(2, list));
+		list.clear();
+		list.add(new ZonePredicate(1, ZonePredicate.EQUALS, 0L));
+		assertTrue(zonemap.mayMatch(0, list));
+	}
+
+	/**
+	 * This method tests the zone map could be written into the side file
+	 * and read back.
+	 */
+	@Test
+	public void testSideFile() throws Exception {
+		File file = File.createTempFile("zone", ".b");
+		file.deleteOnExit();
+		ZoneMap.getFile(file).deleteOnExit();
+		build().write(file);
+		ZoneMap zonemap = ZoneMap.read(file);
+		assertEquals(2, zonemap.getNumOfPages());
+		assertEquals(0, zonemap.getNullCount(1, 0));
+		List<ZonePredicate> list = new ArrayList<>();
+		list.add(new ZonePredicate(0, ZonePredicate.LESS_THAN, 100L));
+		assertTrue(zonemap.mayMatch(0, list));
+		assertFalse(zonemap.mayMatch(1, list));
+		assertEquals(ZonePredicate.GREATER_THAN,
+				ZonePredicate.flip(ZonePredicate.LESS_THAN));
+	}
+
+}